@@ -0,0 +1,39 @@
+package com.lemnos.server.configurations;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Tempo limite por requisição para as respostas assíncronas, como o {@code StreamingResponseBody} da exportação de produtos.
+ * <p>
+ * Quem precisa de mais tempo que o padrão do servidor grava {@link #TEMPO_LIMITE} na requisição antes de devolver a resposta;
+ * as outras requisições continuam com o padrão.
+ **/
+@Configuration
+public class AsyncConfiguration implements WebMvcConfigurer {
+    /**
+     * Atributo da requisição com o tempo limite da resposta assíncrona, em milissegundos ({@code Long})
+     **/
+    public static final String TEMPO_LIMITE = AsyncConfiguration.class.getName() + ".TEMPO_LIMITE";
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.registerCallableInterceptors(new CallableProcessingInterceptor() {
+            @Override
+            public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+                // Chamado antes do startAsync, quando o tempo limite ainda pode ser trocado
+                if (request.getAttribute(TEMPO_LIMITE, RequestAttributes.SCOPE_REQUEST) instanceof Long tempoLimite
+                        && request instanceof AsyncWebRequest asyncWebRequest) {
+                    asyncWebRequest.setTimeout(tempoLimite);
+                }
+            }
+        });
+    }
+}
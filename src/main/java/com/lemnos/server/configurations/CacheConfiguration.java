@@ -21,14 +21,10 @@ public class CacheConfiguration {
     public CacheManager cacheManager() {
         ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager();
         cacheManager.setAllowNullValues(false);
-        cacheManager.setCacheNames(Arrays.asList("productsDiscount", "allClientes", "allFuncionarios", "allFornecedores"));
+        cacheManager.setCacheNames(Arrays.asList("allClientes", "allFuncionarios", "allFornecedores"));
         return cacheManager;
     }
 
-    @CacheEvict(value = "productsDiscount", allEntries = true)
-    @Scheduled(fixedDelay = TRINTA_SEGUNDOS, initialDelay = 0)
-    public void evictProductsDiscountCache() { }
-
     @CacheEvict(value = "allClientes", allEntries = true)
     @Scheduled(fixedDelay = TRINTA_SEGUNDOS, initialDelay = 0)
     public void evictAllClientesCache() { }
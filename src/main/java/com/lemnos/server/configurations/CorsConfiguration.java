@@ -1,6 +1,7 @@
 package com.lemnos.server.configurations;
 
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
@@ -12,6 +13,7 @@ public class CorsConfiguration implements WebMvcConfigurer {
                 .allowedOrigins("http://localhost:5173", "http://localhost:5174", "https://lemnos.vercel.app")
                 .allowedMethods("*")
                 .allowedHeaders("*")
+                .exposedHeaders(HttpHeaders.ETAG, HttpHeaders.CONTENT_DISPOSITION)
                 .allowCredentials(true);
     }
 }
\ No newline at end of file
@@ -0,0 +1,182 @@
+package com.lemnos.server.configurations;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lemnos.server.exceptions.BaseException;
+import com.lemnos.server.exceptions.idempotencia.IdempotenciaNotValidException;
+import com.lemnos.server.models.idempotencia.RespostaIdempotente;
+import com.lemnos.server.services.IdempotenciaService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Suporte ao cabeçalho {@code Idempotency-Key} em {@code POST /pedido} e {@code POST /carrinho/**}.
+ * <p>
+ * Roda depois da cadeia do Spring Security, então só vê requisições autenticadas e autorizadas. A primeira requisição com
+ * uma chave é executada e tem a resposta guardada pelo {@link IdempotenciaService}; as repetições recebem a mesma resposta,
+ * com o cabeçalho {@code Idempotent-Replayed}, sem passar pelos controllers.
+ **/
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class IdempotenciaFilter extends OncePerRequestFilter {
+    private static final String CABECALHO = "Idempotency-Key";
+    private static final String CABECALHO_REPETIDA = "Idempotent-Replayed";
+    private static final int TAMANHO_MAXIMO_CHAVE = 100;
+
+    private final IdempotenciaService idempotenciaService;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        if (!HttpMethod.POST.matches(request.getMethod()) || request.getHeader(CABECALHO) == null) return true;
+        String caminho = request.getRequestURI().substring(request.getContextPath().length());
+        return !(caminho.equals("/pedido") || caminho.equals("/carrinho") || caminho.startsWith("/carrinho/"));
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response, @NonNull FilterChain filterChain) throws ServletException, IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated() || authentication instanceof AnonymousAuthenticationToken) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String usuario = authentication.getName();
+        String chave = request.getHeader(CABECALHO).trim();
+        RequisicaoComCorpo requisicao = new RequisicaoComCorpo(request);
+        String impressao = getImpressao(requisicao);
+        IdempotenciaService.Reserva reserva;
+        try {
+            if (chave.isEmpty() || chave.length() > TAMANHO_MAXIMO_CHAVE)
+                throw new IdempotenciaNotValidException("A Idempotency-Key deve ter entre 1 e " + TAMANHO_MAXIMO_CHAVE + " caracteres");
+            reserva = idempotenciaService.reservar(usuario, chave, impressao);
+        }
+        catch (BaseException e) {
+            escreverErro(response, e);
+            return;
+        }
+        if (reserva.resposta() != null) {
+            repetir(response, reserva.resposta());
+            return;
+        }
+
+        ContentCachingResponseWrapper resposta = new ContentCachingResponseWrapper(response);
+        try {
+            filterChain.doFilter(requisicao, resposta);
+        }
+        catch (IOException | ServletException | RuntimeException e) {
+            idempotenciaService.liberar(usuario, chave, reserva);
+            throw e;
+        }
+        idempotenciaService.concluir(usuario, chave, impressao, reserva, resposta.getStatus(), resposta.getContentType(), resposta.getContentAsByteArray());
+        resposta.copyBodyToResponse();
+    }
+
+    private void repetir(HttpServletResponse response, RespostaIdempotente resposta) throws IOException {
+        response.setStatus(resposta.status());
+        response.setHeader(CABECALHO_REPETIDA, "true");
+        if (resposta.contentType() != null) response.setContentType(resposta.contentType());
+        if (resposta.corpo() != null && resposta.corpo().length > 0) {
+            response.setContentLength(resposta.corpo().length);
+            response.getOutputStream().write(resposta.corpo());
+        }
+    }
+
+    private void escreverErro(HttpServletResponse response, BaseException exception) throws IOException {
+        response.setStatus(exception.getStatus().value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        objectMapper.writeValue(response.getOutputStream(), exception.getExceptionResponse());
+    }
+
+    /**
+     * SHA-256 do método, caminho, query e corpo da requisição.
+     **/
+    private String getImpressao(RequisicaoComCorpo requisicao) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((requisicao.getMethod() + " " + requisicao.getRequestURI() + "?" + requisicao.getQueryString() + "\n").getBytes(StandardCharsets.UTF_8));
+            digest.update(requisicao.corpo);
+            return HexFormat.of().formatHex(digest.digest());
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Lê o corpo antes de executar a requisição, para calcular a impressão, e o entrega de novo ao controller.
+     **/
+    private static class RequisicaoComCorpo extends HttpServletRequestWrapper {
+        private final byte[] corpo;
+
+        private RequisicaoComCorpo(HttpServletRequest request) throws IOException {
+            super(request);
+            this.corpo = request.getInputStream().readAllBytes();
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream entrada = new ByteArrayInputStream(corpo);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return entrada.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public int read() {
+                    return entrada.read();
+                }
+
+                @Override
+                public int read(@NonNull byte[] b, int off, int len) {
+                    return entrada.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(getInputStream(), (encoding == null) ? StandardCharsets.UTF_8 : Charset.forName(encoding)));
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.lemnos.server.configurations;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Migra os pedidos antigos, que guardam os itens como texto em Pedido.Descricao, para a tabela Itens_Pedido.
+ * <p>
+ * Roda em segundo plano na inicialização, dividindo os pedidos pendentes em faixas de Id processadas em paralelo,
+ * cada faixa na sua própria transação. Pedidos que já têm itens são ignorados, então reiniciar a aplicação
+ * no meio da migração só continua de onde parou. Quem depende de Itens_Pedido completo espera o {@link #getConcluida}.
+ **/
+@Component
+@RequiredArgsConstructor
+public class ItensPedidoBackfill implements CommandLineRunner {
+    private static final Logger log = LoggerFactory.getLogger(ItensPedidoBackfill.class);
+    private static final int TAMANHO_FAIXA = 1000;
+    private static final int THREADS = 4;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CompletableFuture<Boolean> concluida = new CompletableFuture<>();
+
+    @Override
+    public void run(String... args) {
+        Thread.ofVirtual().name("itens-pedido-backfill").start(() -> {
+            try {
+                concluida.complete(migrar());
+            }
+            catch (RuntimeException e) {
+                log.error("Falha ao migrar os itens dos pedidos, a migração será tentada de novo na próxima inicialização", e);
+                concluida.complete(false);
+            }
+        });
+    }
+
+    /**
+     * Completa quando a migração desta inicialização termina: verdadeiro se todos os pedidos têm os itens em Itens_Pedido,
+     * falso se alguma faixa falhou.
+     **/
+    public CompletableFuture<Boolean> getConcluida() {
+        return concluida;
+    }
+
+    private boolean migrar() {
+        List<Integer> pendentes = jdbcTemplate.queryForList("""
+                SELECT p.Id FROM Pedido p
+                WHERE p.Descricao IS NOT NULL
+                AND NOT EXISTS (SELECT 1 FROM Itens_Pedido i WHERE i.Id_Pedido = p.Id)
+                ORDER BY p.Id
+                """, Map.of(), Integer.class);
+        if (pendentes.isEmpty()) return true;
+
+        log.info("Migrando os itens de {} pedidos para Itens_Pedido", pendentes.size());
+        AtomicInteger migrados = new AtomicInteger();
+        boolean completa = true;
+        List<Future<?>> faixas = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(THREADS)) {
+            for (int i = 0; i < pendentes.size(); i += TAMANHO_FAIXA) {
+                List<Integer> faixa = pendentes.subList(i, Math.min(i + TAMANHO_FAIXA, pendentes.size()));
+                faixas.add(executor.submit(() -> migrados.addAndGet(migrarFaixa(faixa))));
+            }
+            for (Future<?> faixa : faixas) {
+                try {
+                    faixa.get();
+                }
+                catch (Exception e) {
+                    completa = false;
+                    log.error("Falha ao migrar uma faixa de pedidos, ela será tentada de novo na próxima inicialização", e);
+                }
+            }
+        }
+        log.info("Itens de {} pedidos migrados para Itens_Pedido", migrados.get());
+        return completa;
+    }
+
+    private int migrarFaixa(List<Integer> idsPedido) {
+        return Objects.requireNonNull(transactionTemplate.execute(status -> {
+            List<SqlParameterSource> itens = new ArrayList<>();
+            jdbcTemplate.query("""
+                    SELECT p.Id, p.Descricao FROM Pedido p
+                    WHERE p.Id IN (:ids)
+                    AND NOT EXISTS (SELECT 1 FROM Itens_Pedido i WHERE i.Id_Pedido = p.Id)
+                    """,
+                    Map.of("ids", idsPedido),
+                    rs -> {
+                        int idPedido = rs.getInt("Id");
+                        getQuantidades(rs.getString("Descricao")).forEach((idProduto, quantidade) -> itens.add(new MapSqlParameterSource()
+                                .addValue("idPedido", idPedido)
+                                .addValue("idProduto", idProduto)
+                                .addValue("quantidade", quantidade)
+                        ));
+                    }
+            );
+            if (itens.isEmpty()) return 0;
+
+            jdbcTemplate.batchUpdate("""
+                    INSERT INTO Itens_Pedido (Id_Pedido, Id_Produto, Quantidade)
+                    VALUES (:idPedido, :idProduto, :quantidade)
+                    ON CONFLICT DO NOTHING
+                    """, itens.toArray(SqlParameterSource[]::new));
+            return (int) itens.stream().map(item -> item.getValue("idPedido")).distinct().count();
+        }));
+    }
+
+    /**
+     * Lê as linhas {@code "idProduto, quantidade"} da descrição, somando produtos repetidos e ignorando linhas inválidas.
+     **/
+    private Map<UUID, Integer> getQuantidades(String descricao) {
+        Map<UUID, Integer> quantidades = new LinkedHashMap<>();
+        for (String linha : descricao.split("\\R")) {
+            String[] partes = linha.split(",");
+            if (partes.length != 2) continue;
+            try {
+                int quantidade = Integer.parseInt(partes[1].trim());
+                if (quantidade > 0) quantidades.merge(UUID.fromString(partes[0].trim()), quantidade, Integer::sum);
+            }
+            catch (IllegalArgumentException e) {
+                log.warn("Linha inválida na descrição de um pedido: {}", linha);
+            }
+        }
+        return quantidades;
+    }
+}
@@ -0,0 +1,45 @@
+package com.lemnos.server.configurations;
+
+import com.lemnos.server.services.ResumoVendasService;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * Preenche o resumo de vendas com o histórico na primeira inicialização depois da criação da tabela Resumo_Vendas.
+ * <p>
+ * A reconstrução lê os itens de Itens_Pedido, então só começa depois que o {@link ItensPedidoBackfill} migrou todos os pedidos
+ * antigos; se a migração falhar, o histórico fica de fora e deve ser reconstruído em {@code /relatorio/vendas/reconstruir}
+ * depois que ela terminar em uma próxima inicialização. Só os agregados diários são reconstruídos: Data_Pedido não guarda
+ * a hora, então os agregados por hora dos pedidos anteriores à tabela não existem e não podem ser refeitos.
+ **/
+@Component
+@RequiredArgsConstructor
+public class ResumoVendasBackfill implements CommandLineRunner {
+    private static final Logger log = LoggerFactory.getLogger(ResumoVendasBackfill.class);
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final ResumoVendasService resumoVendasService;
+    private final ItensPedidoBackfill itensPedidoBackfill;
+
+    @Override
+    public void run(String... args) {
+        Boolean vazio = jdbcTemplate.queryForObject("SELECT NOT EXISTS (SELECT 1 FROM Resumo_Vendas)", Map.of(), Boolean.class);
+        if (!Boolean.TRUE.equals(vazio)) return;
+
+        LocalDate primeiroPedido = jdbcTemplate.queryForObject("SELECT MIN(Data_Pedido) FROM Pedido", Map.of(), LocalDate.class);
+        if (primeiroPedido == null) return;
+
+        LocalDate hoje = LocalDate.now();
+        itensPedidoBackfill.getConcluida().thenAccept(completa -> {
+            if (completa) resumoVendasService.iniciarReconstrucao(primeiroPedido, hoje);
+            else log.error("Itens_Pedido ainda está incompleto, o resumo de vendas de {} a {} não foi reconstruído", primeiroPedido, hoje);
+        });
+    }
+}
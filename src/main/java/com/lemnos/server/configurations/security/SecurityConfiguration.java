@@ -1,6 +1,7 @@
 package com.lemnos.server.configurations.security;
 
 import com.lemnos.server.models.enums.Roles;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -31,20 +32,25 @@ public class SecurityConfiguration {
                 .csrf(AbstractHttpConfigurer::disable)
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.IF_REQUIRED))
                 .authorizeHttpRequests(authorization -> authorization
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
-                        .requestMatchers(HttpMethod.GET, "/swagger", "/swagger-ui/**", "/v3/api-docs").permitAll()
-                        .requestMatchers(HttpMethod.GET, "/produto", "/produto/desconto", "/produto/{id}", "/v3/api-docs/**", "/swagger-ui/**").permitAll()
-                        .requestMatchers(HttpMethod.POST, "/produto/find/**", "/auth/login", "/auth/login-firebase", "/auth/register", "/auth/register/verificar").permitAll()
-                        .requestMatchers(HttpMethod.GET, "/cliente", "/cliente/find", "/endereco", "/pedido/**", "/produto/fav", "/carrinho").hasRole(Roles.CLIENTE.getRole())
-                        .requestMatchers(HttpMethod.POST, "/endereco/**", "/pedido", "/produto/fav", "/produto/avaliar/**", "/carrinho").hasRole(Roles.CLIENTE.getRole())
+                        .requestMatchers(HttpMethod.GET, "/swagger", "/swagger-ui/**", "/v3/api-docs", "/actuator/health").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/produto/export").hasRole(Roles.FUNCIONARIO.getRole())
+                        .requestMatchers(HttpMethod.GET, "/produto", "/produto/desconto", "/produto/ranking/*", "/produto/changes", "/produto/{id}", "/v3/api-docs/**", "/swagger-ui/**").permitAll()
+                        .requestMatchers(HttpMethod.POST, "/produto/find/**", "/produto/batch", "/auth/login", "/auth/login-firebase", "/auth/register", "/auth/register/verificar").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/pedido/vendas").hasRole(Roles.FUNCIONARIO.getRole())
+                        .requestMatchers(HttpMethod.POST, "/pedido/fila").hasRole(Roles.FUNCIONARIO.getRole())
+                        .requestMatchers(HttpMethod.GET, "/cliente", "/cliente/find", "/endereco", "/pedido/**", "/produto/fav", "/carrinho", "/frete").hasRole(Roles.CLIENTE.getRole())
+                        .requestMatchers(HttpMethod.POST, "/endereco/**", "/pedido", "/produto/fav", "/produto/avaliar/**", "/carrinho/**").hasRole(Roles.CLIENTE.getRole())
+                        .requestMatchers(HttpMethod.PUT, "/pedido/lote").hasRole(Roles.FUNCIONARIO.getRole())
                         .requestMatchers(HttpMethod.PUT, "/cliente", "/endereco", "/pedido").hasRole(Roles.CLIENTE.getRole())
                         .requestMatchers(HttpMethod.DELETE, "/endereco", "/produto/fav", "/carrinho/**").hasRole(Roles.CLIENTE.getRole())
-                        .requestMatchers(HttpMethod.GET, "/fornecedor/**", "/funcionario/me").hasRole(Roles.FUNCIONARIO.getRole())
-                        .requestMatchers(HttpMethod.POST, "/produto/**", "/auth/register/fornecedor/**").hasRole(Roles.FUNCIONARIO.getRole())
-                        .requestMatchers(HttpMethod.PUT, "/produto/**", "/fornecedor").hasRole(Roles.FUNCIONARIO.getRole())
-                        .requestMatchers(HttpMethod.DELETE, "/produto/**", "/fornecedor", "/cliente").hasRole(Roles.FUNCIONARIO.getRole())
-                        .requestMatchers(HttpMethod.GET, "/funcionario/**").hasRole(Roles.ADMIN.getRole())
-                        .requestMatchers(HttpMethod.POST, "/auth/register/funcionario/**").hasRole(Roles.ADMIN.getRole())
+                        .requestMatchers(HttpMethod.GET, "/fornecedor/**", "/funcionario/me", "/estoque/**", "/promocao").hasRole(Roles.FUNCIONARIO.getRole())
+                        .requestMatchers(HttpMethod.POST, "/produto/**", "/auth/register/fornecedor/**", "/promocao").hasRole(Roles.FUNCIONARIO.getRole())
+                        .requestMatchers(HttpMethod.PUT, "/produto/**", "/fornecedor", "/estoque/**").hasRole(Roles.FUNCIONARIO.getRole())
+                        .requestMatchers(HttpMethod.DELETE, "/produto/**", "/fornecedor", "/cliente", "/promocao/*").hasRole(Roles.FUNCIONARIO.getRole())
+                        .requestMatchers(HttpMethod.GET, "/funcionario/**", "/actuator/**", "/relatorio/**").hasRole(Roles.ADMIN.getRole())
+                        .requestMatchers(HttpMethod.POST, "/auth/register/funcionario/**", "/relatorio/**").hasRole(Roles.ADMIN.getRole())
                         .requestMatchers(HttpMethod.PUT, "/funcionario/**").hasRole(Roles.ADMIN.getRole())
                         .requestMatchers(HttpMethod.DELETE, "/funcionario").hasRole(Roles.ADMIN.getRole())
                         .anyRequest().authenticated()
@@ -1,6 +1,7 @@
 package com.lemnos.server.configurations.swagger;
 
 import com.lemnos.server.exceptions.ExceptionResponse;
+import com.lemnos.server.models.dtos.requests.CarrinhoLoteRequest;
 import com.lemnos.server.models.dtos.requests.CarrinhoRequest;
 import com.lemnos.server.models.dtos.responses.CarrinhoResponse;
 import io.swagger.v3.oas.annotations.Operation;
@@ -19,12 +20,13 @@ public interface CarrinhoSwagger extends SwaggerConfiguration{
     @Operation(description = "Fetch the Cart of an User")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Fetched the cart successfully", content = @Content(schema = @Schema(implementation = CarrinhoResponse.class))),
+            @ApiResponse(responseCode = "304", description = "Not Modified, the ETag sent in If-None-Match is still current", content = @Content(schema = @Schema())),
             @ApiResponse(responseCode = "401", description = "Unauthorized, you are not authenticated", content = @Content(schema = @Schema())),
             @ApiResponse(responseCode = "403", description = "Forbidden, you don't have the role to fetch the cart", content = @Content(schema = @Schema())),
             @ApiResponse(responseCode = "404", description = "Not Found, User not found", content = @Content(schema = @Schema(implementation = ExceptionResponse.class)))
     })
     @SecurityRequirement(name = "Authorization")
-    ResponseEntity<CarrinhoResponse> getCarrinho(JwtAuthenticationToken token);
+    ResponseEntity<CarrinhoResponse> getCarrinho(JwtAuthenticationToken token, String ifNoneMatch);
 
     @Operation(description = "Fetch the quantity of items inside the user cart")
     @ApiResponses(value = {
@@ -46,6 +48,17 @@ public interface CarrinhoSwagger extends SwaggerConfiguration{
     @SecurityRequirement(name = "Authorization")
     ResponseEntity<Void> adicionarProduto(JwtAuthenticationToken token, CarrinhoRequest carrinhoRequest);
 
+    @Operation(description = "Apply a list of operations (ADICIONAR, REMOVER or DEFINIR) in the user cart at once. Either every operation is applied or none is.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Applied the operations successfully, returns the updated cart", content = @Content(schema = @Schema(implementation = CarrinhoResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Bad Request, an operation is not valid", content = @Content(schema = @Schema(implementation = ExceptionResponse.class))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized, you are not authenticated", content = @Content(schema = @Schema())),
+            @ApiResponse(responseCode = "403", description = "Forbidden, you don't have the role to change the cart", content = @Content(schema = @Schema())),
+            @ApiResponse(responseCode = "404", description = "Not Found, User or one of the items not found", content = @Content(schema = @Schema(implementation = ExceptionResponse.class)))
+    })
+    @SecurityRequirement(name = "Authorization")
+    ResponseEntity<CarrinhoResponse> alterarEmLote(JwtAuthenticationToken token, CarrinhoLoteRequest carrinhoLoteRequest);
+
     @Operation(description = "Remove an item in the user cart.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Removed the item successfully", content = @Content(schema = @Schema())),
@@ -0,0 +1,38 @@
+package com.lemnos.server.configurations.swagger;
+
+import com.lemnos.server.exceptions.ExceptionResponse;
+import com.lemnos.server.models.dtos.requests.EstoqueRequest;
+import com.lemnos.server.models.dtos.responses.EstoqueResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+
+@Tag(name = "Estoque", description = "Stock")
+public interface EstoqueSwagger extends SwaggerConfiguration {
+
+    @Operation(description = "Fetch the available and reserved stock of a product. Products without controlled stock can be sold without limit.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Fetched the stock successfully", content = @Content(schema = @Schema(implementation = EstoqueResponse.class))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized, you are not authenticated", content = @Content(schema = @Schema())),
+            @ApiResponse(responseCode = "403", description = "Forbidden, you don't have the role to fetch the stock", content = @Content(schema = @Schema())),
+            @ApiResponse(responseCode = "404", description = "Not Found, Product not found", content = @Content(schema = @Schema(implementation = ExceptionResponse.class)))
+    })
+    @SecurityRequirement(name = "Authorization")
+    ResponseEntity<EstoqueResponse> getEstoque(String id);
+
+    @Operation(description = "Set the available stock of a product, starting to control it if it was not. Hot products are served by an in-memory counter during flash sales.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Set the stock successfully", content = @Content(schema = @Schema())),
+            @ApiResponse(responseCode = "400", description = "Bad Request, invalid quantity", content = @Content(schema = @Schema(implementation = ExceptionResponse.class))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized, you are not authenticated", content = @Content(schema = @Schema())),
+            @ApiResponse(responseCode = "403", description = "Forbidden, you don't have the role to change the stock", content = @Content(schema = @Schema())),
+            @ApiResponse(responseCode = "404", description = "Not Found, Product not found", content = @Content(schema = @Schema(implementation = ExceptionResponse.class)))
+    })
+    @SecurityRequirement(name = "Authorization")
+    ResponseEntity<Void> alterarEstoque(String id, EstoqueRequest estoqueRequest);
+}
@@ -20,10 +20,11 @@ public interface FavoritoSwagger extends SwaggerConfiguration{
     @Operation(description = "Get all favorite products of the user account by its token.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Returned all the favorite products from the user", content = @Content(schema = @Schema(implementation = FavoritoSwagger.class))),
+            @ApiResponse(responseCode = "304", description = "Not Modified, the ETag sent in If-None-Match is still current", content = @Content(schema = @Schema())),
             @ApiResponse(responseCode = "404", description = "User Not Found", content = @Content(schema = @Schema(implementation = ExceptionResponse.class)))
     })
     @SecurityRequirement(name = "Authorization")
-    ResponseEntity<List<FavoritoResponse>> getFavoritos(JwtAuthenticationToken token);
+    ResponseEntity<List<FavoritoResponse>> getFavoritos(JwtAuthenticationToken token, String ifNoneMatch);
 
     @Operation(description = "Favorite a product.")
     @ApiResponses(value = {
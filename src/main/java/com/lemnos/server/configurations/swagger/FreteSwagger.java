@@ -0,0 +1,28 @@
+package com.lemnos.server.configurations.swagger;
+
+import com.lemnos.server.exceptions.ExceptionResponse;
+import com.lemnos.server.models.dtos.responses.FreteResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+@Tag(name = "Frete", description = "Freight")
+public interface FreteSwagger extends SwaggerConfiguration {
+
+    @Operation(description = "Quote the freight of the user cart to a CEP with every carrier. The returned quote id must be sent when placing the order.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Quoted the freight successfully", content = @Content(schema = @Schema(implementation = FreteResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Bad Request, invalid CEP, empty cart or no carrier delivers to the CEP", content = @Content(schema = @Schema(implementation = ExceptionResponse.class))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized, you are not authenticated", content = @Content(schema = @Schema())),
+            @ApiResponse(responseCode = "403", description = "Forbidden, you don't have the role to quote the freight", content = @Content(schema = @Schema())),
+            @ApiResponse(responseCode = "404", description = "Not Found, User not found", content = @Content(schema = @Schema(implementation = ExceptionResponse.class)))
+    })
+    @SecurityRequirement(name = "Authorization")
+    ResponseEntity<FreteResponse> cotar(JwtAuthenticationToken token, String cep);
+}
@@ -1,8 +1,14 @@
 package com.lemnos.server.configurations.swagger;
 
+import com.lemnos.server.exceptions.ExceptionResponse;
+import com.lemnos.server.models.dtos.requests.AlterarStatusLoteRequest;
 import com.lemnos.server.models.dtos.requests.AlterarStatusRequest;
 import com.lemnos.server.models.dtos.requests.PedidoRequest;
+import com.lemnos.server.models.dtos.responses.PaginaResponse;
 import com.lemnos.server.models.dtos.responses.PedidoResponse;
+import com.lemnos.server.models.dtos.responses.PedidoResumoResponse;
+import com.lemnos.server.models.dtos.responses.ResultadoStatusResponse;
+import com.lemnos.server.models.dtos.responses.VendaProdutoResponse;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -13,21 +19,45 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @Tag(name = "Pedido", description = "Order")
 public interface PedidoSwagger extends SwaggerConfiguration {
 
-    @Operation(description = "Fetch all orders from an users by its token.")
+    @Operation(description = "Fetch the orders of the user by its token, newest first, one page at a time. Send the returned proximoCursor to fetch the next page. Description and items only come when detalhado is true.")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Fetched all orders successfully", content = @Content(array = @ArraySchema(schema = @Schema(implementation = PedidoResponse.class)))),
+            @ApiResponse(responseCode = "200", description = "Fetched the page of orders successfully", content = @Content(schema = @Schema(implementation = PaginaResponse.class))),
+            @ApiResponse(responseCode = "304", description = "Not Modified, the ETag sent in If-None-Match is still current", content = @Content(schema = @Schema())),
+            @ApiResponse(responseCode = "400", description = "Bad Request, invalid cursor or status", content = @Content(schema = @Schema(implementation = ExceptionResponse.class))),
             @ApiResponse(responseCode = "401", description = "Unauthorized, you are not authenticated", content = @Content(schema = @Schema())),
             @ApiResponse(responseCode = "403", description = "Forbidden, you don't have the role to fetch the orders", content = @Content(schema = @Schema())),
             @ApiResponse(responseCode = "404", description = "Not Found, user not found", content = @Content(schema = @Schema()))
     })
     @SecurityRequirement(name = "Authorization")
-    ResponseEntity<List<PedidoResponse>> getAllByEmail(JwtAuthenticationToken token);
+    ResponseEntity<PaginaResponse<PedidoResumoResponse>> getAllByEmail(JwtAuthenticationToken token, String cursor, Integer limite, String status, boolean detalhado, String ifNoneMatch);
+
+    @Operation(description = "Open a Server-Sent Events stream with the status changes of the orders of the user, instead of polling the orders. Each change is a 'status' event with the id, status, previous status and date of the change.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Opened the stream successfully", content = @Content(mediaType = "text/event-stream", schema = @Schema())),
+            @ApiResponse(responseCode = "401", description = "Unauthorized, you are not authenticated", content = @Content(schema = @Schema())),
+            @ApiResponse(responseCode = "403", description = "Forbidden, you don't have the role to follow the orders", content = @Content(schema = @Schema())),
+            @ApiResponse(responseCode = "404", description = "Not Found, user not found", content = @Content(schema = @Schema()))
+    })
+    @SecurityRequirement(name = "Authorization")
+    ResponseEntity<SseEmitter> acompanhar(JwtAuthenticationToken token);
+
+    @Operation(description = "Sum the sales of each product from the order items, optionally filtered by product and order date (yyyy-MM-dd).")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Fetched the sales successfully", content = @Content(array = @ArraySchema(schema = @Schema(implementation = VendaProdutoResponse.class)))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized, you are not authenticated", content = @Content(schema = @Schema())),
+            @ApiResponse(responseCode = "403", description = "Forbidden, you don't have the role to fetch the sales", content = @Content(schema = @Schema())),
+            @ApiResponse(responseCode = "404", description = "Not found, Product not found", content = @Content(schema = @Schema()))
+    })
+    @SecurityRequirement(name = "Authorization")
+    ResponseEntity<List<VendaProdutoResponse>> getVendas(String idProduto, LocalDate inicio, LocalDate fim);
 
     @Operation(description = "Fetch one order by id from an user.")
     @ApiResponses(value = {
@@ -58,4 +88,24 @@ public interface PedidoSwagger extends SwaggerConfiguration {
     })
     @SecurityRequirement(name = "Authorization")
     ResponseEntity<Void> alterarStatus(AlterarStatusRequest request);
+
+    @Operation(description = "Claim the oldest orders in a status as a work queue. Concurrent callers never get the same order; the claim lasts 10 minutes or until the order status changes.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Claimed the orders successfully, may be empty", content = @Content(array = @ArraySchema(schema = @Schema(implementation = PedidoResumoResponse.class)))),
+            @ApiResponse(responseCode = "400", description = "Bad Request, missing or invalid status", content = @Content(schema = @Schema(implementation = ExceptionResponse.class))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized, you are not authenticated", content = @Content(schema = @Schema())),
+            @ApiResponse(responseCode = "403", description = "Forbidden, you don't have the role to claim orders", content = @Content(schema = @Schema()))
+    })
+    @SecurityRequirement(name = "Authorization")
+    ResponseEntity<List<PedidoResumoResponse>> reservarFila(JwtAuthenticationToken token, String status, Integer limite);
+
+    @Operation(description = "Change the status of many orders at once, for carrier integrations. Orders only move forward and may skip steps. Returns the result of each change in the order it was sent.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Processed the changes, check the result of each one", content = @Content(array = @ArraySchema(schema = @Schema(implementation = ResultadoStatusResponse.class)))),
+            @ApiResponse(responseCode = "400", description = "Bad Request, empty or too big batch", content = @Content(schema = @Schema(implementation = ExceptionResponse.class))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized, you are not authenticated", content = @Content(schema = @Schema())),
+            @ApiResponse(responseCode = "403", description = "Forbidden, you don't have the role to change the orders", content = @Content(schema = @Schema()))
+    })
+    @SecurityRequirement(name = "Authorization")
+    ResponseEntity<List<ResultadoStatusResponse>> alterarStatusEmLote(AlterarStatusLoteRequest request);
 }
@@ -2,8 +2,12 @@ package com.lemnos.server.configurations.swagger;
 
 import com.lemnos.server.exceptions.ExceptionResponse;
 import com.lemnos.server.models.dtos.requests.AvaliacaoRequest;
+import com.lemnos.server.models.dtos.requests.CampanhaDescontoRequest;
 import com.lemnos.server.models.dtos.requests.ProdutoFiltroRequest;
+import com.lemnos.server.models.dtos.requests.ProdutoLoteRequest;
 import com.lemnos.server.models.dtos.requests.ProdutoRequest;
+import com.lemnos.server.models.dtos.responses.AlteracoesProdutoResponse;
+import com.lemnos.server.models.dtos.responses.CampanhaDescontoResponse;
 import com.lemnos.server.models.dtos.responses.ProdutoResponse;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
@@ -14,23 +18,55 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
 @Tag(name = "Produto", description = "Product")
 public interface ProdutoSwagger extends SwaggerConfiguration {
-    @Operation(description = "Fetch some products based on an filter, all of them are optional.")
+    @Operation(description = "Fetch some products based on an filter, all of them are optional. Use fields= (comma separated) or view=card|detail to get only some fields.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Fetched all products successfully", content = @Content(array = @ArraySchema(schema = @Schema(implementation = ProdutoResponse.class))))
     })
-    ResponseEntity<List<ProdutoResponse>> getBy(ProdutoFiltroRequest produtoFiltroRequest);
+    ResponseEntity<byte[]> getBy(ProdutoFiltroRequest produtoFiltroRequest, String fields, String view, String acceptEncoding);
 
-    @Operation(description = "Fetch just one product by its id.")
+    @Operation(description = "Fetch up to 200 products by their ids in a single call, in the requested order. Unknown ids are skipped.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Fetched the products successfully", content = @Content(array = @ArraySchema(schema = @Schema(implementation = ProdutoResponse.class)))),
+            @ApiResponse(responseCode = "304", description = "Not Modified, the ETag sent in If-None-Match is still current", content = @Content(schema = @Schema())),
+            @ApiResponse(responseCode = "400", description = "Bad Request, too many ids", content = @Content(schema = @Schema(implementation = ExceptionResponse.class)))
+    })
+    ResponseEntity<List<ProdutoResponse>> getLote(List<String> ids, String fields, String view, String ifNoneMatch);
+
+    @Operation(description = "Same as GET /produto/batch, with the ids in the body for long lists.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Fetched the products successfully", content = @Content(array = @ArraySchema(schema = @Schema(implementation = ProdutoResponse.class)))),
+            @ApiResponse(responseCode = "400", description = "Bad Request, too many ids", content = @Content(schema = @Schema(implementation = ExceptionResponse.class)))
+    })
+    ResponseEntity<List<ProdutoResponse>> getLote(ProdutoLoteRequest produtoLoteRequest, String fields, String view);
+
+    @Operation(description = "Fetch what changed in the catalog since a version, as upsert/delete records in version order. Start with since=0 and send the returned versao on the next call.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Fetched the changes successfully", content = @Content(schema = @Schema(implementation = AlteracoesProdutoResponse.class))),
+            @ApiResponse(responseCode = "410", description = "Gone, the changes since this version were compacted, sync again with since=0", content = @Content(schema = @Schema(implementation = ExceptionResponse.class)))
+    })
+    ResponseEntity<AlteracoesProdutoResponse> getAlteracoes(Long since, Integer limite);
+
+    @Operation(description = "Export the whole catalog as ndjson (default), csv or xml (Google Merchant product feed). The file is streamed as it is read, gzipped when Accept-Encoding allows it.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Streaming the catalog", content = @Content(mediaType = "application/x-ndjson")),
+            @ApiResponse(responseCode = "400", description = "Bad Request, invalid formato", content = @Content(schema = @Schema(implementation = ExceptionResponse.class)))
+    })
+    @SecurityRequirement(name = "Authorization")
+    ResponseEntity<StreamingResponseBody> exportar(String formato, String acceptEncoding);
+
+    @Operation(description = "Fetch just one product by its id. Use fields= (comma separated) or view=card|detail to get only some fields.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Fetched the product successfully", content = @Content(schema = @Schema(implementation = ProdutoResponse.class))),
+            @ApiResponse(responseCode = "304", description = "Not Modified, the ETag sent in If-None-Match is still current", content = @Content(schema = @Schema())),
             @ApiResponse(responseCode = "404", description = "Product Not Found", content = @Content(schema = @Schema(implementation = ExceptionResponse.class)))
     })
-    ResponseEntity<ProdutoResponse> getOneById(String id);
+    ResponseEntity<ProdutoResponse> getOneById(String id, String fields, String view, String ifNoneMatch);
 
     @Operation(description = "Register a product sending an body")
     @ApiResponses(value = {
@@ -40,6 +76,14 @@ public interface ProdutoSwagger extends SwaggerConfiguration {
     @SecurityRequirement(name = "Authorization")
     ResponseEntity<Void> register(ProdutoRequest produtoRequest);
 
+    @Operation(description = "Apply a discount (0 removes it) to every product matching the filter (nome, categoria, subCategoria, marca, menorPreco, maiorPreco). At least one filter is required. With simular=true, only counts the products that would change.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Campaign applied or simulated successfully", content = @Content(schema = @Schema(implementation = CampanhaDescontoResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Bad Request, invalid discount or no filter", content = @Content(schema = @Schema(implementation = ExceptionResponse.class)))
+    })
+    @SecurityRequirement(name = "Authorization")
+    ResponseEntity<CampanhaDescontoResponse> aplicarCampanha(CampanhaDescontoRequest campanhaDescontoRequest);
+
     @Operation(description = "Update a product sending some itens of the body or it all.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Product updated successfully", content = @Content(schema = @Schema())),
@@ -59,9 +103,18 @@ public interface ProdutoSwagger extends SwaggerConfiguration {
 
     @Operation(description = "Fetch all products and their data that just have discounts.")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Fetched all products successfully", content = @Content(array = @ArraySchema(schema = @Schema(implementation = ProdutoResponse.class))))
+            @ApiResponse(responseCode = "200", description = "Fetched all products successfully", content = @Content(array = @ArraySchema(schema = @Schema(implementation = ProdutoResponse.class)))),
+            @ApiResponse(responseCode = "304", description = "Not Modified, the ETag sent in If-None-Match is still current", content = @Content(schema = @Schema()))
+    })
+    ResponseEntity<byte[]> getAllWithDiscount(String acceptEncoding, String ifNoneMatch);
+
+    @Operation(description = "Fetch the first products of a ranking (avaliacao, desconto or novidade), optionally filtered by category.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Fetched the ranking successfully", content = @Content(array = @ArraySchema(schema = @Schema(implementation = ProdutoResponse.class)))),
+            @ApiResponse(responseCode = "304", description = "Not Modified, the ETag sent in If-None-Match is still current", content = @Content(schema = @Schema())),
+            @ApiResponse(responseCode = "400", description = "Bad Request, invalid ranking or quantity", content = @Content(schema = @Schema(implementation = ExceptionResponse.class)))
     })
-    ResponseEntity<List<ProdutoResponse>> getAllWithDiscount();
+    ResponseEntity<List<ProdutoResponse>> getRanking(String tipo, String categoria, Integer quantidade, String fields, String view, String ifNoneMatch);
 
     @Operation(description = "Remove the discount of a product its id.")
     @ApiResponses(value = {
@@ -0,0 +1,51 @@
+package com.lemnos.server.configurations.swagger;
+
+import com.lemnos.server.exceptions.ExceptionResponse;
+import com.lemnos.server.models.dtos.requests.PromocaoRequest;
+import com.lemnos.server.models.dtos.responses.IdResponse;
+import com.lemnos.server.models.dtos.responses.PromocaoResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+
+@Tag(name = "Promoção", description = "Scheduled promotions")
+public interface PromocaoSwagger extends SwaggerConfiguration {
+
+    @Operation(description = "Fetch the promotions not finished yet and the ones finished in the last 30 days.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Fetched the promotions successfully", content = @Content(array = @ArraySchema(schema = @Schema(implementation = PromocaoResponse.class)))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized, you are not authenticated", content = @Content(schema = @Schema())),
+            @ApiResponse(responseCode = "403", description = "Forbidden, you don't have the role to fetch the promotions", content = @Content(schema = @Schema()))
+    })
+    @SecurityRequirement(name = "Authorization")
+    ResponseEntity<List<PromocaoResponse>> getPromocoes();
+
+    @Operation(description = "Schedule a promotion for some products between inicio and fim. The highest prioridade wins on each product; if it is acumulavel, the other active acumulavel promotions stack on it. A product's own discount is never lowered and comes back when the promotion ends.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Promotion scheduled successfully", content = @Content(schema = @Schema(implementation = IdResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Bad Request, some information passed wrong", content = @Content(schema = @Schema(implementation = ExceptionResponse.class))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized, you are not authenticated", content = @Content(schema = @Schema())),
+            @ApiResponse(responseCode = "403", description = "Forbidden, you don't have the role to schedule promotions", content = @Content(schema = @Schema()))
+    })
+    @SecurityRequirement(name = "Authorization")
+    ResponseEntity<IdResponse> criar(PromocaoRequest promocaoRequest);
+
+    @Operation(description = "Cancel a promotion, restoring the products' discounts right away if it had started.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Promotion canceled successfully", content = @Content(schema = @Schema())),
+            @ApiResponse(responseCode = "400", description = "Bad Request, the promotion already ended", content = @Content(schema = @Schema(implementation = ExceptionResponse.class))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized, you are not authenticated", content = @Content(schema = @Schema())),
+            @ApiResponse(responseCode = "403", description = "Forbidden, you don't have the role to cancel promotions", content = @Content(schema = @Schema())),
+            @ApiResponse(responseCode = "404", description = "Not Found, Promotion not found", content = @Content(schema = @Schema(implementation = ExceptionResponse.class)))
+    })
+    @SecurityRequirement(name = "Authorization")
+    ResponseEntity<Void> cancelar(Integer id);
+}
@@ -0,0 +1,41 @@
+package com.lemnos.server.configurations.swagger;
+
+import com.lemnos.server.exceptions.ExceptionResponse;
+import com.lemnos.server.models.dtos.responses.ResumoVendasResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Tag(name = "Relatório", description = "Reports")
+public interface RelatorioSwagger extends SwaggerConfiguration {
+
+    @Operation(description = "Fetch the sales rollups by HORA or DIA (default) for the TOTAL (default), PRODUTO, CATEGORIA or PAGAMENTO dimension, between two dates (yyyy-MM-dd, default the last 30 days). Hourly rollups only exist for orders made after the rollups were created.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Fetched the rollups successfully", content = @Content(array = @ArraySchema(schema = @Schema(implementation = ResumoVendasResponse.class)))),
+            @ApiResponse(responseCode = "400", description = "Bad Request, invalid period, dimension or dates", content = @Content(schema = @Schema(implementation = ExceptionResponse.class))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized, you are not authenticated", content = @Content(schema = @Schema())),
+            @ApiResponse(responseCode = "403", description = "Forbidden, you don't have the role to fetch the reports", content = @Content(schema = @Schema()))
+    })
+    @SecurityRequirement(name = "Authorization")
+    ResponseEntity<List<ResumoVendasResponse>> getResumoVendas(String periodo, String dimensao, LocalDate inicio, LocalDate fim);
+
+    @Operation(description = "Rebuild the daily sales rollups between two dates (yyyy-MM-dd) from the orders, in background.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Started the rebuild", content = @Content(schema = @Schema())),
+            @ApiResponse(responseCode = "400", description = "Bad Request, invalid dates", content = @Content(schema = @Schema(implementation = ExceptionResponse.class))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized, you are not authenticated", content = @Content(schema = @Schema())),
+            @ApiResponse(responseCode = "403", description = "Forbidden, you don't have the role to rebuild the reports", content = @Content(schema = @Schema())),
+            @ApiResponse(responseCode = "409", description = "Conflict, a rebuild is already running", content = @Content(schema = @Schema(implementation = ExceptionResponse.class)))
+    })
+    @SecurityRequirement(name = "Authorization")
+    ResponseEntity<Void> reconstruirResumoVendas(LocalDate inicio, LocalDate fim);
+}
@@ -1,10 +1,12 @@
 package com.lemnos.server.controllers;
 
 import com.lemnos.server.configurations.swagger.CarrinhoSwagger;
+import com.lemnos.server.models.dtos.requests.CarrinhoLoteRequest;
 import com.lemnos.server.models.dtos.requests.CarrinhoRequest;
 import com.lemnos.server.models.dtos.responses.CarrinhoResponse;
 import com.lemnos.server.services.CarrinhoService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 import org.springframework.web.bind.annotation.*;
@@ -15,8 +17,8 @@ public class CarrinhoController implements CarrinhoSwagger {
     @Autowired private CarrinhoService carrinhoService;
 
     @GetMapping
-    public ResponseEntity<CarrinhoResponse> getCarrinho(JwtAuthenticationToken token) {
-        return carrinhoService.getCarrinho(token);
+    public ResponseEntity<CarrinhoResponse> getCarrinho(JwtAuthenticationToken token, @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return carrinhoService.getCarrinho(token, ifNoneMatch);
     }
 
     @GetMapping("/quantidade")
@@ -29,6 +31,11 @@ public class CarrinhoController implements CarrinhoSwagger {
         return carrinhoService.adicionarProduto(token, carrinhoRequest);
     }
 
+    @PostMapping("/lote")
+    public ResponseEntity<CarrinhoResponse> alterarEmLote(JwtAuthenticationToken token, @RequestBody CarrinhoLoteRequest carrinhoLoteRequest) {
+        return carrinhoService.alterarEmLote(token, carrinhoLoteRequest);
+    }
+
     @DeleteMapping
     public ResponseEntity<Void> removerProduto(JwtAuthenticationToken token, @RequestBody CarrinhoRequest carrinhoRequest) {
         return carrinhoService.removerProduto(token, carrinhoRequest);
@@ -0,0 +1,25 @@
+package com.lemnos.server.controllers;
+
+import com.lemnos.server.configurations.swagger.EstoqueSwagger;
+import com.lemnos.server.models.dtos.requests.EstoqueRequest;
+import com.lemnos.server.models.dtos.responses.EstoqueResponse;
+import com.lemnos.server.services.EstoqueService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/estoque")
+public class EstoqueController implements EstoqueSwagger {
+    @Autowired private EstoqueService estoqueService;
+
+    @GetMapping("/{id}")
+    public ResponseEntity<EstoqueResponse> getEstoque(@PathVariable String id) {
+        return estoqueService.getEstoque(id);
+    }
+
+    @PutMapping("/{id}")
+    public ResponseEntity<Void> alterarEstoque(@PathVariable String id, @RequestBody EstoqueRequest estoqueRequest) {
+        return estoqueService.alterarEstoque(id, estoqueRequest);
+    }
+}
@@ -4,6 +4,7 @@ import com.lemnos.server.configurations.swagger.FavoritoSwagger;
 import com.lemnos.server.models.dtos.responses.FavoritoResponse;
 import com.lemnos.server.services.FavoritoService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 import org.springframework.web.bind.annotation.*;
@@ -16,8 +17,8 @@ public class FavoritoController implements FavoritoSwagger {
     @Autowired private FavoritoService favoritoService;
 
     @GetMapping
-    public ResponseEntity<List<FavoritoResponse>> getFavoritos(JwtAuthenticationToken token) {
-        return favoritoService.getFavoritos(token);
+    public ResponseEntity<List<FavoritoResponse>> getFavoritos(JwtAuthenticationToken token, @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return favoritoService.getFavoritos(token, ifNoneMatch);
     }
 
     @PostMapping
@@ -0,0 +1,20 @@
+package com.lemnos.server.controllers;
+
+import com.lemnos.server.configurations.swagger.FreteSwagger;
+import com.lemnos.server.models.dtos.responses.FreteResponse;
+import com.lemnos.server.services.FreteService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/frete")
+public class FreteController implements FreteSwagger {
+    @Autowired private FreteService freteService;
+
+    @GetMapping
+    public ResponseEntity<FreteResponse> cotar(JwtAuthenticationToken token, @RequestParam(name = "cep") String cep) {
+        return freteService.cotar(token, cep);
+    }
+}
@@ -1,25 +1,58 @@
 package com.lemnos.server.controllers;
 
 import com.lemnos.server.configurations.swagger.PedidoSwagger;
+import com.lemnos.server.models.dtos.requests.AlterarStatusLoteRequest;
 import com.lemnos.server.models.dtos.requests.AlterarStatusRequest;
 import com.lemnos.server.models.dtos.requests.PedidoRequest;
+import com.lemnos.server.models.dtos.responses.PaginaResponse;
 import com.lemnos.server.models.dtos.responses.PedidoResponse;
+import com.lemnos.server.models.dtos.responses.PedidoResumoResponse;
+import com.lemnos.server.models.dtos.responses.ResultadoStatusResponse;
+import com.lemnos.server.models.dtos.responses.VendaProdutoResponse;
+import com.lemnos.server.services.AcompanhamentoPedidoService;
 import com.lemnos.server.services.PedidoService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
 @RequestMapping("/pedido")
 public class PedidoController implements PedidoSwagger {
     @Autowired private PedidoService pedidoService;
+    @Autowired private AcompanhamentoPedidoService acompanhamentoPedidoService;
 
     @GetMapping
-    public ResponseEntity<List<PedidoResponse>> getAllByEmail(JwtAuthenticationToken token) {
-        return pedidoService.getAll(token);
+    public ResponseEntity<PaginaResponse<PedidoResumoResponse>> getAllByEmail(
+            JwtAuthenticationToken token,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "limite", required = false) Integer limite,
+            @RequestParam(name = "status", required = false) String status,
+            @RequestParam(name = "detalhado", defaultValue = "false") boolean detalhado,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
+        return pedidoService.getAll(token, cursor, limite, status, detalhado, ifNoneMatch);
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> acompanhar(JwtAuthenticationToken token) {
+        return acompanhamentoPedidoService.conectar(token);
+    }
+
+    @GetMapping("/vendas")
+    public ResponseEntity<List<VendaProdutoResponse>> getVendas(
+            @RequestParam(name = "produto", required = false) String idProduto,
+            @RequestParam(name = "inicio", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate inicio,
+            @RequestParam(name = "fim", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fim
+    ) {
+        return pedidoService.getVendas(idProduto, inicio, fim);
     }
 
     @GetMapping("/{id}")
@@ -32,6 +65,20 @@ public class PedidoController implements PedidoSwagger {
         return pedidoService.novoPedido(pedidoRequest, token);
     }
 
+    @PostMapping("/fila")
+    public ResponseEntity<List<PedidoResumoResponse>> reservarFila(
+            JwtAuthenticationToken token,
+            @RequestParam(name = "status") String status,
+            @RequestParam(name = "limite", required = false) Integer limite
+    ) {
+        return pedidoService.reservarFila(token, status, limite);
+    }
+
+    @PutMapping("/lote")
+    public ResponseEntity<List<ResultadoStatusResponse>> alterarStatusEmLote(@RequestBody AlterarStatusLoteRequest request) {
+        return pedidoService.alterarStatusEmLote(request);
+    }
+
     @PutMapping
     public ResponseEntity<Void> alterarStatus(@RequestBody AlterarStatusRequest request) {
         return  pedidoService.alterarStatus(request);
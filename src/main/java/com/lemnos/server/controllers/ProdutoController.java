@@ -2,13 +2,22 @@ package com.lemnos.server.controllers;
 
 import com.lemnos.server.configurations.swagger.ProdutoSwagger;
 import com.lemnos.server.models.dtos.requests.AvaliacaoRequest;
+import com.lemnos.server.models.dtos.requests.CampanhaDescontoRequest;
 import com.lemnos.server.models.dtos.requests.ProdutoFiltroRequest;
+import com.lemnos.server.models.dtos.requests.ProdutoLoteRequest;
 import com.lemnos.server.models.dtos.requests.ProdutoRequest;
+import com.lemnos.server.models.dtos.responses.AlteracoesProdutoResponse;
+import com.lemnos.server.models.dtos.responses.CampanhaDescontoResponse;
 import com.lemnos.server.models.dtos.responses.ProdutoResponse;
+import com.lemnos.server.services.AlteracaoProdutoService;
+import com.lemnos.server.services.CampanhaDescontoService;
+import com.lemnos.server.services.ExportacaoProdutoService;
 import com.lemnos.server.services.ProdutoService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -17,15 +26,38 @@ import java.util.List;
 public class ProdutoController implements ProdutoSwagger {
 
     @Autowired private ProdutoService produtoService;
+    @Autowired private AlteracaoProdutoService alteracaoProdutoService;
+    @Autowired private ExportacaoProdutoService exportacaoProdutoService;
+    @Autowired private CampanhaDescontoService campanhaDescontoService;
 
     @PostMapping("/find")
-    public ResponseEntity<List<ProdutoResponse>> getBy(@RequestBody ProdutoFiltroRequest filtroRequest) {
-        return produtoService.getBy(filtroRequest);
+    public ResponseEntity<byte[]> getBy(@RequestBody ProdutoFiltroRequest filtroRequest, @RequestParam(required = false) String fields, @RequestParam(required = false) String view, @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return produtoService.getBy(filtroRequest, fields, view, acceptEncoding);
+    }
+
+    @GetMapping("/batch")
+    public ResponseEntity<List<ProdutoResponse>> getLote(@RequestParam List<String> ids, @RequestParam(required = false) String fields, @RequestParam(required = false) String view, @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return produtoService.getLote(ids, fields, view, ifNoneMatch);
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<List<ProdutoResponse>> getLote(@RequestBody ProdutoLoteRequest produtoLoteRequest, @RequestParam(required = false) String fields, @RequestParam(required = false) String view) {
+        return produtoService.getLote(produtoLoteRequest.ids(), fields, view, null);
+    }
+
+    @GetMapping("/changes")
+    public ResponseEntity<AlteracoesProdutoResponse> getAlteracoes(@RequestParam(required = false) Long since, @RequestParam(required = false) Integer limite) {
+        return alteracaoProdutoService.getAlteracoes(since, limite);
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportar(@RequestParam(required = false) String formato, @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return exportacaoProdutoService.exportar(formato, acceptEncoding);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<ProdutoResponse> getOneById(@PathVariable String id) {
-        return produtoService.getOneById(id);
+    public ResponseEntity<ProdutoResponse> getOneById(@PathVariable String id, @RequestParam(required = false) String fields, @RequestParam(required = false) String view, @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return produtoService.getOneById(id, fields, view, ifNoneMatch);
     }
 
     @PostMapping
@@ -33,6 +65,11 @@ public class ProdutoController implements ProdutoSwagger {
         return produtoService.register(produtoRequest);
     }
 
+    @PostMapping("/campanha")
+    public ResponseEntity<CampanhaDescontoResponse> aplicarCampanha(@RequestBody CampanhaDescontoRequest campanhaDescontoRequest) {
+        return campanhaDescontoService.aplicar(campanhaDescontoRequest);
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<Void> update(@PathVariable String id, @RequestBody ProdutoRequest produtoRequest) {
         return produtoService.update(id, produtoRequest);
@@ -44,8 +81,13 @@ public class ProdutoController implements ProdutoSwagger {
     }
 
     @GetMapping("/desconto")
-    public ResponseEntity<List<ProdutoResponse>> getAllWithDiscount() {
-        return produtoService.getAllWithDiscount();
+    public ResponseEntity<byte[]> getAllWithDiscount(@RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding, @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return produtoService.getAllWithDiscount(acceptEncoding, ifNoneMatch);
+    }
+
+    @GetMapping("/ranking/{tipo}")
+    public ResponseEntity<List<ProdutoResponse>> getRanking(@PathVariable String tipo, @RequestParam(required = false) String categoria, @RequestParam(required = false) Integer quantidade, @RequestParam(required = false) String fields, @RequestParam(required = false) String view, @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return produtoService.getRanking(tipo, categoria, quantidade, fields, view, ifNoneMatch);
     }
 
     @DeleteMapping("/desconto/{id}")
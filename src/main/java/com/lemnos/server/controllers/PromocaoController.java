@@ -0,0 +1,33 @@
+package com.lemnos.server.controllers;
+
+import com.lemnos.server.configurations.swagger.PromocaoSwagger;
+import com.lemnos.server.models.dtos.requests.PromocaoRequest;
+import com.lemnos.server.models.dtos.responses.IdResponse;
+import com.lemnos.server.models.dtos.responses.PromocaoResponse;
+import com.lemnos.server.services.PromocaoService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/promocao")
+public class PromocaoController implements PromocaoSwagger {
+    @Autowired private PromocaoService promocaoService;
+
+    @GetMapping
+    public ResponseEntity<List<PromocaoResponse>> getPromocoes() {
+        return promocaoService.getPromocoes();
+    }
+
+    @PostMapping
+    public ResponseEntity<IdResponse> criar(@RequestBody PromocaoRequest promocaoRequest) {
+        return promocaoService.criar(promocaoRequest);
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> cancelar(@PathVariable Integer id) {
+        return promocaoService.cancelar(id);
+    }
+}
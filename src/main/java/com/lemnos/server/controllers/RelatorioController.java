@@ -0,0 +1,36 @@
+package com.lemnos.server.controllers;
+
+import com.lemnos.server.configurations.swagger.RelatorioSwagger;
+import com.lemnos.server.models.dtos.responses.ResumoVendasResponse;
+import com.lemnos.server.services.ResumoVendasService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/relatorio")
+public class RelatorioController implements RelatorioSwagger {
+    @Autowired private ResumoVendasService resumoVendasService;
+
+    @GetMapping("/vendas")
+    public ResponseEntity<List<ResumoVendasResponse>> getResumoVendas(
+            @RequestParam(name = "periodo", required = false) String periodo,
+            @RequestParam(name = "dimensao", required = false) String dimensao,
+            @RequestParam(name = "inicio", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate inicio,
+            @RequestParam(name = "fim", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fim
+    ) {
+        return resumoVendasService.getResumo(periodo, dimensao, inicio, fim);
+    }
+
+    @PostMapping("/vendas/reconstruir")
+    public ResponseEntity<Void> reconstruirResumoVendas(
+            @RequestParam(name = "inicio") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate inicio,
+            @RequestParam(name = "fim") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fim
+    ) {
+        return resumoVendasService.reconstruir(inicio, fim);
+    }
+}
@@ -0,0 +1,12 @@
+package com.lemnos.server.exceptions.estoque;
+
+import com.lemnos.server.exceptions.BaseException;
+import com.lemnos.server.exceptions.ExceptionResponse;
+import com.lemnos.server.models.enums.Codigo;
+import org.springframework.http.HttpStatus;
+
+public class EstoqueInsuficienteException extends BaseException {
+    public EstoqueInsuficienteException() {
+        super(HttpStatus.CONFLICT, new ExceptionResponse(Codigo.ESTOQUE, "Estoque insuficiente para a quantidade solicitada"));
+    }
+}
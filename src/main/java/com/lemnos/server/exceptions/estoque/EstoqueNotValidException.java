@@ -0,0 +1,12 @@
+package com.lemnos.server.exceptions.estoque;
+
+import com.lemnos.server.exceptions.BaseException;
+import com.lemnos.server.exceptions.ExceptionResponse;
+import com.lemnos.server.models.enums.Codigo;
+import org.springframework.http.HttpStatus;
+
+public class EstoqueNotValidException extends BaseException {
+    public EstoqueNotValidException(String message) {
+        super(HttpStatus.BAD_REQUEST, new ExceptionResponse(Codigo.ESTOQUE, message));
+    }
+}
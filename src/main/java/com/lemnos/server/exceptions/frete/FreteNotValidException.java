@@ -0,0 +1,12 @@
+package com.lemnos.server.exceptions.frete;
+
+import com.lemnos.server.exceptions.BaseException;
+import com.lemnos.server.exceptions.ExceptionResponse;
+import com.lemnos.server.models.enums.Codigo;
+import org.springframework.http.HttpStatus;
+
+public class FreteNotValidException extends BaseException {
+    public FreteNotValidException(String message) {
+        super(HttpStatus.BAD_REQUEST, new ExceptionResponse(Codigo.FRETE, message));
+    }
+}
@@ -0,0 +1,12 @@
+package com.lemnos.server.exceptions.idempotencia;
+
+import com.lemnos.server.exceptions.BaseException;
+import com.lemnos.server.exceptions.ExceptionResponse;
+import com.lemnos.server.models.enums.Codigo;
+import org.springframework.http.HttpStatus;
+
+public class IdempotenciaDivergenteException extends BaseException {
+    public IdempotenciaDivergenteException() {
+        super(HttpStatus.UNPROCESSABLE_ENTITY, new ExceptionResponse(Codigo.IDEMPOTENCIA, "Esta Idempotency-Key já foi usada em uma requisição diferente"));
+    }
+}
@@ -0,0 +1,12 @@
+package com.lemnos.server.exceptions.idempotencia;
+
+import com.lemnos.server.exceptions.BaseException;
+import com.lemnos.server.exceptions.ExceptionResponse;
+import com.lemnos.server.models.enums.Codigo;
+import org.springframework.http.HttpStatus;
+
+public class IdempotenciaEmAndamentoException extends BaseException {
+    public IdempotenciaEmAndamentoException() {
+        super(HttpStatus.CONFLICT, new ExceptionResponse(Codigo.IDEMPOTENCIA, "Uma requisição com esta Idempotency-Key ainda está em andamento, tente novamente em instantes"));
+    }
+}
@@ -0,0 +1,12 @@
+package com.lemnos.server.exceptions.idempotencia;
+
+import com.lemnos.server.exceptions.BaseException;
+import com.lemnos.server.exceptions.ExceptionResponse;
+import com.lemnos.server.models.enums.Codigo;
+import org.springframework.http.HttpStatus;
+
+public class IdempotenciaNotValidException extends BaseException {
+    public IdempotenciaNotValidException(String message) {
+        super(HttpStatus.BAD_REQUEST, new ExceptionResponse(Codigo.IDEMPOTENCIA, message));
+    }
+}
@@ -0,0 +1,12 @@
+package com.lemnos.server.exceptions.produto;
+
+import com.lemnos.server.exceptions.BaseException;
+import com.lemnos.server.exceptions.ExceptionResponse;
+import com.lemnos.server.models.enums.Codigo;
+import org.springframework.http.HttpStatus;
+
+public class AlteracoesExpiradasException extends BaseException {
+    public AlteracoesExpiradasException() {
+        super(HttpStatus.GONE, new ExceptionResponse(Codigo.ALTERACOES, "As alterações desde esta versão já foram compactadas, sincronize de novo com since=0"));
+    }
+}
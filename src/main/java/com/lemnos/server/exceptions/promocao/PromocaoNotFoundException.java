@@ -0,0 +1,12 @@
+package com.lemnos.server.exceptions.promocao;
+
+import com.lemnos.server.exceptions.BaseException;
+import com.lemnos.server.exceptions.ExceptionResponse;
+import com.lemnos.server.models.enums.Codigo;
+import org.springframework.http.HttpStatus;
+
+public class PromocaoNotFoundException extends BaseException {
+    public PromocaoNotFoundException() {
+        super(HttpStatus.NOT_FOUND, new ExceptionResponse(Codigo.PROMOCAO, "Promoção não encontrada!"));
+    }
+}
@@ -0,0 +1,12 @@
+package com.lemnos.server.exceptions.promocao;
+
+import com.lemnos.server.exceptions.BaseException;
+import com.lemnos.server.exceptions.ExceptionResponse;
+import com.lemnos.server.models.enums.Codigo;
+import org.springframework.http.HttpStatus;
+
+public class PromocaoNotValidException extends BaseException {
+    public PromocaoNotValidException(String message) {
+        super(HttpStatus.BAD_REQUEST, new ExceptionResponse(Codigo.PROMOCAO, message));
+    }
+}
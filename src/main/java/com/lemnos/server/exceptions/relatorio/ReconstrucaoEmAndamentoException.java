@@ -0,0 +1,12 @@
+package com.lemnos.server.exceptions.relatorio;
+
+import com.lemnos.server.exceptions.BaseException;
+import com.lemnos.server.exceptions.ExceptionResponse;
+import com.lemnos.server.models.enums.Codigo;
+import org.springframework.http.HttpStatus;
+
+public class ReconstrucaoEmAndamentoException extends BaseException {
+    public ReconstrucaoEmAndamentoException() {
+        super(HttpStatus.CONFLICT, new ExceptionResponse(Codigo.RELATORIO, "Já existe uma reconstrução do resumo de vendas em andamento"));
+    }
+}
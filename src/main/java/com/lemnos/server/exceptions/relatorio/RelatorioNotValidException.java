@@ -0,0 +1,12 @@
+package com.lemnos.server.exceptions.relatorio;
+
+import com.lemnos.server.exceptions.BaseException;
+import com.lemnos.server.exceptions.ExceptionResponse;
+import com.lemnos.server.models.enums.Codigo;
+import org.springframework.http.HttpStatus;
+
+public class RelatorioNotValidException extends BaseException {
+    public RelatorioNotValidException(String message) {
+        super(HttpStatus.BAD_REQUEST, new ExceptionResponse(Codigo.RELATORIO, message));
+    }
+}
@@ -0,0 +1,129 @@
+package com.lemnos.server.models.carrinho;
+
+import lombok.Getter;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Carrinho ativo de um cliente mantido em memória pelo {@link com.lemnos.server.services.CarrinhoStore}.
+ * <p>
+ * Não é thread-safe: toda leitura e alteração acontece segurando o lock do cliente no store.
+ * Cada alteração gera uma {@link MutacaoCarrinho} que o store envia para o journal.
+ * <p>
+ * A versão do banco é a de Carrinho_Versao que o carrinho em memória reflete: a lida ao carregar, avançada pelas gravações
+ * do journal desta instância. Se o banco estiver em outra versão, outra instância gravou o carrinho.
+ * <p>
+ * A carga distingue cada carrinho carregado nesta instância e a versão conta as alterações dele; juntas formam o ETag do carrinho.
+ **/
+public class CarrinhoMemoria {
+    private static final AtomicLong CARGAS = new AtomicLong();
+
+    @Getter private final Integer idCadastro;
+    @Getter private final long carga = CARGAS.incrementAndGet();
+    private final Map<UUID, ItemCarrinhoMemoria> itens = new LinkedHashMap<>();
+    private final List<MutacaoCarrinho> mutacoes = new ArrayList<>();
+    @Getter private long versao;
+    private volatile long versaoPersistida;
+    @Getter private volatile long versaoBanco;
+    @Getter private volatile long ultimoAcesso = System.currentTimeMillis();
+
+    public CarrinhoMemoria(Integer idCadastro, long versaoBanco) {
+        this.idCadastro = idCadastro;
+        this.versaoBanco = versaoBanco;
+    }
+
+    public CarrinhoMemoria(Integer idCadastro, List<ItensCarrinho> itensPersistidos, long versaoBanco) {
+        this(idCadastro, versaoBanco);
+        itensPersistidos.forEach(item -> itens.put(item.getProduto().getId(), new ItemCarrinhoMemoria(item.getProduto().getId(), item.getQuantidade())));
+    }
+
+    public void adicionar(UUID idProduto, int quantidade) {
+        ItemCarrinhoMemoria item = itens.computeIfAbsent(idProduto, id -> new ItemCarrinhoMemoria(id, 0));
+        item.setQuantidade(item.getQuantidade() + quantidade);
+        registrar(item, quantidade);
+    }
+
+    /**
+     * @return A quantidade que foi realmente removida, zero se o produto não está no carrinho
+     **/
+    public int remover(UUID idProduto, int quantidade) {
+        ItemCarrinhoMemoria item = itens.get(idProduto);
+        if (item == null) return 0;
+
+        int removida = Math.min(quantidade, item.getQuantidade());
+        if (removida == item.getQuantidade()) {
+            itens.remove(idProduto);
+        }
+        else {
+            item.setQuantidade(item.getQuantidade() - removida);
+        }
+        registrar(item, -removida);
+        return removida;
+    }
+
+    public void definir(UUID idProduto, int quantidade) {
+        ItemCarrinhoMemoria item = itens.get(idProduto);
+        int atual = (item == null) ? 0 : item.getQuantidade();
+        if (quantidade > atual) adicionar(idProduto, quantidade - atual);
+        else if (quantidade < atual) remover(idProduto, atual - quantidade);
+    }
+
+    public void limpar() {
+        itens.clear();
+        mutacoes.add(MutacaoCarrinho.limpeza(idCadastro, ++versao));
+    }
+
+    public List<MutacaoCarrinho> drenarMutacoes() {
+        List<MutacaoCarrinho> drenadas = List.copyOf(mutacoes);
+        mutacoes.clear();
+        return drenadas;
+    }
+
+    public void marcarPersistido(long versao) {
+        if (versao > versaoPersistida) versaoPersistida = versao;
+    }
+
+    /**
+     * Avança a versão do banco depois de uma gravação desta instância, se nenhuma outra gravou no meio.
+     **/
+    public void confirmarVersaoBanco(long versao) {
+        if (versao == versaoBanco + 1) versaoBanco = versao;
+    }
+
+    /**
+     * Faz a próxima leitura reler o carrinho do banco, depois que uma mutação dele foi descartada e a memória não bate mais com o banco.
+     **/
+    public void descartar() {
+        versaoBanco = -1;
+    }
+
+    public boolean isPersistido() {
+        return versao == versaoPersistida;
+    }
+
+    public void tocar() {
+        ultimoAcesso = System.currentTimeMillis();
+    }
+
+    public Collection<ItemCarrinhoMemoria> getItens() {
+        return Collections.unmodifiableCollection(itens.values());
+    }
+
+    public boolean isVazio() {
+        return itens.isEmpty();
+    }
+
+    /**
+     * @return Uma cópia das quantidades por produto, na ordem em que foram adicionados, para precificar fora do lock
+     **/
+    public Map<UUID, Integer> getQuantidades() {
+        Map<UUID, Integer> quantidades = new LinkedHashMap<>();
+        itens.values().forEach(item -> quantidades.put(item.getIdProduto(), item.getQuantidade()));
+        return quantidades;
+    }
+
+    private void registrar(ItemCarrinhoMemoria item, int delta) {
+        mutacoes.add(new MutacaoCarrinho(idCadastro, item.getIdProduto(), delta, ++versao));
+    }
+}
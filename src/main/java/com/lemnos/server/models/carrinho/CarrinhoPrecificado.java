@@ -0,0 +1,41 @@
+package com.lemnos.server.models.carrinho;
+
+import java.util.List;
+
+/**
+ * Os itens de um carrinho com os valores atuais dos produtos, montado pelo
+ * {@link com.lemnos.server.services.PrecoCarrinhoService} a partir das quantidades em memória.
+ **/
+public record CarrinhoPrecificado(
+        Integer idCadastro,
+        List<ItemCarrinhoPrecificado> itens
+) {
+    public boolean isVazio() {
+        return itens.isEmpty();
+    }
+
+    public Integer getQuantidadeProdutos() {
+        return itens.stream()
+                .mapToInt(ItemCarrinhoPrecificado::quantidade)
+                .sum();
+    }
+
+    public Double getValor() {
+        double valor = itens.stream()
+                .mapToDouble(item -> item.valorUnitario() * item.quantidade())
+                .sum();
+        return Math.round(valor * 100) / 100.0;
+    }
+
+    public Double getPesoReal() {
+        return itens.stream()
+                .mapToDouble(item -> item.peso() * item.quantidade())
+                .sum();
+    }
+
+    public Double getVolume() {
+        return itens.stream()
+                .mapToDouble(item -> item.volume() * item.quantidade())
+                .sum();
+    }
+}
@@ -0,0 +1,22 @@
+package com.lemnos.server.models.carrinho;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.UUID;
+
+/**
+ * Só o produto e a quantidade: preço, peso e dimensões são lidos de Produto a cada leitura e no checkout,
+ * então descontos, campanhas e promoções valem também para os carrinhos em memória.
+ **/
+@Getter
+@Setter
+public class ItemCarrinhoMemoria {
+    private final UUID idProduto;
+    private Integer quantidade;
+
+    public ItemCarrinhoMemoria(UUID idProduto, Integer quantidade) {
+        this.idProduto = idProduto;
+        this.quantidade = quantidade;
+    }
+}
@@ -0,0 +1,19 @@
+package com.lemnos.server.models.carrinho;
+
+import java.util.UUID;
+
+/**
+ * Um item do carrinho com os valores atuais do produto.
+ *
+ * @param valorUnitario O valor do produto com o desconto atual
+ * @param valorTabela O valor do produto sem desconto
+ * @param volume Altura x largura x comprimento, em cm³
+ **/
+public record ItemCarrinhoPrecificado(
+        UUID idProduto,
+        Integer quantidade,
+        Double valorUnitario,
+        Double valorTabela,
+        Double peso,
+        Double volume
+) { }
@@ -0,0 +1,24 @@
+package com.lemnos.server.models.carrinho;
+
+import java.util.UUID;
+
+/**
+ * Entrada do journal de escrita do carrinho.
+ * <p>
+ * {@code delta} é a variação de quantidade já aplicada em memória,
+ * e uma mutação sem produto representa a limpeza do carrinho inteiro.
+ **/
+public record MutacaoCarrinho(
+        Integer idCadastro,
+        UUID idProduto,
+        Integer delta,
+        Long versao
+) {
+    public static MutacaoCarrinho limpeza(Integer idCadastro, Long versao) {
+        return new MutacaoCarrinho(idCadastro, null, 0, versao);
+    }
+
+    public boolean isLimpeza() {
+        return idProduto == null;
+    }
+}
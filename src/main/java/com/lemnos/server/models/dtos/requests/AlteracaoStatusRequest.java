@@ -0,0 +1,6 @@
+package com.lemnos.server.models.dtos.requests;
+
+public record AlteracaoStatusRequest(
+        Integer id,
+        String status
+) { }
@@ -0,0 +1,12 @@
+package com.lemnos.server.models.dtos.requests;
+
+public record CampanhaDescontoRequest(
+        String nome,
+        String categoria,
+        String subCategoria,
+        String marca,
+        Double menorPreco,
+        Double maiorPreco,
+        String desconto,
+        Boolean simular
+) { }
@@ -0,0 +1,7 @@
+package com.lemnos.server.models.dtos.requests;
+
+import java.util.List;
+
+public record CarrinhoLoteRequest(
+        List<OperacaoCarrinhoRequest> operacoes
+) { }
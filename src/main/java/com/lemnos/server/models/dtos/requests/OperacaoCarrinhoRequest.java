@@ -0,0 +1,7 @@
+package com.lemnos.server.models.dtos.requests;
+
+public record OperacaoCarrinhoRequest(
+        String operacao,
+        String id,
+        Integer quantidade
+) { }
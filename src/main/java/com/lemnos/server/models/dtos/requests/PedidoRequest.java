@@ -4,6 +4,7 @@ package com.lemnos.server.models.dtos.requests;
 public record PedidoRequest(
         String metodoPagamento,
         Double valorPagamento,
-        Double valorFrete
+        String idCotacao,
+        String transportadora
 ) {
 }
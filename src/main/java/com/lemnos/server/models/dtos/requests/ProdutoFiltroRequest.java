@@ -9,5 +9,6 @@ public record ProdutoFiltroRequest(
     Double maiorPreco,
     Integer page,
     Integer size,
-    Double avaliacao
+    Double avaliacao,
+    String ordenacao
 ) { }
@@ -0,0 +1,14 @@
+package com.lemnos.server.models.dtos.requests;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record PromocaoRequest(
+        String nome,
+        Integer porcentagem,
+        LocalDateTime inicio,
+        LocalDateTime fim,
+        Integer prioridade,
+        Boolean acumulavel,
+        List<String> produtos
+) { }
@@ -0,0 +1,7 @@
+package com.lemnos.server.models.dtos.responses;
+
+public record AlteracaoProdutoResponse(
+        Long versao,
+        String id,
+        String operacao
+) { }
@@ -0,0 +1,12 @@
+package com.lemnos.server.models.dtos.responses;
+
+import java.util.List;
+
+/**
+ * Uma página do feed de alterações. {@code versao} é o {@code since} da próxima chamada, mesmo quando não há mais alterações.
+ **/
+public record AlteracoesProdutoResponse(
+        List<AlteracaoProdutoResponse> alteracoes,
+        Long versao,
+        Boolean temMais
+) { }
@@ -0,0 +1,14 @@
+package com.lemnos.server.models.dtos.responses;
+
+import java.time.Instant;
+
+/**
+ * Alteração de um pedido enviada pelo stream de acompanhamento. {@code id} e {@code status} têm os mesmos nomes do {@link PedidoResponse},
+ * para o cliente aplicar a alteração no pedido que já tem.
+ **/
+public record AtualizacaoPedidoResponse(
+        Integer id,
+        String status,
+        String statusAnterior,
+        Instant dataAlteracao
+) { }
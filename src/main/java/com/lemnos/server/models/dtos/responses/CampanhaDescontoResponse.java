@@ -0,0 +1,8 @@
+package com.lemnos.server.models.dtos.responses;
+
+public record CampanhaDescontoResponse(
+        Integer produtos,
+        Integer alterados,
+        String desconto,
+        Boolean simulacao
+) { }
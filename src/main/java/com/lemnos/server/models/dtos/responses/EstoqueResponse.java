@@ -0,0 +1,9 @@
+package com.lemnos.server.models.dtos.responses;
+
+public record EstoqueResponse(
+        String idProduto,
+        Boolean controlado,
+        Integer disponivel,
+        Integer reservado,
+        Boolean quente
+) { }
@@ -0,0 +1,10 @@
+package com.lemnos.server.models.dtos.responses;
+
+import java.util.List;
+
+public record FreteResponse(
+        String idCotacao,
+        String cep,
+        Double pesoReal,
+        List<OpcaoFreteResponse> opcoes
+) { }
@@ -0,0 +1,8 @@
+package com.lemnos.server.models.dtos.responses;
+
+public record ItemPedidoResponse(
+        String idProduto,
+        Integer quantidade,
+        Double valorUnitario,
+        Double valorEfetivo
+) { }
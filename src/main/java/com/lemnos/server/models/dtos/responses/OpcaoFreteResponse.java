@@ -0,0 +1,8 @@
+package com.lemnos.server.models.dtos.responses;
+
+public record OpcaoFreteResponse(
+        String transportadora,
+        Double pesoTaxado,
+        Double valor,
+        Integer prazo
+) { }
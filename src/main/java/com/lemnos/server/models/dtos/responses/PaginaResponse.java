@@ -0,0 +1,11 @@
+package com.lemnos.server.models.dtos.responses;
+
+import java.util.List;
+
+/**
+ * Página de uma listagem por cursor. {@code proximoCursor} é nulo na última página.
+ **/
+public record PaginaResponse<T>(
+        List<T> itens,
+        String proximoCursor
+) { }
@@ -1,6 +1,7 @@
 package com.lemnos.server.models.dtos.responses;
 
 import java.util.Date;
+import java.util.List;
 
 public record PedidoResponse(
         Integer id,
@@ -11,6 +12,7 @@ public record PedidoResponse(
         Integer qtdProdutos,
         Date dataPagamento,
         String descricao,
+        List<ItemPedidoResponse> itens,
         Double valorFrete,
         String status
 ) {
@@ -0,0 +1,22 @@
+package com.lemnos.server.models.dtos.responses;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Resumo de um pedido no histórico. {@code descricao} e {@code itens} só vêm quando o histórico é pedido detalhado.
+ **/
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record PedidoResumoResponse(
+        Integer id,
+        Double valorPedido,
+        Double valorFrete,
+        String metodoPagamento,
+        Date dataPedido,
+        Integer qtdProdutos,
+        String status,
+        String descricao,
+        List<ItemPedidoResponse> itens
+) { }
@@ -1,7 +1,10 @@
 package com.lemnos.server.models.dtos.responses;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.util.List;
 
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public record ProdutoResponse(
         String id,
         String nome,
@@ -0,0 +1,15 @@
+package com.lemnos.server.models.dtos.responses;
+
+import java.time.LocalDateTime;
+
+public record PromocaoResponse(
+        Integer id,
+        String nome,
+        Integer porcentagem,
+        LocalDateTime inicio,
+        LocalDateTime fim,
+        Integer prioridade,
+        Boolean acumulavel,
+        String situacao,
+        Integer produtos
+) { }
@@ -0,0 +1,19 @@
+package com.lemnos.server.models.dtos.responses;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ResultadoStatusResponse(
+        Integer id,
+        Boolean sucesso,
+        String status,
+        String erro
+) {
+    public static ResultadoStatusResponse sucesso(Integer id, String status) {
+        return new ResultadoStatusResponse(id, true, status, null);
+    }
+
+    public static ResultadoStatusResponse erro(Integer id, String erro) {
+        return new ResultadoStatusResponse(id, false, null, erro);
+    }
+}
@@ -0,0 +1,19 @@
+package com.lemnos.server.models.dtos.responses;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDateTime;
+
+/**
+ * Agregado de vendas de um período. {@code chave} não vem na dimensão TOTAL.
+ **/
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ResumoVendasResponse(
+        LocalDateTime inicio,
+        String chave,
+        Long pedidos,
+        Long itens,
+        Double receita,
+        Double frete,
+        Long entregues
+) { }
@@ -0,0 +1,8 @@
+package com.lemnos.server.models.dtos.responses;
+
+public record VendaProdutoResponse(
+        String idProduto,
+        Long quantidade,
+        Long pedidos,
+        Double valor
+) { }
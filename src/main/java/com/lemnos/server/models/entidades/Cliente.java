@@ -7,7 +7,6 @@ import com.lemnos.server.models.dtos.requests.auth.RegisterRequest;
 import com.lemnos.server.models.endereco.possui.ClientePossuiEndereco;
 import com.lemnos.server.models.enums.Roles;
 import com.lemnos.server.models.enums.Situacao;
-import com.lemnos.server.models.produto.Produto;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -48,13 +47,6 @@ public class Cliente implements UserDetails {
     @Column(name = "Situacao")
     private Situacao situacao = Situacao.ATIVO;
 
-    @ManyToMany(cascade = CascadeType.ALL)
-    @JoinTable(
-            name = "Produtos_Favoritos",
-            joinColumns = @JoinColumn(name = "Id_Cliente"),
-            inverseJoinColumns = @JoinColumn(name = "Id_Produto")
-    )
-    private List<Produto> produtosFavoritos;
     @Enumerated(EnumType.STRING)
     @Column(name = "role")
     private Roles role = Roles.CLIENTE;
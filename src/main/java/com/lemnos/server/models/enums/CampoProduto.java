@@ -0,0 +1,72 @@
+package com.lemnos.server.models.enums;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Campos do ProdutoResponse que podem ser pedidos em {@code fields=}, pelo nome no JSON.
+ **/
+@AllArgsConstructor
+@Getter
+public enum CampoProduto {
+    ID("id"),
+    NOME("nome"),
+    DESCRICAO("descricao"),
+    COR("cor"),
+    VALOR_TOTAL("valorTotal"),
+    VALOR_COM_DESCONTO("valorComDesconto"),
+    MODELO("modelo"),
+    PESO("peso"),
+    ALTURA("altura"),
+    COMPRIMENTO("comprimento"),
+    LARGURA("largura"),
+    FABRICANTE("fabricante"),
+    FORNECEDOR("fornecedor"),
+    CATEGORIA("categoria"),
+    SUB_CATEGORIA("subCategoria"),
+    IMAGEM_PRINCIPAL("imagemPrincipal"),
+    IMAGENS("imagens"),
+    DESCONTO("desconto"),
+    AVALIACAO("avaliacao"),
+    QUANTIDADE_AVALIACOES("quantidadeAvaliacoes");
+
+    private final String campo;
+
+    public static CampoProduto fromCampo(String campo) {
+        for (CampoProduto campoProduto : values()) {
+            if (campoProduto.campo.equalsIgnoreCase(campo)) return campoProduto;
+        }
+        throw new IllegalArgumentException("Campo inválido: " + campo);
+    }
+
+    /**
+     * Os campos pedidos em {@code fields}, separados por vírgula, e em {@code view}, sempre com o id.
+     *
+     * @return Os campos, ou nulo se nenhum dos dois foi passado
+     * @throws IllegalArgumentException Se a view ou algum dos campos não existe, com a mensagem para o cliente
+     **/
+    public static Set<CampoProduto> fromParametros(String fields, String view) {
+        boolean semFields = fields == null || fields.isBlank();
+        boolean semView = view == null || view.isBlank();
+        if (semFields && semView) return null;
+
+        Set<CampoProduto> campos = EnumSet.of(ID);
+        if (!semView) {
+            try {
+                campos.addAll(VisaoProduto.valueOf(view.trim().toUpperCase()).getCampos());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("View inválida, use uma de: " + Arrays.toString(VisaoProduto.values()));
+            }
+        }
+        if (!semFields) {
+            for (String campo : fields.split(",")) {
+                if (!campo.isBlank()) campos.add(fromCampo(campo.trim()));
+            }
+        }
+        return campos;
+    }
+}
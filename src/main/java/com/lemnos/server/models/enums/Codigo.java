@@ -33,7 +33,13 @@ public enum Codigo {
     AVALIACAO(29),
     FAVORITO(30),
     CARRINHO(31),
-    PEDIDO(32);
+    PEDIDO(32),
+    FRETE(33),
+    ESTOQUE(34),
+    RELATORIO(35),
+    IDEMPOTENCIA(36),
+    ALTERACOES(37),
+    PROMOCAO(38);
 
     Codigo(Integer i){}
 }
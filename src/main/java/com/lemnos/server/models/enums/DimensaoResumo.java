@@ -0,0 +1,8 @@
+package com.lemnos.server.models.enums;
+
+public enum DimensaoResumo {
+    TOTAL,
+    PRODUTO,
+    CATEGORIA,
+    PAGAMENTO
+}
@@ -0,0 +1,15 @@
+package com.lemnos.server.models.enums;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@AllArgsConstructor
+@Getter
+public enum FormatoExportacao {
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv", "csv"),
+    XML("application/xml", "xml");
+
+    private final String contentType;
+    private final String extensao;
+}
@@ -0,0 +1,7 @@
+package com.lemnos.server.models.enums;
+
+public enum OperacaoCarrinho {
+    ADICIONAR,
+    REMOVER,
+    DEFINIR
+}
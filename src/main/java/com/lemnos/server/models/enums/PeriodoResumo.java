@@ -0,0 +1,27 @@
+package com.lemnos.server.models.enums;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+@AllArgsConstructor
+@Getter
+public enum PeriodoResumo {
+    HORA("H", ChronoUnit.HOURS),
+    DIA("D", ChronoUnit.DAYS);
+
+    /**
+     * Valor gravado na coluna Resumo_Vendas.Periodo
+     **/
+    private final String codigo;
+    private final ChronoUnit unidade;
+
+    /**
+     * @return O início do período que contém o momento informado
+     **/
+    public LocalDateTime getInicio(LocalDateTime momento) {
+        return momento.truncatedTo(unidade);
+    }
+}
@@ -6,12 +6,37 @@ import lombok.Getter;
 @AllArgsConstructor
 @Getter
 public enum Status {
-    EM_PROCESSAMENTO("Em processamento"),
-    ENVIADO_TRANSPORTADORA("Enviado para a transportadora"),
-    RECEBIDO_TRANSPORTADORA("Recebido pela transportadora"),
-    MERCADORIA_EM_TRANSITO("Mercadoria em trânsito"),
-    ROTA_DE_ENTREGA("Mercadoria em rota de entrega"),
-    ENTREGUE("Entregue");
+    EM_PROCESSAMENTO((short) 1, "Em processamento"),
+    ENVIADO_TRANSPORTADORA((short) 2, "Enviado para a transportadora"),
+    RECEBIDO_TRANSPORTADORA((short) 3, "Recebido pela transportadora"),
+    MERCADORIA_EM_TRANSITO((short) 4, "Mercadoria em trânsito"),
+    ROTA_DE_ENTREGA((short) 5, "Mercadoria em rota de entrega"),
+    ENTREGUE((short) 6, "Entregue");
 
+    /**
+     * Código gravado na coluna Pedido.Status
+     **/
+    private final short codigo;
     private final String status;
+
+    /**
+     * Um pedido só anda para frente, podendo pular etapas (transportadoras nem sempre informam todas).
+     **/
+    public boolean podeMudarPara(Status destino) {
+        return destino.ordinal() > this.ordinal();
+    }
+
+    /**
+     * @return A próxima etapa, ou nulo se o pedido já foi entregue
+     **/
+    public Status proximo() {
+        return (this == ENTREGUE) ? null : values()[ordinal() + 1];
+    }
+
+    public static Status fromCodigo(short codigo) {
+        for (Status status : values()) {
+            if (status.codigo == codigo) return status;
+        }
+        throw new IllegalArgumentException("Código de status desconhecido: " + codigo);
+    }
 }
@@ -0,0 +1,6 @@
+package com.lemnos.server.models.enums;
+
+public enum TipoAlteracao {
+    UPSERT,
+    DELETE
+}
@@ -0,0 +1,6 @@
+package com.lemnos.server.models.enums;
+
+public enum TipoEvento {
+    PEDIDO_CRIADO,
+    PEDIDO_STATUS_ALTERADO
+}
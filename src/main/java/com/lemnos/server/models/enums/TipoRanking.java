@@ -0,0 +1,7 @@
+package com.lemnos.server.models.enums;
+
+public enum TipoRanking {
+    AVALIACAO,
+    DESCONTO,
+    NOVIDADE
+}
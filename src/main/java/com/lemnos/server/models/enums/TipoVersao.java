@@ -0,0 +1,19 @@
+package com.lemnos.server.models.enums;
+
+/**
+ * Os agregados que têm versão no {@link com.lemnos.server.services.VersaoService}, e o que identifica cada um.
+ **/
+public enum TipoVersao {
+    /** Um produto, pelo Id */
+    PRODUTO,
+    /** As listas de produtos (descontos, lotes), com uma versão só */
+    CATALOGO,
+    /** Os rankings, com uma versão só; também mudam com o {@link #CATALOGO} */
+    RANKING,
+    /** O carrinho de um cliente, pelo email; também muda com o {@link #CATALOGO}, já que o total usa os preços atuais */
+    CARRINHO,
+    /** Os favoritos de um cliente, pelo Id do cliente */
+    FAVORITOS,
+    /** Os pedidos de um cliente, pelo Id do cadastro */
+    PEDIDOS
+}
@@ -0,0 +1,21 @@
+package com.lemnos.server.models.enums;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import static com.lemnos.server.models.enums.CampoProduto.*;
+
+/**
+ * Conjuntos prontos de campos do produto, pedidos em {@code view=}.
+ **/
+@AllArgsConstructor
+@Getter
+public enum VisaoProduto {
+    CARD(EnumSet.of(ID, NOME, VALOR_TOTAL, VALOR_COM_DESCONTO, DESCONTO, IMAGEM_PRINCIPAL, AVALIACAO, QUANTIDADE_AVALIACOES)),
+    DETAIL(EnumSet.allOf(CampoProduto.class));
+
+    private final Set<CampoProduto> campos;
+}
@@ -0,0 +1,59 @@
+package com.lemnos.server.models.estoque;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Contador em memória para produtos muito disputados (ex.: em campanhas de desconto).
+ * <p>
+ * Guarda unidades já retiradas do banco em lotes pelo {@link com.lemnos.server.services.EstoqueService},
+ * divididas em listras para que as threads não disputem o mesmo contador. Cada listra ocupa a própria
+ * linha de cache para evitar false sharing.
+ **/
+public class ContadorEstoque {
+    private static final int LISTRAS = 16;
+    private static final int ESPACAMENTO = 16;
+
+    private final AtomicIntegerArray listras = new AtomicIntegerArray(LISTRAS * ESPACAMENTO);
+
+    /**
+     * Retira a {@code quantidade} de uma única listra, começando pela listra da thread atual.
+     *
+     * @return Se havia unidades suficientes em alguma listra
+     **/
+    public boolean retirar(int quantidade) {
+        int inicio = listraDaThread();
+        for (int i = 0; i < LISTRAS; i++) {
+            int indice = ((inicio + i) % LISTRAS) * ESPACAMENTO;
+            int atual;
+            while ((atual = listras.get(indice)) >= quantidade) {
+                if (listras.compareAndSet(indice, atual, atual - quantidade)) return true;
+            }
+        }
+        return false;
+    }
+
+    public void depositar(int quantidade) {
+        listras.addAndGet(listraDaThread() * ESPACAMENTO, quantidade);
+    }
+
+    /**
+     * Zera todas as listras.
+     *
+     * @return A quantidade de unidades que estavam no contador
+     **/
+    public int drenar() {
+        int total = 0;
+        for (int i = 0; i < LISTRAS; i++) total += listras.getAndSet(i * ESPACAMENTO, 0);
+        return total;
+    }
+
+    public int getDisponivel() {
+        int total = 0;
+        for (int i = 0; i < LISTRAS; i++) total += listras.get(i * ESPACAMENTO);
+        return total;
+    }
+
+    private static int listraDaThread() {
+        return (int) (Thread.currentThread().threadId() % LISTRAS);
+    }
+}
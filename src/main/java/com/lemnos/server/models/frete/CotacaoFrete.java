@@ -0,0 +1,27 @@
+package com.lemnos.server.models.frete;
+
+import com.lemnos.server.models.dtos.responses.OpcaoFreteResponse;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+public record CotacaoFrete(
+        String id,
+        Integer idCadastro,
+        String cep,
+        Double pesoReal,
+        Double volume,
+        List<OpcaoFreteResponse> opcoes,
+        Instant expiraEm
+) {
+    public Optional<OpcaoFreteResponse> getOpcao(String transportadora) {
+        return opcoes.stream()
+                .filter(opcao -> opcao.transportadora().equalsIgnoreCase(transportadora))
+                .findFirst();
+    }
+
+    public boolean isExpirada() {
+        return Instant.now().isAfter(expiraEm);
+    }
+}
@@ -0,0 +1,14 @@
+package com.lemnos.server.models.frete;
+
+public record FaixaFrete(
+        Integer cepInicial,
+        Integer cepFinal,
+        Double valorBase,
+        Double valorKgAdicional,
+        Integer prazo
+) {
+    public Double calcularValor(double pesoTaxado) {
+        double kgAdicionais = Math.max(0, Math.ceil(pesoTaxado) - 1);
+        return Math.round((valorBase + valorKgAdicional * kgAdicionais) * 100) / 100.0;
+    }
+}
@@ -0,0 +1,61 @@
+package com.lemnos.server.models.frete;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Tabela imutável de faixas de CEP de uma transportadora.
+ * <p>
+ * As faixas ficam ordenadas pelo prefixo inicial em arrays primitivos,
+ * então a busca de um CEP é uma busca binária sem alocação.
+ **/
+public final class TabelaFrete {
+    public static final int TAMANHO_PREFIXO = 5;
+
+    @Getter private final String transportadora;
+    @Getter private final Integer fatorCubico;
+    private final int[] inicios;
+    private final int[] fins;
+    private final FaixaFrete[] faixas;
+
+    public TabelaFrete(String transportadora, Integer fatorCubico, List<FaixaFrete> faixas) {
+        FaixaFrete[] ordenadas = faixas.stream()
+                .sorted(Comparator.comparing(FaixaFrete::cepInicial))
+                .toArray(FaixaFrete[]::new);
+
+        this.transportadora = transportadora;
+        this.fatorCubico = fatorCubico;
+        this.faixas = ordenadas;
+        this.inicios = new int[ordenadas.length];
+        this.fins = new int[ordenadas.length];
+
+        for (int i = 0; i < ordenadas.length; i++) {
+            inicios[i] = ordenadas[i].cepInicial();
+            fins[i] = ordenadas[i].cepFinal();
+            if (fins[i] < inicios[i] || (i > 0 && inicios[i] <= fins[i - 1])) {
+                throw new IllegalStateException("Faixas de CEP inválidas ou sobrepostas na tabela da transportadora " + transportadora);
+            }
+        }
+    }
+
+    /**
+     * Busca a faixa que contém o prefixo de CEP passado.
+     *
+     * @param prefixoCep Os primeiros {@value #TAMANHO_PREFIXO} dígitos do CEP
+     *
+     * @return A faixa encontrada ou {@code null} se a transportadora não atende a região
+     **/
+    public FaixaFrete buscar(int prefixoCep) {
+        int indice = Arrays.binarySearch(inicios, prefixoCep);
+        if (indice < 0) indice = -indice - 2;
+        if (indice < 0 || prefixoCep > fins[indice]) return null;
+        return faixas[indice];
+    }
+
+    public double getPesoCubico(double volumeCm3) {
+        return volumeCm3 / fatorCubico;
+    }
+}
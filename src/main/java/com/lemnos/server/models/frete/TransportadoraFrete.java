@@ -0,0 +1,13 @@
+package com.lemnos.server.models.frete;
+
+import java.util.List;
+
+public record TransportadoraFrete(
+        String transportadora,
+        Integer fatorCubico,
+        List<FaixaFrete> faixas
+) {
+    public TabelaFrete toTabela() {
+        return new TabelaFrete(transportadora, fatorCubico, faixas);
+    }
+}
@@ -0,0 +1,20 @@
+package com.lemnos.server.models.idempotencia;
+
+import java.time.Instant;
+
+/**
+ * Primeira resposta dada a uma Idempotency-Key, repetida nas próximas requisições com a mesma chave.
+ *
+ * @param impressao Hash do método, caminho e corpo da requisição original
+ **/
+public record RespostaIdempotente(
+        String impressao,
+        int status,
+        String contentType,
+        byte[] corpo,
+        Instant expiraEm
+) {
+    public boolean isExpirada() {
+        return expiraEm.isBefore(Instant.now());
+    }
+}
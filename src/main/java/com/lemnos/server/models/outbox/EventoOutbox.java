@@ -0,0 +1,17 @@
+package com.lemnos.server.models.outbox;
+
+import com.lemnos.server.models.enums.TipoEvento;
+
+import java.time.Instant;
+
+/**
+ * Evento lido da tabela Outbox. {@code payload} é o JSON do evento, {@code agregado} o id da entidade que o gerou.
+ **/
+public record EventoOutbox(
+        Long id,
+        TipoEvento tipo,
+        String agregado,
+        String payload,
+        Integer tentativas,
+        Instant dataCriacao
+) { }
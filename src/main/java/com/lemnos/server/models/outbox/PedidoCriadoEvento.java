@@ -0,0 +1,21 @@
+package com.lemnos.server.models.outbox;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+public record PedidoCriadoEvento(
+        Integer idPedido,
+        Integer idCadastro,
+        String metodoPagamento,
+        Double valorPedido,
+        Double valorFrete,
+        Instant dataPedido,
+        List<ItemVendido> itens
+) {
+    public record ItemVendido(
+            UUID idProduto,
+            Integer quantidade,
+            Double valorEfetivo
+    ) { }
+}
@@ -0,0 +1,11 @@
+package com.lemnos.server.models.outbox;
+
+import java.time.Instant;
+
+public record StatusPedidoEvento(
+        Integer idPedido,
+        Integer idCadastro,
+        String statusAnterior,
+        String status,
+        Instant dataAlteracao
+) { }
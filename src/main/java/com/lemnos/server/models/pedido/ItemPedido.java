@@ -0,0 +1,35 @@
+package com.lemnos.server.models.pedido;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * Item de um pedido com os preços registrados no checkout.
+ * {@code valorUnitario} é o preço de tabela e {@code valorEfetivo} o preço pago, já com desconto.
+ **/
+@Data
+@Entity
+@NoArgsConstructor
+@IdClass(ItemPedidoId.class)
+@Table(name = "Itens_Pedido")
+public class ItemPedido {
+    @Id
+    @Column(name = "Id_Pedido")
+    private Integer idPedido;
+
+    @Id
+    @Column(name = "Id_Produto")
+    private UUID idProduto;
+
+    @Column(name = "Quantidade")
+    private Integer quantidade;
+
+    @Column(name = "Valor_Unitario")
+    private Double valorUnitario;
+
+    @Column(name = "Valor_Efetivo")
+    private Double valorEfetivo;
+}
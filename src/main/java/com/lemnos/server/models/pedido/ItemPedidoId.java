@@ -0,0 +1,16 @@
+package com.lemnos.server.models.pedido;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemPedidoId implements Serializable {
+    private Integer idPedido;
+    private UUID idProduto;
+}
@@ -5,7 +5,7 @@ import com.lemnos.server.models.enums.Status;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import org.hibernate.annotations.CurrentTimestamp;
+import org.hibernate.annotations.CreationTimestamp;
 
 import java.util.Date;
 
@@ -25,8 +25,11 @@ public class Pedido {
     @Column(name = "Metodo_Pagamento")
     private String metodoPagamento;
 
-    @CurrentTimestamp
-    @Column(name = "Data_Pedido")
+    /**
+     * Chave de partição de Pedido: preenchida na inserção e nunca mais alterada (a V18.0 também recusa UPDATEs nela).
+     **/
+    @CreationTimestamp
+    @Column(name = "Data_Pedido", updatable = false)
     private Date dataPedido;
 
     @Column(name = "Valor_Pagamento")
@@ -35,29 +38,41 @@ public class Pedido {
     @Column(name = "Quantidade_Produtos")
     private Integer qntdProdutos;
 
-    @CurrentTimestamp
-    @Column(name = "Data_Pagamento")
+    /**
+     * Quando o pagamento foi registrado. Hoje o pagamento vem junto com o pedido, então é a data do checkout.
+     **/
+    @Column(name = "Data_Pagamento", updatable = false)
     private Date dataPagamento;
 
     @Column(name = "Valor_Frete")
     private Double valorFrete;
 
+    /**
+     * Formato antigo dos itens ({@code "idProduto, quantidade"} por linha). Pedidos novos usam {@link ItemPedido}.
+     **/
     @Column(name = "Descricao")
     private String descricao;
 
+    @Convert(converter = StatusConverter.class)
     @Column(name = "Status")
-    private String status = Status.EM_PROCESSAMENTO.getStatus();
+    private Status status = Status.EM_PROCESSAMENTO;
+
+    @Column(name = "Reservado_Por")
+    private String reservadoPor;
+
+    @Column(name = "Reservado_Ate")
+    private Date reservadoAte;
 
     @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "Id_Cadastro")
     private Cadastro cadastro;
 
-    public Pedido(Double valorPedido, String metodoPagamento, Double valorPagamento, Integer qntdProdutos, String descricao, Double valorFrete, Cadastro cadastro) {
+    public Pedido(Double valorPedido, String metodoPagamento, Double valorPagamento, Integer qntdProdutos, Double valorFrete, Cadastro cadastro) {
         this.valorPedido = valorPedido;
         this.metodoPagamento = metodoPagamento;
         this.valorPagamento = valorPagamento;
+        this.dataPagamento = new Date();
         this.qntdProdutos = qntdProdutos;
-        this.descricao = descricao;
         this.cadastro = cadastro;
         this.valorFrete = valorFrete;
     }
@@ -0,0 +1,18 @@
+package com.lemnos.server.models.pedido;
+
+import com.lemnos.server.models.enums.Status;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+@Converter
+public class StatusConverter implements AttributeConverter<Status, Short> {
+    @Override
+    public Short convertToDatabaseColumn(Status status) {
+        return (status == null) ? null : status.getCodigo();
+    }
+
+    @Override
+    public Status convertToEntityAttribute(Short codigo) {
+        return (codigo == null) ? null : Status.fromCodigo(codigo);
+    }
+}
@@ -0,0 +1,8 @@
+package com.lemnos.server.models.produto;
+
+import java.util.UUID;
+
+public record FornecedorProduto(
+        UUID idProduto,
+        String fornecedor
+) { }
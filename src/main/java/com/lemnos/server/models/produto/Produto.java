@@ -1,15 +1,16 @@
 package com.lemnos.server.models.produto;
 
-import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.lemnos.server.models.dtos.requests.ProdutoRequest;
-import com.lemnos.server.models.entidades.Cliente;
 import com.lemnos.server.models.produto.categoria.SubCategoria;
 import com.lemnos.server.models.produto.imagens.ImagemPrincipal;
 import io.micrometer.common.util.StringUtils;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.Formula;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
@@ -62,10 +63,6 @@ public class Produto {
     @JoinColumn(name = "Id_Imagem")
     private ImagemPrincipal imagemPrincipal;
 
-    @ManyToMany(mappedBy = "produtosFavoritos")
-    @JsonIgnore
-    private List<Cliente> clientes;
-
     @OneToOne(fetch = FetchType.EAGER)
     @JoinColumn(name = "Id_Desconto")
     private Desconto desconto;
@@ -76,6 +73,13 @@ public class Produto {
     @JoinColumn(name = "Media_Avaliacao")
     private Double mediaAvaliacao;
 
+    @CreationTimestamp
+    @Column(name = "Data_Cadastro", updatable = false)
+    private LocalDateTime dataCadastro;
+
+    @Formula("COALESCE((SELECT pp.Pontuacao FROM Popularidade_Produto pp WHERE pp.Id_Produto = Id), -1)")
+    private Double popularidade;
+
     public Produto(ProdutoRequest produtoRequest, Double valor, Fabricante fabricante, SubCategoria subCategoria, ImagemPrincipal imagemPrincipal,Desconto desconto){
         this.nome = produtoRequest.nome();
         this.descricao = produtoRequest.descricao();
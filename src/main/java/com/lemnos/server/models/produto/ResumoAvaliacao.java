@@ -0,0 +1,9 @@
+package com.lemnos.server.models.produto;
+
+import java.util.UUID;
+
+public record ResumoAvaliacao(
+        UUID idProduto,
+        Double media,
+        Long quantidade
+) { }
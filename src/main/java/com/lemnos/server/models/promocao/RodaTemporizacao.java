@@ -0,0 +1,74 @@
+package com.lemnos.server.models.promocao;
+
+import java.util.*;
+
+/**
+ * Roda de temporização (hashed timing wheel) para disparar itens em um instante.
+ * <p>
+ * O tempo é dividido em ticks de {@code duracaoTick} ms e cada item fica na posição {@code tick % posicoes}, com o tick em que
+ * vence. Avançar a roda visita só as posições dos ticks que passaram, então agendar e disparar custam O(1) independente de
+ * quantos itens estão esperando; itens mais distantes que uma volta ficam na posição até o tick deles chegar.
+ * Um mesmo item agendado de novo para o mesmo instante é ignorado.
+ **/
+public class RodaTemporizacao<T> {
+    private final long duracaoTick;
+    private final List<Set<Agendamento<T>>> posicoes;
+    private final Set<Agendamento<T>> agendados = new HashSet<>();
+    private long tickAtual;
+
+    /**
+     * @param agora O instante inicial, em ms; itens agendados antes dele disparam no primeiro avanço
+     **/
+    public RodaTemporizacao(long duracaoTick, int quantidadePosicoes, long agora) {
+        this.duracaoTick = duracaoTick;
+        this.posicoes = new ArrayList<>(quantidadePosicoes);
+        for (int i = 0; i < quantidadePosicoes; i++) posicoes.add(new HashSet<>());
+        this.tickAtual = agora / duracaoTick;
+    }
+
+    /**
+     * O tick é arredondado para cima, então o item nunca dispara antes do instante, no máximo um tick depois.
+     *
+     * @param instante Quando o item deve disparar, em ms
+     **/
+    public synchronized void agendar(T item, long instante) {
+        Agendamento<T> agendamento = new Agendamento<>(item, Math.max(Math.ceilDiv(instante, duracaoTick), tickAtual + 1));
+        if (!agendados.add(agendamento)) return;
+        posicoes.get(getPosicao(agendamento.tick())).add(agendamento);
+    }
+
+    /**
+     * Avança a roda até {@code agora}, visitando no máximo uma volta mesmo depois de uma pausa longa.
+     *
+     * @return Os itens vencidos
+     **/
+    public synchronized List<T> avancar(long agora) {
+        long ate = agora / duracaoTick;
+        if (ate <= tickAtual) return List.of();
+
+        List<T> vencidos = new ArrayList<>();
+        long passos = Math.min(ate - tickAtual, posicoes.size());
+        for (long i = 1; i <= passos; i++) {
+            Iterator<Agendamento<T>> iterador = posicoes.get(getPosicao(tickAtual + i)).iterator();
+            while (iterador.hasNext()) {
+                Agendamento<T> agendamento = iterador.next();
+                if (agendamento.tick() > ate) continue;
+                iterador.remove();
+                agendados.remove(agendamento);
+                vencidos.add(agendamento.item());
+            }
+        }
+        tickAtual = ate;
+        return vencidos;
+    }
+
+    public synchronized int getQuantidade() {
+        return agendados.size();
+    }
+
+    private int getPosicao(long tick) {
+        return (int) (tick % posicoes.size());
+    }
+
+    private record Agendamento<T>(T item, long tick) { }
+}
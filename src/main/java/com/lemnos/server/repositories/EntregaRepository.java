@@ -5,9 +5,13 @@ import com.lemnos.server.models.pedido.Pedido;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Date;
 import java.util.Optional;
 
 @Repository
 public interface EntregaRepository extends JpaRepository<Entrega, Integer> {
-    Optional<Entrega> findByPedido(Pedido pedido);
+    /**
+     * Busca a entrega só nas partições a partir da data do pedido, já que um pedido não é entregue antes de ser feito.
+     **/
+    Optional<Entrega> findByPedidoAndDataEntregaGreaterThanEqual(Pedido pedido, Date dataPedido);
 }
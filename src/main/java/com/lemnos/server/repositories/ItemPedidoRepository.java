@@ -0,0 +1,14 @@
+package com.lemnos.server.repositories;
+
+import com.lemnos.server.models.pedido.ItemPedido;
+import com.lemnos.server.models.pedido.ItemPedidoId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ItemPedidoRepository extends JpaRepository<ItemPedido, ItemPedidoId> {
+    List<ItemPedido> findByIdPedidoIn(Collection<Integer> idsPedido);
+}
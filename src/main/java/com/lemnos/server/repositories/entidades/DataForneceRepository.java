@@ -2,13 +2,26 @@ package com.lemnos.server.repositories.entidades;
 
 import com.lemnos.server.models.produto.DataFornece;
 import com.lemnos.server.models.produto.DataForneceId;
+import com.lemnos.server.models.produto.FornecedorProduto;
 import com.lemnos.server.models.produto.Produto;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 @Repository
 public interface DataForneceRepository extends JpaRepository<DataFornece, DataForneceId> {
     Optional<DataFornece> findByProduto(Produto produtoById);
+
+    @Query("""
+        SELECT new com.lemnos.server.models.produto.FornecedorProduto(df.produto.id, df.fornecedor.nome)
+        FROM DataFornece df
+        WHERE df.produto.id IN :ids
+        """)
+    List<FornecedorProduto> findFornecedoresByProdutos(@Param("ids") Collection<UUID> ids);
 }
@@ -2,12 +2,25 @@ package com.lemnos.server.repositories.produto;
 
 import com.lemnos.server.models.produto.Avaliacao;
 import com.lemnos.server.models.produto.Produto;
+import com.lemnos.server.models.produto.ResumoAvaliacao;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.UUID;
 
 @Repository
 public interface AvaliacaoRepository extends JpaRepository<Avaliacao, Integer> {
     List<Avaliacao> findAllByProduto(Produto produto);
+
+    @Query("""
+        SELECT new com.lemnos.server.models.produto.ResumoAvaliacao(a.produto.id, AVG(a.avaliacao), COUNT(a))
+        FROM Avaliacao a
+        WHERE a.produto.id IN :ids
+        GROUP BY a.produto.id
+        """)
+    List<ResumoAvaliacao> resumirPorProdutos(@Param("ids") Collection<UUID> ids);
 }
@@ -1,14 +1,21 @@
 package com.lemnos.server.repositories.produto;
 
 import com.lemnos.server.models.produto.Produto;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
 @Repository
 public interface ProdutoRepository extends JpaRepository<Produto, UUID>, JpaSpecificationExecutor<Produto> {
-    List<Produto> findByDescontoValorDescontoNot(String porcentagemDesconto);
+    @Query("SELECT p.id FROM Produto p WHERE p.desconto.valorDesconto <> '0'")
+    List<UUID> findIdsComDesconto();
+
+    @EntityGraph(attributePaths = {"fabricante", "subCategoria.categoria", "imagemPrincipal.imagens", "desconto"})
+    List<Produto> findAllByIdIn(Collection<UUID> ids);
 }
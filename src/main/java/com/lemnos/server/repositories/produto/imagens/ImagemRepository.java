@@ -4,6 +4,10 @@ import com.lemnos.server.models.produto.imagens.Imagem;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface ImagemRepository extends JpaRepository<Imagem, Integer> {
+    List<Imagem> findAllByImagemPrincipalIdInOrderById(Collection<Integer> idsImagemPrincipal);
 }
@@ -0,0 +1,125 @@
+package com.lemnos.server.services;
+
+import com.lemnos.server.models.enums.TipoEvento;
+import com.lemnos.server.models.outbox.EventoOutbox;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+
+/**
+ * Leva as alterações de status dos pedidos para o {@link AcompanhamentoPedidoService} de todas as instâncias do servidor.
+ * <p>
+ * Ao processar um {@code PEDIDO_STATUS_ALTERADO} da Outbox, o payload do evento é publicado com {@code pg_notify} no canal
+ * {@value CANAL}; como o NOTIFY é transacional, ele só sai quando a baixa do evento é confirmada. Cada instância mantém uma
+ * conexão dedicada com {@code LISTEN} no canal e repassa o que recebe para as conexões dos clientes.
+ * <p>
+ * A conexão do LISTEN é aberta direto pelo driver, fora do pool: ela fica aberta enquanto a aplicação roda, e uma conexão
+ * do Hikari presa nela deixaria o pool com uma conexão a menos para as requisições.
+ **/
+@Component
+public class AcompanhamentoPedidoRelay implements ManipuladorEvento, SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(AcompanhamentoPedidoRelay.class);
+    private static final String CANAL = "pedido_status";
+    private static final int ESPERA_NOTIFICACAO = 1000;
+    private static final long ESPERA_RECONEXAO = 5 * 1000;
+
+    private final DataSourceProperties dataSourceProperties;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final AcompanhamentoPedidoService acompanhamentoPedidoService;
+
+    private volatile boolean rodando;
+    private Thread ouvinte;
+
+    public AcompanhamentoPedidoRelay(DataSourceProperties dataSourceProperties, NamedParameterJdbcTemplate jdbcTemplate, AcompanhamentoPedidoService acompanhamentoPedidoService) {
+        this.dataSourceProperties = dataSourceProperties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.acompanhamentoPedidoService = acompanhamentoPedidoService;
+    }
+
+    @Override
+    public Set<TipoEvento> getTipos() {
+        return Set.of(TipoEvento.PEDIDO_STATUS_ALTERADO);
+    }
+
+    @Override
+    public void processar(EventoOutbox evento) {
+        jdbcTemplate.query(
+                "SELECT pg_notify(:canal, :payload)",
+                new MapSqlParameterSource().addValue("canal", CANAL).addValue("payload", evento.payload()),
+                rs -> { }
+        );
+    }
+
+    @Override
+    public void start() {
+        rodando = true;
+        ouvinte = Thread.ofVirtual().name("pedido-status-listen").start(this::ouvir);
+    }
+
+    @Override
+    public void stop() {
+        rodando = false;
+        if (ouvinte == null) return;
+        ouvinte.interrupt();
+        try {
+            ouvinte.join(ESPERA_RECONEXAO);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return rodando;
+    }
+
+    private void ouvir() {
+        while (rodando) {
+            try (Connection conexao = conectar()) {
+                conexao.setAutoCommit(true);
+                try (Statement statement = conexao.createStatement()) {
+                    statement.execute("LISTEN " + CANAL);
+                }
+                PGConnection pgConexao = conexao.unwrap(PGConnection.class);
+                while (rodando) {
+                    PGNotification[] notificacoes = pgConexao.getNotifications(ESPERA_NOTIFICACAO);
+                    if (notificacoes == null) continue;
+                    for (PGNotification notificacao : notificacoes) {
+                        acompanhamentoPedidoService.entregar(notificacao.getParameter());
+                    }
+                }
+            }
+            catch (SQLException e) {
+                if (!rodando) return;
+                log.warn("Conexão de LISTEN do canal {} perdida, reconectando", CANAL, e);
+                try {
+                    Thread.sleep(ESPERA_RECONEXAO);
+                }
+                catch (InterruptedException ie) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private Connection conectar() throws SQLException {
+        return DriverManager.getConnection(
+                dataSourceProperties.determineUrl(),
+                dataSourceProperties.determineUsername(),
+                dataSourceProperties.determinePassword()
+        );
+    }
+}
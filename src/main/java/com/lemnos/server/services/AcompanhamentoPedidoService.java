@@ -0,0 +1,154 @@
+package com.lemnos.server.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lemnos.server.exceptions.entidades.cliente.ClienteNotFoundException;
+import com.lemnos.server.models.cadastro.Cadastro;
+import com.lemnos.server.models.dtos.responses.AtualizacaoPedidoResponse;
+import com.lemnos.server.models.outbox.StatusPedidoEvento;
+import com.lemnos.server.repositories.cadastro.CadastroRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stream (Server-Sent Events) com as alterações de status dos pedidos do cliente, para substituir o polling de {@code GET /pedido}.
+ * <p>
+ * As alterações chegam pelo {@link AcompanhamentoPedidoRelay}, de qualquer instância do servidor, e são distribuídas para as conexões
+ * do cliente nesta instância. Cada conexão tem um buffer de {@value TAMANHO_BUFFER} alterações e uma virtual thread que o envia;
+ * se o cliente não acompanhar, as alterações mais antigas são descartadas, já que só o status mais recente de cada pedido importa.
+ **/
+@Service
+public class AcompanhamentoPedidoService {
+    private static final Logger log = LoggerFactory.getLogger(AcompanhamentoPedidoService.class);
+    private static final long TRINTA_MINUTOS = 30 * 60 * 1000;
+    private static final long BATIMENTO_SEGUNDOS = 25;
+    private static final int TAMANHO_BUFFER = 32;
+    private static final int MAXIMO_CONEXOES_CLIENTE = 5;
+
+    private final CadastroRepository cadastroRepository;
+    private final ObjectMapper objectMapper;
+    private final Map<Integer, Set<Conexao>> conexoes = new ConcurrentHashMap<>();
+    private final AtomicInteger abertas = new AtomicInteger();
+    private final Counter descartadas;
+
+    public AcompanhamentoPedidoService(CadastroRepository cadastroRepository, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.cadastroRepository = cadastroRepository;
+        this.objectMapper = objectMapper;
+        Gauge.builder("pedido.stream.conexoes", abertas, AtomicInteger::get).description("Conexões abertas no stream de pedidos").register(meterRegistry);
+        this.descartadas = Counter.builder("pedido.stream.descartadas").description("Alterações descartadas por conexões lentas").register(meterRegistry);
+    }
+
+    /**
+     * Abre o stream do cliente. Cada cliente pode ter até {@value MAXIMO_CONEXOES_CLIENTE} conexões; ao passar disso a mais antiga é fechada.
+     **/
+    public ResponseEntity<SseEmitter> conectar(JwtAuthenticationToken token) {
+        Cadastro cadastro = cadastroRepository.findByEmail(token.getName().replace("%40", "@")).orElseThrow(ClienteNotFoundException::new);
+        Conexao conexao = new Conexao(cadastro.getId(), new SseEmitter(TRINTA_MINUTOS));
+        conexao.emitter.onCompletion(() -> fechar(conexao));
+        conexao.emitter.onTimeout(conexao.emitter::complete);
+        conexao.emitter.onError(erro -> fechar(conexao));
+
+        Set<Conexao> doCliente = conexoes.compute(conexao.idCadastro, (id, atuais) -> {
+            Set<Conexao> conexoesCliente = (atuais == null) ? new CopyOnWriteArraySet<>() : atuais;
+            conexoesCliente.add(conexao);
+            return conexoesCliente;
+        });
+        abertas.incrementAndGet();
+        if (doCliente.size() > MAXIMO_CONEXOES_CLIENTE) doCliente.iterator().next().emitter.complete();
+
+        conexao.thread = Thread.ofVirtual().name("pedido-stream-" + conexao.idCadastro).start(conexao::enviar);
+        return ResponseEntity.ok()
+                .header("X-Accel-Buffering", "no")
+                .body(conexao.emitter);
+    }
+
+    /**
+     * Entrega uma alteração de status, no formato de {@link StatusPedidoEvento}, às conexões do dono do pedido nesta instância.
+     **/
+    public void entregar(String payload) {
+        StatusPedidoEvento evento;
+        try {
+            evento = objectMapper.readValue(payload, StatusPedidoEvento.class);
+        }
+        catch (JsonProcessingException e) {
+            log.warn("Alteração de pedido inválida recebida pelo stream: {}", payload);
+            return;
+        }
+        Set<Conexao> doCliente = conexoes.get(evento.idCadastro());
+        if (doCliente == null) return;
+
+        AtualizacaoPedidoResponse atualizacao = new AtualizacaoPedidoResponse(evento.idPedido(), evento.status(), evento.statusAnterior(), evento.dataAlteracao());
+        doCliente.forEach(conexao -> conexao.enfileirar(atualizacao));
+    }
+
+    @PreDestroy
+    public void fecharTodas() {
+        conexoes.values().forEach(doCliente -> doCliente.forEach(conexao -> conexao.emitter.complete()));
+    }
+
+    private void fechar(Conexao conexao) {
+        conexoes.computeIfPresent(conexao.idCadastro, (id, doCliente) -> {
+            if (doCliente.remove(conexao)) abertas.decrementAndGet();
+            return doCliente.isEmpty() ? null : doCliente;
+        });
+        if (conexao.thread != null) conexao.thread.interrupt();
+    }
+
+    private final class Conexao {
+        private final Integer idCadastro;
+        private final SseEmitter emitter;
+        private final LinkedBlockingDeque<AtualizacaoPedidoResponse> fila = new LinkedBlockingDeque<>(TAMANHO_BUFFER);
+        private volatile Thread thread;
+
+        private Conexao(Integer idCadastro, SseEmitter emitter) {
+            this.idCadastro = idCadastro;
+            this.emitter = emitter;
+        }
+
+        private void enfileirar(AtualizacaoPedidoResponse atualizacao) {
+            synchronized (fila) {
+                if (fila.offerLast(atualizacao)) return;
+                fila.pollFirst();
+                fila.offerLast(atualizacao);
+            }
+            descartadas.increment();
+        }
+
+        /**
+         * Envia as alterações conforme chegam, com um comentário a cada {@value BATIMENTO_SEGUNDOS} segundos sem alterações
+         * para manter a conexão aberta e descobrir clientes que já foram embora.
+         **/
+        private void enviar() {
+            try {
+                while (!Thread.currentThread().isInterrupted()) {
+                    AtualizacaoPedidoResponse atualizacao = fila.poll(BATIMENTO_SEGUNDOS, TimeUnit.SECONDS);
+                    if (atualizacao == null) emitter.send(SseEmitter.event().comment("ping"));
+                    else emitter.send(SseEmitter.event().name("status").id(String.valueOf(atualizacao.id())).data(atualizacao));
+                }
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            catch (IOException | IllegalStateException e) {
+                fechar(this);
+            }
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.lemnos.server.services;
+
+import com.lemnos.server.exceptions.produto.AlteracoesExpiradasException;
+import com.lemnos.server.exceptions.produto.ProdutoNotValidException;
+import com.lemnos.server.models.dtos.responses.AlteracaoProdutoResponse;
+import com.lemnos.server.models.dtos.responses.AlteracoesProdutoResponse;
+import com.lemnos.server.models.enums.Codigo;
+import com.lemnos.server.models.enums.TipoAlteracao;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Feed de alterações do catálogo (tabela Alteracao_Produto, criada pela migração V16.0).
+ * <p>
+ * Cada escrita em um produto registra um UPSERT ou DELETE, e os clientes pedem o que mudou desde a última versão que viram.
+ * As alterações são gravadas sem versão, com o Xid da transação. Antes de cada leitura, as alterações de transações que já
+ * terminaram (Xid abaixo do {@code pg_snapshot_xmin}) recebem as próximas versões, uma leitura por vez: como toda transação
+ * que ainda pode confirmar alterações tem um Xid maior ou igual ao xmin, nenhuma alteração recebe uma versão menor do que
+ * outra já entregue, não importa quanto tempo a transação demore.
+ * <p>
+ * A compactação apaga as linhas que já têm uma mais nova do mesmo produto, o que não muda o resultado para nenhum cliente,
+ * e as remoções mais antigas que {@code alteracoes.reter-remocoes-dias}. Como sem essas remoções um cliente mais atrasado
+ * não saberia o que foi apagado, cursores anteriores a elas recebem 410 e precisam sincronizar de novo desde o início.
+ **/
+@Service
+public class AlteracaoProdutoService {
+    private static final Logger log = LoggerFactory.getLogger(AlteracaoProdutoService.class);
+    private static final int UMA_HORA = 60 * 60 * 1000;
+    private static final int LIMITE_PADRAO = 100;
+    private static final int LIMITE_MAXIMO = 1_000;
+    private static final String INSERIR = "INSERT INTO Alteracao_Produto (Id_Produto, Operacao) VALUES (:idProduto, :operacao)";
+
+    /*
+     * O lock garante que as versões de uma numeração sejam confirmadas antes da próxima começar. Quem não consegue o lock só lê:
+     * a numeração em andamento cobre as mesmas alterações.
+     */
+    private static final String NUMERAR = """
+            UPDATE Alteracao_Produto a SET Versao = n.Versao
+            FROM (
+                SELECT p.Id, nextval('alteracao_produto_versao_seq') AS Versao
+                FROM (
+                    SELECT Id FROM Alteracao_Produto
+                    WHERE Versao IS NULL AND Xid < pg_snapshot_xmin(pg_current_snapshot())
+                    ORDER BY Xid, Id
+                ) p
+            ) n
+            WHERE a.Id = n.Id
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${alteracoes.reter-remocoes-dias:30}")
+    private int reterRemocoesDias;
+
+    public AlteracaoProdutoService(NamedParameterJdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * @param since A {@code versao} devolvida pela chamada anterior, ou 0 para o catálogo inteiro
+     **/
+    public ResponseEntity<AlteracoesProdutoResponse> getAlteracoes(Long since, Integer limite) {
+        long desde = (since == null) ? 0 : since;
+        if (desde < 0) throw new ProdutoNotValidException(Codigo.GLOBAL, "A versão não pode ser negativa!");
+        int tamanho = (limite == null || limite < 1) ? LIMITE_PADRAO : Math.min(limite, LIMITE_MAXIMO);
+
+        Long horizonte = jdbcTemplate.queryForObject("SELECT Versao FROM Alteracao_Produto_Horizonte", Map.of(), Long.class);
+        if (desde > 0 && horizonte != null && desde < horizonte) throw new AlteracoesExpiradasException();
+
+        numerar();
+        List<AlteracaoProdutoResponse> alteracoes = jdbcTemplate.query("""
+                SELECT Versao, Id_Produto, Operacao FROM Alteracao_Produto
+                WHERE Versao > :desde
+                ORDER BY Versao
+                LIMIT :limite
+                """, new MapSqlParameterSource()
+                .addValue("desde", desde)
+                .addValue("limite", tamanho + 1), (rs, i) -> new AlteracaoProdutoResponse(
+                rs.getLong("Versao"),
+                rs.getObject("Id_Produto", UUID.class).toString(),
+                rs.getString("Operacao").toLowerCase()
+        ));
+
+        boolean temMais = alteracoes.size() > tamanho;
+        if (temMais) alteracoes = alteracoes.subList(0, tamanho);
+        long versao = alteracoes.isEmpty() ? desde : alteracoes.getLast().versao();
+        return ResponseEntity.ok(new AlteracoesProdutoResponse(alteracoes, versao, temMais));
+    }
+
+    public void registrar(UUID idProduto, TipoAlteracao tipo) {
+        jdbcTemplate.update(INSERIR, getParametros(idProduto, tipo));
+    }
+
+    public void registrar(Collection<UUID> idsProdutos, TipoAlteracao tipo) {
+        if (idsProdutos.isEmpty()) return;
+        jdbcTemplate.batchUpdate(INSERIR, idsProdutos.stream()
+                .map(idProduto -> getParametros(idProduto, tipo))
+                .toArray(SqlParameterSource[]::new));
+    }
+
+    /**
+     * Registra um UPSERT para cada produto do fornecedor, cujo nome faz parte da resposta dos produtos.
+     **/
+    public void registrarPorFornecedor(Integer idFornecedor) {
+        jdbcTemplate.update("""
+                INSERT INTO Alteracao_Produto (Id_Produto, Operacao)
+                SELECT DISTINCT df.Id_Produto, 'UPSERT' FROM Data_Fornece df WHERE df.Id_Fornecedor = :idFornecedor
+                """, Map.of("idFornecedor", idFornecedor));
+    }
+
+    @Scheduled(fixedDelay = UMA_HORA, initialDelay = UMA_HORA)
+    public void compactar() {
+        try {
+            int substituidas = jdbcTemplate.update("""
+                    DELETE FROM Alteracao_Produto a
+                    WHERE EXISTS (SELECT 1 FROM Alteracao_Produto b WHERE b.Id_Produto = a.Id_Produto AND b.Versao > a.Versao)
+                    """, Map.of());
+            // Apaga as remoções antigas e avança o horizonte no mesmo comando, então nenhuma leitura vê uma coisa sem a outra
+            int remocoes = jdbcTemplate.query("""
+                    WITH apagadas AS (
+                        DELETE FROM Alteracao_Produto
+                        WHERE Operacao = 'DELETE' AND Versao IS NOT NULL AND Data_Alteracao < clock_timestamp() - make_interval(days => :dias)
+                        RETURNING Versao
+                    )
+                    UPDATE Alteracao_Produto_Horizonte h SET Versao = GREATEST(h.Versao, (SELECT MAX(Versao) FROM apagadas))
+                    WHERE EXISTS (SELECT 1 FROM apagadas)
+                    RETURNING (SELECT COUNT(*) FROM apagadas)
+                    """, Map.of("dias", reterRemocoesDias), (rs, i) -> rs.getInt(1)).stream().findFirst().orElse(0);
+            if (substituidas > 0 || remocoes > 0)
+                log.info("Feed de alterações compactado: {} alterações substituídas e {} remoções antigas apagadas", substituidas, remocoes);
+        }
+        catch (RuntimeException e) {
+            log.error("Falha ao compactar o feed de alterações", e);
+        }
+    }
+
+    /**
+     * Dá versão às alterações das transações que já terminaram, em uma transação própria para que elas fiquem visíveis
+     * antes da leitura.
+     **/
+    private void numerar() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Boolean travado = jdbcTemplate.queryForObject(
+                    "SELECT pg_try_advisory_xact_lock(hashtext('alteracao_produto_versao'))", Map.of(), Boolean.class
+            );
+            if (Boolean.TRUE.equals(travado)) jdbcTemplate.update(NUMERAR, Map.of());
+        });
+    }
+
+    private MapSqlParameterSource getParametros(UUID idProduto, TipoAlteracao tipo) {
+        return new MapSqlParameterSource()
+                .addValue("idProduto", idProduto)
+                .addValue("operacao", tipo.name());
+    }
+}
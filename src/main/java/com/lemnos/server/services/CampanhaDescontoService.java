@@ -0,0 +1,151 @@
+package com.lemnos.server.services;
+
+import com.lemnos.server.exceptions.produto.ProdutoNotValidException;
+import com.lemnos.server.models.dtos.requests.CampanhaDescontoRequest;
+import com.lemnos.server.models.dtos.responses.CampanhaDescontoResponse;
+import com.lemnos.server.models.enums.Codigo;
+import com.lemnos.server.services.DescontoProdutoService.ProdutoAlterado;
+import io.micrometer.common.util.StringUtils;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Campanhas de desconto: aplica ou retira uma porcentagem de {@code Desconto} em todos os produtos que atendem um filtro
+ * (nome, categoria, subcategoria, marca e faixa de preço), sem carregar as entidades.
+ * <p>
+ * Os produtos são percorridos pelo Id em blocos de {@value TAMANHO_BLOCO}, cada bloco em uma transação: os produtos são travados
+ * com uma consulta e o novo valor é calculado por um único UPDATE do {@link DescontoProdutoService}. Os caches e versões dos
+ * produtos são invalidados uma vez, no fim da campanha.
+ * <p>
+ * Nos produtos com uma promoção valendo, a campanha troca o desconto que volta quando a promoção termina, e o
+ * {@link PromocaoService} recalcula o desconto atual.
+ **/
+@Service
+@RequiredArgsConstructor
+public class CampanhaDescontoService {
+    private static final Logger log = LoggerFactory.getLogger(CampanhaDescontoService.class);
+    private static final int TAMANHO_BLOCO = 1_000;
+    private static final UUID INICIO = new UUID(0, 0);
+    private static final String JOINS = """
+            FROM Produto p
+            LEFT JOIN Fabricante f ON f.Id = p.Id_Fabricante
+            LEFT JOIN Sub_Categoria sc ON sc.Id = p.Id_Sub_Categoria
+            LEFT JOIN Categoria c ON c.Id = sc.Id_Categoria
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final DescontoProdutoService descontoProdutoService;
+    private final PromocaoService promocaoService;
+
+    /**
+     * Com {@code simular}, só conta os produtos do filtro e quantos mudariam, sem alterar nada.
+     **/
+    public ResponseEntity<CampanhaDescontoResponse> aplicar(CampanhaDescontoRequest request) {
+        if (request == null) throw new ProdutoNotValidException(Codigo.GLOBAL, "A campanha não foi enviada!");
+        String desconto = StringUtils.isBlank(request.desconto()) ? "0" : request.desconto().trim();
+        Integer idDesconto = descontoProdutoService.getIdDesconto(desconto);
+
+        MapSqlParameterSource parametros = new MapSqlParameterSource()
+                .addValue("idDesconto", idDesconto)
+                .addValue("tamanho", TAMANHO_BLOCO);
+        String filtro = getFiltro(request, parametros);
+
+        if (Boolean.TRUE.equals(request.simular())) {
+            Map<String, Object> contagem = jdbcTemplate.queryForMap(
+                    "SELECT COUNT(*) AS Produtos, COUNT(*) FILTER (WHERE p.Id_Desconto IS DISTINCT FROM :idDesconto) AS Alterados " + JOINS + "WHERE " + filtro,
+                    parametros
+            );
+            return ResponseEntity.ok(new CampanhaDescontoResponse(
+                    ((Number) contagem.get("Produtos")).intValue(), ((Number) contagem.get("Alterados")).intValue(), desconto, true
+            ));
+        }
+
+        int produtos = 0;
+        List<ProdutoAlterado> alterados = new ArrayList<>();
+        UUID ultimo = INICIO;
+        try {
+            while (true) {
+                parametros.addValue("ultimo", ultimo);
+                Bloco bloco = Objects.requireNonNull(transactionTemplate.execute(transacao -> aplicarBloco(filtro, parametros, desconto)));
+                if (bloco.ids().isEmpty()) break;
+
+                produtos += bloco.ids().size();
+                alterados.addAll(bloco.alterados());
+                ultimo = bloco.ids().getLast();
+                if (bloco.ids().size() < TAMANHO_BLOCO) break;
+            }
+        }
+        finally {
+            // Também quando um bloco falha, já que os anteriores continuam gravados
+            descontoProdutoService.publicar(alterados);
+        }
+        log.info("Campanha de desconto de {}% aplicada: {} produtos no filtro, {} alterados", desconto, produtos, alterados.size());
+        return ResponseEntity.ok(new CampanhaDescontoResponse(produtos, alterados.size(), desconto, false));
+    }
+
+    private Bloco aplicarBloco(String filtro, MapSqlParameterSource parametros, String desconto) {
+        List<UUID> ids = jdbcTemplate.queryForList(
+                "SELECT p.Id " + JOINS + "WHERE " + filtro + " AND p.Id > :ultimo ORDER BY p.Id LIMIT :tamanho FOR UPDATE OF p",
+                parametros, UUID.class
+        );
+        if (ids.isEmpty()) return new Bloco(ids, List.of());
+
+        Set<UUID> emPromocao = promocaoService.alterarDescontoBase(ids, desconto);
+        List<ProdutoAlterado> alterados = new ArrayList<>(descontoProdutoService.alterarDesconto(
+                ids.stream().filter(id -> !emPromocao.contains(id)).toList(), desconto
+        ));
+        alterados.addAll(promocaoService.recalcular(emPromocao, LocalDateTime.now()));
+        return new Bloco(ids, alterados);
+    }
+
+    /**
+     * Monta o WHERE da campanha com os mesmos critérios da busca de produtos. Pelo menos um critério é obrigatório,
+     * para que uma campanha nunca altere o catálogo inteiro por engano; para isso, use {@code menorPreco} 0.
+     **/
+    private String getFiltro(CampanhaDescontoRequest request, MapSqlParameterSource parametros) {
+        List<String> condicoes = new ArrayList<>();
+        if (StringUtils.isNotBlank(request.nome())) {
+            condicoes.add("(lower(p.Nome) LIKE :nome OR lower(p.Descricao) LIKE :nome)");
+            parametros.addValue("nome", "%" + request.nome().toLowerCase() + "%");
+        }
+        if (StringUtils.isNotBlank(request.categoria())) {
+            condicoes.add("c.Nome = :categoria");
+            parametros.addValue("categoria", request.categoria());
+        }
+        if (StringUtils.isNotBlank(request.subCategoria())) {
+            condicoes.add("sc.Nome = :subCategoria");
+            parametros.addValue("subCategoria", request.subCategoria());
+        }
+        if (StringUtils.isNotBlank(request.marca())) {
+            condicoes.add("f.Fabricante = :marca");
+            parametros.addValue("marca", request.marca());
+        }
+        if (request.menorPreco() != null && request.menorPreco() >= 0) {
+            condicoes.add("p.Valor >= :menorPreco");
+            parametros.addValue("menorPreco", request.menorPreco());
+        }
+        if (request.maiorPreco() != null && request.maiorPreco() >= 0) {
+            condicoes.add("p.Valor <= :maiorPreco");
+            parametros.addValue("maiorPreco", request.maiorPreco());
+        }
+        if (condicoes.isEmpty())
+            throw new ProdutoNotValidException(Codigo.GLOBAL, "Informe pelo menos um filtro para a campanha!");
+        return String.join(" AND ", condicoes);
+    }
+
+    /**
+     * @param ids Os produtos do filtro no bloco, em ordem, para continuar do último
+     * @param alterados Os que não estavam com o desconto da campanha
+     **/
+    private record Bloco(List<UUID> ids, List<ProdutoAlterado> alterados) { }
+}
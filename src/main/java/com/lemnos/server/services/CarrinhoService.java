@@ -1,23 +1,21 @@
 package com.lemnos.server.services;
 
 import com.lemnos.server.exceptions.auth.TokenNotValidOrExpiredException;
+import com.lemnos.server.exceptions.carrinho.CarrinhoNotValidException;
 import com.lemnos.server.exceptions.carrinho.CarrinhoVazioException;
-import com.lemnos.server.exceptions.entidades.cliente.ClienteNotFoundException;
 import com.lemnos.server.exceptions.entidades.produto.ProdutoNotFoundException;
-import com.lemnos.server.models.cadastro.Cadastro;
-import com.lemnos.server.models.carrinho.Carrinho;
-import com.lemnos.server.models.carrinho.ItensCarrinho;
+import com.lemnos.server.models.carrinho.CarrinhoMemoria;
+import com.lemnos.server.models.carrinho.CarrinhoPrecificado;
+import com.lemnos.server.models.dtos.requests.CarrinhoLoteRequest;
 import com.lemnos.server.models.dtos.requests.CarrinhoRequest;
+import com.lemnos.server.models.dtos.requests.OperacaoCarrinhoRequest;
 import com.lemnos.server.models.dtos.responses.CarrinhoResponse;
 import com.lemnos.server.models.dtos.responses.ItemCarrinhoResponse;
+import com.lemnos.server.models.enums.OperacaoCarrinho;
+import com.lemnos.server.models.enums.TipoVersao;
 import com.lemnos.server.models.produto.Produto;
-import com.lemnos.server.repositories.CarrinhoRepository;
-import com.lemnos.server.repositories.ItensCarrinhoRepository;
-import com.lemnos.server.repositories.cadastro.CadastroRepository;
 import com.lemnos.server.repositories.produto.ProdutoRepository;
-import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 import org.springframework.stereotype.Service;
@@ -28,104 +26,115 @@ import java.util.stream.Collectors;
 @Service
 @RequiredArgsConstructor
 public class CarrinhoService {
-    private final CadastroRepository cadastroRepository;
-    private final CarrinhoRepository carrinhoRepository;
-    private final ItensCarrinhoRepository itensCarrinhoRepository;
+    private static final int MAXIMO_OPERACOES = 200;
+
+    private final CarrinhoStore carrinhoStore;
+    private final PrecoCarrinhoService precoCarrinhoService;
     private final ProdutoRepository produtoRepository;
+    private final EstoqueService estoqueService;
+    private final PopularidadeService popularidadeService;
+    private final VersaoService versaoService;
 
-    public ResponseEntity<CarrinhoResponse> getCarrinho(JwtAuthenticationToken token) {
+    public ResponseEntity<CarrinhoResponse> getCarrinho(JwtAuthenticationToken token, String ifNoneMatch) {
         verificarToken(token);
-        Optional<Carrinho> optionalCarrinho = carrinhoRepository.findByCadastro(cadastroRepository.findByEmail(token.getName()).orElseThrow(EntityNotFoundException::new));
-        if(optionalCarrinho.isEmpty())
-            return ResponseEntity.ok().build();
-
-        Carrinho carrinho = optionalCarrinho.get();
+        return versaoService.responder(TipoVersao.CARRINHO, token.getName(), ifNoneMatch, () -> {
+            CarrinhoPrecificado carrinho = precoCarrinhoService.precificar(token.getName());
+            if(carrinho.isVazio())
+                return ResponseEntity.ok().build();
 
-        List<ItemCarrinhoResponse> items = carrinho.getItens().stream()
-                .map(item -> new ItemCarrinhoResponse(
-                        item.getProduto().getId().toString(),
-                        item.getQuantidade()
-                ))
-                .collect(Collectors.toList());
-
-        return ResponseEntity.ok(new CarrinhoResponse(
-                carrinho.getQuantidadeProdutos(),
-                carrinho.getValor(),
-                items
-        ));
+            return ResponseEntity.ok(getCarrinhoResponse(carrinho));
+        });
     }
 
     public ResponseEntity<Void> adicionarProduto(JwtAuthenticationToken token, CarrinhoRequest carrinhoRequest) {
         verificarToken(token);
-        Cadastro cadastro = getCadastroByEmail(token.getName());
         Produto produto = getProdutoById(carrinhoRequest.id());
+        Integer quantidade = getQuantidade(carrinhoRequest);
 
-        Carrinho carrinho = carrinhoRepository.findByCadastro(cadastro).orElse(null);
-
-        if(carrinho == null) {
-            carrinho = criarNovoCarrinho(cadastro, produto, carrinhoRequest.quantidade());
-        }
-        else {
-            atualizarCarrinho(carrinho, produto, carrinhoRequest.quantidade());
-        }
-
-        carrinhoRepository.save(carrinho);
+        carrinhoStore.alterar(token.getName(), carrinho -> {
+            estoqueService.reservar(carrinho.getIdCadastro(), Map.of(produto.getId(), quantidade));
+            carrinho.adicionar(produto.getId(), quantidade);
+        });
+        popularidadeService.registrarCarrinho(produto.getId());
         return ResponseEntity.ok().build();
     }
 
     public ResponseEntity<Void> removerProduto(JwtAuthenticationToken token, CarrinhoRequest carrinhoRequest) {
         verificarToken(token);
-        Carrinho carrinho = getCarrinhoByCadastro(getCadastroByEmail(token.getName()));
-        List<ItensCarrinho> itens = new ArrayList<>(carrinho.getItens());
-        Integer quantidade = (carrinhoRequest.quantidade() != null && carrinhoRequest.quantidade() > 0) ? carrinhoRequest.quantidade() : 1;
-
-        itens.stream()
-                .filter(item -> item.getProduto().equals(getProdutoById(carrinhoRequest.id())))
-                .findFirst()
-                .ifPresent(item -> {
-                    if (item.getQuantidade() > quantidade) {
-                        item.setQuantidade(item.getQuantidade() - quantidade);
-                    }
-                    else {
-                        itens.remove(item);
-                    }
-                });
-
-/*        for (ItensCarrinho item : itens) {
-            if (!item.getProduto().equals(getProdutoById(carrinhoRequest.id()))) continue;
-            if (item.getQuantidade() - quantidade != 0) {
-                item.setQuantidade(item.getQuantidade() - quantidade);
-                break;
+        UUID idProduto = getIdProduto(carrinhoRequest.id());
+        Integer quantidade = getQuantidade(carrinhoRequest);
+
+        Integer removida = carrinhoStore.alterarELer(token.getName(), carrinho -> {
+            if (carrinho.isVazio()) throw new CarrinhoVazioException();
+            return carrinho.remover(idProduto, quantidade);
+        });
+        if (removida > 0) estoqueService.liberar(getIdCadastro(token), Map.of(idProduto, removida));
+        return ResponseEntity.ok().build();
+    }
+
+    /**
+     * Aplica uma lista de operações no carrinho de uma vez só.
+     * <p>
+     * Todas as operações são validadas e os produtos buscados em uma única consulta antes de qualquer alteração.
+     * As operações são simuladas sobre uma cópia das quantidades e o carrinho só recebe a diferença entre o estado final
+     * e o atual, depois que o estoque foi reservado: se a validação ou a reserva falhar, nada muda. A diferença é aplicada
+     * segurando o lock do cliente uma vez e o journal junta as mutações de cada produto na próxima gravação.
+     * <p>
+     * A simulação e a reserva acontecem no mesmo lock da alteração, então dois lotes do mesmo cliente nunca reservam
+     * sobre o mesmo estado do carrinho. Se a alteração falhar depois da reserva, a reserva é desfeita.
+     **/
+    public ResponseEntity<CarrinhoResponse> alterarEmLote(JwtAuthenticationToken token, CarrinhoLoteRequest carrinhoLoteRequest) {
+        verificarToken(token);
+        List<Operacao> operacoes = getOperacoes(carrinhoLoteRequest);
+
+        Set<UUID> idsProdutos = operacoes.stream()
+                .filter(operacao -> operacao.tipo() != OperacaoCarrinho.REMOVER && operacao.quantidade() > 0)
+                .map(Operacao::idProduto)
+                .collect(Collectors.toSet());
+        if (produtoRepository.findAllById(idsProdutos).size() != idsProdutos.size()) throw new ProdutoNotFoundException();
+
+        ResultadoLote resultado = carrinhoStore.alterarELer(token.getName(), carrinho -> {
+            Map<UUID, Integer> variacoes = getVariacoes(carrinho.getQuantidades(), operacoes);
+            Map<UUID, Integer> reservar = new HashMap<>();
+            Map<UUID, Integer> liberar = new HashMap<>();
+            variacoes.forEach((idProduto, variacao) -> {
+                if (variacao > 0) reservar.put(idProduto, variacao);
+                else if (variacao < 0) liberar.put(idProduto, -variacao);
+            });
+
+            estoqueService.reservar(carrinho.getIdCadastro(), reservar);
+            try {
+                aplicar(carrinho, variacoes);
+            }
+            catch (RuntimeException e) {
+                estoqueService.liberar(carrinho.getIdCadastro(), reservar);
+                throw e;
             }
-            itens.remove(item);
-            break;
-        }*/
+            return new ResultadoLote(carrinho.getIdCadastro(), carrinho.getQuantidades(), reservar.keySet(), liberar);
+        });
+        // Devolver ao estoque não disputa nada com outros lotes do cliente, então fica fora do lock
+        estoqueService.liberar(resultado.idCadastro(), resultado.liberados());
+        resultado.reservados().forEach(popularidadeService::registrarCarrinho);
+        if(resultado.quantidades().isEmpty())
+            return ResponseEntity.ok().build();
 
-        if(itens.isEmpty()) {
-            carrinhoRepository.delete(carrinho);
-        }
-        else {
-            carrinho.setAll(itens, getValorTotal(itens), getQuantidadeTotal(itens));
-            carrinhoRepository.save(carrinho);
-        }
-        return ResponseEntity.ok().build();
+        return ResponseEntity.ok(getCarrinhoResponse(precoCarrinhoService.precificar(resultado.idCadastro(), resultado.quantidades())));
     }
 
     public ResponseEntity<Void> removerTodosProdutos(JwtAuthenticationToken token) {
         verificarToken(token);
-        Carrinho carrinho = getCarrinhoByCadastro(getCadastroByEmail(token.getName()));
-        carrinhoRepository.delete(carrinho);
+        Integer idCadastro = carrinhoStore.alterarELer(token.getName(), carrinho -> {
+            if (carrinho.isVazio()) throw new CarrinhoVazioException();
+            carrinho.limpar();
+            return carrinho.getIdCadastro();
+        });
+        estoqueService.liberarTudo(idCadastro);
         return ResponseEntity.ok().build();
     }
 
     public ResponseEntity<Integer> quantidadeProdutos(JwtAuthenticationToken token) {
         verificarToken(token);
-
-        Optional<Carrinho> carrinho = carrinhoRepository.findByCadastro(getCadastroByEmail(token.getName()));
-
-        return carrinho
-                .map(value -> ResponseEntity.ok(value.getItens().size()))
-                .orElseGet(() -> ResponseEntity.ok(0));
+        return ResponseEntity.ok(carrinhoStore.ler(token.getName(), carrinho -> carrinho.getItens().size()));
     }
 
     private void verificarToken(JwtAuthenticationToken token) {
@@ -133,47 +142,91 @@ public class CarrinhoService {
             throw new TokenNotValidOrExpiredException();
         }
     }
-    private Cadastro getCadastroByEmail(String email) {
-        return cadastroRepository.findByEmail(email).orElseThrow(ClienteNotFoundException::new);
+    private Integer getIdCadastro(JwtAuthenticationToken token) {
+        return carrinhoStore.ler(token.getName(), CarrinhoMemoria::getIdCadastro);
+    }
+    /**
+     * Simula as operações sobre as quantidades atuais para saber quanto de cada produto precisa ser reservado ou liberado.
+     **/
+    private Map<UUID, Integer> getVariacoes(Map<UUID, Integer> atuais, List<Operacao> operacoes) {
+        Map<UUID, Integer> finais = new LinkedHashMap<>(atuais);
+        for (Operacao operacao : operacoes) {
+            switch (operacao.tipo()) {
+                case ADICIONAR -> finais.merge(operacao.idProduto(), operacao.quantidade(), Integer::sum);
+                case REMOVER -> finais.computeIfPresent(operacao.idProduto(), (id, quantidade) -> Math.max(quantidade - operacao.quantidade(), 0));
+                case DEFINIR -> finais.put(operacao.idProduto(), operacao.quantidade());
+            }
+        }
+        Map<UUID, Integer> variacoes = new LinkedHashMap<>();
+        finais.forEach((idProduto, quantidade) -> variacoes.put(idProduto, quantidade - atuais.getOrDefault(idProduto, 0)));
+        return variacoes;
+    }
+    /**
+     * Leva o carrinho ao estado final simulado pelo {@link #getVariacoes}. Só altera a memória, então não falha no meio do lote.
+     **/
+    private void aplicar(CarrinhoMemoria carrinho, Map<UUID, Integer> variacoes) {
+        variacoes.forEach((idProduto, variacao) -> {
+            if (variacao > 0) carrinho.adicionar(idProduto, variacao);
+            else if (variacao < 0) carrinho.remover(idProduto, -variacao);
+        });
     }
     private Produto getProdutoById(String id) {
-        return produtoRepository.findById(UUID.fromString(id)).orElseThrow(ProdutoNotFoundException::new);
+        return produtoRepository.findById(getIdProduto(id)).orElseThrow(ProdutoNotFoundException::new);
     }
-    private Carrinho getCarrinhoByCadastro(Cadastro cadastro) {
-        return carrinhoRepository.findByCadastro(cadastro).orElseThrow(CarrinhoVazioException::new);
+    private UUID getIdProduto(String id) {
+        try {
+            return UUID.fromString(id);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new ProdutoNotFoundException();
+        }
     }
-    private Carrinho criarNovoCarrinho(Cadastro cadastro, Produto produto, Integer quantidade) {
-        Carrinho carrinho = new Carrinho(cadastro);
-        List<ItensCarrinho> itens = new ArrayList<>();
-        ItensCarrinho item = new ItensCarrinho(carrinho, produto, quantidade);
-        itens.add(item);
-        carrinho.setAll(itens, getValorTotal(itens), getQuantidadeTotal(itens));
-        carrinhoRepository.save(carrinho);
-        itensCarrinhoRepository.save(item);
-        return carrinho;
+    private Integer getQuantidade(CarrinhoRequest carrinhoRequest) {
+        return (carrinhoRequest.quantidade() != null && carrinhoRequest.quantidade() > 0) ? carrinhoRequest.quantidade() : 1;
     }
-    private void atualizarCarrinho(Carrinho carrinho, Produto produto, Integer quantidade) {
-        List<ItensCarrinho> itens = carrinho.getItens();
-        boolean contemProduto = itens.stream()
-                .filter(item -> item.getProduto().equals(produto))
-                .peek(item -> item.setQuantidade(item.getQuantidade() + (quantidade != null && quantidade > 0 ? quantidade : 1)))
-                .findFirst()
-                .isPresent();
-
-        if (!contemProduto) itens.add(new ItensCarrinho(carrinho, produto, (quantidade != null && quantidade > 0) ? quantidade : 1));
-
-        carrinho.setAll(itens, getValorTotal(itens), getQuantidadeTotal(itens));
+    private List<Operacao> getOperacoes(CarrinhoLoteRequest carrinhoLoteRequest) {
+        if (carrinhoLoteRequest == null || carrinhoLoteRequest.operacoes() == null || carrinhoLoteRequest.operacoes().isEmpty())
+            throw new CarrinhoNotValidException("Nenhuma operação foi enviada");
+        if (carrinhoLoteRequest.operacoes().size() > MAXIMO_OPERACOES)
+            throw new CarrinhoNotValidException("O lote pode ter no máximo " + MAXIMO_OPERACOES + " operações");
+
+        List<Operacao> operacoes = new ArrayList<>(carrinhoLoteRequest.operacoes().size());
+        for (OperacaoCarrinhoRequest request : carrinhoLoteRequest.operacoes()) {
+            if (request == null) throw new CarrinhoNotValidException("Operação inválida");
+            OperacaoCarrinho tipo = getTipoOperacao(request.operacao());
+            UUID idProduto = getIdProduto(request.id());
+            if (tipo == OperacaoCarrinho.DEFINIR) {
+                if (request.quantidade() == null || request.quantidade() < 0)
+                    throw new CarrinhoNotValidException("A quantidade é obrigatória e não pode ser negativa ao definir um produto");
+                operacoes.add(new Operacao(tipo, idProduto, request.quantidade()));
+            }
+            else {
+                operacoes.add(new Operacao(tipo, idProduto, getQuantidade(new CarrinhoRequest(request.id(), request.quantidade()))));
+            }
+        }
+        return operacoes;
     }
-
-    private Integer getQuantidadeTotal(List<ItensCarrinho> itens) {
-        return itens.stream()
-                .mapToInt(ItensCarrinho::getQuantidade)
-                .sum();
+    private OperacaoCarrinho getTipoOperacao(String operacao) {
+        try {
+            return OperacaoCarrinho.valueOf(operacao.trim().toUpperCase());
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new CarrinhoNotValidException("Operação inválida, use ADICIONAR, REMOVER ou DEFINIR");
+        }
     }
+    private CarrinhoResponse getCarrinhoResponse(CarrinhoPrecificado carrinho) {
+        List<ItemCarrinhoResponse> items = carrinho.itens().stream()
+                .map(item -> new ItemCarrinhoResponse(
+                        item.idProduto().toString(),
+                        item.quantidade()
+                ))
+                .collect(Collectors.toList());
 
-    private Double getValorTotal(List<ItensCarrinho> itens) {
-        return itens.stream()
-                .mapToDouble(item -> item.getProduto().getValor() * item.getQuantidade())
-                .sum();
+        return new CarrinhoResponse(
+                carrinho.getQuantidadeProdutos(),
+                carrinho.getValor(),
+                items
+        );
     }
+
+    private record Operacao(OperacaoCarrinho tipo, UUID idProduto, Integer quantidade) { }
+    private record ResultadoLote(Integer idCadastro, Map<UUID, Integer> quantidades, Set<UUID> reservados, Map<UUID, Integer> liberados) { }
 }
@@ -0,0 +1,417 @@
+package com.lemnos.server.services;
+
+import com.lemnos.server.exceptions.carrinho.CarrinhoVazioException;
+import com.lemnos.server.exceptions.entidades.cliente.ClienteNotFoundException;
+import com.lemnos.server.models.cadastro.Cadastro;
+import com.lemnos.server.models.carrinho.Carrinho;
+import com.lemnos.server.models.carrinho.CarrinhoMemoria;
+import com.lemnos.server.models.carrinho.MutacaoCarrinho;
+import com.lemnos.server.repositories.CarrinhoRepository;
+import com.lemnos.server.repositories.cadastro.CadastroRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.dao.NonTransientDataAccessResourceException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Store write-behind dos carrinhos ativos.
+ * <p>
+ * Os carrinhos ficam em memória por cliente (chave = email do token) e são protegidos por locks listrados,
+ * então leituras de carrinhos quentes não vão ao banco. A memória guarda só produtos e quantidades; os preços vêm de Produto,
+ * pelo {@link PrecoCarrinhoService}. Cada alteração entra em um journal, que é gravado
+ * em lote nas tabelas Carrinho e Itens_Carrinho periodicamente, no checkout e no desligamento da aplicação.
+ * <p>
+ * A gravação usa upserts atômicos sobre as chaves únicas de Carrinho(Id_Cadastro) e
+ * Itens_Carrinho(Id_Carrinho, Id_Produto), então gravações concorrentes não duplicam linhas nem perdem incrementos.
+ * <p>
+ * Com várias instâncias, cada gravação incrementa a versão do carrinho em Carrinho_Versao, e cada leitura ou alteração compara
+ * essa versão com a do carrinho em memória, com uma consulta pela chave primária. Se outra instância gravou o carrinho, o journal
+ * desta é gravado e o carrinho é relido do banco. As alterações de uma instância chegam às outras quando o journal dela é gravado,
+ * em até {@value DOIS_SEGUNDOS} ms, ou na hora no checkout.
+ **/
+@Component
+@RequiredArgsConstructor
+public class CarrinhoStore {
+    private static final Logger log = LoggerFactory.getLogger(CarrinhoStore.class);
+    private static final int QUANTIDADE_LOCKS = 64;
+    private static final int TAMANHO_LOTE = 500;
+    private static final int DOIS_SEGUNDOS = 2 * 1000;
+    private static final int UM_MINUTO = 60 * 1000;
+    private static final long INATIVIDADE_MAXIMA = 15 * 60 * 1000;
+    private static final int MAXIMO_TENTATIVAS = 3;
+
+    private final CadastroRepository cadastroRepository;
+    private final CarrinhoRepository carrinhoRepository;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    /*
+     * A quantidade total do carrinho é mantida por delta. GREATEST garante que a linha proposta no INSERT
+     * passe no CHECK da tabela mesmo quando o lote só remove itens. O valor é recalculado com os preços atuais
+     * depois dos itens, já que a memória não guarda preços.
+     */
+    private static final String UPSERT_CARRINHO = """
+            INSERT INTO Carrinho (Valor, Quantidade_Produtos, Id_Cadastro)
+            VALUES (0, GREATEST(:quantidade, 0), :idCadastro)
+            ON CONFLICT (Id_Cadastro) DO UPDATE SET
+                Quantidade_Produtos = GREATEST(Carrinho.Quantidade_Produtos + :quantidade, 0)
+            """;
+    private static final String UPSERT_ITEM = """
+            INSERT INTO Itens_Carrinho (Quantidade, Id_Produto, Id_Carrinho)
+            SELECT :delta, :idProduto, c.Id FROM Carrinho c WHERE c.Id_Cadastro = :idCadastro
+            ON CONFLICT (Id_Carrinho, Id_Produto) DO UPDATE SET Quantidade = Itens_Carrinho.Quantidade + EXCLUDED.Quantidade
+            """;
+
+    private final Map<String, CarrinhoMemoria> carrinhos = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedDeque<Lancamento> journal = new ConcurrentLinkedDeque<>();
+    private final ReentrantLock[] locks = criarLocks();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private int falhasSeguidas;
+
+    /**
+     * Executa uma leitura no carrinho do cliente, carregando do banco se ainda não estiver em memória.
+     *
+     * @param email O email do cliente, vindo do token
+     * @param leitura A função que lê o carrinho segurando o lock do cliente
+     *
+     * @return O resultado da leitura
+     **/
+    public <T> T ler(String email, Function<CarrinhoMemoria, T> leitura) {
+        ReentrantLock lock = getLock(email);
+        lock.lock();
+        try {
+            CarrinhoMemoria carrinho = getOuCarregar(email);
+            carrinho.tocar();
+            return leitura.apply(carrinho);
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Altera o carrinho do cliente em memória e envia as mutações geradas para o journal.
+     *
+     * @param email O email do cliente, vindo do token
+     * @param alteracao A alteração a ser feita segurando o lock do cliente
+     **/
+    public void alterar(String email, Consumer<CarrinhoMemoria> alteracao) {
+        alterarELer(email, carrinho -> {
+            alteracao.accept(carrinho);
+            return null;
+        });
+    }
+
+    /**
+     * Igual ao {@link #alterar}, mas devolve uma leitura feita no mesmo lock, logo após a alteração.
+     *
+     * @param email O email do cliente, vindo do token
+     * @param alteracao A alteração a ser feita segurando o lock do cliente, retornando a leitura desejada
+     *
+     * @return O resultado da alteração
+     **/
+    public <T> T alterarELer(String email, Function<CarrinhoMemoria, T> alteracao) {
+        ReentrantLock lock = getLock(email);
+        lock.lock();
+        try {
+            CarrinhoMemoria carrinho = getOuCarregar(email);
+            carrinho.tocar();
+            try {
+                return alteracao.apply(carrinho);
+            }
+            finally {
+                List<MutacaoCarrinho> mutacoes = carrinho.drenarMutacoes();
+                mutacoes.forEach(mutacao -> journal.addLast(new Lancamento(carrinho, mutacao)));
+            }
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Fecha o carrinho no checkout: executa o {@code fechamento}, esvazia o carrinho e grava o journal.
+     * Se o {@code fechamento} falhar o carrinho continua intacto.
+     *
+     * @param email O email do cliente, vindo do token
+     * @param fechamento O que deve ser feito com o carrinho antes de esvaziá-lo
+     **/
+    public void fechar(String email, Consumer<CarrinhoMemoria> fechamento) {
+        alterar(email, carrinho -> {
+            if (carrinho.isVazio()) throw new CarrinhoVazioException();
+            fechamento.accept(carrinho);
+            carrinho.limpar();
+        });
+        flush();
+    }
+
+    /**
+     * Grava o journal em lotes de {@value TAMANHO_LOTE} mutações, uma transação por lote.
+     * <p>
+     * Um lote que falha volta para o início do journal e é tentado de novo nas próximas gravações. Depois de
+     * {@value MAXIMO_TENTATIVAS} falhas seguidas, as mutações dele são gravadas uma a uma: as que falham por um erro
+     * permanente (como um produto que foi apagado) são descartadas e registradas no log, o carrinho delas é relido do banco
+     * na próxima leitura, e o resto do journal continua sendo gravado. Se o erro não for permanente (o banco fora do ar, por exemplo), a gravação para e tenta de novo depois.
+     **/
+    @Scheduled(fixedDelay = DOIS_SEGUNDOS, initialDelay = DOIS_SEGUNDOS)
+    public void flush() {
+        flushLock.lock();
+        try {
+            while (!journal.isEmpty()) {
+                List<Lancamento> lote = drenarLote();
+                Map<Integer, Long> versoes;
+                try {
+                    versoes = transactionTemplate.execute(status -> gravar(lote));
+                    falhasSeguidas = 0;
+                }
+                catch (RuntimeException e) {
+                    if (++falhasSeguidas < MAXIMO_TENTATIVAS) {
+                        devolver(lote);
+                        log.error("Falha ao gravar o journal de carrinhos ({}ª tentativa), {} mutações serão tentadas novamente", falhasSeguidas, lote.size(), e);
+                        return;
+                    }
+                    falhasSeguidas = 0;
+                    log.error("O lote de {} mutações de carrinho falhou {} vezes, gravando uma a uma", lote.size(), MAXIMO_TENTATIVAS, e);
+                    if (!gravarUmaAUma(lote)) return;
+                    continue;
+                }
+                confirmar(lote, Objects.requireNonNull(versoes));
+            }
+        }
+        finally {
+            flushLock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelay = UM_MINUTO, initialDelay = UM_MINUTO)
+    public void descarregarInativos() {
+        long limite = System.currentTimeMillis() - INATIVIDADE_MAXIMA;
+        for (String email : carrinhos.keySet()) {
+            ReentrantLock lock = getLock(email);
+            lock.lock();
+            try {
+                CarrinhoMemoria carrinho = carrinhos.get(email);
+                if (carrinho != null && carrinho.getUltimoAcesso() < limite && carrinho.isPersistido()) {
+                    carrinhos.remove(email);
+                }
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        flush();
+        if (!journal.isEmpty()) log.error("Aplicação encerrada com {} mutações de carrinho não gravadas", journal.size());
+    }
+
+    private CarrinhoMemoria getOuCarregar(String email) {
+        CarrinhoMemoria carrinho = carrinhos.get(email);
+        if (carrinho != null) {
+            if (carrinho.getVersaoBanco() == getVersaoBanco(carrinho.getIdCadastro())) return carrinho;
+
+            // O carrinho no banco mudou por outra instância: grava o que falta daqui antes de reler, para não perder nada
+            flush();
+            if (!carrinho.isPersistido()) {
+                log.warn("Carrinho {} desatualizado, mas o journal não pôde ser gravado; usando a cópia em memória", carrinho.getIdCadastro());
+                return carrinho;
+            }
+        }
+
+        carrinho = transactionTemplate.execute(status -> {
+            Cadastro cadastro = cadastroRepository.findByEmail(email).orElseThrow(ClienteNotFoundException::new);
+            // A versão é lida antes dos itens: uma gravação entre as duas leituras só faz o carrinho ser relido de novo
+            long versao = getVersaoBanco(cadastro.getId());
+            return carrinhoRepository.findByCadastro(cadastro)
+                    .map(persistido -> new CarrinhoMemoria(cadastro.getId(), persistido.getItens(), versao))
+                    .orElseGet(() -> new CarrinhoMemoria(cadastro.getId(), versao));
+        });
+        carrinhos.put(email, carrinho);
+        return carrinho;
+    }
+
+    private long getVersaoBanco(Integer idCadastro) {
+        List<Long> versoes = jdbcTemplate.queryForList(
+                "SELECT Versao FROM Carrinho_Versao WHERE Id_Cadastro = :idCadastro", Map.of("idCadastro", idCadastro), Long.class
+        );
+        return versoes.isEmpty() ? 0 : versoes.getFirst();
+    }
+
+    private List<Lancamento> drenarLote() {
+        List<Lancamento> lote = new ArrayList<>(TAMANHO_LOTE);
+        Lancamento lancamento;
+        while (lote.size() < TAMANHO_LOTE && (lancamento = journal.pollFirst()) != null) {
+            lote.add(lancamento);
+        }
+        return lote;
+    }
+
+    /**
+     * @return Se o lote inteiro foi gravado ou descartado; senão o que sobrou voltou para o journal
+     **/
+    private boolean gravarUmaAUma(List<Lancamento> lote) {
+        for (int i = 0; i < lote.size(); i++) {
+            Lancamento lancamento = lote.get(i);
+            Map<Integer, Long> versoes = Map.of();
+            try {
+                versoes = transactionTemplate.execute(status -> gravar(List.of(lancamento)));
+            }
+            catch (RuntimeException e) {
+                if (!isPermanente(e)) {
+                    devolver(lote.subList(i, lote.size()));
+                    log.error("Falha ao gravar o journal de carrinhos, {} mutações serão tentadas novamente", lote.size() - i, e);
+                    return false;
+                }
+                log.error("Mutação de carrinho descartada por um erro permanente: {}", lancamento.mutacao(), e);
+                lancamento.carrinho().descartar();
+            }
+            confirmar(List.of(lancamento), Objects.requireNonNull(versoes));
+        }
+        return true;
+    }
+
+    /**
+     * Marca as mutações gravadas e avança a versão do banco de cada carrinho do lote.
+     **/
+    private void confirmar(List<Lancamento> lote, Map<Integer, Long> versoes) {
+        Set<CarrinhoMemoria> confirmados = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Lancamento lancamento : lote) {
+            CarrinhoMemoria carrinho = lancamento.carrinho();
+            carrinho.marcarPersistido(lancamento.mutacao().versao());
+            Long versao = versoes.get(carrinho.getIdCadastro());
+            if (versao != null && confirmados.add(carrinho)) carrinho.confirmarVersaoBanco(versao);
+        }
+    }
+
+    /**
+     * Erros que se repetiriam a cada tentativa, como violações de chave estrangeira. Falhas de conexão não entram.
+     **/
+    private boolean isPermanente(RuntimeException e) {
+        return e instanceof NonTransientDataAccessException && !(e instanceof NonTransientDataAccessResourceException);
+    }
+
+    private void devolver(List<Lancamento> lancamentos) {
+        for (int i = lancamentos.size() - 1; i >= 0; i--) journal.addFirst(lancamentos.get(i));
+    }
+
+    /**
+     * @return A nova versão em Carrinho_Versao de cada cadastro do lote
+     **/
+    private Map<Integer, Long> gravar(List<Lancamento> lote) {
+        Map<Integer, AlteracaoCarrinho> alteracoes = new LinkedHashMap<>();
+        for (Lancamento lancamento : lote) {
+            MutacaoCarrinho mutacao = lancamento.mutacao();
+            AlteracaoCarrinho alteracao = alteracoes.computeIfAbsent(mutacao.idCadastro(), id -> new AlteracaoCarrinho());
+            if (mutacao.isLimpeza()) {
+                alteracao.limpo = true;
+                alteracao.deltas.clear();
+                alteracao.quantidade = 0;
+            }
+            else {
+                alteracao.deltas.merge(mutacao.idProduto(), mutacao.delta(), Integer::sum);
+                alteracao.quantidade += mutacao.delta();
+            }
+        }
+        alteracoes.values().forEach(alteracao -> alteracao.deltas.values().removeIf(delta -> delta == 0));
+
+        // Em ordem de Id, para que duas instâncias gravando os mesmos carrinhos travem as linhas na mesma ordem
+        Map<Integer, Long> versoes = new HashMap<>();
+        jdbcTemplate.query("""
+                INSERT INTO Carrinho_Versao (Id_Cadastro, Versao)
+                SELECT c.Id, 1 FROM Cadastro c WHERE c.Id IN (:ids) ORDER BY c.Id
+                ON CONFLICT (Id_Cadastro) DO UPDATE SET Versao = Carrinho_Versao.Versao + 1
+                RETURNING Id_Cadastro, Versao
+                """, Map.of("ids", alteracoes.keySet()), rs -> {
+                    versoes.put(rs.getInt("Id_Cadastro"), rs.getLong("Versao"));
+                });
+
+        List<Integer> limpos = alteracoes.entrySet().stream()
+                .filter(entry -> entry.getValue().limpo)
+                .map(Map.Entry::getKey)
+                .toList();
+        if (!limpos.isEmpty()) {
+            Map<String, Object> parametros = Map.of("ids", limpos);
+            jdbcTemplate.update("""
+                    DELETE FROM Itens_Carrinho
+                    WHERE Id_Carrinho IN (SELECT Id FROM Carrinho WHERE Id_Cadastro IN (:ids))
+                    """, parametros);
+            jdbcTemplate.update("DELETE FROM Carrinho WHERE Id_Cadastro IN (:ids)", parametros);
+        }
+
+        List<SqlParameterSource> totais = new ArrayList<>();
+        List<SqlParameterSource> itens = new ArrayList<>();
+        for (Map.Entry<Integer, AlteracaoCarrinho> entry : alteracoes.entrySet()) {
+            AlteracaoCarrinho alteracao = entry.getValue();
+            if (alteracao.deltas.isEmpty()) continue;
+            totais.add(new MapSqlParameterSource()
+                    .addValue("idCadastro", entry.getKey())
+                    .addValue("quantidade", alteracao.quantidade)
+            );
+            alteracao.deltas.forEach((idProduto, delta) -> itens.add(new MapSqlParameterSource()
+                    .addValue("idCadastro", entry.getKey())
+                    .addValue("idProduto", idProduto)
+                    .addValue("delta", delta)
+            ));
+        }
+        if (totais.isEmpty()) return versoes;
+
+        jdbcTemplate.batchUpdate(UPSERT_CARRINHO, totais.toArray(SqlParameterSource[]::new));
+        jdbcTemplate.batchUpdate(UPSERT_ITEM, itens.toArray(SqlParameterSource[]::new));
+
+        Map<String, Object> parametros = Map.of("ids", totais.stream().map(total -> total.getValue("idCadastro")).toList());
+        jdbcTemplate.update("""
+                DELETE FROM Itens_Carrinho
+                WHERE Quantidade <= 0
+                AND Id_Carrinho IN (SELECT Id FROM Carrinho WHERE Id_Cadastro IN (:ids))
+                """, parametros);
+        jdbcTemplate.update("""
+                UPDATE Carrinho c SET Valor = COALESCE((
+                    SELECT SUM(i.Quantidade * p.Valor) FROM Itens_Carrinho i
+                    JOIN Produto p ON p.Id = i.Id_Produto
+                    WHERE i.Id_Carrinho = c.Id
+                ), 0)
+                WHERE c.Id_Cadastro IN (:ids)
+                """, parametros);
+        jdbcTemplate.update("""
+                DELETE FROM Carrinho c
+                WHERE c.Id_Cadastro IN (:ids)
+                AND NOT EXISTS (SELECT 1 FROM Itens_Carrinho i WHERE i.Id_Carrinho = c.Id)
+                """, parametros);
+        return versoes;
+    }
+
+    private ReentrantLock getLock(String email) {
+        return locks[Math.floorMod(email.hashCode(), QUANTIDADE_LOCKS)];
+    }
+
+    private static ReentrantLock[] criarLocks() {
+        ReentrantLock[] locks = new ReentrantLock[QUANTIDADE_LOCKS];
+        for (int i = 0; i < QUANTIDADE_LOCKS; i++) locks[i] = new ReentrantLock();
+        return locks;
+    }
+
+    private record Lancamento(CarrinhoMemoria carrinho, MutacaoCarrinho mutacao) { }
+
+    private static class AlteracaoCarrinho {
+        private boolean limpo;
+        private int quantidade;
+        private final Map<UUID, Integer> deltas = new LinkedHashMap<>();
+    }
+}
@@ -12,7 +12,6 @@ import com.lemnos.server.models.endereco.possui.ClientePossuiEndereco;
 import com.lemnos.server.models.enums.Codigo;
 import com.lemnos.server.models.enums.Situacao;
 import com.lemnos.server.models.dtos.responses.ClienteResponse;
-import com.lemnos.server.models.produto.Produto;
 import com.lemnos.server.repositories.cadastro.CadastroRepository;
 import com.lemnos.server.repositories.entidades.ClienteRepository;
 import com.lemnos.server.utils.Util;
@@ -33,6 +32,7 @@ import java.util.stream.Collectors;
 public class ClienteService extends Util {
     private final ClienteRepository clienteRepository;
     private final CadastroRepository cadastroRepository;
+    private final FavoritoService favoritoService;
 
     @Cacheable("allClientes")
     public ResponseEntity<List<ClienteResponse>> getAll() {
@@ -75,17 +75,11 @@ public class ClienteService extends Util {
             cliente.getCadastro().getEmail(),
             cliente.getSituacao().toString(),
             cliente.getCpf() == null ? "" : cliente.getCpf().toString(),
-            getProdutosFavoritos(cliente),
+            favoritoService.getIdsFavoritos(cliente.getId()),
             getEnderecoRecords(cliente)
         );
     }
 
-    private static List<String> getProdutosFavoritos(Cliente cliente) {
-        return cliente.getProdutosFavoritos().stream()
-                .map(produto -> produto.getId().toString())
-                .collect(Collectors.toList());
-    }
-
     private void verificarToken(JwtAuthenticationToken token) {
         if (token == null) throw new TokenNotValidOrExpiredException();
     }
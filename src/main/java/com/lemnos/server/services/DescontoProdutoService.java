@@ -0,0 +1,83 @@
+package com.lemnos.server.services;
+
+import com.lemnos.server.exceptions.produto.ProdutoNotValidException;
+import com.lemnos.server.models.enums.Codigo;
+import com.lemnos.server.models.enums.TipoAlteracao;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Troca o {@code Desconto} de vários produtos com um único UPDATE, para as campanhas e as promoções.
+ * <p>
+ * O novo valor desfaz o desconto atual e aplica o novo, como no {@link ProdutoService#update}. A troca é feita na transação de
+ * quem chama e o {@link #publicar} atualiza rankings, caches e versões depois que ela for confirmada, uma vez para todos os produtos.
+ **/
+@Service
+@RequiredArgsConstructor
+public class DescontoProdutoService {
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final RankingService rankingService;
+    private final ProdutoJsonCache produtoJsonCache;
+    private final AlteracaoProdutoService alteracaoProdutoService;
+
+    /**
+     * Aplica o desconto aos produtos que ainda não estão com ele e registra as alterações no feed.
+     *
+     * @param desconto A porcentagem, de "0" a "99"
+     * @return Os produtos que mudaram
+     **/
+    public List<ProdutoAlterado> alterarDesconto(Collection<UUID> ids, String desconto) {
+        if (ids.isEmpty()) return List.of();
+        List<ProdutoAlterado> alterados = jdbcTemplate.query("""
+                UPDATE Produto p
+                SET Valor = round(round(100 * p.Valor / (100 - COALESCE((SELECT d.Valor_Porcentagem FROM Desconto d WHERE d.Id = p.Id_Desconto), '0')::numeric), 2) * (100 - :desconto) / 100, 2),
+                    Id_Desconto = :idDesconto
+                WHERE p.Id IN (:ids) AND p.Id_Desconto IS DISTINCT FROM :idDesconto
+                RETURNING p.Id, p.Data_Cadastro,
+                    (SELECT c.Nome FROM Sub_Categoria sc JOIN Categoria c ON c.Id = sc.Id_Categoria WHERE sc.Id = p.Id_Sub_Categoria) AS Categoria
+                """, new MapSqlParameterSource()
+                .addValue("ids", ids)
+                .addValue("idDesconto", getIdDesconto(desconto))
+                .addValue("desconto", Integer.parseInt(desconto)), (rs, i) -> {
+                    Timestamp dataCadastro = rs.getTimestamp("Data_Cadastro");
+                    return new ProdutoAlterado(
+                            rs.getObject("Id", UUID.class),
+                            rs.getString("Categoria"),
+                            desconto,
+                            (dataCadastro == null) ? null : dataCadastro.toLocalDateTime()
+                    );
+                });
+        alteracaoProdutoService.registrar(alterados.stream().map(ProdutoAlterado::idProduto).toList(), TipoAlteracao.UPSERT);
+        return alterados;
+    }
+
+    /**
+     * Reposiciona os produtos alterados nos rankings e invalida o cache de JSON.
+     **/
+    public void publicar(List<ProdutoAlterado> alterados) {
+        if (alterados.isEmpty()) return;
+        alterados.forEach(alterado -> rankingService.atualizar(alterado.idProduto(), alterado.categoria(), alterado.desconto(), alterado.dataCadastro()));
+        produtoJsonCache.invalidarTudo();
+    }
+
+    public Integer getIdDesconto(String desconto) {
+        List<Integer> ids = jdbcTemplate.queryForList(
+                "SELECT Id FROM Desconto WHERE Valor_Porcentagem = :desconto",
+                Map.of("desconto", desconto),
+                Integer.class
+        );
+        if (ids.isEmpty()) throw new ProdutoNotValidException(Codigo.DESCONTO, "Desconto inválido, digite um número entre 0 e 99!");
+        return ids.getFirst();
+    }
+
+    public record ProdutoAlterado(UUID idProduto, String categoria, String desconto, LocalDateTime dataCadastro) { }
+}
@@ -0,0 +1,363 @@
+package com.lemnos.server.services;
+
+import com.lemnos.server.exceptions.entidades.produto.ProdutoNotFoundException;
+import com.lemnos.server.exceptions.estoque.EstoqueInsuficienteException;
+import com.lemnos.server.exceptions.estoque.EstoqueNotValidException;
+import com.lemnos.server.models.carrinho.ItemCarrinhoMemoria;
+import com.lemnos.server.models.dtos.requests.EstoqueRequest;
+import com.lemnos.server.models.dtos.responses.EstoqueResponse;
+import com.lemnos.server.models.estoque.ContadorEstoque;
+import com.lemnos.server.repositories.produto.ProdutoRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Controle de estoque com reservas.
+ * <p>
+ * A quantidade em Estoque é a disponível para venda: adicionar ao carrinho retira unidades com um decremento
+ * condicional e cria uma reserva com validade, remover do carrinho devolve, e reservas vencidas são devolvidas
+ * pelo {@link #liberarExpiradas()}. No checkout as reservas viram venda ({@link #confirmar}).
+ * <p>
+ * Produtos marcados como quentes são atendidos por um {@link ContadorEstoque} em memória, abastecido com lotes
+ * retirados do banco, para que reservas concorrentes não fiquem presas no lock da mesma linha de Estoque.
+ * As sobras voltam para o banco a cada minuto e no desligamento da aplicação.
+ **/
+@Service
+public class EstoqueService {
+    private static final Logger log = LoggerFactory.getLogger(EstoqueService.class);
+    private static final int TRINTA_SEGUNDOS = 30 * 1000;
+    private static final int UM_MINUTO = 60 * 1000;
+    private static final int TAMANHO_LOTE_QUENTE = 20;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate loteTemplate;
+    private final ProdutoRepository produtoRepository;
+
+    private final Map<UUID, ContadorEstoque> quentes = new ConcurrentHashMap<>();
+
+    @Value("${estoque.reserva.minutos:15}")
+    private int minutosReserva;
+
+    public EstoqueService(NamedParameterJdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager, ProdutoRepository produtoRepository) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.loteTemplate = new TransactionTemplate(transactionManager);
+        this.loteTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.produtoRepository = produtoRepository;
+    }
+
+    @PostConstruct
+    public void carregarQuentes() {
+        jdbcTemplate.query(
+                "SELECT Id_Produto FROM Estoque WHERE Quente",
+                rs -> { quentes.put(rs.getObject("Id_Produto", UUID.class), new ContadorEstoque()); }
+        );
+    }
+
+    public ResponseEntity<EstoqueResponse> getEstoque(String id) {
+        UUID idProduto = getIdProduto(id);
+        if (!produtoRepository.existsById(idProduto)) throw new ProdutoNotFoundException();
+
+        List<EstoqueResponse> estoque = jdbcTemplate.query("""
+                SELECT e.Quantidade, e.Quente, COALESCE(SUM(r.Quantidade), 0) AS Reservado
+                FROM Estoque e
+                LEFT JOIN Reserva_Estoque r ON r.Id_Produto = e.Id_Produto
+                WHERE e.Id_Produto = :idProduto
+                GROUP BY e.Quantidade, e.Quente
+                """,
+                Map.of("idProduto", idProduto),
+                (rs, i) -> new EstoqueResponse(
+                        id,
+                        true,
+                        rs.getInt("Quantidade") + getDisponivelEmMemoria(idProduto),
+                        rs.getInt("Reservado"),
+                        rs.getBoolean("Quente")
+                )
+        );
+        if (estoque.isEmpty()) return ResponseEntity.ok(new EstoqueResponse(id, false, null, null, false));
+
+        return ResponseEntity.ok(estoque.getFirst());
+    }
+
+    /**
+     * Define a quantidade disponível de um produto, passando a controlar o seu estoque se ainda não era controlado.
+     * As unidades que estavam no contador em memória de um produto quente são descartadas, já que a nova quantidade as substitui.
+     **/
+    public ResponseEntity<Void> alterarEstoque(String id, EstoqueRequest estoqueRequest) {
+        UUID idProduto = getIdProduto(id);
+        if (estoqueRequest == null || estoqueRequest.quantidade() == null || estoqueRequest.quantidade() < 0)
+            throw new EstoqueNotValidException("A quantidade do estoque é obrigatória e não pode ser negativa");
+        if (!produtoRepository.existsById(idProduto)) throw new ProdutoNotFoundException();
+
+        ContadorEstoque contador = quentes.remove(idProduto);
+        if (contador != null) contador.drenar();
+
+        Boolean quente = jdbcTemplate.queryForObject("""
+                INSERT INTO Estoque (Id_Produto, Quantidade, Quente) VALUES (:idProduto, :quantidade, COALESCE(:quente, false))
+                ON CONFLICT (Id_Produto) DO UPDATE SET
+                    Quantidade = EXCLUDED.Quantidade,
+                    Quente = COALESCE(:quente, Estoque.Quente),
+                    Data_Atualizacao = now()
+                RETURNING Quente
+                """,
+                new MapSqlParameterSource()
+                        .addValue("idProduto", idProduto)
+                        .addValue("quantidade", estoqueRequest.quantidade())
+                        .addValue("quente", estoqueRequest.quente()),
+                Boolean.class
+        );
+        if (Boolean.TRUE.equals(quente)) quentes.put(idProduto, new ContadorEstoque());
+
+        return ResponseEntity.ok().build();
+    }
+
+    /**
+     * Reserva as quantidades para o cliente. Ou todas as reservas são feitas ou nenhuma é.
+     * Produtos sem estoque controlado são ignorados.
+     *
+     * @param idCadastro O cadastro do cliente
+     * @param quantidades A quantidade a reservar de cada produto
+     **/
+    public void reservar(Integer idCadastro, Map<UUID, Integer> quantidades) {
+        if (quantidades.isEmpty()) return;
+
+        transactionTemplate.executeWithoutResult(status -> {
+            List<SqlParameterSource> reservas = new ArrayList<>();
+            Map<UUID, Integer> rastreados = retirar(quantidades);
+            rastreados.forEach((idProduto, quantidade) -> reservas.add(new MapSqlParameterSource()
+                    .addValue("idCadastro", idCadastro)
+                    .addValue("idProduto", idProduto)
+                    .addValue("quantidade", quantidade)
+                    .addValue("minutos", minutosReserva)
+            ));
+            if (reservas.isEmpty()) return;
+
+            jdbcTemplate.batchUpdate("""
+                    INSERT INTO Reserva_Estoque (Id_Cadastro, Id_Produto, Quantidade, Expira_Em)
+                    VALUES (:idCadastro, :idProduto, :quantidade, now() + make_interval(mins => :minutos))
+                    ON CONFLICT (Id_Cadastro, Id_Produto) DO UPDATE SET
+                        Quantidade = Reserva_Estoque.Quantidade + EXCLUDED.Quantidade,
+                        Expira_Em = EXCLUDED.Expira_Em
+                    """, reservas.toArray(SqlParameterSource[]::new));
+        });
+    }
+
+    /**
+     * Devolve ao estoque até a quantidade informada de cada produto reservado pelo cliente.
+     *
+     * @param idCadastro O cadastro do cliente
+     * @param quantidades A quantidade a liberar de cada produto
+     **/
+    public void liberar(Integer idCadastro, Map<UUID, Integer> quantidades) {
+        if (quantidades.isEmpty()) return;
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Map<UUID, Integer> liberadas = new HashMap<>();
+            for (Map.Entry<UUID, Integer> entry : new TreeMap<>(quantidades).entrySet()) {
+                MapSqlParameterSource parametros = new MapSqlParameterSource()
+                        .addValue("idCadastro", idCadastro)
+                        .addValue("idProduto", entry.getKey());
+                List<Integer> reservada = jdbcTemplate.queryForList("""
+                        SELECT Quantidade FROM Reserva_Estoque
+                        WHERE Id_Cadastro = :idCadastro AND Id_Produto = :idProduto
+                        FOR UPDATE
+                        """, parametros, Integer.class);
+                if (reservada.isEmpty()) continue;
+
+                int liberada = Math.min(entry.getValue(), reservada.getFirst());
+                if (liberada == reservada.getFirst()) {
+                    jdbcTemplate.update("DELETE FROM Reserva_Estoque WHERE Id_Cadastro = :idCadastro AND Id_Produto = :idProduto", parametros);
+                }
+                else {
+                    jdbcTemplate.update("""
+                            UPDATE Reserva_Estoque SET Quantidade = Quantidade - :liberada
+                            WHERE Id_Cadastro = :idCadastro AND Id_Produto = :idProduto
+                            """, parametros.addValue("liberada", liberada));
+                }
+                liberadas.put(entry.getKey(), liberada);
+            }
+            devolver(liberadas);
+        });
+    }
+
+    public void liberarTudo(Integer idCadastro) {
+        jdbcTemplate.update("""
+                WITH liberadas AS (
+                    DELETE FROM Reserva_Estoque WHERE Id_Cadastro = :idCadastro
+                    RETURNING Id_Produto, Quantidade
+                )
+                UPDATE Estoque e SET Quantidade = e.Quantidade + l.Quantidade
+                FROM liberadas l
+                WHERE e.Id_Produto = l.Id_Produto
+                """, Map.of("idCadastro", idCadastro));
+    }
+
+    /**
+     * Transforma as reservas do cliente em venda no checkout. Deve ser chamado dentro da transação que grava o pedido.
+     * <p>
+     * Itens sem reserva (por exemplo, reservas que venceram) são retirados do estoque agora, e as sobras de reserva voltam para o estoque.
+     *
+     * @throws EstoqueInsuficienteException Se algum item sem reserva não tiver mais estoque
+     **/
+    public void confirmar(Integer idCadastro, Collection<ItemCarrinhoMemoria> itens) {
+        Map<UUID, Integer> reservadas = new HashMap<>();
+        jdbcTemplate.query("""
+                DELETE FROM Reserva_Estoque WHERE Id_Cadastro = :idCadastro
+                RETURNING Id_Produto, Quantidade
+                """,
+                Map.of("idCadastro", idCadastro),
+                rs -> { reservadas.put(rs.getObject("Id_Produto", UUID.class), rs.getInt("Quantidade")); }
+        );
+
+        Map<UUID, Integer> faltantes = new HashMap<>();
+        for (ItemCarrinhoMemoria item : itens) {
+            int diferenca = item.getQuantidade() - Optional.ofNullable(reservadas.remove(item.getIdProduto())).orElse(0);
+            if (diferenca > 0) faltantes.put(item.getIdProduto(), diferenca);
+            else if (diferenca < 0) reservadas.put(item.getIdProduto(), -diferenca);
+        }
+        retirar(faltantes);
+        devolver(reservadas);
+    }
+
+    @Scheduled(fixedDelay = TRINTA_SEGUNDOS, initialDelay = TRINTA_SEGUNDOS)
+    public void liberarExpiradas() {
+        int atualizados = jdbcTemplate.update("""
+                WITH expiradas AS (
+                    DELETE FROM Reserva_Estoque WHERE Expira_Em < now()
+                    RETURNING Id_Produto, Quantidade
+                )
+                UPDATE Estoque e SET Quantidade = e.Quantidade + t.Quantidade
+                FROM (SELECT Id_Produto, SUM(Quantidade) AS Quantidade FROM expiradas GROUP BY Id_Produto) t
+                WHERE e.Id_Produto = t.Id_Produto
+                """, Map.of());
+        if (atualizados > 0) log.info("Reservas vencidas devolvidas ao estoque de {} produtos", atualizados);
+    }
+
+    @PreDestroy
+    @Scheduled(fixedDelay = UM_MINUTO, initialDelay = UM_MINUTO)
+    public void devolverLotesQuentes() {
+        Map<UUID, Integer> sobras = new HashMap<>();
+        quentes.forEach((idProduto, contador) -> {
+            int sobra = contador.drenar();
+            if (sobra > 0) sobras.put(idProduto, sobra);
+        });
+        if (sobras.isEmpty()) return;
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> devolver(sobras));
+        }
+        catch (RuntimeException e) {
+            sobras.forEach((idProduto, sobra) -> Optional.ofNullable(quentes.get(idProduto)).ifPresent(contador -> contador.depositar(sobra)));
+            log.error("Falha ao devolver os lotes dos produtos quentes, serão tentados novamente", e);
+        }
+    }
+
+    /**
+     * Retira as quantidades do estoque, travando as linhas sempre na mesma ordem para evitar deadlocks.
+     *
+     * @return As quantidades dos produtos que têm o estoque controlado
+     * @throws EstoqueInsuficienteException Se algum produto controlado não tiver a quantidade disponível
+     **/
+    private Map<UUID, Integer> retirar(Map<UUID, Integer> quantidades) {
+        Map<UUID, Integer> rastreados = new HashMap<>();
+        for (Map.Entry<UUID, Integer> entry : new TreeMap<>(quantidades).entrySet()) {
+            if (decrementar(entry.getKey(), entry.getValue())) {
+                rastreados.put(entry.getKey(), entry.getValue());
+            }
+            else if (isControlado(entry.getKey())) {
+                throw new EstoqueInsuficienteException();
+            }
+        }
+        return rastreados;
+    }
+
+    private boolean decrementar(UUID idProduto, int quantidade) {
+        ContadorEstoque contador = quentes.get(idProduto);
+        if (contador == null) return decrementarBanco(idProduto, quantidade);
+
+        if (contador.retirar(quantidade)) {
+            devolverAoReverter(contador, quantidade);
+            return true;
+        }
+        int lote = Math.max(quantidade, TAMANHO_LOTE_QUENTE);
+        if (Boolean.TRUE.equals(loteTemplate.execute(status -> decrementarBanco(idProduto, lote)))) {
+            contador.depositar(lote - quantidade);
+            devolverAoReverter(contador, quantidade);
+            return true;
+        }
+        return decrementarBanco(idProduto, quantidade);
+    }
+
+    private boolean decrementarBanco(UUID idProduto, int quantidade) {
+        return jdbcTemplate.update("""
+                UPDATE Estoque SET Quantidade = Quantidade - :quantidade, Data_Atualizacao = now()
+                WHERE Id_Produto = :idProduto AND Quantidade >= :quantidade
+                """, Map.of("idProduto", idProduto, "quantidade", quantidade)) > 0;
+    }
+
+    private void devolver(Map<UUID, Integer> quantidades) {
+        if (quantidades.isEmpty()) return;
+
+        jdbcTemplate.batchUpdate(
+                "UPDATE Estoque SET Quantidade = Quantidade + :quantidade, Data_Atualizacao = now() WHERE Id_Produto = :idProduto",
+                new TreeMap<>(quantidades).entrySet().stream()
+                        .map(entry -> new MapSqlParameterSource()
+                                .addValue("idProduto", entry.getKey())
+                                .addValue("quantidade", entry.getValue()))
+                        .toArray(SqlParameterSource[]::new)
+        );
+    }
+
+    /**
+     * Unidades tiradas do contador em memória não voltam sozinhas se a transação da reserva for desfeita.
+     **/
+    private void devolverAoReverter(ContadorEstoque contador, int quantidade) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) return;
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) contador.depositar(quantidade);
+            }
+        });
+    }
+
+    private boolean isControlado(UUID idProduto) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM Estoque WHERE Id_Produto = :idProduto)",
+                Map.of("idProduto", idProduto),
+                Boolean.class
+        ));
+    }
+
+    private int getDisponivelEmMemoria(UUID idProduto) {
+        ContadorEstoque contador = quentes.get(idProduto);
+        return (contador == null) ? 0 : contador.getDisponivel();
+    }
+
+    private UUID getIdProduto(String id) {
+        try {
+            return UUID.fromString(id);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new ProdutoNotFoundException();
+        }
+    }
+}
@@ -0,0 +1,393 @@
+package com.lemnos.server.services;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.lemnos.server.configurations.AsyncConfiguration;
+import com.lemnos.server.exceptions.produto.ProdutoNotValidException;
+import com.lemnos.server.models.dtos.responses.ProdutoResponse;
+import com.lemnos.server.models.enums.Codigo;
+import com.lemnos.server.models.enums.FormatoExportacao;
+import io.micrometer.common.util.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.sql.*;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exportação do catálogo inteiro para feeds de compras, em NDJSON, CSV ou XML (RSS 2.0 com o namespace {@code g:} do Google Merchant).
+ * <p>
+ * Os produtos são lidos com uma única consulta, que junta fabricante, categoria, imagens, fornecedor, avaliações e estoque,
+ * por um cursor do servidor em uma transação somente leitura: o driver busca {@value TAMANHO_FETCH} linhas por vez e cada linha
+ * é escrita na resposta assim que lida, então a memória usada não depende do tamanho do catálogo.
+ * <p>
+ * Como a transação fica aberta enquanto o cliente baixa o arquivo, ela usa uma conexão própria, aberta pelo driver fora do pool,
+ * e é encerrada pelo PostgreSQL se o cliente parar de ler por {@value ESPERA_MAXIMA_SEGUNDOS} segundos. A exportação inteira tem
+ * até {@code exportacao.tempo-limite} para terminar; as outras respostas assíncronas continuam com o tempo limite padrão.
+ **/
+@Service
+public class ExportacaoProdutoService {
+    private static final Logger log = LoggerFactory.getLogger(ExportacaoProdutoService.class);
+    private static final int TAMANHO_FETCH = 500;
+    private static final int TAMANHO_BUFFER = 64 * 1024;
+    private static final int ESPERA_MAXIMA_SEGUNDOS = 60;
+    private static final String CONSULTA = """
+            SELECT p.Id, p.Nome, p.Descricao, p.Cor, p.Valor, p.Modelo, p.Peso, p.Altura, p.Comprimento, p.Largura, p.Media_Avaliacao,
+                   f.Fabricante, c.Nome AS Categoria, sc.Nome AS Sub_Categoria, i.Imagem_Principal, im.Imagens,
+                   COALESCE(d.Valor_Porcentagem, '0') AS Desconto, fo.Fornecedor, COALESCE(a.Quantidade, 0) AS Quantidade_Avaliacoes,
+                   e.Quantidade AS Estoque
+            FROM Produto p
+            LEFT JOIN Fabricante f ON f.Id = p.Id_Fabricante
+            LEFT JOIN Sub_Categoria sc ON sc.Id = p.Id_Sub_Categoria
+            LEFT JOIN Categoria c ON c.Id = sc.Id_Categoria
+            LEFT JOIN Imagem i ON i.Id = p.Id_Imagem
+            LEFT JOIN Desconto d ON d.Id = p.Id_Desconto
+            LEFT JOIN Estoque e ON e.Id_Produto = p.Id
+            LEFT JOIN (SELECT Id_Imagem, array_agg(Imagem ORDER BY Id) AS Imagens FROM Imagens GROUP BY Id_Imagem) im ON im.Id_Imagem = p.Id_Imagem
+            LEFT JOIN (SELECT Id_Produto, COUNT(*) AS Quantidade FROM Avaliacao GROUP BY Id_Produto) a ON a.Id_Produto = p.Id
+            LEFT JOIN (
+                SELECT DISTINCT ON (df.Id_Produto) df.Id_Produto, fn.Nome AS Fornecedor
+                FROM Data_Fornece df JOIN Fornecedor fn ON fn.Id = df.Id_Fornecedor
+                ORDER BY df.Id_Produto, df.Data_Fornecimento DESC
+            ) fo ON fo.Id_Produto = p.Id
+            ORDER BY p.Id
+            """;
+
+    private final DataSourceProperties dataSourceProperties;
+    private final ObjectMapper objectMapper;
+
+    @Value("${exportacao.link-produto:https://lemnos.vercel.app/produto/}")
+    private String linkProduto;
+
+    @Value("${exportacao.tempo-limite:30m}")
+    private Duration tempoLimite;
+
+    public ExportacaoProdutoService(DataSourceProperties dataSourceProperties, ObjectMapper objectMapper) {
+        this.dataSourceProperties = dataSourceProperties;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * @param formato ndjson, csv ou xml; ndjson quando vazio
+     **/
+    public ResponseEntity<StreamingResponseBody> exportar(String formato, String acceptEncoding) {
+        FormatoExportacao formatoExportacao = getFormato(formato);
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+
+        StreamingResponseBody corpo = saida -> {
+            OutputStream destino = gzip ? new GZIPOutputStream(saida, TAMANHO_BUFFER) : new BufferedOutputStream(saida, TAMANHO_BUFFER);
+            try (Escritor escritor = getEscritor(formatoExportacao, destino)) {
+                escritor.iniciar();
+                escreverProdutos(escritor);
+                escritor.terminar();
+            }
+            catch (IOException e) {
+                log.warn("Exportação de produtos interrompida: {}", e.getMessage());
+                throw e;
+            }
+        };
+        RequestContextHolder.currentRequestAttributes()
+                .setAttribute(AsyncConfiguration.TEMPO_LIMITE, tempoLimite.toMillis(), RequestAttributes.SCOPE_REQUEST);
+
+        ResponseEntity.BodyBuilder resposta = ResponseEntity.ok()
+                .contentType(new MediaType(MediaType.parseMediaType(formatoExportacao.getContentType()), StandardCharsets.UTF_8))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename("produtos." + formatoExportacao.getExtensao()).build().toString())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) resposta.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        return resposta.body(corpo);
+    }
+
+    private void escreverProdutos(Escritor escritor) throws IOException {
+        try (Connection conexao = DriverManager.getConnection(
+                dataSourceProperties.determineUrl(),
+                dataSourceProperties.determineUsername(),
+                dataSourceProperties.determinePassword()
+        )) {
+            conexao.setAutoCommit(false);
+            conexao.setReadOnly(true);
+            try (Statement statement = conexao.createStatement()) {
+                statement.execute("SET LOCAL idle_in_transaction_session_timeout = '" + ESPERA_MAXIMA_SEGUNDOS + "s'");
+            }
+            try (PreparedStatement statement = conexao.prepareStatement(CONSULTA)) {
+                statement.setFetchSize(TAMANHO_FETCH);
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) escritor.escrever(getProdutoResponse(rs), rs.getObject("Estoque", Integer.class));
+                }
+            }
+            conexao.commit();
+        }
+        catch (SQLException e) {
+            throw new IOException("Falha ao ler os produtos: " + e.getMessage(), e);
+        }
+    }
+
+    private FormatoExportacao getFormato(String formato) {
+        if (StringUtils.isBlank(formato)) return FormatoExportacao.NDJSON;
+        try {
+            return FormatoExportacao.valueOf(formato.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ProdutoNotValidException(Codigo.GLOBAL, "Formato inválido, use um de: " + Arrays.toString(FormatoExportacao.values()));
+        }
+    }
+    private Escritor getEscritor(FormatoExportacao formato, OutputStream destino) throws IOException {
+        return switch (formato) {
+            case NDJSON -> new EscritorNdjson(objectMapper, destino);
+            case CSV -> new EscritorCsv(destino);
+            case XML -> new EscritorXml(destino, linkProduto);
+        };
+    }
+    /**
+     * Monta a resposta com os mesmos campos e cálculos da API, a partir de uma linha da consulta.
+     **/
+    private ProdutoResponse getProdutoResponse(ResultSet rs) throws SQLException {
+        String desconto = rs.getString("Desconto");
+        double valor = rs.getDouble("Valor");
+        double valorTotal = desconto.equals("0") ? valor : Math.round(100 * valor / (100 - Double.parseDouble(desconto)) * 100) / 100.0;
+        Array imagens = rs.getArray("Imagens");
+
+        return new ProdutoResponse(
+                rs.getObject("Id").toString(),
+                rs.getString("Nome"),
+                rs.getString("Descricao"),
+                rs.getString("Cor"),
+                valorTotal,
+                valor,
+                rs.getString("Modelo"),
+                rs.getDouble("Peso"),
+                rs.getDouble("Altura"),
+                rs.getDouble("Comprimento"),
+                rs.getDouble("Largura"),
+                rs.getString("Fabricante"),
+                (rs.getString("Fornecedor") == null) ? "N/A" : rs.getString("Fornecedor"),
+                rs.getString("Categoria"),
+                rs.getString("Sub_Categoria"),
+                rs.getString("Imagem_Principal"),
+                (imagens == null) ? List.of() : Arrays.asList((String[]) imagens.getArray()),
+                desconto,
+                rs.getDouble("Media_Avaliacao"),
+                rs.getInt("Quantidade_Avaliacoes")
+        );
+    }
+
+    /**
+     * Escreve os produtos um a um no formato da exportação.
+     **/
+    private interface Escritor extends Closeable {
+        void iniciar() throws IOException;
+
+        /**
+         * @param estoque A quantidade em estoque, ou nulo para produtos sem estoque controlado
+         **/
+        void escrever(ProdutoResponse produto, Integer estoque) throws IOException;
+
+        void terminar() throws IOException;
+    }
+
+    /**
+     * Um objeto JSON por linha, com os campos de {@link ProdutoResponse} mais o estoque.
+     **/
+    private static class EscritorNdjson implements Escritor {
+        private final SequenceWriter saida;
+
+        private EscritorNdjson(ObjectMapper objectMapper, OutputStream destino) throws IOException {
+            this.saida = objectMapper.writer().withRootValueSeparator("\n").writeValues(destino);
+        }
+
+        @Override
+        public void iniciar() { }
+
+        @Override
+        public void escrever(ProdutoResponse produto, Integer estoque) throws IOException {
+            saida.write(new LinhaNdjson(produto, estoque));
+        }
+
+        @Override
+        public void terminar() { }
+
+        @Override
+        public void close() throws IOException {
+            saida.close();
+        }
+
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        private record LinhaNdjson(@JsonUnwrapped ProdutoResponse produto, Integer estoque) { }
+    }
+
+    private static class EscritorCsv implements Escritor {
+        private static final String CABECALHO = "id,nome,descricao,cor,valorTotal,valorComDesconto,modelo,peso,altura,comprimento,largura,"
+                + "fabricante,fornecedor,categoria,subCategoria,imagemPrincipal,imagens,desconto,avaliacao,quantidadeAvaliacoes,estoque";
+
+        private final Writer saida;
+
+        private EscritorCsv(OutputStream destino) {
+            this.saida = new OutputStreamWriter(destino, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public void iniciar() throws IOException {
+            saida.write(CABECALHO);
+            saida.write("\r\n");
+        }
+
+        @Override
+        public void escrever(ProdutoResponse produto, Integer estoque) throws IOException {
+            Object[] campos = {
+                    produto.id(), produto.nome(), produto.descricao(), produto.cor(), produto.valorTotal(), produto.valorComDesconto(),
+                    produto.modelo(), produto.peso(), produto.altura(), produto.comprimento(), produto.largura(),
+                    produto.fabricante(), produto.fornecedor(), produto.categoria(), produto.subCategoria(), produto.imagemPrincipal(),
+                    String.join("|", produto.imagens()), produto.desconto(), produto.avaliacao(), produto.quantidadeAvaliacoes(), estoque
+            };
+            for (int i = 0; i < campos.length; i++) {
+                if (i > 0) saida.write(',');
+                escreverCampo(campos[i]);
+            }
+            saida.write("\r\n");
+        }
+
+        @Override
+        public void terminar() { }
+
+        @Override
+        public void close() throws IOException {
+            saida.close();
+        }
+
+        /**
+         * Aspas só quando o valor tem vírgula, aspas ou quebra de linha, com as aspas internas duplicadas (RFC 4180).
+         **/
+        private void escreverCampo(Object campo) throws IOException {
+            if (campo == null) return;
+            String valor = campo.toString();
+            if (valor.indexOf(',') < 0 && valor.indexOf('"') < 0 && valor.indexOf('\n') < 0 && valor.indexOf('\r') < 0) {
+                saida.write(valor);
+                return;
+            }
+            saida.write('"');
+            saida.write(valor.replace("\"", "\"\""));
+            saida.write('"');
+        }
+    }
+
+    /**
+     * Feed de produtos no formato RSS 2.0 do Google Merchant Center.
+     **/
+    private static class EscritorXml implements Escritor {
+        private static final String NAMESPACE_GOOGLE = "http://base.google.com/ns/1.0";
+
+        private final OutputStream destino;
+        private final XMLStreamWriter saida;
+        private final String linkProduto;
+
+        private EscritorXml(OutputStream destino, String linkProduto) throws IOException {
+            this.destino = destino;
+            this.linkProduto = linkProduto;
+            try {
+                this.saida = XMLOutputFactory.newFactory().createXMLStreamWriter(destino, StandardCharsets.UTF_8.name());
+            } catch (XMLStreamException e) {
+                throw new IOException(e);
+            }
+        }
+
+        @Override
+        public void iniciar() throws IOException {
+            try {
+                saida.writeStartDocument(StandardCharsets.UTF_8.name(), "1.0");
+                saida.writeStartElement("rss");
+                saida.writeAttribute("version", "2.0");
+                saida.writeNamespace("g", NAMESPACE_GOOGLE);
+                saida.writeStartElement("channel");
+                escreverElemento("title", "Lemnos");
+                escreverElemento("link", linkProduto);
+                escreverElemento("description", "Catálogo de produtos Lemnos");
+            } catch (XMLStreamException e) {
+                throw new IOException(e);
+            }
+        }
+
+        @Override
+        public void escrever(ProdutoResponse produto, Integer estoque) throws IOException {
+            try {
+                saida.writeStartElement("item");
+                escreverGoogle("id", produto.id());
+                escreverElemento("title", produto.nome());
+                escreverElemento("description", produto.descricao());
+                escreverGoogle("link", linkProduto + produto.id());
+                escreverGoogle("image_link", produto.imagemPrincipal());
+                for (String imagem : produto.imagens()) escreverGoogle("additional_image_link", imagem);
+                escreverGoogle("price", getPreco(produto.valorTotal()));
+                if (!produto.desconto().equals("0")) escreverGoogle("sale_price", getPreco(produto.valorComDesconto()));
+                escreverGoogle("availability", (estoque == null || estoque > 0) ? "in_stock" : "out_of_stock");
+                escreverGoogle("condition", "new");
+                escreverGoogle("brand", produto.fabricante());
+                escreverGoogle("mpn", produto.modelo());
+                escreverGoogle("color", produto.cor());
+                escreverGoogle("product_type", produto.categoria() + " > " + produto.subCategoria());
+                escreverGoogle("shipping_weight", produto.peso() + " kg");
+                saida.writeEndElement();
+            } catch (XMLStreamException e) {
+                throw new IOException(e);
+            }
+        }
+
+        @Override
+        public void terminar() throws IOException {
+            try {
+                saida.writeEndElement();
+                saida.writeEndElement();
+                saida.writeEndDocument();
+                saida.flush();
+            } catch (XMLStreamException e) {
+                throw new IOException(e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                saida.close();
+            } catch (XMLStreamException e) {
+                throw new IOException(e);
+            }
+            destino.close();
+        }
+
+        private void escreverElemento(String nome, String valor) throws XMLStreamException {
+            if (valor == null) return;
+            saida.writeStartElement(nome);
+            saida.writeCharacters(valor);
+            saida.writeEndElement();
+        }
+
+        private void escreverGoogle(String nome, String valor) throws XMLStreamException {
+            if (valor == null) return;
+            saida.writeStartElement("g", nome, NAMESPACE_GOOGLE);
+            saida.writeCharacters(valor);
+            saida.writeEndElement();
+        }
+
+        private static String getPreco(Double valor) {
+            return String.format(Locale.ROOT, "%.2f BRL", valor);
+        }
+    }
+}
@@ -5,68 +5,101 @@ import com.lemnos.server.exceptions.entidades.cliente.ClienteNotFoundException;
 import com.lemnos.server.exceptions.entidades.produto.ProdutoNotFoundException;
 import com.lemnos.server.exceptions.produto.ProdutoAlreadyFavoritoException;
 import com.lemnos.server.models.dtos.responses.FavoritoResponse;
-import com.lemnos.server.models.entidades.Cliente;
-import com.lemnos.server.models.produto.Produto;
-import com.lemnos.server.repositories.cadastro.CadastroRepository;
-import com.lemnos.server.repositories.entidades.ClienteRepository;
+import com.lemnos.server.models.enums.TipoVersao;
 import com.lemnos.server.repositories.produto.ProdutoRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
+/**
+ * Favoritos dos clientes, guardados em Produtos_Favoritos com chave primária (Id_Cliente, Id_Produto).
+ * <p>
+ * As alterações são feitas direto na tabela, uma linha por operação, sem carregar o cliente nem a lista de favoritos:
+ * a chave primária responde se o produto já está favoritado e o custo não cresce com a quantidade de favoritos.
+ **/
 @Service
 @RequiredArgsConstructor
 public class FavoritoService {
-    private final ClienteRepository clienteRepository;
-    private final CadastroRepository cadastroRepository;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
     private final ProdutoRepository produtoRepository;
+    private final PopularidadeService popularidadeService;
+    private final VersaoService versaoService;
 
-    public ResponseEntity<List<FavoritoResponse>> getFavoritos(JwtAuthenticationToken token) {
+    public ResponseEntity<List<FavoritoResponse>> getFavoritos(JwtAuthenticationToken token, String ifNoneMatch) {
         verifyToken(token);
-        Cliente cliente = getClienteByEmail(token.getName());
-        List<FavoritoResponse> response = cliente.getProdutosFavoritos().stream()
-                        .map(produto -> new FavoritoResponse(produto.getId().toString()))
-                        .collect(Collectors.toList());
-        return ResponseEntity.ok(response);
+        Integer idCliente = getIdClienteByEmail(token.getName());
+        return versaoService.responder(TipoVersao.FAVORITOS, idCliente, ifNoneMatch, () -> {
+            List<FavoritoResponse> response = getIdsFavoritos(idCliente).stream()
+                    .map(FavoritoResponse::new)
+                    .toList();
+            return ResponseEntity.ok(response);
+        });
     }
 
     public ResponseEntity<Void> favoritar(JwtAuthenticationToken token, String idProd) {
         verifyToken(token);
-        Cliente cliente = getClienteByEmail(token.getName());
-        Produto produto = getProdutoById(idProd);
+        Integer idCliente = getIdClienteByEmail(token.getName());
+        UUID idProduto = UUID.fromString(idProd);
 
-        if(cliente.getProdutosFavoritos().remove(produto)) throw new ProdutoAlreadyFavoritoException("O produto já está favoritado");
-
-        cliente.getProdutosFavoritos().add(produto);
-        clienteRepository.save(cliente);
+        int inseridos = jdbcTemplate.update("""
+                INSERT INTO Produtos_Favoritos (Id_Cliente, Id_Produto)
+                SELECT :idCliente, p.Id FROM Produto p WHERE p.Id = :idProduto
+                ON CONFLICT DO NOTHING
+                """, getParametros(idCliente, idProduto));
+        if (inseridos == 0) {
+            if (!produtoRepository.existsById(idProduto)) throw new ProdutoNotFoundException();
+            throw new ProdutoAlreadyFavoritoException("O produto já está favoritado");
+        }
+        popularidadeService.registrarFavorito(idProduto);
 
         return ResponseEntity.ok().build();
     }
 
     public ResponseEntity<Void> desfavoritar(JwtAuthenticationToken token, String idProd) {
         verifyToken(token);
-        Cliente cliente = getClienteByEmail(token.getName());
-        cliente.getProdutosFavoritos().removeIf(produto -> produto.getId().toString().equals(idProd));
-        clienteRepository.save(cliente);
+        Integer idCliente = getIdClienteByEmail(token.getName());
+        jdbcTemplate.update(
+                "DELETE FROM Produtos_Favoritos WHERE Id_Cliente = :idCliente AND Id_Produto = :idProduto",
+                getParametros(idCliente, UUID.fromString(idProd))
+        );
         return ResponseEntity.ok().build();
     }
 
+    /**
+     * @return Os Ids dos produtos favoritos do cliente, lidos só do índice da chave primária
+     **/
+    public List<String> getIdsFavoritos(Integer idCliente) {
+        return jdbcTemplate.queryForList(
+                "SELECT Id_Produto FROM Produtos_Favoritos WHERE Id_Cliente = :idCliente",
+                Map.of("idCliente", idCliente),
+                UUID.class
+        ).stream().map(UUID::toString).toList();
+    }
+
     private void verifyToken(JwtAuthenticationToken token) {
         if(token == null) {
             throw new TokenNotValidOrExpiredException();
         }
     }
-    private Cliente getClienteByEmail(String email) {
-        return clienteRepository.findByCadastro(
-            cadastroRepository.findByEmail(email.replace("%40", "@")
-        ).orElseThrow(ClienteNotFoundException::new)).orElseThrow(ClienteNotFoundException::new);
+    private Integer getIdClienteByEmail(String email) {
+        List<Integer> ids = jdbcTemplate.queryForList(
+                "SELECT c.Id FROM Cliente c JOIN Cadastro ca ON ca.Id = c.Id_Cadastro WHERE ca.Email = :email",
+                Map.of("email", email.replace("%40", "@")),
+                Integer.class
+        );
+        if (ids.isEmpty()) throw new ClienteNotFoundException();
+        return ids.getFirst();
     }
-    private Produto getProdutoById(String id){
-        return produtoRepository.findById(UUID.fromString(id)).orElseThrow(ProdutoNotFoundException::new);
+    private MapSqlParameterSource getParametros(Integer idCliente, UUID idProduto) {
+        return new MapSqlParameterSource()
+                .addValue("idCliente", idCliente)
+                .addValue("idProduto", idProduto);
     }
 }
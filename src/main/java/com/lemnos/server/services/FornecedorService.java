@@ -17,6 +17,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.List;
 import java.util.Objects;
@@ -26,6 +27,9 @@ import java.util.stream.Collectors;
 @Service
 public class FornecedorService extends Util {
     @Autowired private FornecedorRepository fornecedorRepository;
+    @Autowired private ProdutoJsonCache produtoJsonCache;
+    @Autowired private AlteracaoProdutoService alteracaoProdutoService;
+    @Autowired private TransactionTemplate transactionTemplate;
 
     @Cacheable("allFornecedores")
     public ResponseEntity<List<FornecedorResponse>> getAll() {
@@ -53,7 +57,12 @@ public class FornecedorService extends Util {
 
     public ResponseEntity<Void> updateFornecedor(String email, FornecedorRequest fornecedorRequest) {
         Fornecedor updatedFornecedor = insertData(email, fornecedorRequest);
-        fornecedorRepository.save(updatedFornecedor);
+        transactionTemplate.executeWithoutResult(transacao -> {
+            fornecedorRepository.save(updatedFornecedor);
+            // O nome do fornecedor faz parte da resposta de todos os produtos dele
+            alteracaoProdutoService.registrarPorFornecedor(updatedFornecedor.getId());
+        });
+        produtoJsonCache.invalidarTudo();
         return ResponseEntity.ok().build();
     }
 
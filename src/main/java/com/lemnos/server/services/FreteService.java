@@ -0,0 +1,169 @@
+package com.lemnos.server.services;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lemnos.server.exceptions.auth.TokenNotValidOrExpiredException;
+import com.lemnos.server.exceptions.carrinho.CarrinhoVazioException;
+import com.lemnos.server.exceptions.endereco.CepNotValidException;
+import com.lemnos.server.exceptions.frete.FreteNotValidException;
+import com.lemnos.server.models.carrinho.CarrinhoPrecificado;
+import com.lemnos.server.models.dtos.responses.FreteResponse;
+import com.lemnos.server.models.dtos.responses.OpcaoFreteResponse;
+import com.lemnos.server.models.frete.CotacaoFrete;
+import com.lemnos.server.models.frete.FaixaFrete;
+import com.lemnos.server.models.frete.TabelaFrete;
+import com.lemnos.server.models.frete.TransportadoraFrete;
+import io.micrometer.common.util.StringUtils;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+@RequiredArgsConstructor
+public class FreteService {
+    private static final Duration VALIDADE_COTACAO = Duration.ofMinutes(30);
+    private static final int CINCO_MINUTOS = 5 * 60 * 1000;
+
+    private final PrecoCarrinhoService precoCarrinhoService;
+    private final ObjectMapper objectMapper;
+
+    private final Map<String, CotacaoFrete> cotacoes = new ConcurrentHashMap<>();
+    private volatile List<TabelaFrete> tabelas = List.of();
+
+    @PostConstruct
+    public void carregarTabelas() throws IOException {
+        try (InputStream jsonStream = getClass().getResourceAsStream("/data/frete.json")) {
+            List<TransportadoraFrete> transportadoras = objectMapper.readValue(jsonStream, new TypeReference<>() {});
+            this.tabelas = transportadoras.stream()
+                    .map(TransportadoraFrete::toTabela)
+                    .toList();
+        }
+    }
+
+    public ResponseEntity<FreteResponse> cotar(JwtAuthenticationToken token, String cep) {
+        verificarToken(token);
+        CarrinhoPrecificado carrinho = precoCarrinhoService.precificar(token.getName());
+        if (carrinho.isVazio()) throw new CarrinhoVazioException();
+        CotacaoFrete cotacao = cotar(carrinho.idCadastro(), cep, carrinho.getPesoReal(), carrinho.getVolume());
+
+        return ResponseEntity.ok(new FreteResponse(
+                cotacao.id(),
+                cotacao.cep(),
+                cotacao.pesoReal(),
+                cotacao.opcoes()
+        ));
+    }
+
+    /**
+     * Cota o frete de todas as transportadoras.
+     * <p>
+     * O id da cotação é derivado do cliente, do CEP e do peso/volume do carrinho,
+     * então o mesmo carrinho gera sempre o mesmo id e reaproveita a cotação em memória.
+     *
+     * @param idCadastro O cadastro dono do carrinho
+     * @param cep O CEP de destino, só números
+     * @param pesoReal A soma dos pesos dos itens, em Kg
+     * @param volume A soma dos volumes dos itens, em cm³
+     *
+     * @return A cotação com as opções ordenadas pelo menor valor
+     **/
+    public CotacaoFrete cotar(Integer idCadastro, String cep, double pesoReal, double volume) {
+        String idCotacao = gerarIdCotacao(idCadastro, cep, pesoReal, volume);
+
+        CotacaoFrete existente = cotacoes.get(idCotacao);
+        if (existente != null && !existente.isExpirada()) return existente;
+
+        List<OpcaoFreteResponse> opcoes = calcularOpcoes(cep, pesoReal, volume);
+        CotacaoFrete cotacao = new CotacaoFrete(idCotacao, idCadastro, cep, arredondar(pesoReal), volume, opcoes, Instant.now().plus(VALIDADE_COTACAO));
+        cotacoes.put(idCotacao, cotacao);
+        return cotacao;
+    }
+
+    /**
+     * Recupera uma cotação já feita, garantindo que pertence ao cliente e que o carrinho não mudou desde então.
+     *
+     * @param idCotacao O id retornado por {@code GET /frete}
+     * @param transportadora A transportadora escolhida dentre as opções da cotação
+     * @param carrinho O carrinho atual do cliente, precificado com os pesos e dimensões atuais dos produtos
+     *
+     * @return A opção de frete escolhida
+     **/
+    public OpcaoFreteResponse getOpcaoCotada(String idCotacao, String transportadora, CarrinhoPrecificado carrinho) {
+        if (StringUtils.isBlank(idCotacao)) throw new FreteNotValidException("Faça a cotação do frete antes de finalizar o pedido");
+        if (StringUtils.isBlank(transportadora)) throw new FreteNotValidException("Selecione uma transportadora");
+
+        CotacaoFrete cotacao = cotacoes.get(idCotacao);
+        if (cotacao == null || cotacao.isExpirada() || !cotacao.idCadastro().equals(carrinho.idCadastro()))
+            throw new FreteNotValidException("Cotação de frete inválida ou expirada, refaça a cotação");
+        if (!idCotacao.equals(gerarIdCotacao(carrinho.idCadastro(), cotacao.cep(), carrinho.getPesoReal(), carrinho.getVolume())))
+            throw new FreteNotValidException("O carrinho mudou desde a cotação, refaça a cotação");
+
+        return cotacao.getOpcao(transportadora)
+                .orElseThrow(() -> new FreteNotValidException("Transportadora não disponível para essa cotação"));
+    }
+
+    /**
+     * Calcula as opções de frete sem passar pelas cotações em memória. Cada transportadora é uma busca binária na tabela dela,
+     * então as transportadoras são calculadas em sequência, na thread de quem chamou.
+     *
+     * @return As opções ordenadas pelo menor valor
+     **/
+    public List<OpcaoFreteResponse> calcularOpcoes(String cep, double pesoReal, double volume) {
+        int prefixoCep = getPrefixoCep(cep);
+        List<OpcaoFreteResponse> opcoes = new ArrayList<>(tabelas.size());
+        for (TabelaFrete tabela : tabelas) {
+            cotarTransportadora(tabela, prefixoCep, pesoReal, volume).ifPresent(opcoes::add);
+        }
+        if (opcoes.isEmpty()) throw new FreteNotValidException("Nenhuma transportadora atende o CEP informado");
+
+        opcoes.sort(Comparator.comparing(OpcaoFreteResponse::valor));
+        return Collections.unmodifiableList(opcoes);
+    }
+
+    @Scheduled(fixedDelay = CINCO_MINUTOS, initialDelay = CINCO_MINUTOS)
+    public void removerCotacoesExpiradas() {
+        cotacoes.values().removeIf(CotacaoFrete::isExpirada);
+    }
+
+    private Optional<OpcaoFreteResponse> cotarTransportadora(TabelaFrete tabela, int prefixoCep, double pesoReal, double volume) {
+        FaixaFrete faixa = tabela.buscar(prefixoCep);
+        if (faixa == null) return Optional.empty();
+
+        double pesoTaxado = Math.max(pesoReal, tabela.getPesoCubico(volume));
+        return Optional.of(new OpcaoFreteResponse(
+                tabela.getTransportadora(),
+                arredondar(pesoTaxado),
+                faixa.calcularValor(pesoTaxado),
+                faixa.prazo()
+        ));
+    }
+
+    private int getPrefixoCep(String cep) {
+        if (cep == null || !cep.matches("[0-9]{8}")) throw new CepNotValidException("CEP inválido: utilize só os 8 números");
+        return Integer.parseInt(cep.substring(0, TabelaFrete.TAMANHO_PREFIXO));
+    }
+
+    private String gerarIdCotacao(Integer idCadastro, String cep, double pesoReal, double volume) {
+        String chave = idCadastro + ":" + cep + ":" + Math.round(pesoReal * 1000) + ":" + Math.round(volume);
+        return UUID.nameUUIDFromBytes(chave.getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    private static double arredondar(double valor) {
+        return Math.round(valor * 100) / 100.0;
+    }
+
+    private void verificarToken(JwtAuthenticationToken token) {
+        if (token == null) throw new TokenNotValidOrExpiredException();
+    }
+}
@@ -0,0 +1,226 @@
+package com.lemnos.server.services;
+
+import com.lemnos.server.exceptions.BaseException;
+import com.lemnos.server.exceptions.idempotencia.IdempotenciaDivergenteException;
+import com.lemnos.server.exceptions.idempotencia.IdempotenciaEmAndamentoException;
+import com.lemnos.server.models.idempotencia.RespostaIdempotente;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Guarda a primeira resposta de cada Idempotency-Key, por usuário, para que requisições repetidas não sejam executadas de novo.
+ * <p>
+ * As respostas ficam na tabela Idempotencia por {@code idempotencia.horas}, com um cache em memória na frente. Enquanto a primeira
+ * requisição executa, a chave fica reservada: repetições que chegam nesta instância esperam o resultado dela, e as que chegam
+ * em outra instância recebem 409. Respostas 5xx não são guardadas, liberando a chave para uma nova tentativa.
+ **/
+@Service
+public class IdempotenciaService {
+    private static final Logger log = LoggerFactory.getLogger(IdempotenciaService.class);
+    private static final int UM_MINUTO = 60 * 1000;
+    private static final int MINUTOS_RESERVA = 2;
+    private static final long ESPERA_SEGUNDOS = 30;
+    private static final int MAXIMO_CACHE = 10_000;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final Map<String, CompletableFuture<RespostaIdempotente>> emAndamento = new ConcurrentHashMap<>();
+    private final Map<String, RespostaIdempotente> cache = new ConcurrentHashMap<>();
+
+    @Value("${idempotencia.horas:24}")
+    private int horas;
+
+    public IdempotenciaService(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Reserva a chave para executar a requisição, ou devolve a resposta já dada a ela.
+     * Quem recebe uma reserva sem resposta deve chamar {@link #concluir} ou {@link #liberar} ao terminar.
+     *
+     * @param impressao Hash da requisição, para recusar a mesma chave em requisições diferentes
+     * @throws IdempotenciaDivergenteException Se a chave já foi usada em uma requisição diferente
+     * @throws IdempotenciaEmAndamentoException Se a requisição original está executando em outra instância
+     **/
+    public Reserva reservar(String usuario, String chave, String impressao) {
+        String id = getId(usuario, chave);
+        RespostaIdempotente cacheada = cache.get(id);
+        if (cacheada != null && !cacheada.isExpirada()) return Reserva.repetir(verificar(cacheada, impressao));
+
+        CompletableFuture<RespostaIdempotente> futuro = new CompletableFuture<>();
+        CompletableFuture<RespostaIdempotente> existente = emAndamento.putIfAbsent(id, futuro);
+        if (existente != null) return Reserva.repetir(verificar(aguardar(existente), impressao));
+
+        try {
+            RespostaIdempotente gravada = reservarNoBanco(usuario, chave, impressao);
+            if (gravada == null) return Reserva.executar(futuro);
+
+            guardar(id, gravada);
+            emAndamento.remove(id, futuro);
+            futuro.complete(gravada);
+            return Reserva.repetir(verificar(gravada, impressao));
+        }
+        catch (RuntimeException e) {
+            emAndamento.remove(id, futuro);
+            futuro.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Guarda a resposta da requisição reservada e a entrega para as repetições que estão esperando.
+     **/
+    public void concluir(String usuario, String chave, String impressao, Reserva reserva, int status, String contentType, byte[] corpo) {
+        if (status >= 500) {
+            liberar(usuario, chave, reserva);
+            return;
+        }
+
+        String id = getId(usuario, chave);
+        RespostaIdempotente resposta = new RespostaIdempotente(impressao, status, contentType, corpo, Instant.now().plus(Duration.ofHours(horas)));
+        try {
+            jdbcTemplate.update("""
+                    UPDATE Idempotencia SET Status_Http = :status, Content_Type = :contentType, Corpo = :corpo, Expira_Em = :expiraEm
+                    WHERE Usuario = :usuario AND Chave = :chave
+                    """,
+                    getParametros(usuario, chave)
+                            .addValue("status", status)
+                            .addValue("contentType", contentType)
+                            .addValue("corpo", corpo)
+                            .addValue("expiraEm", Timestamp.from(resposta.expiraEm()))
+            );
+            guardar(id, resposta);
+        }
+        catch (RuntimeException e) {
+            log.error("Falha ao guardar a resposta da Idempotency-Key {}", chave, e);
+        }
+        finally {
+            emAndamento.remove(id, reserva.futuro());
+            reserva.futuro().complete(resposta);
+        }
+    }
+
+    /**
+     * Desfaz a reserva de uma requisição que falhou, para que ela possa ser tentada de novo com a mesma chave.
+     **/
+    public void liberar(String usuario, String chave, Reserva reserva) {
+        try {
+            jdbcTemplate.update("DELETE FROM Idempotencia WHERE Usuario = :usuario AND Chave = :chave AND Status_Http IS NULL", getParametros(usuario, chave));
+        }
+        catch (RuntimeException e) {
+            log.error("Falha ao liberar a Idempotency-Key {}, ela expira em {} minutos", chave, MINUTOS_RESERVA, e);
+        }
+        finally {
+            emAndamento.remove(getId(usuario, chave), reserva.futuro());
+            reserva.futuro().complete(null);
+        }
+    }
+
+    @Scheduled(fixedDelay = UM_MINUTO, initialDelay = UM_MINUTO)
+    public void apagarExpiradas() {
+        cache.values().removeIf(RespostaIdempotente::isExpirada);
+        jdbcTemplate.update("DELETE FROM Idempotencia WHERE Expira_Em < now()", Map.of());
+    }
+
+    /**
+     * Insere a reserva da chave, que expira em {@value MINUTOS_RESERVA} minutos se a instância cair antes de concluir.
+     *
+     * @return Nulo se a chave foi reservada, ou a resposta já guardada para ela
+     **/
+    private RespostaIdempotente reservarNoBanco(String usuario, String chave, String impressao) {
+        MapSqlParameterSource parametros = getParametros(usuario, chave)
+                .addValue("impressao", impressao)
+                .addValue("minutos", MINUTOS_RESERVA);
+        jdbcTemplate.update("DELETE FROM Idempotencia WHERE Usuario = :usuario AND Chave = :chave AND Expira_Em < now()", parametros);
+        int reservadas = jdbcTemplate.update("""
+                INSERT INTO Idempotencia (Usuario, Chave, Impressao, Expira_Em)
+                VALUES (:usuario, :chave, :impressao, now() + make_interval(mins => :minutos))
+                ON CONFLICT DO NOTHING
+                """, parametros);
+        if (reservadas == 1) return null;
+
+        List<RespostaIdempotente> gravadas = jdbcTemplate.query(
+                "SELECT Impressao, Status_Http, Content_Type, Corpo, Expira_Em FROM Idempotencia WHERE Usuario = :usuario AND Chave = :chave",
+                parametros,
+                (rs, i) -> new RespostaIdempotente(
+                        rs.getString("Impressao"),
+                        rs.getInt("Status_Http"),
+                        rs.getString("Content_Type"),
+                        rs.getBytes("Corpo"),
+                        rs.getTimestamp("Expira_Em").toInstant()
+                )
+        );
+        if (gravadas.isEmpty()) throw new IdempotenciaEmAndamentoException();
+
+        RespostaIdempotente gravada = gravadas.getFirst();
+        if (gravada.status() == 0) {
+            verificar(gravada, impressao);
+            throw new IdempotenciaEmAndamentoException();
+        }
+        return gravada;
+    }
+
+    private RespostaIdempotente aguardar(CompletableFuture<RespostaIdempotente> futuro) {
+        try {
+            RespostaIdempotente resposta = futuro.get(ESPERA_SEGUNDOS, TimeUnit.SECONDS);
+            if (resposta == null) throw new IdempotenciaEmAndamentoException();
+            return resposta;
+        }
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof BaseException causa) throw causa;
+            throw new IdempotenciaEmAndamentoException();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdempotenciaEmAndamentoException();
+        }
+        catch (TimeoutException e) {
+            throw new IdempotenciaEmAndamentoException();
+        }
+    }
+
+    private RespostaIdempotente verificar(RespostaIdempotente resposta, String impressao) {
+        if (!resposta.impressao().equals(impressao)) throw new IdempotenciaDivergenteException();
+        return resposta;
+    }
+
+    private void guardar(String id, RespostaIdempotente resposta) {
+        if (cache.size() < MAXIMO_CACHE) cache.put(id, resposta);
+    }
+
+    private MapSqlParameterSource getParametros(String usuario, String chave) {
+        return new MapSqlParameterSource().addValue("usuario", usuario).addValue("chave", chave);
+    }
+
+    private String getId(String usuario, String chave) {
+        return usuario + "\n" + chave;
+    }
+
+    /**
+     * @param resposta A resposta a repetir, ou nula se quem reservou deve executar a requisição
+     **/
+    public record Reserva(RespostaIdempotente resposta, CompletableFuture<RespostaIdempotente> futuro) {
+        private static Reserva repetir(RespostaIdempotente resposta) {
+            return new Reserva(resposta, null);
+        }
+
+        private static Reserva executar(CompletableFuture<RespostaIdempotente> futuro) {
+            return new Reserva(null, futuro);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.lemnos.server.services;
+
+import com.lemnos.server.models.enums.TipoEvento;
+import com.lemnos.server.models.outbox.EventoOutbox;
+
+import java.util.Set;
+
+/**
+ * Efeito colateral executado pelo {@link OutboxWorker} para os eventos dos tipos informados.
+ * <p>
+ * Roda dentro da transação do worker: o que for gravado no banco só é confirmado junto com a baixa do evento.
+ * Um evento pode ser entregue mais de uma vez (após uma falha em outro manipulador, por exemplo), então a implementação deve ser idempotente.
+ **/
+public interface ManipuladorEvento {
+    Set<TipoEvento> getTipos();
+
+    void processar(EventoOutbox evento) throws Exception;
+}
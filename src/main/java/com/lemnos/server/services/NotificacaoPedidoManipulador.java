@@ -0,0 +1,48 @@
+package com.lemnos.server.services;
+
+import com.lemnos.server.models.enums.TipoEvento;
+import com.lemnos.server.models.outbox.EventoOutbox;
+import com.lemnos.server.models.outbox.PedidoCriadoEvento;
+import com.lemnos.server.models.outbox.StatusPedidoEvento;
+import com.lemnos.server.repositories.cadastro.CadastroRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+/**
+ * Avisa o cliente sobre o andamento do pedido. Enquanto não há um provedor de email configurado a notificação vai para o log.
+ **/
+@Component
+@RequiredArgsConstructor
+public class NotificacaoPedidoManipulador implements ManipuladorEvento {
+    private static final Logger log = LoggerFactory.getLogger(NotificacaoPedidoManipulador.class);
+
+    private final OutboxService outboxService;
+    private final CadastroRepository cadastroRepository;
+
+    @Override
+    public Set<TipoEvento> getTipos() {
+        return Set.of(TipoEvento.PEDIDO_CRIADO, TipoEvento.PEDIDO_STATUS_ALTERADO);
+    }
+
+    @Override
+    public void processar(EventoOutbox evento) throws Exception {
+        switch (evento.tipo()) {
+            case PEDIDO_CRIADO -> {
+                PedidoCriadoEvento pedido = outboxService.lerPayload(evento, PedidoCriadoEvento.class);
+                notificar(pedido.idCadastro(), String.format("Recebemos o seu pedido %d no valor de R$%.2f", pedido.idPedido(), pedido.valorPedido() + pedido.valorFrete()));
+            }
+            case PEDIDO_STATUS_ALTERADO -> {
+                StatusPedidoEvento status = outboxService.lerPayload(evento, StatusPedidoEvento.class);
+                notificar(status.idCadastro(), String.format("O seu pedido %d agora está: %s", status.idPedido(), status.status()));
+            }
+        }
+    }
+
+    private void notificar(Integer idCadastro, String mensagem) {
+        cadastroRepository.findById(idCadastro).ifPresent(cadastro -> log.info("Notificação para {}: {}", cadastro.getEmail(), mensagem));
+    }
+}
@@ -0,0 +1,98 @@
+package com.lemnos.server.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lemnos.server.models.enums.TipoEvento;
+import com.lemnos.server.models.outbox.EventoOutbox;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+@Service
+@RequiredArgsConstructor
+public class OutboxService {
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    private final List<Runnable> ouvintes = new CopyOnWriteArrayList<>();
+
+    /**
+     * Grava o evento na Outbox. Precisa ser chamado dentro da transação que altera o agregado,
+     * para que o evento só exista se a alteração for confirmada.
+     *
+     * @param tipo O tipo do evento
+     * @param agregado O id da entidade que gerou o evento
+     * @param evento O conteúdo do evento, gravado como JSON
+     **/
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publicar(TipoEvento tipo, Object agregado, Object evento) {
+        jdbcTemplate.update(
+                "INSERT INTO Outbox (Tipo, Agregado, Payload) VALUES (:tipo, :agregado, :payload)",
+                new MapSqlParameterSource()
+                        .addValue("tipo", tipo.name())
+                        .addValue("agregado", String.valueOf(agregado))
+                        .addValue("payload", toJson(evento))
+        );
+        avisarAoConfirmar();
+    }
+
+    /**
+     * Igual ao {@link #publicar}, mas grava todos os eventos com um único batch.
+     *
+     * @param tipo O tipo dos eventos
+     * @param eventos Os eventos, indexados pelo id da entidade que gerou cada um
+     **/
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publicarEmLote(TipoEvento tipo, Map<?, ?> eventos) {
+        if (eventos.isEmpty()) return;
+
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO Outbox (Tipo, Agregado, Payload) VALUES (:tipo, :agregado, :payload)",
+                eventos.entrySet().stream()
+                        .map(entry -> new MapSqlParameterSource()
+                                .addValue("tipo", tipo.name())
+                                .addValue("agregado", String.valueOf(entry.getKey()))
+                                .addValue("payload", toJson(entry.getValue())))
+                        .toArray(SqlParameterSource[]::new)
+        );
+        avisarAoConfirmar();
+    }
+
+    /**
+     * Registra um aviso chamado sempre que uma transação com eventos novos é confirmada.
+     **/
+    public void aoPublicar(Runnable ouvinte) {
+        ouvintes.add(ouvinte);
+    }
+
+    public <T> T lerPayload(EventoOutbox evento, Class<T> classe) throws JsonProcessingException {
+        return objectMapper.readValue(evento.payload(), classe);
+    }
+
+    private void avisarAoConfirmar() {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                ouvintes.forEach(Runnable::run);
+            }
+        });
+    }
+
+    private String toJson(Object evento) {
+        try {
+            return objectMapper.writeValueAsString(evento);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Não foi possível serializar o evento " + evento, e);
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package com.lemnos.server.services;
+
+import com.lemnos.server.models.enums.EstadoEvento;
+import com.lemnos.server.models.enums.TipoEvento;
+import com.lemnos.server.models.outbox.EventoOutbox;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool de workers que consome a tabela Outbox.
+ * <p>
+ * Cada worker reserva um lote de eventos pendentes com {@code FOR UPDATE SKIP LOCKED}, então vários workers
+ * (e várias instâncias do servidor) dividem a fila sem processar o mesmo evento. Cada evento roda em um savepoint
+ * dentro da transação do lote: se der certo é apagado, se falhar volta para a fila com backoff exponencial
+ * e, depois de {@code outbox.tentativas} falhas, fica como MORTO para análise.
+ **/
+@Component
+public class OutboxWorker implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(OutboxWorker.class);
+    private static final long ESPERA_MINIMA = 200;
+    private static final long ESPERA_MAXIMA = 5 * 1000;
+    private static final long BACKOFF_INICIAL = 2;
+    private static final long BACKOFF_MAXIMO = 60 * 60;
+    private static final int QUINZE_SEGUNDOS = 15 * 1000;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate loteTemplate;
+    private final TransactionTemplate eventoTemplate;
+    private final Map<TipoEvento, List<ManipuladorEvento>> manipuladores = new EnumMap<>(TipoEvento.class);
+    private final Semaphore sinal = new Semaphore(0);
+
+    private final MeterRegistry meterRegistry;
+    private final Timer tempoProcessamento;
+    private final AtomicLong pendentes = new AtomicLong();
+    private final AtomicLong mortos = new AtomicLong();
+    private final AtomicLong atrasoSegundos = new AtomicLong();
+
+    @Value("${outbox.workers:4}")
+    private int quantidadeWorkers;
+    @Value("${outbox.lote:50}")
+    private int tamanhoLote;
+    @Value("${outbox.tentativas:8}")
+    private int maximoTentativas;
+
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean rodando;
+
+    public OutboxWorker(
+            NamedParameterJdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            OutboxService outboxService,
+            ObjectProvider<ManipuladorEvento> manipuladores,
+            MeterRegistry meterRegistry
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.loteTemplate = new TransactionTemplate(transactionManager);
+        this.eventoTemplate = new TransactionTemplate(transactionManager);
+        this.eventoTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_NESTED);
+        manipuladores.orderedStream().forEach(manipulador -> manipulador.getTipos().forEach(tipo ->
+                this.manipuladores.computeIfAbsent(tipo, t -> new ArrayList<>()).add(manipulador)
+        ));
+        outboxService.aoPublicar(this::acordar);
+
+        this.meterRegistry = meterRegistry;
+        this.tempoProcessamento = Timer.builder("outbox.processamento").description("Tempo para processar um evento da Outbox").register(meterRegistry);
+        Gauge.builder("outbox.pendentes", pendentes, AtomicLong::get).description("Eventos esperando processamento").register(meterRegistry);
+        Gauge.builder("outbox.mortos", mortos, AtomicLong::get).description("Eventos que esgotaram as tentativas").register(meterRegistry);
+        Gauge.builder("outbox.atraso", atrasoSegundos, AtomicLong::get).baseUnit("seconds").description("Idade do evento pendente mais antigo").register(meterRegistry);
+    }
+
+    @Override
+    public void start() {
+        rodando = true;
+        for (int i = 0; i < quantidadeWorkers; i++) {
+            Thread worker = Thread.ofPlatform().name("outbox-worker-" + i).daemon().start(this::executar);
+            workers.add(worker);
+        }
+    }
+
+    @Override
+    public void stop() {
+        rodando = false;
+        workers.forEach(Thread::interrupt);
+        for (Thread worker : workers) {
+            try {
+                worker.join(ESPERA_MAXIMA);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        workers.clear();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return rodando;
+    }
+
+    @Scheduled(fixedDelay = QUINZE_SEGUNDOS, initialDelay = QUINZE_SEGUNDOS)
+    public void atualizarMetricas() {
+        jdbcTemplate.query("""
+                SELECT
+                    COUNT(*) FILTER (WHERE Estado = 'PENDENTE') AS Pendentes,
+                    COUNT(*) FILTER (WHERE Estado = 'MORTO') AS Mortos,
+                    COALESCE(EXTRACT(EPOCH FROM now() - MIN(Data_Criacao) FILTER (WHERE Estado = 'PENDENTE')), 0) AS Atraso
+                FROM Outbox
+                """,
+                rs -> {
+                    pendentes.set(rs.getLong("Pendentes"));
+                    mortos.set(rs.getLong("Mortos"));
+                    atrasoSegundos.set(rs.getLong("Atraso"));
+                }
+        );
+    }
+
+    private void acordar() {
+        if (sinal.availablePermits() < quantidadeWorkers) sinal.release();
+    }
+
+    private void executar() {
+        long espera = ESPERA_MINIMA;
+        while (rodando) {
+            try {
+                int processados = processarLote();
+                if (processados > 0) {
+                    espera = ESPERA_MINIMA;
+                    continue;
+                }
+                if (sinal.tryAcquire(espera, TimeUnit.MILLISECONDS)) espera = ESPERA_MINIMA;
+                else espera = Math.min(espera * 2, ESPERA_MAXIMA);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            catch (RuntimeException e) {
+                log.error("Falha ao consumir a Outbox", e);
+                espera = ESPERA_MAXIMA;
+                try {
+                    Thread.sleep(espera);
+                }
+                catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private int processarLote() {
+        Integer processados = loteTemplate.execute(status -> {
+            List<EventoOutbox> lote = jdbcTemplate.query("""
+                    SELECT Id, Tipo, Agregado, Payload, Tentativas, Data_Criacao FROM Outbox
+                    WHERE Estado = 'PENDENTE' AND Proxima_Tentativa <= now()
+                    ORDER BY Proxima_Tentativa, Id
+                    LIMIT :lote
+                    FOR UPDATE SKIP LOCKED
+                    """,
+                    Map.of("lote", tamanhoLote),
+                    (rs, i) -> new EventoOutbox(
+                            rs.getLong("Id"),
+                            TipoEvento.valueOf(rs.getString("Tipo")),
+                            rs.getString("Agregado"),
+                            rs.getString("Payload"),
+                            rs.getInt("Tentativas"),
+                            rs.getTimestamp("Data_Criacao").toInstant()
+                    )
+            );
+            lote.forEach(this::processar);
+            return lote.size();
+        });
+        return (processados == null) ? 0 : processados;
+    }
+
+    private void processar(EventoOutbox evento) {
+        Timer.Sample amostra = Timer.start(meterRegistry);
+        try {
+            eventoTemplate.executeWithoutResult(status -> {
+                try {
+                    for (ManipuladorEvento manipulador : manipuladores.getOrDefault(evento.tipo(), List.of())) {
+                        manipulador.processar(evento);
+                    }
+                }
+                catch (Exception e) {
+                    throw new FalhaEventoException(e);
+                }
+            });
+            jdbcTemplate.update("DELETE FROM Outbox WHERE Id = :id", Map.of("id", evento.id()));
+            contar("outbox.processados", evento.tipo());
+        }
+        catch (RuntimeException e) {
+            Throwable causa = (e instanceof FalhaEventoException) ? e.getCause() : e;
+            registrarFalha(evento, causa);
+        }
+        finally {
+            amostra.stop(tempoProcessamento);
+        }
+    }
+
+    private void registrarFalha(EventoOutbox evento, Throwable causa) {
+        int tentativas = evento.tentativas() + 1;
+        boolean morto = tentativas >= maximoTentativas;
+        jdbcTemplate.update("""
+                UPDATE Outbox SET Tentativas = :tentativas, Estado = :estado, Proxima_Tentativa = :proximaTentativa, Ultimo_Erro = :erro
+                WHERE Id = :id
+                """,
+                new MapSqlParameterSource()
+                        .addValue("id", evento.id())
+                        .addValue("tentativas", tentativas)
+                        .addValue("estado", (morto ? EstadoEvento.MORTO : EstadoEvento.PENDENTE).name())
+                        .addValue("proximaTentativa", Timestamp.from(Instant.now().plus(getBackoff(tentativas))))
+                        .addValue("erro", getMensagem(causa))
+        );
+        if (morto) {
+            contar("outbox.mortos.total", evento.tipo());
+            log.error("Evento {} ({}) esgotou as {} tentativas e foi marcado como MORTO", evento.id(), evento.tipo(), maximoTentativas, causa);
+        }
+        else {
+            contar("outbox.falhas", evento.tipo());
+            log.warn("Falha ao processar o evento {} ({}), tentativa {}", evento.id(), evento.tipo(), tentativas, causa);
+        }
+    }
+
+    /**
+     * Backoff exponencial com jitter: 2s, 4s, 8s... até uma hora.
+     **/
+    private Duration getBackoff(int tentativas) {
+        long segundos = Math.min(BACKOFF_INICIAL << Math.min(tentativas - 1, 20), BACKOFF_MAXIMO);
+        long jitter = ThreadLocalRandom.current().nextLong(segundos / 2 + 1);
+        return Duration.ofSeconds(segundos / 2 + jitter);
+    }
+
+    private String getMensagem(Throwable causa) {
+        String mensagem = causa.getClass().getSimpleName() + ": " + causa.getMessage();
+        return (mensagem.length() > 1024) ? mensagem.substring(0, 1024) : mensagem;
+    }
+
+    private void contar(String nome, TipoEvento tipo) {
+        Counter.builder(nome).tag("tipo", tipo.name()).register(meterRegistry).increment();
+    }
+
+    private static class FalhaEventoException extends RuntimeException {
+        private FalhaEventoException(Exception causa) {
+            super(causa);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.lemnos.server.services;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Manutenção das partições mensais de Pedido, Entrega e Avaliacao (criadas pela migração V12.0).
+ * <p>
+ * As partições são criadas com {@value MESES_ADIANTADOS} meses de antecedência, para que nenhuma inserção caia na partição padrão.
+ * Partições de Pedido e Entrega mais antigas que {@code particao.arquivar-apos-meses} são desanexadas e movidas para o schema
+ * {@code arquivo}, onde continuam consultáveis mas saem das consultas da aplicação. Avaliacao não é arquivada:
+ * a média de avaliação dos produtos é calculada com todas as avaliações.
+ * <p>
+ * A desanexação usa {@code DETACH PARTITION ... CONCURRENTLY}, que não trava as leituras e escritas em Pedido e Entrega,
+ * por isso elas não têm partição padrão (migração V20.0). A compactação das partições arquivadas roda em uma thread própria,
+ * uma de cada vez, para que um {@code VACUUM FULL} demorado não ocupe as threads das tarefas agendadas.
+ **/
+@Service
+public class ParticaoService {
+    private static final Logger log = LoggerFactory.getLogger(ParticaoService.class);
+    private static final int SEIS_HORAS = 6 * 60 * 60 * 1000;
+    private static final int UM_DIA = 24 * 60 * 60 * 1000;
+    private static final int MESES_ADIANTADOS = 3;
+    private static final List<String> TABELAS = List.of("pedido", "entrega", "avaliacao");
+    private static final List<String> TABELAS_ARQUIVADAS = List.of("pedido", "entrega");
+    private static final DateTimeFormatter FORMATO_MES = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final ExecutorService compactacao = Executors.newSingleThreadExecutor(Thread.ofVirtual().name("particao-compactacao").factory());
+
+    @Value("${particao.arquivar-apos-meses:36}")
+    private int arquivarAposMeses;
+
+    public ParticaoService(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Scheduled(fixedDelay = SEIS_HORAS, initialDelay = 0)
+    public void criarParticoes() {
+        LocalDate hoje = LocalDate.now();
+        for (String tabela : TABELAS) {
+            try {
+                Integer criadas = jdbcTemplate.queryForObject(
+                        "SELECT criar_particoes_mensais(:tabela, :inicio, :fim)",
+                        new MapSqlParameterSource()
+                                .addValue("tabela", tabela)
+                                .addValue("inicio", hoje)
+                                .addValue("fim", hoje.plusMonths(MESES_ADIANTADOS)),
+                        Integer.class
+                );
+                if (criadas != null && criadas > 0) log.info("{} partições criadas para {}", criadas, tabela);
+            }
+            catch (RuntimeException e) {
+                log.error("Falha ao criar as partições de {}", tabela, e);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelay = UM_DIA, initialDelay = SEIS_HORAS)
+    public void arquivarParticoes() {
+        YearMonth limite = getPrimeiroMesAtivo();
+        for (String tabela : TABELAS_ARQUIVADAS) {
+            for (Particao particao : getParticoes(tabela)) {
+                YearMonth mes = YearMonth.parse(particao.nome().substring(tabela.length() + 1), FORMATO_MES);
+                if (!mes.isBefore(limite)) continue;
+                try {
+                    arquivar(tabela, particao);
+                    log.info("Partição {} arquivada", particao.nome());
+                }
+                catch (RuntimeException e) {
+                    log.error("Falha ao arquivar a partição {}", particao.nome(), e);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return O mês mais antigo que ainda não foi arquivado
+     **/
+    public YearMonth getPrimeiroMesAtivo() {
+        return YearMonth.now().minusMonths(arquivarAposMeses);
+    }
+
+    @PreDestroy
+    public void parar() {
+        compactacao.shutdownNow();
+    }
+
+    /**
+     * Desanexa a partição e a move para o schema arquivo, e agenda a compactação dela, que não recebe mais escritas.
+     * <p>
+     * {@code CONCURRENTLY} não roda dentro de uma transação, então cada comando é confirmado sozinho. Uma desanexação interrompida
+     * deixa a partição pendente, e uma desanexada que não chegou a ser movida fica em public fora da tabela: as duas são
+     * encontradas pelo {@link #getParticoes} e terminadas na próxima execução.
+     **/
+    private void arquivar(String tabela, Particao particao) {
+        JdbcTemplate jdbc = jdbcTemplate.getJdbcTemplate();
+        if (particao.anexada()) {
+            String modo = particao.pendente() ? "FINALIZE" : "CONCURRENTLY";
+            jdbc.execute(String.format("ALTER TABLE public.%s DETACH PARTITION public.%s %s", tabela, particao.nome(), modo));
+        }
+        jdbc.execute(String.format("ALTER TABLE public.%s SET SCHEMA arquivo", particao.nome()));
+        compactacao.execute(() -> compactar(particao.nome()));
+    }
+
+    private void compactar(String particao) {
+        try {
+            jdbcTemplate.getJdbcTemplate().execute(String.format("ALTER TABLE arquivo.%s SET (fillfactor = 100)", particao));
+            jdbcTemplate.getJdbcTemplate().execute(String.format("VACUUM (FULL, ANALYZE) arquivo.%s", particao));
+            log.info("Partição arquivada {} compactada", particao);
+        }
+        catch (RuntimeException e) {
+            log.error("Falha ao compactar a partição arquivada {}", particao, e);
+        }
+    }
+
+    /**
+     * Partições mensais da tabela no schema public, pelo nome {@code tabela_aaaa_mm}, incluindo as que já foram desanexadas
+     * mas ainda não saíram de public.
+     **/
+    private List<Particao> getParticoes(String tabela) {
+        return jdbcTemplate.query("""
+                SELECT filha.relname, h.inhrelid IS NOT NULL AS Anexada, COALESCE(h.inhdetachpending, false) AS Pendente
+                FROM pg_class filha
+                JOIN pg_namespace n ON n.oid = filha.relnamespace
+                LEFT JOIN pg_inherits h ON h.inhrelid = filha.oid
+                LEFT JOIN pg_class pai ON pai.oid = h.inhparent
+                WHERE n.nspname = 'public' AND filha.relkind = 'r' AND (pai.relname IS NULL OR pai.relname = :tabela)
+                AND filha.relname ~ ('^' || :tabela || '_[0-9]{4}_[0-9]{2}$')
+                ORDER BY filha.relname
+                """, Map.of("tabela", tabela), (rs, i) -> new Particao(rs.getString("relname"), rs.getBoolean("Anexada"), rs.getBoolean("Pendente")));
+    }
+
+    private record Particao(String nome, boolean anexada, boolean pendente) { }
+}
@@ -1,83 +1,309 @@
 package com.lemnos.server.services;
 
-import com.lemnos.server.exceptions.carrinho.CarrinhoVazioException;
 import com.lemnos.server.exceptions.entidades.cliente.ClienteNotFoundException;
+import com.lemnos.server.exceptions.entidades.produto.ProdutoNotFoundException;
 import com.lemnos.server.exceptions.pedido.EntregaJaRealizadaException;
 import com.lemnos.server.exceptions.pedido.PedidoNotFoundException;
 import com.lemnos.server.exceptions.pedido.PedidoNotValidException;
 import com.lemnos.server.models.cadastro.Cadastro;
-import com.lemnos.server.models.carrinho.Carrinho;
+import com.lemnos.server.models.carrinho.CarrinhoPrecificado;
+import com.lemnos.server.models.dtos.requests.AlteracaoStatusRequest;
+import com.lemnos.server.models.dtos.requests.AlterarStatusLoteRequest;
 import com.lemnos.server.models.dtos.requests.AlterarStatusRequest;
 import com.lemnos.server.models.dtos.requests.PedidoRequest;
+import com.lemnos.server.models.dtos.responses.ItemPedidoResponse;
+import com.lemnos.server.models.dtos.responses.OpcaoFreteResponse;
+import com.lemnos.server.models.dtos.responses.PaginaResponse;
 import com.lemnos.server.models.dtos.responses.PedidoResponse;
+import com.lemnos.server.models.dtos.responses.PedidoResumoResponse;
+import com.lemnos.server.models.dtos.responses.ResultadoStatusResponse;
+import com.lemnos.server.models.dtos.responses.VendaProdutoResponse;
 import com.lemnos.server.models.enums.Status;
+import com.lemnos.server.models.enums.TipoEvento;
+import com.lemnos.server.models.enums.TipoVersao;
+import com.lemnos.server.models.outbox.PedidoCriadoEvento;
+import com.lemnos.server.models.outbox.StatusPedidoEvento;
 import com.lemnos.server.models.pedido.Entrega;
+import com.lemnos.server.models.pedido.ItemPedido;
 import com.lemnos.server.models.pedido.Pedido;
-import com.lemnos.server.repositories.CarrinhoRepository;
 import com.lemnos.server.repositories.EntregaRepository;
+import com.lemnos.server.repositories.ItemPedidoRepository;
 import com.lemnos.server.repositories.PedidoRepository;
 import com.lemnos.server.repositories.cadastro.CadastroRepository;
 import io.micrometer.common.util.StringUtils;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.List;
-import java.util.Optional;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.*;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class PedidoService {
+    private static final int LIMITE_PADRAO = 20;
+    private static final int LIMITE_MAXIMO = 100;
+    private static final int TAMANHO_BLOCO_STATUS = 500;
+    private static final int MAXIMO_ALTERACOES_STATUS = 5000;
+    private static final int LIMITE_FILA_PADRAO = 100;
+    private static final int LIMITE_FILA_MAXIMO = 500;
+    private static final int MINUTOS_RESERVA_FILA = 10;
+
     private final PedidoRepository pedidoRepository;
     private final CadastroRepository cadastroRepository;
-    private final CarrinhoRepository carrinhoRepository;
+    private final CarrinhoStore carrinhoStore;
+    private final PrecoCarrinhoService precoCarrinhoService;
     private final EntregaRepository entregaRepository;
+    private final FreteService freteService;
+    private final EstoqueService estoqueService;
+    private final TransactionTemplate transactionTemplate;
+    private final ItemPedidoRepository itemPedidoRepository;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final OutboxService outboxService;
+    private final VersaoService versaoService;
 
-    public ResponseEntity<List<PedidoResponse>> getAll(JwtAuthenticationToken token) {
-        List<PedidoResponse> dto = pedidoRepository.findByCadastro(getCadastroByEmail(token.getName()))
-                .stream()
-                .map(this::getPedidoResponse)
-                .collect(Collectors.toList());
-
-        return ResponseEntity.ok(dto);
+    /**
+     * Histórico de pedidos do cliente, do mais recente para o mais antigo, paginado por cursor sobre (Data_Pedido, Id).
+     *
+     * @param cursor O {@code proximoCursor} da página anterior, ou nulo para a primeira página
+     * @param status O nome de um {@link Status} para filtrar, ou nulo para todos
+     * @param detalhado Se a descrição e os itens de cada pedido devem vir na resposta
+     **/
+    public ResponseEntity<PaginaResponse<PedidoResumoResponse>> getAll(JwtAuthenticationToken token, String cursor, Integer limite, String status, boolean detalhado, String ifNoneMatch) {
+        Cadastro cadastro = getCadastroByEmail(token.getName());
+        return versaoService.responder(TipoVersao.PEDIDOS, cadastro.getId(), ifNoneMatch, () -> getPagina(cadastro, cursor, limite, status, detalhado));
     }
 
     public ResponseEntity<PedidoResponse> getOne(Integer id) {
         Pedido pedido = pedidoRepository.findById(id).orElseThrow(PedidoNotFoundException::new);
-        return ResponseEntity.ok(getPedidoResponse(pedido));
+        return ResponseEntity.ok(getPedidoResponses(List.of(pedido)).getFirst());
+    }
+
+    /**
+     * Soma as vendas por produto a partir de Itens_Pedido, opcionalmente filtrando por produto e período do pedido.
+     **/
+    public ResponseEntity<List<VendaProdutoResponse>> getVendas(String idProduto, LocalDate inicio, LocalDate fim) {
+        StringBuilder sql = new StringBuilder("""
+                SELECT i.Id_Produto, SUM(i.Quantidade) AS Quantidade, COUNT(*) AS Pedidos, SUM(i.Quantidade * i.Valor_Efetivo) AS Valor
+                FROM Itens_Pedido i
+                JOIN Pedido p ON p.Id = i.Id_Pedido
+                WHERE 1 = 1
+                """);
+        MapSqlParameterSource parametros = new MapSqlParameterSource();
+        if (StringUtils.isNotBlank(idProduto)) {
+            sql.append(" AND i.Id_Produto = :idProduto");
+            parametros.addValue("idProduto", getIdProduto(idProduto));
+        }
+        if (inicio != null) {
+            sql.append(" AND p.Data_Pedido >= :inicio");
+            parametros.addValue("inicio", inicio);
+        }
+        if (fim != null) {
+            sql.append(" AND p.Data_Pedido <= :fim");
+            parametros.addValue("fim", fim);
+        }
+        sql.append(" GROUP BY i.Id_Produto ORDER BY Quantidade DESC");
+
+        return ResponseEntity.ok(jdbcTemplate.query(sql.toString(), parametros, (rs, i) -> new VendaProdutoResponse(
+                rs.getObject("Id_Produto", UUID.class).toString(),
+                rs.getLong("Quantidade"),
+                rs.getLong("Pedidos"),
+                rs.getObject("Valor", Double.class)
+        )));
     }
 
     public ResponseEntity<Void> novoPedido(PedidoRequest pedidoRequest, JwtAuthenticationToken token) {
         Cadastro cadastro = getCadastroByEmail(token.getName());
-        Carrinho carrinho = carrinhoRepository.findByCadastro(cadastro).orElseThrow(CarrinhoVazioException::new);
         verficarPedido(pedidoRequest);
-        Double valorPedido = pedidoRequest.valorPagamento() - pedidoRequest.valorFrete();
-        pedidoRepository.save(new Pedido(valorPedido, pedidoRequest.metodoPagamento(), pedidoRequest.valorPagamento(), carrinho.getQuantidadeProdutos(), getDescricao(carrinho), pedidoRequest.valorFrete(), cadastro));
-        carrinhoRepository.delete(carrinho);
+        carrinhoStore.fechar(token.getName(), memoria -> transactionTemplate.executeWithoutResult(status -> {
+            CarrinhoPrecificado carrinho = precoCarrinhoService.precificarNoCheckout(memoria.getIdCadastro(), memoria.getQuantidades());
+            OpcaoFreteResponse frete = freteService.getOpcaoCotada(pedidoRequest.idCotacao(), pedidoRequest.transportadora(), carrinho);
+            Double valorPedido = carrinho.getValor();
+            verificarPagamento(pedidoRequest, valorPedido, frete.valor());
+
+            estoqueService.confirmar(memoria.getIdCadastro(), memoria.getItens());
+            Pedido pedido = pedidoRepository.save(new Pedido(valorPedido, pedidoRequest.metodoPagamento(), pedidoRequest.valorPagamento(), carrinho.getQuantidadeProdutos(), frete.valor(), cadastro));
+            salvarItens(pedido, carrinho);
+            outboxService.publicar(TipoEvento.PEDIDO_CRIADO, pedido.getId(), getPedidoCriadoEvento(pedido, carrinho));
+        }));
         return ResponseEntity.ok().build();
     }
 
     public ResponseEntity<Void> alterarStatus(AlterarStatusRequest request) {
-        Pedido pedido = pedidoRepository.findById(request.id()).orElseThrow(PedidoNotFoundException::new);
-        Status status = proximoStatus(pedido.getStatus());
-        if (status == Status.ENTREGUE) {
-            Optional<Entrega> entregaOptional = entregaRepository.findByPedido(pedido);
-            if (entregaOptional.isPresent()) throw new EntregaJaRealizadaException();
-            entregaRepository.save(new Entrega(pedido));
-        }
-        pedido.setStatus(status.getStatus());
-        pedidoRepository.save(pedido);
+        transactionTemplate.executeWithoutResult(transacao -> {
+            Pedido pedido = pedidoRepository.findById(request.id()).orElseThrow(PedidoNotFoundException::new);
+            Status statusAnterior = pedido.getStatus();
+            Status status = statusAnterior.proximo();
+            if (status == null) throw new EntregaJaRealizadaException();
+            if (status == Status.ENTREGUE) {
+                Optional<Entrega> entregaOptional = entregaRepository.findByPedidoAndDataEntregaGreaterThanEqual(pedido, pedido.getDataPedido());
+                if (entregaOptional.isPresent()) throw new EntregaJaRealizadaException();
+                entregaRepository.save(new Entrega(pedido));
+            }
+            pedido.setStatus(status);
+            pedido.setReservadoPor(null);
+            pedido.setReservadoAte(null);
+            pedidoRepository.save(pedido);
+            outboxService.publicar(TipoEvento.PEDIDO_STATUS_ALTERADO, pedido.getId(), new StatusPedidoEvento(
+                    pedido.getId(),
+                    pedido.getCadastro().getId(),
+                    statusAnterior.getStatus(),
+                    status.getStatus(),
+                    Instant.now()
+            ));
+        });
 
         return ResponseEntity.ok().build();
     }
 
-    private void verficarPedido(PedidoRequest pedidoRequest) {
-        if (pedidoRequest.valorFrete() < 0) {
-            throw new PedidoNotValidException("O valor do frete não pode ser negativo");
+    /**
+     * Altera o status de vários pedidos de uma vez, para integrações com transportadoras.
+     * <p>
+     * Cada bloco de até {@value TAMANHO_BLOCO_STATUS} pedidos roda em uma transação: os pedidos são travados com uma consulta,
+     * as transições validadas em memória pela máquina de estados do {@link Status}, e as alterações gravadas com um UPDATE
+     * por status de destino e um INSERT em Entrega para todos os entregues. Se um bloco falhar ao gravar, só os pedidos dele são marcados com erro.
+     *
+     * @return O resultado de cada alteração, na ordem enviada
+     **/
+    public ResponseEntity<List<ResultadoStatusResponse>> alterarStatusEmLote(AlterarStatusLoteRequest request) {
+        if (request == null || request.alteracoes() == null || request.alteracoes().isEmpty())
+            throw new PedidoNotValidException("Nenhuma alteração de status foi enviada");
+        if (request.alteracoes().size() > MAXIMO_ALTERACOES_STATUS)
+            throw new PedidoNotValidException("O lote pode ter no máximo " + MAXIMO_ALTERACOES_STATUS + " alterações");
+
+        Map<Integer, ResultadoStatusResponse> resultados = new HashMap<>();
+        Map<Integer, Status> destinos = new LinkedHashMap<>();
+        for (AlteracaoStatusRequest alteracao : request.alteracoes()) {
+            if (alteracao == null || alteracao.id() == null) continue;
+            if (destinos.containsKey(alteracao.id()) || resultados.containsKey(alteracao.id())) {
+                destinos.remove(alteracao.id());
+                resultados.put(alteracao.id(), ResultadoStatusResponse.erro(alteracao.id(), "Pedido repetido no lote"));
+                continue;
+            }
+            try {
+                destinos.put(alteracao.id(), Status.valueOf(alteracao.status().trim().toUpperCase()));
+            } catch (IllegalArgumentException | NullPointerException e) {
+                resultados.put(alteracao.id(), ResultadoStatusResponse.erro(alteracao.id(), "Status inválido"));
+            }
+        }
+
+        List<Integer> ids = new ArrayList<>(destinos.keySet());
+        for (int i = 0; i < ids.size(); i += TAMANHO_BLOCO_STATUS) {
+            Map<Integer, Status> bloco = new LinkedHashMap<>();
+            ids.subList(i, Math.min(i + TAMANHO_BLOCO_STATUS, ids.size())).forEach(id -> bloco.put(id, destinos.get(id)));
+            try {
+                resultados.putAll(Objects.requireNonNull(transactionTemplate.execute(transacao -> alterarBlocoStatus(bloco))));
+            } catch (RuntimeException e) {
+                bloco.keySet().forEach(id -> resultados.put(id, ResultadoStatusResponse.erro(id, "Falha ao gravar o status, tente novamente")));
+            }
+        }
+
+        return ResponseEntity.ok(request.alteracoes().stream()
+                .filter(alteracao -> alteracao != null && alteracao.id() != null)
+                .map(alteracao -> resultados.get(alteracao.id()))
+                .toList());
+    }
+
+    /**
+     * Reserva os pedidos mais antigos em um status para quem chamou, como uma fila de trabalho.
+     * <p>
+     * Os pedidos são escolhidos pelo índice (Status, Data_Pedido, Id) e travados com {@code FOR UPDATE SKIP LOCKED},
+     * então chamadas concorrentes nunca recebem o mesmo pedido. A reserva vale {@value MINUTOS_RESERVA_FILA} minutos
+     * e é desfeita assim que o status do pedido muda; se expirar, o pedido volta para a fila.
+     **/
+    public ResponseEntity<List<PedidoResumoResponse>> reservarFila(JwtAuthenticationToken token, String status, Integer limite) {
+        if (StringUtils.isBlank(status)) throw new PedidoNotValidException("Informe o status da fila");
+        Status fila = getStatus(status);
+        int tamanho = (limite == null || limite < 1) ? LIMITE_FILA_PADRAO : Math.min(limite, LIMITE_FILA_MAXIMO);
+
+        List<PedidoResumoResponse> pedidos = transactionTemplate.execute(transacao -> jdbcTemplate.query("""
+                UPDATE Pedido p SET Reservado_Por = :responsavel, Reservado_Ate = now() + make_interval(mins => :minutos)
+                FROM (
+                    SELECT Id FROM Pedido
+                    WHERE Status = :status AND (Reservado_Ate IS NULL OR Reservado_Ate < now())
+                    ORDER BY Data_Pedido, Id
+                    LIMIT :limite
+                    FOR UPDATE SKIP LOCKED
+                ) fila
+                WHERE p.Id = fila.Id
+                RETURNING p.Id, p.Valor_Pedido, p.Valor_Frete, p.Metodo_Pagamento, p.Data_Pedido, p.Quantidade_Produtos, p.Status
+                """, new MapSqlParameterSource()
+                .addValue("responsavel", token.getName())
+                .addValue("minutos", MINUTOS_RESERVA_FILA)
+                .addValue("status", fila.getCodigo())
+                .addValue("limite", tamanho), (rs, i) -> new PedidoResumoResponse(
+                rs.getInt("Id"),
+                rs.getDouble("Valor_Pedido"),
+                rs.getDouble("Valor_Frete"),
+                rs.getString("Metodo_Pagamento"),
+                rs.getDate("Data_Pedido"),
+                rs.getInt("Quantidade_Produtos"),
+                Status.fromCodigo(rs.getShort("Status")).getStatus(),
+                null,
+                null
+        )));
+
+        return ResponseEntity.ok(Objects.requireNonNull(pedidos).stream()
+                .sorted(Comparator.comparing(PedidoResumoResponse::dataPedido).thenComparing(PedidoResumoResponse::id))
+                .toList());
+    }
+
+    private ResponseEntity<PaginaResponse<PedidoResumoResponse>> getPagina(Cadastro cadastro, String cursor, Integer limite, String status, boolean detalhado) {
+        int tamanho = (limite == null || limite < 1) ? LIMITE_PADRAO : Math.min(limite, LIMITE_MAXIMO);
+
+        // A descrição é o campo mais largo da linha, então só é lida quando vai para a resposta
+        StringBuilder sql = new StringBuilder("SELECT p.Id, p.Valor_Pedido, p.Valor_Frete, p.Metodo_Pagamento, p.Data_Pedido, p.Quantidade_Produtos, p.Status")
+                .append(detalhado ? ", p.Descricao" : "")
+                .append(" FROM Pedido p WHERE p.Id_Cadastro = :idCadastro");
+        MapSqlParameterSource parametros = new MapSqlParameterSource()
+                .addValue("idCadastro", cadastro.getId())
+                .addValue("limite", tamanho + 1);
+        if (StringUtils.isNotBlank(status)) {
+            sql.append(" AND p.Status = :status");
+            parametros.addValue("status", getStatus(status).getCodigo());
+        }
+        if (StringUtils.isNotBlank(cursor)) {
+            CursorPedido posicao = lerCursor(cursor);
+            sql.append(" AND p.Data_Pedido <= :data AND (p.Data_Pedido, p.Id) < (:data, :id)");
+            parametros.addValue("data", posicao.data()).addValue("id", posicao.id());
         }
-        if (pedidoRequest.valorPagamento() < 0) {
+        sql.append(" ORDER BY p.Data_Pedido DESC, p.Id DESC LIMIT :limite");
+
+        List<PedidoResumoResponse> pedidos = jdbcTemplate.query(sql.toString(), parametros, (rs, i) -> new PedidoResumoResponse(
+                rs.getInt("Id"),
+                rs.getDouble("Valor_Pedido"),
+                rs.getDouble("Valor_Frete"),
+                rs.getString("Metodo_Pagamento"),
+                rs.getDate("Data_Pedido"),
+                rs.getInt("Quantidade_Produtos"),
+                Status.fromCodigo(rs.getShort("Status")).getStatus(),
+                detalhado ? rs.getString("Descricao") : null,
+                null
+        ));
+
+        String proximoCursor = null;
+        if (pedidos.size() > tamanho) {
+            pedidos = pedidos.subList(0, tamanho);
+            PedidoResumoResponse ultimo = pedidos.getLast();
+            LocalDate data = LocalDate.ofInstant(Instant.ofEpochMilli(ultimo.dataPedido().getTime()), ZoneId.systemDefault());
+            proximoCursor = escreverCursor(new CursorPedido(data, ultimo.id()));
+        }
+
+        return ResponseEntity.ok(new PaginaResponse<>(detalhado ? detalhar(pedidos) : pedidos, proximoCursor));
+    }
+
+    private void verficarPedido(PedidoRequest pedidoRequest) {
+        if (pedidoRequest.valorPagamento() == null || pedidoRequest.valorPagamento() < 0) {
             throw new PedidoNotValidException("O valor do pagamento não pode ser negativo");
         }
         if (StringUtils.isBlank(pedidoRequest.metodoPagamento())) {
@@ -85,29 +311,165 @@ public class PedidoService {
         }
     }
 
-    private Status proximoStatus(String status) {
-        return switch (status) {
-            case "Em processamento" -> Status.ENVIADO_TRANSPORTADORA;
-            case "Enviado para a transportadora" -> Status.RECEBIDO_TRANSPORTADORA;
-            case "Recebido pela transportadora" -> Status.MERCADORIA_EM_TRANSITO;
-            case "Mercadoria em trânsito" -> Status.ROTA_DE_ENTREGA;
-            case "Mercadoria em rota de entrega", "Pedido entregue" -> Status.ENTREGUE;
-            default -> Status.EM_PROCESSAMENTO;
-        };
+    /**
+     * O valor do pedido vem do carrinho e o do frete da cotação, então o pagamento só precisa cobrir a soma dos dois.
+     **/
+    private void verificarPagamento(PedidoRequest pedidoRequest, double valorPedido, double valorFrete) {
+        long total = Math.round((valorPedido + valorFrete) * 100);
+        if (Math.round(pedidoRequest.valorPagamento() * 100) < total) {
+            throw new PedidoNotValidException(String.format("O valor do pagamento não cobre o pedido e o frete (R$ %.2f)", total / 100.0));
+        }
+    }
+
+    private void salvarItens(Pedido pedido, CarrinhoPrecificado carrinho) {
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO Itens_Pedido (Id_Pedido, Id_Produto, Quantidade, Valor_Unitario, Valor_Efetivo)
+                VALUES (:idPedido, :idProduto, :quantidade, :valorUnitario, :valorEfetivo)
+                """,
+                carrinho.itens().stream()
+                        .map(item -> new MapSqlParameterSource()
+                                .addValue("idPedido", pedido.getId())
+                                .addValue("idProduto", item.idProduto())
+                                .addValue("quantidade", item.quantidade())
+                                .addValue("valorUnitario", item.valorTabela())
+                                .addValue("valorEfetivo", item.valorUnitario()))
+                        .toArray(SqlParameterSource[]::new)
+        );
+    }
+
+    private Map<Integer, ResultadoStatusResponse> alterarBlocoStatus(Map<Integer, Status> destinos) {
+        Map<Integer, ResultadoStatusResponse> resultados = new HashMap<>();
+        Map<Integer, StatusPedidoEvento> eventos = new LinkedHashMap<>();
+        Map<Status, List<Integer>> porDestino = new EnumMap<>(Status.class);
+        Instant agora = Instant.now();
+
+        jdbcTemplate.query(
+                "SELECT Id, Status, Id_Cadastro FROM Pedido WHERE Id IN (:ids) ORDER BY Id FOR UPDATE",
+                Map.of("ids", destinos.keySet()),
+                rs -> {
+                    int id = rs.getInt("Id");
+                    Status atual = Status.fromCodigo(rs.getShort("Status"));
+                    Status destino = destinos.get(id);
+                    if (!atual.podeMudarPara(destino)) {
+                        resultados.put(id, ResultadoStatusResponse.erro(id, String.format("Não é possível mudar de '%s' para '%s'", atual.getStatus(), destino.getStatus())));
+                        return;
+                    }
+                    porDestino.computeIfAbsent(destino, status -> new ArrayList<>()).add(id);
+                    eventos.put(id, new StatusPedidoEvento(id, rs.getInt("Id_Cadastro"), atual.getStatus(), destino.getStatus(), agora));
+                    resultados.put(id, ResultadoStatusResponse.sucesso(id, destino.getStatus()));
+                }
+        );
+        destinos.keySet().forEach(id -> resultados.putIfAbsent(id, ResultadoStatusResponse.erro(id, "Pedido não encontrado")));
+
+        porDestino.forEach((destino, ids) -> jdbcTemplate.update(
+                "UPDATE Pedido SET Status = :status, Reservado_Por = NULL, Reservado_Ate = NULL WHERE Id IN (:ids)",
+                new MapSqlParameterSource().addValue("status", destino.getCodigo()).addValue("ids", ids)
+        ));
+        List<Integer> entregues = porDestino.getOrDefault(Status.ENTREGUE, List.of());
+        if (!entregues.isEmpty()) {
+            jdbcTemplate.update("""
+                    INSERT INTO Entrega (Data_Entrega, Status_Entrega, Id_Pedido)
+                    SELECT current_date, 'Entregue', p.Id FROM Pedido p
+                    WHERE p.Id IN (:ids)
+                    AND NOT EXISTS (SELECT 1 FROM Entrega e WHERE e.Id_Pedido = p.Id AND e.Data_Entrega >= p.Data_Pedido)
+                    """, Map.of("ids", entregues));
+        }
+        outboxService.publicarEmLote(TipoEvento.PEDIDO_STATUS_ALTERADO, eventos);
+
+        return resultados;
     }
 
-    private String getDescricao(Carrinho carrinho) {
-        return carrinho.getItens()
+    private List<PedidoResumoResponse> detalhar(List<PedidoResumoResponse> pedidos) {
+        if (pedidos.isEmpty()) return pedidos;
+
+        Map<Integer, List<ItemPedido>> itens = itemPedidoRepository.findByIdPedidoIn(pedidos.stream().map(PedidoResumoResponse::id).toList())
                 .stream()
-                .map(item -> String.format("%s, %d%n", item.getProduto().getId().toString(), item.getQuantidade()))
+                .collect(Collectors.groupingBy(ItemPedido::getIdPedido));
+
+        return pedidos.stream()
+                .map(pedido -> {
+                    List<ItemPedido> itensPedido = itens.getOrDefault(pedido.id(), List.of());
+                    return new PedidoResumoResponse(
+                            pedido.id(), pedido.valorPedido(), pedido.valorFrete(), pedido.metodoPagamento(), pedido.dataPedido(), pedido.qtdProdutos(), pedido.status(),
+                            itensPedido.isEmpty() ? pedido.descricao() : getDescricao(itensPedido),
+                            getItemPedidoResponses(itensPedido)
+                    );
+                })
+                .toList();
+    }
+
+    private Status getStatus(String status) {
+        try {
+            return Status.valueOf(status.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new PedidoNotValidException("Status inválido, use um de: " + Arrays.toString(Status.values()));
+        }
+    }
+
+    private String escreverCursor(CursorPedido cursor) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString((cursor.data() + "_" + cursor.id()).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private CursorPedido lerCursor(String cursor) {
+        try {
+            String[] partes = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("_");
+            return new CursorPedido(LocalDate.parse(partes[0]), Integer.parseInt(partes[1]));
+        } catch (IllegalArgumentException | DateTimeParseException | ArrayIndexOutOfBoundsException e) {
+            throw new PedidoNotValidException("Cursor inválido");
+        }
+    }
+
+    private PedidoCriadoEvento getPedidoCriadoEvento(Pedido pedido, CarrinhoPrecificado carrinho) {
+        return new PedidoCriadoEvento(
+                pedido.getId(),
+                carrinho.idCadastro(),
+                pedido.getMetodoPagamento(),
+                pedido.getValorPedido(),
+                pedido.getValorFrete(),
+                Instant.now(),
+                carrinho.itens().stream()
+                        .map(item -> new PedidoCriadoEvento.ItemVendido(item.idProduto(), item.quantidade(), item.valorUnitario()))
+                        .toList()
+        );
+    }
+
+    private String getDescricao(List<ItemPedido> itens) {
+        return itens.stream()
+                .map(item -> String.format("%s, %d%n", item.getIdProduto().toString(), item.getQuantidade()))
                 .collect(Collectors.joining());
     }
 
+    private List<ItemPedidoResponse> getItemPedidoResponses(List<ItemPedido> itens) {
+        return itens.stream()
+                .map(item -> new ItemPedidoResponse(item.getIdProduto().toString(), item.getQuantidade(), item.getValorUnitario(), item.getValorEfetivo()))
+                .toList();
+    }
+
+    private UUID getIdProduto(String id) {
+        try {
+            return UUID.fromString(id);
+        } catch (IllegalArgumentException e) {
+            throw new ProdutoNotFoundException();
+        }
+    }
+
     private Cadastro getCadastroByEmail(String email) {
         return cadastroRepository.findByEmail(email.replace("%40", "@")).orElseThrow(ClienteNotFoundException::new);
     }
 
-    private PedidoResponse getPedidoResponse(Pedido pedido) {
+    private List<PedidoResponse> getPedidoResponses(List<Pedido> pedidos) {
+        if (pedidos.isEmpty()) return List.of();
+
+        Map<Integer, List<ItemPedido>> itens = itemPedidoRepository.findByIdPedidoIn(pedidos.stream().map(Pedido::getId).toList())
+                .stream()
+                .collect(Collectors.groupingBy(ItemPedido::getIdPedido));
+
+        return pedidos.stream()
+                .map(pedido -> getPedidoResponse(pedido, itens.getOrDefault(pedido.getId(), List.of())))
+                .collect(Collectors.toList());
+    }
+
+    private PedidoResponse getPedidoResponse(Pedido pedido, List<ItemPedido> itens) {
         return new PedidoResponse(
                 pedido.getId(),
                 pedido.getValorPedido(),
@@ -116,9 +478,12 @@ public class PedidoService {
                 pedido.getValorPagamento(),
                 pedido.getQntdProdutos(),
                 pedido.getDataPagamento(),
-                pedido.getDescricao(),
+                itens.isEmpty() ? pedido.getDescricao() : getDescricao(itens),
+                getItemPedidoResponses(itens),
                 pedido.getValorFrete(),
-                pedido.getStatus()
+                pedido.getStatus().getStatus()
         );
     }
+
+    private record CursorPedido(LocalDate data, Integer id) { }
 }
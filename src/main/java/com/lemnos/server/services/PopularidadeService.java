@@ -0,0 +1,150 @@
+package com.lemnos.server.services;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Contadores de popularidade dos produtos: visualizações, favoritos e adições ao carrinho.
+ * <p>
+ * Os eventos só incrementam {@link LongAdder}s em memória, sem nenhuma escrita no banco. A cada {@value TRINTA_SEGUNDOS} ms
+ * os contadores são zerados e gravados em Popularidade_Produto em um único lote de upserts.
+ * <p>
+ * A pontuação decai pela metade a cada {@code popularidade.meia-vida-horas}. Em vez de reescrever todas as linhas
+ * periodicamente, cada evento entra com peso {@code exp(lambda * horas desde 2024-01-01)} e a coluna guarda o logaritmo
+ * da soma: ordenar por ela dá a mesma ordem que a pontuação com decaimento, em qualquer momento.
+ **/
+@Service
+public class PopularidadeService {
+    private static final Logger log = LoggerFactory.getLogger(PopularidadeService.class);
+    private static final int TRINTA_SEGUNDOS = 30 * 1000;
+    private static final Instant EPOCA = Instant.parse("2024-01-01T00:00:00Z");
+    private static final double PESO_VISUALIZACAO = 1;
+    private static final double PESO_FAVORITO = 5;
+    private static final double PESO_CARRINHO = 3;
+
+    /*
+     * log(exp(a) + exp(b)) sem estourar: o maior termo mais log(1 + exp(-diferença)).
+     * A diferença é limitada para exp não sofrer underflow.
+     */
+    private static final String UPSERT = """
+            INSERT INTO Popularidade_Produto (Id_Produto, Visualizacoes, Favoritos, Adicoes_Carrinho, Pontuacao, Atualizado_Em)
+            SELECT p.Id, :visualizacoes, :favoritos, :carrinho, :pontuacao, now() FROM Produto p WHERE p.Id = :idProduto
+            ON CONFLICT (Id_Produto) DO UPDATE SET
+                Visualizacoes = Popularidade_Produto.Visualizacoes + EXCLUDED.Visualizacoes,
+                Favoritos = Popularidade_Produto.Favoritos + EXCLUDED.Favoritos,
+                Adicoes_Carrinho = Popularidade_Produto.Adicoes_Carrinho + EXCLUDED.Adicoes_Carrinho,
+                Pontuacao = GREATEST(Popularidade_Produto.Pontuacao, EXCLUDED.Pontuacao)
+                    + ln(1 + exp(-LEAST(abs(Popularidade_Produto.Pontuacao - EXCLUDED.Pontuacao), 700))),
+                Atualizado_Em = EXCLUDED.Atualizado_Em
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    // Uma entrada por produto que já recebeu eventos; as de produtos apagados são ignoradas pelo upsert
+    private final Map<UUID, Contadores> contadores = new ConcurrentHashMap<>();
+    private final ReentrantLock gravacaoLock = new ReentrantLock();
+
+    @Value("${popularidade.meia-vida-horas:72}")
+    private double meiaVidaHoras;
+
+    public PopularidadeService(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void registrarVisualizacao(UUID idProduto) {
+        getContadores(idProduto).visualizacoes.increment();
+    }
+
+    public void registrarFavorito(UUID idProduto) {
+        getContadores(idProduto).favoritos.increment();
+    }
+
+    public void registrarCarrinho(UUID idProduto) {
+        getContadores(idProduto).carrinho.increment();
+    }
+
+    /**
+     * Zera os contadores e grava o que foi acumulado. Se a gravação falhar, os valores voltam para os contadores
+     * e entram na próxima tentativa.
+     **/
+    @Scheduled(fixedDelay = TRINTA_SEGUNDOS, initialDelay = TRINTA_SEGUNDOS)
+    public void gravar() {
+        if (!gravacaoLock.tryLock()) return;
+        try {
+            List<Parcela> parcelas = new ArrayList<>();
+            contadores.forEach((idProduto, contador) -> {
+                Parcela parcela = new Parcela(idProduto, contador.visualizacoes.sumThenReset(), contador.favoritos.sumThenReset(), contador.carrinho.sumThenReset());
+                if (parcela.getPeso() > 0) parcelas.add(parcela);
+            });
+            if (parcelas.isEmpty()) return;
+
+            double base = getLambda() * Duration.between(EPOCA, Instant.now()).toMillis() / 3_600_000.0;
+            SqlParameterSource[] lote = parcelas.stream()
+                    .map(parcela -> new MapSqlParameterSource()
+                            .addValue("idProduto", parcela.idProduto())
+                            .addValue("visualizacoes", parcela.visualizacoes())
+                            .addValue("favoritos", parcela.favoritos())
+                            .addValue("carrinho", parcela.carrinho())
+                            .addValue("pontuacao", base + Math.log(parcela.getPeso())))
+                    .toArray(SqlParameterSource[]::new);
+            try {
+                jdbcTemplate.batchUpdate(UPSERT, lote);
+            }
+            catch (RuntimeException e) {
+                log.error("Falha ao gravar a popularidade de {} produtos, os contadores serão gravados na próxima vez", parcelas.size(), e);
+                parcelas.forEach(this::devolver);
+            }
+        }
+        finally {
+            gravacaoLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void gravarAoDesligar() {
+        gravar();
+    }
+
+    private Contadores getContadores(UUID idProduto) {
+        return contadores.computeIfAbsent(idProduto, id -> new Contadores());
+    }
+
+    private void devolver(Parcela parcela) {
+        Contadores contador = getContadores(parcela.idProduto());
+        contador.visualizacoes.add(parcela.visualizacoes());
+        contador.favoritos.add(parcela.favoritos());
+        contador.carrinho.add(parcela.carrinho());
+    }
+
+    private double getLambda() {
+        return Math.log(2) / meiaVidaHoras;
+    }
+
+    private static class Contadores {
+        private final LongAdder visualizacoes = new LongAdder();
+        private final LongAdder favoritos = new LongAdder();
+        private final LongAdder carrinho = new LongAdder();
+    }
+
+    private record Parcela(UUID idProduto, long visualizacoes, long favoritos, long carrinho) {
+        private double getPeso() {
+            return visualizacoes * PESO_VISUALIZACAO + favoritos * PESO_FAVORITO + carrinho * PESO_CARRINHO;
+        }
+    }
+}
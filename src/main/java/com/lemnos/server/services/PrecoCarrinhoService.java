@@ -0,0 +1,95 @@
+package com.lemnos.server.services;
+
+import com.lemnos.server.exceptions.carrinho.CarrinhoNotValidException;
+import com.lemnos.server.models.carrinho.CarrinhoPrecificado;
+import com.lemnos.server.models.carrinho.ItemCarrinhoPrecificado;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Precifica os carrinhos em memória com os valores atuais de Produto, em uma consulta por carrinho.
+ * <p>
+ * O {@link CarrinhoStore} só guarda produto e quantidade, então o total mostrado ao cliente e o valor cobrado no checkout
+ * sempre refletem o desconto atual do produto, inclusive os de campanhas e promoções.
+ **/
+@Service
+@RequiredArgsConstructor
+public class PrecoCarrinhoService {
+    private static final String CONSULTA = """
+            SELECT p.Id, p.Valor, p.Peso, p.Altura, p.Largura, p.Comprimento, d.Valor_Porcentagem AS Desconto
+            FROM Produto p
+            LEFT JOIN Desconto d ON d.Id = p.Id_Desconto
+            WHERE p.Id IN (:ids)
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final CarrinhoStore carrinhoStore;
+
+    /**
+     * Copia as quantidades do carrinho do cliente segurando o lock dele e precifica depois de soltá-lo.
+     *
+     * @param email O email do cliente, vindo do token
+     **/
+    public CarrinhoPrecificado precificar(String email) {
+        Quantidades carrinho = carrinhoStore.ler(email, memoria -> new Quantidades(memoria.getIdCadastro(), memoria.getQuantidades()));
+        return precificar(carrinho.idCadastro(), carrinho.quantidades());
+    }
+
+    /**
+     * Para leituras: os produtos que não existem mais ficam fora do carrinho precificado.
+     *
+     * @param quantidades As quantidades por produto, lidas do carrinho com {@code getQuantidades}
+     **/
+    public CarrinhoPrecificado precificar(Integer idCadastro, Map<UUID, Integer> quantidades) {
+        return new CarrinhoPrecificado(idCadastro, getItens(quantidades, CONSULTA));
+    }
+
+    /**
+     * Para o checkout: deve ser chamado dentro da transação que grava o pedido. Os produtos ficam travados com
+     * {@code FOR SHARE} até o fim dela, então o valor cobrado é o que está valendo quando o pedido é confirmado.
+     *
+     * @throws CarrinhoNotValidException Se algum produto do carrinho não existir mais
+     **/
+    public CarrinhoPrecificado precificarNoCheckout(Integer idCadastro, Map<UUID, Integer> quantidades) {
+        List<ItemCarrinhoPrecificado> itens = getItens(quantidades, CONSULTA + " FOR SHARE OF p");
+        if (itens.size() != quantidades.size())
+            throw new CarrinhoNotValidException("Um produto do carrinho não está mais disponível, remova-o para finalizar o pedido");
+        return new CarrinhoPrecificado(idCadastro, itens);
+    }
+
+    private List<ItemCarrinhoPrecificado> getItens(Map<UUID, Integer> quantidades, String consulta) {
+        if (quantidades.isEmpty()) return List.of();
+
+        Map<UUID, ItemCarrinhoPrecificado> itens = new HashMap<>();
+        jdbcTemplate.query(consulta, Map.of("ids", quantidades.keySet()), rs -> {
+            UUID idProduto = rs.getObject("Id", UUID.class);
+            double valor = rs.getDouble("Valor");
+            itens.put(idProduto, new ItemCarrinhoPrecificado(
+                    idProduto,
+                    quantidades.get(idProduto),
+                    valor,
+                    getValorTabela(valor, rs.getString("Desconto")),
+                    rs.getDouble("Peso"),
+                    rs.getDouble("Altura") * rs.getDouble("Largura") * rs.getDouble("Comprimento")
+            ));
+        });
+
+        // Mantém a ordem do carrinho
+        return quantidades.keySet().stream()
+                .map(itens::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    private static Double getValorTabela(double valor, String desconto) {
+        if (desconto == null || desconto.equals("0")) return valor;
+
+        double porcentagem = Double.parseDouble(desconto);
+        return Math.round(valor * 100 / (100 - porcentagem) * 100) / 100.0;
+    }
+
+    private record Quantidades(Integer idCadastro, Map<UUID, Integer> quantidades) { }
+}
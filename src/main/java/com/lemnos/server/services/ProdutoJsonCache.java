@@ -0,0 +1,174 @@
+package com.lemnos.server.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lemnos.server.models.dtos.responses.ProdutoResponse;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cache do JSON dos produtos já serializado.
+ * <p>
+ * Cada produto é serializado uma vez e guardado como {@code byte[]}. As listas ({@code /produto/desconto} e as buscas de
+ * {@code /produto/find}) guardam os Ids do resultado e o JSON montado concatenando os fragmentos, sem passar pelo Jackson,
+ * além de uma cópia em gzip criada no primeiro pedido que aceita gzip.
+ * <p>
+ * Uma escrita em um produto apaga o fragmento dele e todas as listas. Cargas que começaram antes de uma escrita não são
+ * guardadas, então o cache nunca fica com o estado anterior a ela. Como as escritas de outras instâncias não chegam aqui,
+ * fragmentos valem por {@value VALIDADE_FRAGMENTO} ms e listas por {@value VALIDADE_LISTA} ms.
+ **/
+@Component
+public class ProdutoJsonCache {
+    private static final long VALIDADE_FRAGMENTO = 5 * 60 * 1000;
+    private static final long VALIDADE_LISTA = 30 * 1000;
+    private static final int UM_MINUTO = 60 * 1000;
+    private static final int MAXIMO_LISTAS = 1_000;
+
+    private final ObjectMapper objectMapper;
+    private final Map<UUID, Fragmento> fragmentos = new ConcurrentHashMap<>();
+    private final Map<Object, Lista> listas = new ConcurrentHashMap<>();
+    private final AtomicLong geracao = new AtomicLong();
+
+    public ProdutoJsonCache(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * @param chave Identifica a lista, por exemplo o filtro da busca
+     * @param ids Busca os Ids da lista, em ordem, quando ela não está no cache
+     * @param carregar Monta as respostas dos produtos que não estão no cache
+     **/
+    public Lista getLista(Object chave, Supplier<List<UUID>> ids, Function<Collection<UUID>, List<ProdutoResponse>> carregar) {
+        Lista lista = listas.get(chave);
+        if (lista != null && !lista.isExpirada()) return lista;
+
+        long inicio = geracao.get();
+        lista = new Lista(montar(ids.get(), carregar, inicio));
+        if (geracao.get() == inicio) {
+            if (listas.size() >= MAXIMO_LISTAS) listas.clear();
+            listas.put(chave, lista);
+        }
+        return lista;
+    }
+
+    /**
+     * Serializa uma lista que não vai para o cache, como as com campos escolhidos.
+     **/
+    public byte[] serializar(List<ProdutoResponse> produtoResponses) {
+        return toJson(produtoResponses);
+    }
+
+    public void invalidar(UUID idProduto) {
+        geracao.incrementAndGet();
+        fragmentos.remove(idProduto);
+        listas.clear();
+    }
+
+    /**
+     * Descarta tudo, para escritas que mudam o JSON de muitos produtos, como o nome de um fornecedor.
+     **/
+    public void invalidarTudo() {
+        geracao.incrementAndGet();
+        fragmentos.clear();
+        listas.clear();
+    }
+
+    @Scheduled(fixedDelay = UM_MINUTO, initialDelay = UM_MINUTO)
+    public void apagarExpirados() {
+        fragmentos.values().removeIf(Fragmento::isExpirado);
+        listas.values().removeIf(Lista::isExpirada);
+    }
+
+    private byte[] montar(List<UUID> ids, Function<Collection<UUID>, List<ProdutoResponse>> carregar, long inicio) {
+        Map<UUID, byte[]> jsons = new HashMap<>();
+        List<UUID> faltando = new ArrayList<>();
+        for (UUID id : ids) {
+            Fragmento fragmento = fragmentos.get(id);
+            if (fragmento != null && !fragmento.isExpirado()) jsons.put(id, fragmento.json());
+            else faltando.add(id);
+        }
+        if (!faltando.isEmpty()) {
+            for (ProdutoResponse produtoResponse : carregar.apply(faltando)) {
+                UUID id = UUID.fromString(produtoResponse.id());
+                byte[] json = toJson(produtoResponse);
+                jsons.put(id, json);
+                if (geracao.get() == inicio) fragmentos.put(id, new Fragmento(json, System.currentTimeMillis()));
+            }
+        }
+
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        saida.write('[');
+        boolean primeiro = true;
+        for (UUID id : ids) {
+            byte[] json = jsons.get(id);
+            if (json == null) continue;
+            if (!primeiro) saida.write(',');
+            saida.writeBytes(json);
+            primeiro = false;
+        }
+        saida.write(']');
+        return saida.toByteArray();
+    }
+
+    private byte[] toJson(Object valor) {
+        try {
+            return objectMapper.writeValueAsBytes(valor);
+        }
+        catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record Fragmento(byte[] json, long criadoEm) {
+        private boolean isExpirado() {
+            return System.currentTimeMillis() - criadoEm > VALIDADE_FRAGMENTO;
+        }
+    }
+
+    /**
+     * Uma lista pronta para ser escrita na resposta. Os arrays não devem ser alterados.
+     **/
+    public static class Lista {
+        private final byte[] json;
+        private final long criadaEm = System.currentTimeMillis();
+        private volatile byte[] gzip;
+
+        private Lista(byte[] json) {
+            this.json = json;
+        }
+
+        public byte[] getJson() {
+            return json;
+        }
+
+        public byte[] getGzip() {
+            byte[] comprimido = gzip;
+            if (comprimido == null) {
+                ByteArrayOutputStream saida = new ByteArrayOutputStream(json.length / 4 + 64);
+                try (GZIPOutputStream gzipSaida = new GZIPOutputStream(saida)) {
+                    gzipSaida.write(json);
+                }
+                catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                comprimido = saida.toByteArray();
+                gzip = comprimido;
+            }
+            return comprimido;
+        }
+
+        private boolean isExpirada() {
+            return System.currentTimeMillis() - criadaEm > VALIDADE_LISTA;
+        }
+    }
+}
@@ -10,7 +10,11 @@ import com.lemnos.server.models.entidades.Fornecedor;
 import com.lemnos.server.models.produto.*;
 import com.lemnos.server.models.dtos.requests.ProdutoRequest;
 import com.lemnos.server.models.dtos.responses.ProdutoResponse;
+import com.lemnos.server.models.enums.CampoProduto;
 import com.lemnos.server.models.enums.Codigo;
+import com.lemnos.server.models.enums.TipoAlteracao;
+import com.lemnos.server.models.enums.TipoRanking;
+import com.lemnos.server.models.enums.TipoVersao;
 import com.lemnos.server.models.produto.categoria.SubCategoria;
 import com.lemnos.server.models.produto.imagens.Imagem;
 import com.lemnos.server.models.produto.imagens.ImagemPrincipal;
@@ -23,15 +27,24 @@ import com.lemnos.server.repositories.entidades.FabricanteRepository;
 import com.lemnos.server.repositories.produto.SubCategoriaRepository;
 import com.lemnos.server.repositories.produto.imagens.ImagemPrincipalRepository;
 import com.lemnos.server.repositories.produto.imagens.ImagemRepository;
+import com.lemnos.server.services.DescontoProdutoService.ProdutoAlterado;
 import io.micrometer.common.util.StringUtils;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.*;
 import lombok.RequiredArgsConstructor;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
@@ -42,6 +55,10 @@ import java.util.stream.Collectors;
 @Service
 @RequiredArgsConstructor
 public class ProdutoService {
+    private static final int MAXIMO_RANKING = 50;
+    private static final int MAXIMO_LOTE = 200;
+    private static final String CHAVE_DESCONTO = "desconto";
+
     private final ProdutoRepository produtoRepository;
     private final AvaliacaoRepository avaliacaoRepository;
     private final FabricanteRepository fabricanteRepository;
@@ -51,21 +68,88 @@ public class ProdutoService {
     private final ImagemPrincipalRepository imagemPrincipalRepository;
     private final ImagemRepository imagemRepository;
     private final DescontoRepository descontoRepository;
+    private final PopularidadeService popularidadeService;
+    private final RankingService rankingService;
+    private final EntityManager entityManager;
+    private final ProdutoJsonCache produtoJsonCache;
+    private final VersaoService versaoService;
+    private final AlteracaoProdutoService alteracaoProdutoService;
+    private final PromocaoService promocaoService;
+    private final DescontoProdutoService descontoProdutoService;
+    private final TransactionTemplate transactionTemplate;
 
-    @Cacheable("productsDiscount")
-    public ResponseEntity<List<ProdutoResponse>> getAllWithDiscount() {
-        List<ProdutoResponse> produtoResponse = produtoRepository.findByDescontoValorDescontoNot("0")
-                .stream()
-                .map(this::getProdutoResponse)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(produtoResponse);
+    public ResponseEntity<byte[]> getAllWithDiscount(String acceptEncoding, String ifNoneMatch) {
+        return versaoService.responder(TipoVersao.CATALOGO, null, ifNoneMatch, () -> {
+            ProdutoJsonCache.Lista lista = produtoJsonCache.getLista(CHAVE_DESCONTO, produtoRepository::findIdsComDesconto, this::getProdutoResponses);
+            return getResposta(lista, acceptEncoding);
+        });
+    }
+
+    public ResponseEntity<ProdutoResponse> getOneById(String id, String fields, String view, String ifNoneMatch) {
+        UUID idProduto = UUID.fromString(id);
+        ResponseEntity<ProdutoResponse> resposta = versaoService.responder(TipoVersao.PRODUTO, idProduto, ifNoneMatch, () -> {
+            Set<CampoProduto> campos = getCampos(fields, view);
+            if (campos == null) return ResponseEntity.ok(getProdutoResponse(getProdutoById(id)));
+
+            List<ProdutoResponse> produtoResponses = getProdutoResponses(campos, List.of(idProduto));
+            if (produtoResponses.isEmpty()) throw new ProdutoNotFoundException();
+            return ResponseEntity.ok(produtoResponses.getFirst());
+        });
+        popularidadeService.registrarVisualizacao(idProduto);
+        return resposta;
     }
 
-    public ResponseEntity<ProdutoResponse> getOneById(String id) {
-        return ResponseEntity.ok(getProdutoResponse(getProdutoById(id)));
+    /**
+     * Os primeiros produtos de um ranking, lidos do {@link RankingService} sem ordenar a tabela Produto.
+     *
+     * @param categoria O nome da categoria, ou vazio para o ranking geral
+     **/
+    public ResponseEntity<List<ProdutoResponse>> getRanking(String tipo, String categoria, Integer quantidade, String fields, String view, String ifNoneMatch) {
+        TipoRanking tipoRanking;
+        try {
+            tipoRanking = TipoRanking.valueOf(tipo.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ProdutoNotValidException(Codigo.GLOBAL, "Ranking inválido, use um de: " + Arrays.toString(TipoRanking.values()));
+        }
+        int limite = (quantidade == null) ? 10 : quantidade;
+        if (limite < 1 || limite > MAXIMO_RANKING)
+            throw new ProdutoNotValidException(Codigo.GLOBAL, "A quantidade deve ser entre 1 e " + MAXIMO_RANKING + "!");
+
+        Set<CampoProduto> campos = getCampos(fields, view);
+        return versaoService.responder(TipoVersao.RANKING, null, ifNoneMatch, () -> {
+            List<UUID> ids = rankingService.getPrimeiros(tipoRanking, categoria, limite);
+            return ResponseEntity.ok((campos == null) ? getProdutoResponses(ids) : getProdutoResponses(campos, ids));
+        });
     }
 
-    public ResponseEntity<List<ProdutoResponse>> getBy(ProdutoFiltroRequest filtro) {
+    /**
+     * Busca vários produtos de uma vez, para as telas que só têm os Ids (carrinho, favoritos, pedidos).
+     * Ids desconhecidos ou inválidos são ignorados e o resultado segue a ordem pedida.
+     *
+     * @param ifNoneMatch O ETag de uma resposta anterior, ou nulo nas buscas por POST
+     **/
+    public ResponseEntity<List<ProdutoResponse>> getLote(List<String> ids, String fields, String view, String ifNoneMatch) {
+        if (ids == null || ids.isEmpty()) return ResponseEntity.ok(List.of());
+        if (ids.size() > MAXIMO_LOTE)
+            throw new ProdutoNotValidException(Codigo.GLOBAL, "É possível buscar no máximo " + MAXIMO_LOTE + " produtos de uma vez!");
+
+        Set<UUID> idsProdutos = new LinkedHashSet<>();
+        for (String id : ids) {
+            if (StringUtils.isBlank(id)) continue;
+            try {
+                idsProdutos.add(UUID.fromString(id.trim()));
+            } catch (IllegalArgumentException ignored) { }
+        }
+        Set<CampoProduto> campos = getCampos(fields, view);
+        return versaoService.responder(TipoVersao.CATALOGO, null, ifNoneMatch,
+                () -> ResponseEntity.ok((campos == null) ? getProdutoResponses(idsProdutos) : getProdutoResponses(campos, idsProdutos)));
+    }
+
+    /**
+     * Sem {@code fields} e {@code view}, a página é montada pelo {@link ProdutoJsonCache} com o JSON já serializado dos produtos,
+     * e a consulta só busca os Ids. Com eles, a resposta depende dos campos e não passa pelo cache.
+     **/
+    public ResponseEntity<byte[]> getBy(ProdutoFiltroRequest filtro, String fields, String view, String acceptEncoding) {
         Specification<Produto> specification = new SpecificationBuilder<Produto>()
                 .addIf(StringUtils::isNotBlank, filtro.nome(), ProdutoSpecifications::hasNomeOrDescricao)
                 .addIf(StringUtils::isNotBlank, filtro.categoria(), ProdutoSpecifications::hasCategoria)
@@ -82,31 +166,45 @@ public class ProdutoService {
 
         int page = (filtro.page() != null && filtro.page() > 0) ? filtro.page() : 0;
         int size = (filtro.size() != null && filtro.size() > 0) ? filtro.size() : 10;
-        Pageable pageable = PageRequest.of(page, size);
+        Pageable pageable = PageRequest.of(page, size, getOrdenacao(filtro.ordenacao()));
 
-        List<ProdutoResponse> produtoResponses = produtoRepository.findAll(specification, pageable)
-                .stream()
-                .map(this::getProdutoResponse)
-                .collect(Collectors.toList());
+        Set<CampoProduto> campos = getCampos(fields, view);
+        if (campos != null) {
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(produtoJsonCache.serializar(getProdutoResponses(campos, specification, pageable)));
+        }
 
-        return ResponseEntity.ok(produtoResponses);
+        ProdutoJsonCache.Lista lista = produtoJsonCache.getLista(
+                filtro,
+                () -> getProdutoResponses(EnumSet.of(CampoProduto.ID), specification, pageable).stream()
+                        .map(produtoResponse -> UUID.fromString(produtoResponse.id()))
+                        .toList(),
+                this::getProdutoResponses
+        );
+        return getResposta(lista, acceptEncoding);
     }
 
     public ResponseEntity<Void> register(ProdutoRequest produtoRequest) {
         verifyRequestToRegister(produtoRequest);
 
         Desconto desconto = getDesconto(produtoRequest.desconto());
-        Produto produto = produtoRepository.save(new Produto(
-                produtoRequest,
-                getValorComDesconto(produtoRequest.valor(), desconto),
-                getFabricante(produtoRequest.fabricante()),
-                getSubCategoria(produtoRequest.subCategoria()),
-                getImagemPrincipal(produtoRequest),
-                desconto
-        ));
-
         Fornecedor fornecedor = fornecedorRepository.findByNome(produtoRequest.fornecedor()).orElseThrow(FornecedorNotFoundException::new);
-        dataForneceRepository.save(new DataFornece(fornecedor, produto));
+        Produto produto = Objects.requireNonNull(transactionTemplate.execute(transacao -> {
+            Produto novo = produtoRepository.save(new Produto(
+                    produtoRequest,
+                    getValorComDesconto(produtoRequest.valor(), desconto),
+                    getFabricante(produtoRequest.fabricante()),
+                    getSubCategoria(produtoRequest.subCategoria()),
+                    getImagemPrincipal(produtoRequest),
+                    desconto
+            ));
+            dataForneceRepository.save(new DataFornece(fornecedor, novo));
+            alteracaoProdutoService.registrar(novo.getId(), TipoAlteracao.UPSERT);
+            return novo;
+        }));
+        rankingService.atualizar(produto);
+        publicarAlteracao(produto.getId());
 
         return ResponseEntity.status(HttpStatus.CREATED).build();
     }
@@ -124,14 +222,29 @@ public class ProdutoService {
         produto.setAll(produtoRequest, valorTotal, fabricante, subCategoria, imagemPrincipal, desconto);
         verifyRequestToUpdate(produto);
 
-        produtoRepository.save(produto);
+        // Em promoção, o desconto informado é o que volta quando ela terminar, então é gravado junto com o produto
+        List<ProdutoAlterado> emPromocao = transactionTemplate.execute(transacao -> {
+            produtoRepository.saveAndFlush(produto);
+            alteracaoProdutoService.registrar(produto.getId(), TipoAlteracao.UPSERT);
+            if (StringUtils.isBlank(produtoRequest.desconto())) return List.<ProdutoAlterado>of();
+            return promocaoService.alterarDescontoBase(produto.getId(), desconto.getValorDesconto());
+        });
+        rankingService.atualizar(produto);
+        publicarAlteracao(produto.getId());
+        descontoProdutoService.publicar(Objects.requireNonNull(emPromocao));
 
         return ResponseEntity.ok().build();
     }
 
     public ResponseEntity<Void> delete(String id) {
-        dataForneceRepository.delete(dataForneceRepository.findByProduto(getProdutoById(id)).orElseThrow(FornecedorNotFoundException::new));
-        produtoRepository.delete(getProdutoById(id));
+        Produto produto = getProdutoById(id);
+        transactionTemplate.executeWithoutResult(transacao -> {
+            dataForneceRepository.delete(dataForneceRepository.findByProduto(produto).orElseThrow(FornecedorNotFoundException::new));
+            produtoRepository.delete(produto);
+            alteracaoProdutoService.registrar(produto.getId(), TipoAlteracao.DELETE);
+        });
+        rankingService.remover(produto.getId());
+        publicarAlteracao(produto.getId());
         return ResponseEntity.ok().build();
     }
 
@@ -139,14 +252,30 @@ public class ProdutoService {
         Produto produto = getProdutoById(idProduto);
         produto.setValor(getValorTotal(produto));
         produto.setDesconto(getDesconto(null));
-        produtoRepository.save(produto);
+        List<ProdutoAlterado> emPromocao = transactionTemplate.execute(transacao -> {
+            produtoRepository.saveAndFlush(produto);
+            alteracaoProdutoService.registrar(produto.getId(), TipoAlteracao.UPSERT);
+            return promocaoService.alterarDescontoBase(produto.getId(), "0");
+        });
+        rankingService.atualizar(produto);
+        publicarAlteracao(produto.getId());
+        descontoProdutoService.publicar(Objects.requireNonNull(emPromocao));
         return ResponseEntity.ok().build();
     }
 
     public ResponseEntity<Void> avaliar(String idProduto, Double valorAvaliacao) {
         if (valorAvaliacao < 1.0 || valorAvaliacao > 5.0)
             throw new AvaliacaoNotValidException("A avaliação precisa estar entre 1.0 e 5.0");
-        avaliacaoRepository.save(new Avaliacao(getProdutoById(idProduto), arredondarValor(valorAvaliacao)));
+        Produto produto = getProdutoById(idProduto);
+        List<Avaliacao> avaliacoes = Objects.requireNonNull(transactionTemplate.execute(transacao -> {
+            avaliacaoRepository.save(new Avaliacao(produto, arredondarValor(valorAvaliacao)));
+            // A listagem em cache não recalcula a média, então o filtro de avaliação depende dela estar salva aqui
+            calcularAvaliacao(produto);
+            alteracaoProdutoService.registrar(produto.getId(), TipoAlteracao.UPSERT);
+            return avaliacaoRepository.findAllByProduto(produto);
+        }));
+        rankingService.atualizarAvaliacoes(produto.getId(), avaliacoes.stream().mapToDouble(Avaliacao::getAvaliacao).sum(), avaliacoes.size());
+        publicarAlteracao(produto.getId());
         return ResponseEntity.status(HttpStatus.CREATED).build();
     }
 
@@ -268,10 +397,167 @@ public class ProdutoService {
             throw new ProdutoNotValidException(Codigo.IMAGENS, "O campo Imagens é obrigatório!");
         }
     }
+    /**
+     * Descarta o JSON em cache do produto depois que a escrita for confirmada. A alteração no feed, que também muda
+     * as versões do produto e do catálogo, é registrada com o {@link AlteracaoProdutoService#registrar} na transação da própria escrita.
+     **/
+    private void publicarAlteracao(UUID idProduto) {
+        produtoJsonCache.invalidar(idProduto);
+    }
+    /**
+     * Escreve o JSON da lista como está, comprimido com gzip quando o cliente aceita.
+     **/
+    private ResponseEntity<byte[]> getResposta(ProdutoJsonCache.Lista lista, String acceptEncoding) {
+        ResponseEntity.BodyBuilder resposta = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip")) {
+            return resposta.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(lista.getGzip());
+        }
+        return resposta.body(lista.getJson());
+    }
+    private Sort getOrdenacao(String ordenacao) {
+        if (StringUtils.isBlank(ordenacao)) return Sort.unsorted();
+        if (ordenacao.equalsIgnoreCase("popularidade")) return Sort.by(Sort.Order.desc("popularidade"), Sort.Order.asc("id"));
+        throw new ProdutoNotValidException(Codigo.GLOBAL, "Ordenação inválida, use 'popularidade' ou deixe em branco!");
+    }
     private Produto getProdutoById(String id) {
         return produtoRepository.findById(UUID.fromString(id)).orElseThrow(ProdutoNotFoundException::new);
     }
+    /**
+     * Monta as respostas de vários produtos com uma consulta para os produtos e seus relacionamentos,
+     * uma para os fornecedores e uma para as avaliações, em vez de várias consultas por produto.
+     *
+     * @return As respostas na ordem dos Ids, sem os produtos que não existem
+     **/
+    private List<ProdutoResponse> getProdutoResponses(Collection<UUID> ids) {
+        if (ids.isEmpty()) return List.of();
+        Map<UUID, Produto> produtos = produtoRepository.findAllByIdIn(ids).stream()
+                .collect(Collectors.toMap(Produto::getId, produto -> produto, (produto, repetido) -> produto));
+        if (produtos.isEmpty()) return List.of();
+
+        Map<UUID, String> fornecedores = dataForneceRepository.findFornecedoresByProdutos(produtos.keySet()).stream()
+                .collect(Collectors.toMap(FornecedorProduto::idProduto, FornecedorProduto::fornecedor, (fornecedor, outro) -> fornecedor));
+        Map<UUID, ResumoAvaliacao> avaliacoes = avaliacaoRepository.resumirPorProdutos(produtos.keySet()).stream()
+                .collect(Collectors.toMap(ResumoAvaliacao::idProduto, resumo -> resumo));
+
+        return ids.stream()
+                .map(produtos::get)
+                .filter(Objects::nonNull)
+                .map(produto -> {
+                    ResumoAvaliacao resumo = avaliacoes.get(produto.getId());
+                    return getProdutoResponse(
+                            produto,
+                            fornecedores.getOrDefault(produto.getId(), "N/A"),
+                            (resumo == null) ? 0.0 : arredondarValor(resumo.media()),
+                            (resumo == null) ? 0 : resumo.quantidade().intValue()
+                    );
+                })
+                .toList();
+    }
+    /**
+     * @return Os campos pedidos em {@code fields} e {@code view}, sempre com o id, ou nulo se nenhum dos dois foi passado
+     **/
+    private Set<CampoProduto> getCampos(String fields, String view) {
+        try {
+            return CampoProduto.fromParametros(fields, view);
+        } catch (IllegalArgumentException e) {
+            throw new ProdutoNotValidException(Codigo.GLOBAL, e.getMessage());
+        }
+    }
+    private List<ProdutoResponse> getProdutoResponses(Set<CampoProduto> campos, Collection<UUID> ids) {
+        if (ids.isEmpty()) return List.of();
+        Map<UUID, ProdutoResponse> produtoResponses = getProdutoResponses(campos, (root, query, cb) -> root.get("id").in(ids), Pageable.unpaged()).stream()
+                .collect(Collectors.toMap(produtoResponse -> UUID.fromString(produtoResponse.id()), produtoResponse -> produtoResponse));
+        return ids.stream()
+                .map(produtoResponses::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+    /**
+     * Lê do banco só as colunas dos campos pedidos, com joins apenas nas tabelas que esses campos usam.
+     * Imagens, fornecedores e avaliações só são buscados quando pedidos, com uma consulta para todos os produtos.
+     *
+     * @return As respostas com os campos que não foram pedidos nulos, e por isso fora do JSON
+     **/
+    private List<ProdutoResponse> getProdutoResponses(Set<CampoProduto> campos, Specification<Produto> specification, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Produto> root = query.from(Produto.class);
+        query.multiselect(new ProjecaoProduto(root).selecionar(campos));
+        Predicate predicate = specification.toPredicate(root, query, cb);
+        if (predicate != null) query.where(predicate);
+        if (pageable.getSort().isSorted()) query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, cb));
+
+        TypedQuery<Tuple> typedQuery = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset());
+            typedQuery.setMaxResults(pageable.getPageSize());
+        }
+        List<Tuple> linhas = typedQuery.getResultList();
+        if (linhas.isEmpty()) return List.of();
+
+        Set<UUID> ids = linhas.stream().map(linha -> linha.get("id", UUID.class)).collect(Collectors.toSet());
+        Map<UUID, String> fornecedores = !campos.contains(CampoProduto.FORNECEDOR) ? Map.of() :
+                dataForneceRepository.findFornecedoresByProdutos(ids).stream()
+                        .collect(Collectors.toMap(FornecedorProduto::idProduto, FornecedorProduto::fornecedor, (fornecedor, outro) -> fornecedor));
+        Map<UUID, ResumoAvaliacao> avaliacoes = !(campos.contains(CampoProduto.AVALIACAO) || campos.contains(CampoProduto.QUANTIDADE_AVALIACOES)) ? Map.of() :
+                avaliacaoRepository.resumirPorProdutos(ids).stream()
+                        .collect(Collectors.toMap(ResumoAvaliacao::idProduto, resumo -> resumo));
+        Map<Integer, List<String>> imagens = !campos.contains(CampoProduto.IMAGENS) ? Map.of() : getImagens(linhas);
+
+        return linhas.stream()
+                .map(linha -> getProdutoResponse(linha, campos, fornecedores, avaliacoes, imagens))
+                .toList();
+    }
+    private Map<Integer, List<String>> getImagens(List<Tuple> linhas) {
+        Set<Integer> idsImagemPrincipal = linhas.stream()
+                .map(linha -> linha.get("idImagem", Integer.class))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        if (idsImagemPrincipal.isEmpty()) return Map.of();
+        return imagemRepository.findAllByImagemPrincipalIdInOrderById(idsImagemPrincipal).stream()
+                .collect(Collectors.groupingBy(
+                        imagem -> imagem.getImagemPrincipal().getId(),
+                        Collectors.mapping(Imagem::getImagem, Collectors.toList())
+                ));
+    }
+    private ProdutoResponse getProdutoResponse(Tuple linha, Set<CampoProduto> campos, Map<UUID, String> fornecedores, Map<UUID, ResumoAvaliacao> avaliacoes, Map<Integer, List<String>> imagens) {
+        UUID id = linha.get("id", UUID.class);
+        boolean comValor = campos.contains(CampoProduto.VALOR_TOTAL) || campos.contains(CampoProduto.VALOR_COM_DESCONTO);
+        Double valor = comValor ? linha.get("valor", Double.class) : null;
+        ResumoAvaliacao resumo = avaliacoes.get(id);
+
+        return new ProdutoResponse(
+                id.toString(),
+                getCampo(linha, campos, CampoProduto.NOME, String.class),
+                getCampo(linha, campos, CampoProduto.DESCRICAO, String.class),
+                getCampo(linha, campos, CampoProduto.COR, String.class),
+                campos.contains(CampoProduto.VALOR_TOTAL) ? getValorTotal(valor, linha.get("desconto", String.class)) : null,
+                campos.contains(CampoProduto.VALOR_COM_DESCONTO) ? valor : null,
+                getCampo(linha, campos, CampoProduto.MODELO, String.class),
+                getCampo(linha, campos, CampoProduto.PESO, Double.class),
+                getCampo(linha, campos, CampoProduto.ALTURA, Double.class),
+                getCampo(linha, campos, CampoProduto.COMPRIMENTO, Double.class),
+                getCampo(linha, campos, CampoProduto.LARGURA, Double.class),
+                getCampo(linha, campos, CampoProduto.FABRICANTE, String.class),
+                campos.contains(CampoProduto.FORNECEDOR) ? fornecedores.getOrDefault(id, "N/A") : null,
+                getCampo(linha, campos, CampoProduto.CATEGORIA, String.class),
+                getCampo(linha, campos, CampoProduto.SUB_CATEGORIA, String.class),
+                getCampo(linha, campos, CampoProduto.IMAGEM_PRINCIPAL, String.class),
+                campos.contains(CampoProduto.IMAGENS) ? imagens.getOrDefault(linha.get("idImagem", Integer.class), List.of()) : null,
+                getCampo(linha, campos, CampoProduto.DESCONTO, String.class),
+                campos.contains(CampoProduto.AVALIACAO) ? ((resumo == null) ? 0.0 : arredondarValor(resumo.media())) : null,
+                campos.contains(CampoProduto.QUANTIDADE_AVALIACOES) ? ((resumo == null) ? 0 : resumo.quantidade().intValue()) : null
+        );
+    }
+    private <T> T getCampo(Tuple linha, Set<CampoProduto> campos, CampoProduto campo, Class<T> tipo) {
+        return campos.contains(campo) ? linha.get(campo.getCampo(), tipo) : null;
+    }
     private ProdutoResponse getProdutoResponse(Produto produto) {
+        return getProdutoResponse(produto, getFornecedor(produto), calcularAvaliacao(produto), avaliacaoRepository.findAllByProduto(produto).size());
+    }
+    private ProdutoResponse getProdutoResponse(Produto produto, String fornecedor, Double avaliacao, Integer quantidadeAvaliacoes) {
         List<String> imagens = produto.getImagemPrincipal().getImagens()
                 .stream()
                 .map(Imagem::getImagem)
@@ -292,14 +578,14 @@ public class ProdutoService {
                 produto.getComprimento(),
                 produto.getLargura(),
                 produto.getFabricante().getFabricante(),
-                getFornecedor(produto),
+                fornecedor,
                 produto.getSubCategoria().getCategoria().getNome(),
                 produto.getSubCategoria().getSubCategoria(),
                 produto.getImagemPrincipal().getImagemPrincipal(),
                 imagens,
                 produto.getDesconto().getValorDesconto(),
-                calcularAvaliacao(produto),
-                avaliacaoRepository.findAllByProduto(produto).size()
+                avaliacao,
+                quantidadeAvaliacoes
         );
     }
     private String getFornecedor(Produto produto) {
@@ -309,11 +595,14 @@ public class ProdutoService {
         return "N/A";
     }
     private Double getValorTotal(Produto produto) {
-        if (produto.getDesconto().getValorDesconto().equals("0"))
-            return produto.getValor();
+        return getValorTotal(produto.getValor(), produto.getDesconto().getValorDesconto());
+    }
+    private Double getValorTotal(Double valor, String desconto) {
+        if (desconto == null || desconto.equals("0"))
+            return valor;
 
         DecimalFormat df = new DecimalFormat("#.00");
-        String resultado = String.format("%s", df.format((100 * produto.getValor()) / (100 - Double.parseDouble(produto.getDesconto().getValorDesconto())))).replace(',', '.');
+        String resultado = String.format("%s", df.format((100 * valor) / (100 - Double.parseDouble(desconto)))).replace(',', '.');
         return Double.parseDouble(resultado);
     }
     private Double getValorComDesconto(Double valor, Desconto desconto) {
@@ -359,4 +648,62 @@ public class ProdutoService {
         if (descontoOptional.isPresent()) return descontoOptional.get();
         throw new ProdutoNotValidException(Codigo.DESCONTO, "Desconto inválido, digite um número entre 0 e 99!");
     }
-}
\ No newline at end of file
+
+    /**
+     * Monta as colunas da consulta de produtos a partir dos campos pedidos, criando cada join só uma vez e só se usado.
+     * Os aliases são os nomes dos campos no JSON, mais {@code valor} e {@code idImagem}, que são usados para calcular outros campos.
+     **/
+    private static class ProjecaoProduto {
+        private final Root<Produto> root;
+        private final Map<String, Selection<?>> selecoes = new LinkedHashMap<>();
+        private Join<Produto, ?> subCategoria;
+        private Join<Produto, ?> imagemPrincipal;
+        private Join<Produto, ?> desconto;
+
+        private ProjecaoProduto(Root<Produto> root) {
+            this.root = root;
+        }
+
+        private List<Selection<?>> selecionar(Set<CampoProduto> campos) {
+            selecionar("id", root.get("id"));
+            for (CampoProduto campo : campos) {
+                switch (campo) {
+                    case NOME, DESCRICAO, COR, MODELO, PESO, ALTURA, COMPRIMENTO, LARGURA -> selecionar(campo.getCampo(), root.get(campo.getCampo()));
+                    case VALOR_TOTAL -> {
+                        selecionar("valor", root.get("valor"));
+                        selecionar("desconto", getDesconto().get("valorDesconto"));
+                    }
+                    case VALOR_COM_DESCONTO -> selecionar("valor", root.get("valor"));
+                    case FABRICANTE -> selecionar("fabricante", root.join("fabricante", JoinType.LEFT).get("fabricante"));
+                    case CATEGORIA -> selecionar("categoria", getSubCategoria().join("categoria", JoinType.LEFT).get("nome"));
+                    case SUB_CATEGORIA -> selecionar("subCategoria", getSubCategoria().get("subCategoria"));
+                    case IMAGEM_PRINCIPAL -> selecionar("imagemPrincipal", getImagemPrincipal().get("imagemPrincipal"));
+                    case IMAGENS -> selecionar("idImagem", getImagemPrincipal().get("id"));
+                    case DESCONTO -> selecionar("desconto", getDesconto().get("valorDesconto"));
+                    // Id já está selecionado; fornecedor e avaliações vêm de consultas próprias
+                    case ID, FORNECEDOR, AVALIACAO, QUANTIDADE_AVALIACOES -> { }
+                }
+            }
+            return new ArrayList<>(selecoes.values());
+        }
+
+        private void selecionar(String alias, Path<?> path) {
+            if (!selecoes.containsKey(alias)) selecoes.put(alias, path.alias(alias));
+        }
+
+        private Join<Produto, ?> getSubCategoria() {
+            if (subCategoria == null) subCategoria = root.join("subCategoria", JoinType.LEFT);
+            return subCategoria;
+        }
+
+        private Join<Produto, ?> getImagemPrincipal() {
+            if (imagemPrincipal == null) imagemPrincipal = root.join("imagemPrincipal", JoinType.LEFT);
+            return imagemPrincipal;
+        }
+
+        private Join<Produto, ?> getDesconto() {
+            if (desconto == null) desconto = root.join("desconto", JoinType.LEFT);
+            return desconto;
+        }
+    }
+}
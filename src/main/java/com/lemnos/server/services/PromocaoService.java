@@ -0,0 +1,358 @@
+package com.lemnos.server.services;
+
+import com.lemnos.server.exceptions.promocao.PromocaoNotFoundException;
+import com.lemnos.server.exceptions.promocao.PromocaoNotValidException;
+import com.lemnos.server.models.dtos.requests.PromocaoRequest;
+import com.lemnos.server.models.dtos.responses.IdResponse;
+import com.lemnos.server.models.dtos.responses.PromocaoResponse;
+import com.lemnos.server.models.enums.SituacaoPromocao;
+import com.lemnos.server.models.promocao.RodaTemporizacao;
+import com.lemnos.server.services.DescontoProdutoService.ProdutoAlterado;
+import io.micrometer.common.util.StringUtils;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+
+/**
+ * Promoções com início e fim, aplicadas aos produtos só nas transições: quando uma promoção começa, termina ou é cancelada,
+ * o desconto de cada produto dela é recalculado e gravado em Produto, então as leituras e o cache de JSON não calculam nada.
+ * <p>
+ * As transições da próxima hora ficam em uma {@link RodaTemporizacao} com ticks de um segundo, que avança a cada segundo e
+ * é recarregada da tabela Promocao a cada {@value RECARGA} ms. As colunas Iniciada e Encerrada marcam as transições já
+ * aplicadas, então as que venceram com o servidor parado são aplicadas na inicialização e em cada recarga, e uma transição
+ * só é aplicada por uma instância.
+ * <p>
+ * Para cada produto, a promoção ativa de maior prioridade vale; se ela for acumulável, as outras acumuláveis ativas são aplicadas
+ * sobre ela (10% e 20% dão 28%). O desconto do próprio produto é guardado em Promocao_Desconto_Base enquanto alguma promoção
+ * vale, nunca é reduzido por uma promoção menor e volta quando a última termina.
+ **/
+@Service
+@RequiredArgsConstructor
+public class PromocaoService {
+    private static final Logger log = LoggerFactory.getLogger(PromocaoService.class);
+    private static final long UM_SEGUNDO = 1000;
+    private static final int RECARGA = 5 * 60 * 1000;
+    private static final int POSICOES_RODA = 3_600;
+    private static final long HORIZONTE_MINUTOS = 60;
+    private static final int MAXIMO_PRODUTOS = 5_000;
+    private static final long DIAS_HISTORICO = 30;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final DescontoProdutoService descontoProdutoService;
+    private final RodaTemporizacao<Integer> roda = new RodaTemporizacao<>(UM_SEGUNDO, POSICOES_RODA, System.currentTimeMillis());
+
+    /**
+     * As promoções que ainda não terminaram e as que terminaram nos últimos {@value DIAS_HISTORICO} dias.
+     **/
+    public ResponseEntity<List<PromocaoResponse>> getPromocoes() {
+        LocalDateTime agora = LocalDateTime.now();
+        List<PromocaoResponse> promocoes = jdbcTemplate.query("""
+                SELECT pr.Id, pr.Nome, pr.Porcentagem, pr.Inicio, pr.Fim, pr.Prioridade, pr.Acumulavel, pr.Cancelada,
+                    (SELECT COUNT(*) FROM Promocao_Produto pp WHERE pp.Id_Promocao = pr.Id) AS Produtos
+                FROM Promocao pr
+                WHERE NOT pr.Encerrada OR pr.Fim > :desde
+                ORDER BY pr.Inicio DESC, pr.Id DESC
+                """, new MapSqlParameterSource("desde", agora.minusDays(DIAS_HISTORICO)), (rs, i) -> {
+                    LocalDateTime inicio = rs.getTimestamp("Inicio").toLocalDateTime();
+                    LocalDateTime fim = rs.getTimestamp("Fim").toLocalDateTime();
+                    SituacaoPromocao situacao;
+                    if (rs.getBoolean("Cancelada")) situacao = SituacaoPromocao.CANCELADA;
+                    else if (agora.isBefore(inicio)) situacao = SituacaoPromocao.AGENDADA;
+                    else if (agora.isBefore(fim)) situacao = SituacaoPromocao.ATIVA;
+                    else situacao = SituacaoPromocao.ENCERRADA;
+                    return new PromocaoResponse(
+                            rs.getInt("Id"),
+                            rs.getString("Nome"),
+                            rs.getInt("Porcentagem"),
+                            inicio,
+                            fim,
+                            rs.getInt("Prioridade"),
+                            rs.getBoolean("Acumulavel"),
+                            situacao.name(),
+                            rs.getInt("Produtos")
+                    );
+                });
+        return ResponseEntity.ok(promocoes);
+    }
+
+    public ResponseEntity<IdResponse> criar(PromocaoRequest request) {
+        Set<UUID> produtos = verifyRequest(request);
+        Integer idPromocao = transactionTemplate.execute(transacao -> {
+            Integer id = jdbcTemplate.queryForObject("""
+                    INSERT INTO Promocao (Nome, Porcentagem, Inicio, Fim, Prioridade, Acumulavel)
+                    VALUES (:nome, :porcentagem, :inicio, :fim, :prioridade, :acumulavel)
+                    RETURNING Id
+                    """, new MapSqlParameterSource()
+                    .addValue("nome", request.nome().trim())
+                    .addValue("porcentagem", request.porcentagem())
+                    .addValue("inicio", request.inicio())
+                    .addValue("fim", request.fim())
+                    .addValue("prioridade", (request.prioridade() == null) ? 0 : request.prioridade())
+                    .addValue("acumulavel", Boolean.TRUE.equals(request.acumulavel())), Integer.class);
+            int inseridos = jdbcTemplate.update(
+                    "INSERT INTO Promocao_Produto (Id_Promocao, Id_Produto) SELECT :idPromocao, p.Id FROM Produto p WHERE p.Id IN (:produtos)",
+                    new MapSqlParameterSource().addValue("idPromocao", id).addValue("produtos", produtos)
+            );
+            if (inseridos != produtos.size()) throw new PromocaoNotValidException("A promoção tem produtos que não existem!");
+            return id;
+        });
+
+        LocalDateTime horizonte = LocalDateTime.now().plusMinutes(HORIZONTE_MINUTOS);
+        if (!request.inicio().isAfter(horizonte)) agendar(idPromocao, request.inicio());
+        if (!request.fim().isAfter(horizonte)) agendar(idPromocao, request.fim());
+        return ResponseEntity.status(HttpStatus.CREATED).body(new IdResponse(idPromocao));
+    }
+
+    /**
+     * Cancela a promoção e devolve o desconto dos produtos na hora, se ela já tinha começado.
+     **/
+    public ResponseEntity<Void> cancelar(Integer idPromocao) {
+        int canceladas = jdbcTemplate.update(
+                "UPDATE Promocao SET Cancelada = true WHERE Id = :id AND NOT Encerrada",
+                Map.of("id", idPromocao)
+        );
+        if (canceladas == 0) {
+            Integer existentes = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM Promocao WHERE Id = :id", Map.of("id", idPromocao), Integer.class);
+            if (existentes == null || existentes == 0) throw new PromocaoNotFoundException();
+            throw new PromocaoNotValidException("A promoção já terminou!");
+        }
+        aplicarTransicao(idPromocao);
+        return ResponseEntity.ok().build();
+    }
+
+    /**
+     * Troca o desconto guardado dos produtos com alguma promoção valendo, sem mudar o desconto atual deles.
+     * Deve ser chamado dentro de uma transação, seguido do {@link #recalcular} dos produtos devolvidos.
+     *
+     * @return Os produtos que estão com alguma promoção
+     **/
+    public Set<UUID> alterarDescontoBase(Collection<UUID> ids, String desconto) {
+        if (ids.isEmpty()) return Set.of();
+        return new HashSet<>(jdbcTemplate.queryForList("""
+                UPDATE Promocao_Desconto_Base SET Id_Desconto = :idDesconto WHERE Id_Produto IN (:ids)
+                RETURNING Id_Produto
+                """, new MapSqlParameterSource()
+                .addValue("idDesconto", descontoProdutoService.getIdDesconto(desconto))
+                .addValue("ids", ids), UUID.class));
+    }
+
+    /**
+     * Para a alteração do desconto de um produto pelo {@link ProdutoService}: se ele estiver em promoção, o desconto informado
+     * passa a ser o que volta no fim dela, e o atual é recalculado. Deve ser chamado na transação que grava o produto, e o
+     * {@link DescontoProdutoService#publicar} depois que ela for confirmada.
+     *
+     * @return Os produtos que mudaram
+     **/
+    public List<ProdutoAlterado> alterarDescontoBase(UUID idProduto, String desconto) {
+        Set<UUID> emPromocao = alterarDescontoBase(List.of(idProduto), desconto);
+        return recalcular(emPromocao, LocalDateTime.now());
+    }
+
+    /**
+     * Grava em cada produto o desconto das promoções ativas em {@code agora}, ou o desconto guardado se nenhuma estiver.
+     * Deve ser chamado dentro de uma transação, e o {@link DescontoProdutoService#publicar} depois que ela for confirmada.
+     *
+     * @return Os produtos que mudaram
+     **/
+    public List<ProdutoAlterado> recalcular(Collection<UUID> ids, LocalDateTime agora) {
+        if (ids.isEmpty()) return List.of();
+        MapSqlParameterSource parametros = new MapSqlParameterSource().addValue("ids", ids).addValue("agora", agora);
+
+        Map<UUID, String> atuais = new LinkedHashMap<>();
+        jdbcTemplate.query("""
+                SELECT p.Id, d.Valor_Porcentagem FROM Produto p LEFT JOIN Desconto d ON d.Id = p.Id_Desconto
+                WHERE p.Id IN (:ids) ORDER BY p.Id FOR UPDATE OF p
+                """, parametros, rs -> {
+                    String desconto = rs.getString("Valor_Porcentagem");
+                    atuais.put(rs.getObject("Id", UUID.class), (desconto == null) ? "0" : desconto);
+                });
+        Map<UUID, String> bases = new HashMap<>();
+        jdbcTemplate.query("""
+                SELECT b.Id_Produto, d.Valor_Porcentagem FROM Promocao_Desconto_Base b JOIN Desconto d ON d.Id = b.Id_Desconto
+                WHERE b.Id_Produto IN (:ids)
+                """, parametros, rs -> {
+                    bases.put(rs.getObject("Id_Produto", UUID.class), rs.getString("Valor_Porcentagem"));
+                });
+        Map<UUID, List<PromocaoAtiva>> ativas = new HashMap<>();
+        jdbcTemplate.query("""
+                SELECT pp.Id_Produto, pr.Porcentagem, pr.Prioridade, pr.Acumulavel
+                FROM Promocao_Produto pp JOIN Promocao pr ON pr.Id = pp.Id_Promocao
+                WHERE pp.Id_Produto IN (:ids) AND NOT pr.Cancelada AND pr.Inicio <= :agora AND pr.Fim > :agora
+                """, parametros, rs -> {
+                    ativas.computeIfAbsent(rs.getObject("Id_Produto", UUID.class), id -> new ArrayList<>())
+                            .add(new PromocaoAtiva(rs.getInt("Porcentagem"), rs.getInt("Prioridade"), rs.getBoolean("Acumulavel")));
+                });
+
+        List<UUID> guardar = new ArrayList<>();
+        List<UUID> devolver = new ArrayList<>();
+        Map<String, List<UUID>> porDesconto = new HashMap<>();
+        atuais.forEach((idProduto, atual) -> {
+            String base = bases.get(idProduto);
+            List<PromocaoAtiva> promocoes = ativas.get(idProduto);
+            String desconto;
+            if (promocoes == null) {
+                if (base == null) return;
+                devolver.add(idProduto);
+                desconto = base;
+            } else {
+                if (base == null) {
+                    guardar.add(idProduto);
+                    base = atual;
+                }
+                desconto = String.valueOf(Math.max(Integer.parseInt(base), getPorcentagem(promocoes)));
+            }
+            porDesconto.computeIfAbsent(desconto, chave -> new ArrayList<>()).add(idProduto);
+        });
+
+        if (!guardar.isEmpty()) {
+            jdbcTemplate.update("""
+                    INSERT INTO Promocao_Desconto_Base (Id_Produto, Id_Desconto)
+                    SELECT p.Id, COALESCE(p.Id_Desconto, (SELECT d.Id FROM Desconto d WHERE d.Valor_Porcentagem = '0'))
+                    FROM Produto p WHERE p.Id IN (:ids)
+                    ON CONFLICT DO NOTHING
+                    """, Map.of("ids", guardar));
+        }
+        if (!devolver.isEmpty()) {
+            jdbcTemplate.update("DELETE FROM Promocao_Desconto_Base WHERE Id_Produto IN (:ids)", Map.of("ids", devolver));
+        }
+
+        List<ProdutoAlterado> alterados = new ArrayList<>();
+        porDesconto.forEach((desconto, idsProdutos) -> alterados.addAll(descontoProdutoService.alterarDesconto(idsProdutos, desconto)));
+        return alterados;
+    }
+
+    @Scheduled(fixedRate = UM_SEGUNDO, initialDelay = UM_SEGUNDO)
+    public void avancar() {
+        for (Integer idPromocao : roda.avancar(System.currentTimeMillis())) {
+            try {
+                aplicarTransicao(idPromocao);
+            }
+            catch (RuntimeException e) {
+                // A transição continua pendente no banco e é aplicada na próxima recarga
+                log.error("Falha ao aplicar a transição da promoção {}", idPromocao, e);
+            }
+        }
+    }
+
+    /**
+     * Aplica as transições atrasadas e agenda na roda as da próxima hora.
+     **/
+    @PostConstruct
+    @Scheduled(fixedDelay = RECARGA, initialDelay = RECARGA)
+    public void recarregar() {
+        try {
+            LocalDateTime agora = LocalDateTime.now();
+            List<Integer> atrasadas = jdbcTemplate.queryForList("""
+                    SELECT Id FROM Promocao
+                    WHERE NOT Encerrada AND ((NOT Iniciada AND Inicio <= :agora) OR Fim <= :agora OR Cancelada)
+                    ORDER BY Inicio, Id
+                    """, Map.of("agora", agora), Integer.class);
+            for (Integer idPromocao : atrasadas) aplicarTransicao(idPromocao);
+            if (!atrasadas.isEmpty()) log.info("{} transições de promoções atrasadas aplicadas", atrasadas.size());
+
+            LocalDateTime horizonte = agora.plusMinutes(HORIZONTE_MINUTOS);
+            jdbcTemplate.query("""
+                    SELECT Id, Inicio, Fim, Iniciada FROM Promocao
+                    WHERE NOT Encerrada AND NOT Cancelada AND (Inicio <= :horizonte OR Fim <= :horizonte)
+                    """, Map.of("horizonte", horizonte), rs -> {
+                        Integer idPromocao = rs.getInt("Id");
+                        LocalDateTime inicio = rs.getTimestamp("Inicio").toLocalDateTime();
+                        LocalDateTime fim = rs.getTimestamp("Fim").toLocalDateTime();
+                        if (!rs.getBoolean("Iniciada") && !inicio.isAfter(horizonte)) agendar(idPromocao, inicio);
+                        if (!fim.isAfter(horizonte)) agendar(idPromocao, fim);
+                    });
+        }
+        catch (RuntimeException e) {
+            log.error("Falha ao recarregar as promoções", e);
+        }
+    }
+
+    /**
+     * Recalcula os produtos da promoção, se ela tem uma transição vencida ainda não aplicada. A linha da promoção é travada com
+     * {@code SKIP LOCKED}, então quando várias instâncias disparam a mesma transição só uma a aplica.
+     **/
+    private void aplicarTransicao(Integer idPromocao) {
+        List<ProdutoAlterado> alterados = transactionTemplate.execute(transacao -> {
+            LocalDateTime agora = LocalDateTime.now();
+            MapSqlParameterSource parametros = new MapSqlParameterSource().addValue("id", idPromocao).addValue("agora", agora);
+            List<Integer> pendentes = jdbcTemplate.queryForList("""
+                    SELECT Id FROM Promocao
+                    WHERE Id = :id AND NOT Encerrada AND ((NOT Iniciada AND Inicio <= :agora) OR Fim <= :agora OR Cancelada)
+                    FOR UPDATE SKIP LOCKED
+                    """, parametros, Integer.class);
+            if (pendentes.isEmpty()) return List.<ProdutoAlterado>of();
+
+            List<UUID> produtos = jdbcTemplate.queryForList(
+                    "SELECT Id_Produto FROM Promocao_Produto WHERE Id_Promocao = :id", parametros, UUID.class
+            );
+            jdbcTemplate.update("""
+                    UPDATE Promocao SET Iniciada = Iniciada OR Inicio <= :agora, Encerrada = Fim <= :agora OR Cancelada
+                    WHERE Id = :id
+                    """, parametros);
+            return recalcular(produtos, agora);
+        });
+        descontoProdutoService.publicar(Objects.requireNonNull(alterados));
+        if (!alterados.isEmpty()) log.info("Promoção {}: desconto de {} produtos recalculado", idPromocao, alterados.size());
+    }
+
+    private void agendar(Integer idPromocao, LocalDateTime instante) {
+        roda.agendar(idPromocao, instante.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+    }
+
+    /**
+     * A promoção de maior prioridade (e maior porcentagem, no empate) vale; se for acumulável, as outras acumuláveis também.
+     **/
+    static int getPorcentagem(List<PromocaoAtiva> promocoes) {
+        PromocaoAtiva principal = promocoes.stream()
+                .max(Comparator.comparingInt(PromocaoAtiva::prioridade).thenComparingInt(PromocaoAtiva::porcentagem))
+                .orElseThrow();
+        if (!principal.acumulavel()) return principal.porcentagem();
+
+        double fator = 1;
+        for (PromocaoAtiva promocao : promocoes) {
+            if (promocao.acumulavel()) fator *= (100 - promocao.porcentagem()) / 100.0;
+        }
+        return Math.min(99, (int) Math.floor(100 * (1 - fator) + 1e-9));
+    }
+
+    private Set<UUID> verifyRequest(PromocaoRequest request) {
+        if (request == null) throw new PromocaoNotValidException("A promoção não foi enviada!");
+        if (StringUtils.isBlank(request.nome()) || request.nome().trim().length() > 100)
+            throw new PromocaoNotValidException("O nome é obrigatório e deve ter até 100 caracteres!");
+        if (request.porcentagem() == null || request.porcentagem() < 1 || request.porcentagem() > 99)
+            throw new PromocaoNotValidException("A porcentagem deve ser entre 1 e 99!");
+        if (request.inicio() == null || request.fim() == null)
+            throw new PromocaoNotValidException("O início e o fim são obrigatórios!");
+        if (!request.fim().isAfter(request.inicio()))
+            throw new PromocaoNotValidException("O fim deve ser depois do início!");
+        if (!request.fim().isAfter(LocalDateTime.now()))
+            throw new PromocaoNotValidException("O fim já passou!");
+        if (request.produtos() == null || request.produtos().isEmpty())
+            throw new PromocaoNotValidException("Informe os produtos da promoção!");
+        if (request.produtos().size() > MAXIMO_PRODUTOS)
+            throw new PromocaoNotValidException("A promoção pode ter no máximo " + MAXIMO_PRODUTOS + " produtos!");
+
+        Set<UUID> produtos = new LinkedHashSet<>();
+        try {
+            for (String id : request.produtos()) produtos.add(UUID.fromString(id.trim()));
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new PromocaoNotValidException("Id de produto inválido!");
+        }
+        return produtos;
+    }
+
+    record PromocaoAtiva(int porcentagem, int prioridade, boolean acumulavel) { }
+}
@@ -0,0 +1,278 @@
+package com.lemnos.server.services;
+
+import com.lemnos.server.models.enums.TipoRanking;
+import com.lemnos.server.models.produto.Produto;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Rankings de produtos mantidos em memória: melhor avaliados, maiores descontos e novidades, no geral e por categoria.
+ * <p>
+ * Cada ranking é um {@link ConcurrentSkipListSet} ordenado pela pontuação, então ler os N primeiros percorre só N entradas
+ * e cada cadastro, alteração ou avaliação reposiciona o produto em O(log n), sem ordenar a tabela Produto.
+ * Os rankings são mantidos pelas escritas desta instância e remontados do banco a cada {@value RECARGA} ms, então alterações
+ * feitas por outras instâncias (descontos, promoções e avaliações) chegam a esta em no máximo esse intervalo.
+ * <p>
+ * A remontagem lê o banco em rankings novos e os troca pelos atuais de uma vez. As escritas locais feitas durante a leitura são
+ * aplicadas de novo nos rankings novos antes da troca; todas definem o estado do produto em vez de somar, então repetir uma que
+ * a leitura já viu não muda nada.
+ **/
+@Service
+public class RankingService {
+    private static final Logger log = LoggerFactory.getLogger(RankingService.class);
+    private static final String GERAL = "";
+    private static final int RECARGA = 5 * 60 * 1000;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final ReentrantReadWriteLock troca = new ReentrantReadWriteLock();
+    private volatile Rankings atuais = new Rankings();
+    private Queue<Consumer<Rankings>> escritasDuranteCarga;
+    private final AtomicLong versao = new AtomicLong();
+
+    public RankingService(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void carregar() {
+        troca.writeLock().lock();
+        try {
+            escritasDuranteCarga = new ConcurrentLinkedQueue<>();
+        }
+        finally {
+            troca.writeLock().unlock();
+        }
+
+        Rankings novos = null;
+        try {
+            novos = ler();
+        }
+        finally {
+            troca.writeLock().lock();
+            try {
+                if (novos != null) {
+                    escritasDuranteCarga.forEach(novos::aplicar);
+                    atuais = novos;
+                    versao.incrementAndGet();
+                }
+                escritasDuranteCarga = null;
+            }
+            finally {
+                troca.writeLock().unlock();
+            }
+        }
+        log.info("Rankings carregados com {} produtos", novos.categorias.size());
+    }
+
+    @Scheduled(fixedDelay = RECARGA, initialDelay = RECARGA)
+    public void recarregar() {
+        try {
+            carregar();
+        }
+        catch (RuntimeException e) {
+            log.error("Falha ao remontar os rankings, os atuais continuam valendo", e);
+        }
+    }
+
+    /**
+     * @param categoria O nome da categoria, ou nulo para o ranking geral
+     * @return Os Ids dos primeiros produtos do ranking, em ordem
+     **/
+    public List<UUID> getPrimeiros(TipoRanking tipo, String categoria, int quantidade) {
+        Ranking ranking = atuais.rankings.get(tipo).get(getChave(categoria));
+        if (ranking == null) return List.of();
+
+        List<UUID> ids = new ArrayList<>(quantidade);
+        for (Entrada entrada : ranking.ordem) {
+            if (ids.size() == quantidade) break;
+            ids.add(entrada.idProduto());
+        }
+        return ids;
+    }
+
+    /**
+     * @return Um número que muda a cada escrita e remontagem dos rankings desta instância
+     **/
+    public long getVersao() {
+        return versao.get();
+    }
+
+    /**
+     * Reposiciona o produto nos rankings de desconto e novidade depois de um cadastro ou alteração,
+     * movendo-o de categoria se ela mudou.
+     **/
+    public void atualizar(Produto produto) {
+        String categoria = (produto.getSubCategoria() == null) ? null : produto.getSubCategoria().getCategoria().getNome();
+        String desconto = (produto.getDesconto() == null) ? null : produto.getDesconto().getValorDesconto();
+        atualizar(produto.getId(), categoria, desconto, produto.getDataCadastro());
+    }
+
+    /**
+     * Troca a soma e a quantidade de avaliações do produto e o reposiciona no ranking de avaliação.
+     **/
+    public void atualizarAvaliacoes(UUID idProduto, double soma, long quantidade) {
+        escrever(rankings -> rankings.atualizarAvaliacoes(idProduto, new Avaliacoes(soma, quantidade)));
+    }
+
+    public void remover(UUID idProduto) {
+        escrever(rankings -> rankings.remover(idProduto));
+    }
+
+    /**
+     * O mesmo que {@link #atualizar(Produto)}, para alterações feitas direto no banco sem carregar a entidade.
+     **/
+    public void atualizar(UUID idProduto, String nomeCategoria, String desconto, LocalDateTime dataCadastro) {
+        escrever(rankings -> rankings.atualizar(idProduto, nomeCategoria, desconto, dataCadastro));
+    }
+
+    /**
+     * Aplica a escrita nos rankings atuais e, se uma remontagem estiver lendo o banco, guarda-a para os rankings novos.
+     **/
+    private void escrever(Consumer<Rankings> escrita) {
+        troca.readLock().lock();
+        try {
+            atuais.aplicar(escrita);
+            if (escritasDuranteCarga != null) escritasDuranteCarga.add(escrita);
+            versao.incrementAndGet();
+        }
+        finally {
+            troca.readLock().unlock();
+        }
+    }
+
+    private Rankings ler() {
+        Rankings novos = new Rankings();
+        jdbcTemplate.query("""
+                SELECT p.Id, p.Data_Cadastro, d.Valor_Porcentagem, c.Nome AS Categoria, a.Soma, a.Quantidade
+                FROM Produto p
+                LEFT JOIN Desconto d ON d.Id = p.Id_Desconto
+                LEFT JOIN Sub_Categoria s ON s.Id = p.Id_Sub_Categoria
+                LEFT JOIN Categoria c ON c.Id = s.Id_Categoria
+                LEFT JOIN (
+                    SELECT Id_Produto, SUM(Avaliacao) AS Soma, COUNT(*) AS Quantidade FROM Avaliacao GROUP BY Id_Produto
+                ) a ON a.Id_Produto = p.Id
+                """,
+                rs -> {
+                    UUID idProduto = rs.getObject("Id", UUID.class);
+                    Timestamp dataCadastro = rs.getTimestamp("Data_Cadastro");
+                    if (rs.getLong("Quantidade") > 0) novos.avaliacoes.put(idProduto, new Avaliacoes(rs.getDouble("Soma"), rs.getLong("Quantidade")));
+                    novos.atualizar(idProduto, rs.getString("Categoria"), rs.getString("Valor_Porcentagem"), dataCadastro.toLocalDateTime());
+                }
+        );
+        return novos;
+    }
+
+    private static String getChave(String categoria) {
+        return (categoria == null) ? GERAL : categoria.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Um conjunto completo de rankings, com a categoria e as avaliações de cada produto.
+     **/
+    private static class Rankings {
+        private final Map<TipoRanking, Map<String, Ranking>> rankings = new EnumMap<>(TipoRanking.class);
+        private final Map<UUID, String> categorias = new ConcurrentHashMap<>();
+        private final Map<UUID, Avaliacoes> avaliacoes = new ConcurrentHashMap<>();
+
+        private Rankings() {
+            for (TipoRanking tipo : TipoRanking.values()) rankings.put(tipo, new ConcurrentHashMap<>());
+        }
+
+        private void aplicar(Consumer<Rankings> escrita) {
+            escrita.accept(this);
+        }
+
+        private void atualizar(UUID idProduto, String nomeCategoria, String desconto, LocalDateTime dataCadastro) {
+            String categoria = getChave(nomeCategoria);
+            String anterior = categorias.put(idProduto, categoria);
+            if (anterior != null && !anterior.equals(categoria)) {
+                for (TipoRanking tipo : TipoRanking.values()) tirar(tipo, idProduto, anterior);
+            }
+
+            long cadastro = (dataCadastro == null) ? 0 : dataCadastro.toInstant(ZoneOffset.UTC).toEpochMilli();
+            colocar(TipoRanking.NOVIDADE, idProduto, categoria, new Entrada(idProduto, cadastro, 0));
+
+            double porcentagem = (desconto == null) ? 0 : Double.parseDouble(desconto);
+            if (porcentagem > 0) colocar(TipoRanking.DESCONTO, idProduto, categoria, new Entrada(idProduto, porcentagem, cadastro));
+            else tirar(TipoRanking.DESCONTO, idProduto, categoria);
+
+            Avaliacoes avaliacao = avaliacoes.get(idProduto);
+            if (avaliacao != null) colocar(TipoRanking.AVALIACAO, idProduto, categoria, new Entrada(idProduto, avaliacao.getMedia(), avaliacao.quantidade()));
+        }
+
+        private void atualizarAvaliacoes(UUID idProduto, Avaliacoes atual) {
+            avaliacoes.put(idProduto, atual);
+            colocar(TipoRanking.AVALIACAO, idProduto, categorias.get(idProduto), new Entrada(idProduto, atual.getMedia(), atual.quantidade()));
+        }
+
+        private void remover(UUID idProduto) {
+            String categoria = categorias.remove(idProduto);
+            avaliacoes.remove(idProduto);
+            for (TipoRanking tipo : TipoRanking.values()) tirar(tipo, idProduto, categoria);
+        }
+
+        private void colocar(TipoRanking tipo, UUID idProduto, String categoria, Entrada entrada) {
+            getRanking(tipo, GERAL).colocar(idProduto, entrada);
+            if (categoria != null && !categoria.equals(GERAL)) getRanking(tipo, categoria).colocar(idProduto, entrada);
+        }
+
+        private void tirar(TipoRanking tipo, UUID idProduto, String categoria) {
+            getRanking(tipo, GERAL).tirar(idProduto);
+            if (categoria != null && !categoria.equals(GERAL)) getRanking(tipo, categoria).tirar(idProduto);
+        }
+
+        private Ranking getRanking(TipoRanking tipo, String categoria) {
+            return rankings.get(tipo).computeIfAbsent(categoria, chave -> new Ranking());
+        }
+    }
+
+    private static class Ranking {
+        private final ConcurrentSkipListSet<Entrada> ordem = new ConcurrentSkipListSet<>(
+                Comparator.comparingDouble(Entrada::valor).reversed()
+                        .thenComparing(Comparator.comparingDouble(Entrada::desempate).reversed())
+                        .thenComparing(Entrada::idProduto)
+        );
+        private final Map<UUID, Entrada> atuais = new ConcurrentHashMap<>();
+
+        /**
+         * Troca a entrada do produto. O compute serializa as trocas de um mesmo produto.
+         **/
+        private void colocar(UUID idProduto, Entrada entrada) {
+            atuais.compute(idProduto, (id, anterior) -> {
+                if (anterior != null) ordem.remove(anterior);
+                ordem.add(entrada);
+                return entrada;
+            });
+        }
+
+        private void tirar(UUID idProduto) {
+            atuais.computeIfPresent(idProduto, (id, anterior) -> {
+                ordem.remove(anterior);
+                return null;
+            });
+        }
+    }
+
+    private record Entrada(UUID idProduto, double valor, double desempate) { }
+
+    private record Avaliacoes(double soma, long quantidade) {
+        private double getMedia() {
+            return soma / quantidade;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.lemnos.server.services;
+
+import com.lemnos.server.models.enums.TipoEvento;
+import com.lemnos.server.models.outbox.EventoOutbox;
+import com.lemnos.server.models.outbox.PedidoCriadoEvento;
+import com.lemnos.server.models.outbox.StatusPedidoEvento;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+/**
+ * Atualiza o resumo de vendas a cada pedido criado ou entregue. O incremento é confirmado junto com a baixa do evento,
+ * e desfeito com ela se qualquer manipulador do evento falhar.
+ **/
+@Component
+@RequiredArgsConstructor
+public class ResumoVendasManipulador implements ManipuladorEvento {
+    private final OutboxService outboxService;
+    private final ResumoVendasService resumoVendasService;
+
+    @Override
+    public Set<TipoEvento> getTipos() {
+        return Set.of(TipoEvento.PEDIDO_CRIADO, TipoEvento.PEDIDO_STATUS_ALTERADO);
+    }
+
+    @Override
+    public void processar(EventoOutbox evento) throws Exception {
+        switch (evento.tipo()) {
+            case PEDIDO_CRIADO -> resumoVendasService.somarPedido(outboxService.lerPayload(evento, PedidoCriadoEvento.class));
+            case PEDIDO_STATUS_ALTERADO -> resumoVendasService.somarStatus(outboxService.lerPayload(evento, StatusPedidoEvento.class));
+        }
+    }
+}
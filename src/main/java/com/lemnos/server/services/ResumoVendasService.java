@@ -0,0 +1,334 @@
+package com.lemnos.server.services;
+
+import com.lemnos.server.exceptions.relatorio.ReconstrucaoEmAndamentoException;
+import com.lemnos.server.exceptions.relatorio.RelatorioNotValidException;
+import com.lemnos.server.models.dtos.responses.ResumoVendasResponse;
+import com.lemnos.server.models.enums.DimensaoResumo;
+import com.lemnos.server.models.enums.PeriodoResumo;
+import com.lemnos.server.models.enums.Status;
+import com.lemnos.server.models.outbox.PedidoCriadoEvento;
+import com.lemnos.server.models.outbox.StatusPedidoEvento;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Mantém a tabela Resumo_Vendas, com os agregados de vendas por hora e por dia.
+ * <p>
+ * Os agregados são incrementados pelo {@link ResumoVendasManipulador} na mesma transação que dá baixa no evento da Outbox,
+ * então cada pedido é somado uma única vez. A reconstrução refaz os agregados diários a partir de Pedido, Itens_Pedido e Entrega;
+ * como Data_Pedido não guarda a hora, os agregados por hora só existem para pedidos feitos depois desta tabela.
+ * <p>
+ * Incremento e reconstrução de um mesmo dia são serializados por um advisory lock do dia: o incremento pega o lock compartilhado
+ * e a reconstrução o exclusivo, ignorando os pedidos cujos eventos ainda estão pendentes na Outbox (eles serão somados pelo manipulador).
+ **/
+@Service
+@RequiredArgsConstructor
+public class ResumoVendasService {
+    private static final Logger log = LoggerFactory.getLogger(ResumoVendasService.class);
+    private static final int TRAVA_RESUMO = 36;
+    private static final int THREADS = 4;
+    private static final int MAXIMO_DIAS = 366;
+    private static final int MAXIMO_DIAS_POR_HORA = 31;
+    private static final String CHAVE_TOTAL = "";
+    private static final String SEM_CATEGORIA = "Sem categoria";
+
+    private static final String SOMAR = """
+            INSERT INTO Resumo_Vendas (Periodo, Dimensao, Inicio, Chave, Pedidos, Itens, Receita, Frete, Entregues)
+            VALUES (:periodo, :dimensao, :inicio, :chave, :pedidos, :itens, :receita, :frete, :entregues)
+            ON CONFLICT (Periodo, Dimensao, Inicio, Chave) DO UPDATE SET
+                Pedidos = Resumo_Vendas.Pedidos + EXCLUDED.Pedidos,
+                Itens = Resumo_Vendas.Itens + EXCLUDED.Itens,
+                Receita = Resumo_Vendas.Receita + EXCLUDED.Receita,
+                Frete = Resumo_Vendas.Frete + EXCLUDED.Frete,
+                Entregues = Resumo_Vendas.Entregues + EXCLUDED.Entregues
+            """;
+
+    private static final String RECONSTRUIR_VENDAS = """
+            INSERT INTO Resumo_Vendas (Periodo, Dimensao, Inicio, Chave, Pedidos, Itens, Receita, Frete, Entregues)
+            WITH pedidos AS (
+                SELECT p.Id, p.Metodo_Pagamento, p.Valor_Pedido, p.Valor_Frete FROM Pedido p
+                WHERE p.Data_Pedido = :dia
+                AND NOT EXISTS (SELECT 1 FROM Outbox o WHERE o.Estado = 'PENDENTE' AND o.Agregado = p.Id::text AND o.Tipo = 'PEDIDO_CRIADO')
+            ), itens AS (
+                SELECT i.Id_Pedido, i.Id_Produto, i.Quantidade, i.Quantidade * COALESCE(i.Valor_Efetivo, 0) AS Receita, COALESCE(c.Nome, :semCategoria) AS Categoria
+                FROM Itens_Pedido i
+                JOIN pedidos p ON p.Id = i.Id_Pedido
+                LEFT JOIN Produto pr ON pr.Id = i.Id_Produto
+                LEFT JOIN Sub_Categoria s ON s.Id = pr.Id_Sub_Categoria
+                LEFT JOIN Categoria c ON c.Id = s.Id_Categoria
+            ), totais AS (
+                SELECT p.Id, p.Metodo_Pagamento, p.Valor_Pedido, p.Valor_Frete, COALESCE(SUM(i.Quantidade), 0) AS Itens
+                FROM pedidos p
+                LEFT JOIN itens i ON i.Id_Pedido = p.Id
+                GROUP BY p.Id, p.Metodo_Pagamento, p.Valor_Pedido, p.Valor_Frete
+            )
+            SELECT 'D', 'TOTAL', :inicio, '', COUNT(*), SUM(t.Itens), SUM(t.Valor_Pedido), SUM(t.Valor_Frete), 0 FROM totais t HAVING COUNT(*) > 0
+            UNION ALL
+            SELECT 'D', 'PAGAMENTO', :inicio, t.Metodo_Pagamento, COUNT(*), SUM(t.Itens), SUM(t.Valor_Pedido), SUM(t.Valor_Frete), 0 FROM totais t GROUP BY t.Metodo_Pagamento
+            UNION ALL
+            SELECT 'D', 'PRODUTO', :inicio, i.Id_Produto::text, COUNT(*), SUM(i.Quantidade), SUM(i.Receita), 0, 0 FROM itens i GROUP BY i.Id_Produto
+            UNION ALL
+            SELECT 'D', 'CATEGORIA', :inicio, i.Categoria, COUNT(DISTINCT i.Id_Pedido), SUM(i.Quantidade), SUM(i.Receita), 0, 0 FROM itens i GROUP BY i.Categoria
+            """;
+
+    private static final String RECONSTRUIR_ENTREGAS = """
+            INSERT INTO Resumo_Vendas (Periodo, Dimensao, Inicio, Chave, Entregues)
+            SELECT 'D', 'TOTAL', :inicio, '', COUNT(*) FROM Entrega e
+            WHERE e.Data_Entrega = :dia
+            AND NOT EXISTS (SELECT 1 FROM Outbox o WHERE o.Estado = 'PENDENTE' AND o.Agregado = e.Id_Pedido::text AND o.Tipo = 'PEDIDO_STATUS_ALTERADO')
+            HAVING COUNT(*) > 0
+            ON CONFLICT (Periodo, Dimensao, Inicio, Chave) DO UPDATE SET Entregues = EXCLUDED.Entregues
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ParticaoService particaoService;
+    private final AtomicBoolean reconstruindo = new AtomicBoolean();
+
+    /**
+     * Lê os agregados de um período direto da Resumo_Vendas, sem tocar em Pedido.
+     *
+     * @param inicio O primeiro dia, por padrão 30 dias antes do fim
+     * @param fim O último dia, inclusive, por padrão hoje
+     **/
+    public ResponseEntity<List<ResumoVendasResponse>> getResumo(String periodo, String dimensao, LocalDate inicio, LocalDate fim) {
+        PeriodoResumo periodoResumo = getEnum(PeriodoResumo.class, periodo, PeriodoResumo.DIA);
+        DimensaoResumo dimensaoResumo = getEnum(DimensaoResumo.class, dimensao, DimensaoResumo.TOTAL);
+        LocalDate ate = (fim == null) ? LocalDate.now() : fim;
+        LocalDate de = (inicio == null) ? ate.minusDays(30) : inicio;
+        if (de.isAfter(ate)) throw new RelatorioNotValidException("O início não pode ser depois do fim");
+        long dias = ChronoUnit.DAYS.between(de, ate) + 1;
+        int maximo = (periodoResumo == PeriodoResumo.HORA) ? MAXIMO_DIAS_POR_HORA : MAXIMO_DIAS;
+        if (dias > maximo) throw new RelatorioNotValidException("O período pode ter no máximo " + maximo + " dias");
+
+        return ResponseEntity.ok(jdbcTemplate.query("""
+                SELECT Inicio, Chave, Pedidos, Itens, Receita, Frete, Entregues FROM Resumo_Vendas
+                WHERE Periodo = :periodo AND Dimensao = :dimensao AND Inicio >= :de AND Inicio < :ate
+                ORDER BY Inicio, Receita DESC
+                """,
+                new MapSqlParameterSource()
+                        .addValue("periodo", periodoResumo.getCodigo())
+                        .addValue("dimensao", dimensaoResumo.name())
+                        .addValue("de", de.atStartOfDay())
+                        .addValue("ate", ate.plusDays(1).atStartOfDay()),
+                (rs, i) -> new ResumoVendasResponse(
+                        rs.getTimestamp("Inicio").toLocalDateTime(),
+                        CHAVE_TOTAL.equals(rs.getString("Chave")) ? null : rs.getString("Chave"),
+                        rs.getLong("Pedidos"),
+                        rs.getLong("Itens"),
+                        rs.getDouble("Receita"),
+                        rs.getDouble("Frete"),
+                        rs.getLong("Entregues")
+                )
+        ));
+    }
+
+    public ResponseEntity<Void> reconstruir(LocalDate inicio, LocalDate fim) {
+        if (inicio == null || fim == null) throw new RelatorioNotValidException("Informe o início e o fim da reconstrução");
+        if (inicio.isAfter(fim)) throw new RelatorioNotValidException("O início não pode ser depois do fim");
+        if (!iniciarReconstrucao(inicio, fim)) throw new ReconstrucaoEmAndamentoException();
+        return ResponseEntity.accepted().build();
+    }
+
+    /**
+     * Reconstrói em segundo plano os agregados diários do período, vários dias em paralelo, cada dia na sua transação.
+     *
+     * @return Falso se já houver uma reconstrução em andamento
+     **/
+    public boolean iniciarReconstrucao(LocalDate inicio, LocalDate fim) {
+        if (!reconstruindo.compareAndSet(false, true)) return false;
+
+        Thread.ofVirtual().name("resumo-vendas-reconstrucao").start(() -> {
+            try {
+                reconstruirDias(inicio, fim);
+            }
+            finally {
+                reconstruindo.set(false);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Soma um pedido novo nos agregados da sua hora e do seu dia.
+     **/
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void somarPedido(PedidoCriadoEvento pedido) {
+        LocalDateTime momento = LocalDateTime.ofInstant(pedido.dataPedido(), ZoneId.systemDefault());
+        travar(momento.toLocalDate(), false);
+
+        Map<UUID, String> categorias = getCategorias(pedido.itens().stream().map(PedidoCriadoEvento.ItemVendido::idProduto).toList());
+        long itens = pedido.itens().stream().mapToLong(PedidoCriadoEvento.ItemVendido::quantidade).sum();
+        BigDecimal receita = getValor(pedido.valorPedido());
+        BigDecimal frete = getValor(pedido.valorFrete());
+
+        List<Parcela> parcelas = new ArrayList<>();
+        parcelas.add(new Parcela(DimensaoResumo.TOTAL, CHAVE_TOTAL, 1, itens, receita, frete, 0));
+        parcelas.add(new Parcela(DimensaoResumo.PAGAMENTO, pedido.metodoPagamento(), 1, itens, receita, frete, 0));
+        Map<String, Parcela> porCategoria = new HashMap<>();
+        for (PedidoCriadoEvento.ItemVendido item : pedido.itens()) {
+            BigDecimal receitaItem = getValor(item.valorEfetivo()).multiply(BigDecimal.valueOf(item.quantidade()));
+            parcelas.add(new Parcela(DimensaoResumo.PRODUTO, item.idProduto().toString(), 1, item.quantidade(), receitaItem, BigDecimal.ZERO, 0));
+            String categoria = categorias.getOrDefault(item.idProduto(), SEM_CATEGORIA);
+            porCategoria.merge(categoria, new Parcela(DimensaoResumo.CATEGORIA, categoria, 1, item.quantidade(), receitaItem, BigDecimal.ZERO, 0), Parcela::juntarItens);
+        }
+        parcelas.addAll(porCategoria.values());
+
+        somar(momento, parcelas);
+    }
+
+    /**
+     * Conta uma entrega na hora e no dia em que o pedido foi marcado como entregue. Outras mudanças de status não entram no resumo.
+     **/
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void somarStatus(StatusPedidoEvento status) {
+        if (!Status.ENTREGUE.getStatus().equals(status.status())) return;
+
+        LocalDateTime momento = LocalDateTime.ofInstant(status.dataAlteracao(), ZoneId.systemDefault());
+        travar(momento.toLocalDate(), false);
+        somar(momento, List.of(new Parcela(DimensaoResumo.TOTAL, CHAVE_TOTAL, 0, 0, BigDecimal.ZERO, BigDecimal.ZERO, 1)));
+    }
+
+    private void somar(LocalDateTime momento, List<Parcela> parcelas) {
+        List<SqlParameterSource> parametros = new ArrayList<>();
+        for (PeriodoResumo periodo : PeriodoResumo.values()) {
+            LocalDateTime inicio = periodo.getInicio(momento);
+            parcelas.forEach(parcela -> parametros.add(new MapSqlParameterSource()
+                    .addValue("periodo", periodo.getCodigo())
+                    .addValue("dimensao", parcela.dimensao().name())
+                    .addValue("inicio", inicio)
+                    .addValue("chave", parcela.chave())
+                    .addValue("pedidos", parcela.pedidos())
+                    .addValue("itens", parcela.itens())
+                    .addValue("receita", parcela.receita())
+                    .addValue("frete", parcela.frete())
+                    .addValue("entregues", parcela.entregues())
+            ));
+        }
+        jdbcTemplate.batchUpdate(SOMAR, parametros.toArray(SqlParameterSource[]::new));
+    }
+
+    private void reconstruirDias(LocalDate inicioSolicitado, LocalDate fim) {
+        // Dias arquivados não têm mais os pedidos em Pedido e manteriam só o resumo já calculado
+        LocalDate primeiroDiaAtivo = particaoService.getPrimeiroMesAtivo().atDay(1);
+        LocalDate inicio = inicioSolicitado.isBefore(primeiroDiaAtivo) ? primeiroDiaAtivo : inicioSolicitado;
+        if (inicio.isAfter(fim)) return;
+
+        List<LocalDate> dias = jdbcTemplate.queryForList("""
+                SELECT Data_Pedido FROM Pedido WHERE Data_Pedido BETWEEN :inicio AND :fim
+                UNION
+                SELECT Data_Entrega FROM Entrega WHERE Data_Entrega BETWEEN :inicio AND :fim
+                UNION
+                SELECT CAST(Inicio AS date) FROM Resumo_Vendas WHERE Periodo = 'D' AND Inicio BETWEEN :inicioResumo AND :fimResumo
+                """,
+                new MapSqlParameterSource()
+                        .addValue("inicio", inicio)
+                        .addValue("fim", fim)
+                        .addValue("inicioResumo", inicio.atStartOfDay())
+                        .addValue("fimResumo", fim.atStartOfDay()),
+                LocalDate.class
+        );
+        log.info("Reconstruindo o resumo de vendas de {} dias entre {} e {}", dias.size(), inicio, fim);
+
+        int falhas = 0;
+        List<Future<?>> tarefas = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(THREADS)) {
+            dias.forEach(dia -> tarefas.add(executor.submit(() -> reconstruirDia(dia))));
+            for (Future<?> tarefa : tarefas) {
+                try {
+                    tarefa.get();
+                }
+                catch (Exception e) {
+                    falhas++;
+                    log.error("Falha ao reconstruir um dia do resumo de vendas", e);
+                }
+            }
+        }
+        log.info("Resumo de vendas reconstruído, {} dias com falha", falhas);
+    }
+
+    private void reconstruirDia(LocalDate dia) {
+        transactionTemplate.executeWithoutResult(status -> {
+            travar(dia, true);
+            MapSqlParameterSource parametros = new MapSqlParameterSource()
+                    .addValue("dia", dia)
+                    .addValue("inicio", dia.atStartOfDay())
+                    .addValue("semCategoria", SEM_CATEGORIA);
+            jdbcTemplate.update("DELETE FROM Resumo_Vendas WHERE Periodo = 'D' AND Inicio = :inicio", parametros);
+            jdbcTemplate.update(RECONSTRUIR_VENDAS, parametros);
+            jdbcTemplate.update(RECONSTRUIR_ENTREGAS, parametros);
+        });
+    }
+
+    /**
+     * Advisory lock do dia até o fim da transação. Incrementos usam o lock compartilhado e não se bloqueiam entre si.
+     **/
+    private void travar(LocalDate dia, boolean exclusivo) {
+        String funcao = exclusivo ? "pg_advisory_xact_lock" : "pg_advisory_xact_lock_shared";
+        jdbcTemplate.query(
+                "SELECT " + funcao + "(:trava, :dia)",
+                new MapSqlParameterSource().addValue("trava", TRAVA_RESUMO).addValue("dia", (int) dia.toEpochDay()),
+                rs -> { }
+        );
+    }
+
+    private Map<UUID, String> getCategorias(List<UUID> idsProduto) {
+        if (idsProduto.isEmpty()) return Map.of();
+
+        Map<UUID, String> categorias = new HashMap<>();
+        jdbcTemplate.query("""
+                SELECT p.Id, c.Nome FROM Produto p
+                JOIN Sub_Categoria s ON s.Id = p.Id_Sub_Categoria
+                JOIN Categoria c ON c.Id = s.Id_Categoria
+                WHERE p.Id IN (:ids) AND c.Nome IS NOT NULL
+                """,
+                Map.of("ids", idsProduto),
+                rs -> {
+                    categorias.put(rs.getObject("Id", UUID.class), rs.getString("Nome"));
+                }
+        );
+        return categorias;
+    }
+
+    private BigDecimal getValor(Double valor) {
+        return (valor == null) ? BigDecimal.ZERO : BigDecimal.valueOf(valor);
+    }
+
+    private <E extends Enum<E>> E getEnum(Class<E> classe, String valor, E padrao) {
+        if (valor == null || valor.isBlank()) return padrao;
+        try {
+            return Enum.valueOf(classe, valor.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new RelatorioNotValidException("Valor inválido '" + valor + "', use um de: " + Arrays.toString(classe.getEnumConstants()));
+        }
+    }
+
+    private record Parcela(DimensaoResumo dimensao, String chave, long pedidos, long itens, BigDecimal receita, BigDecimal frete, long entregues) {
+        /**
+         * Junta os itens de outra parcela da mesma chave no mesmo pedido, sem contar o pedido de novo.
+         **/
+        private Parcela juntarItens(Parcela outra) {
+            return new Parcela(dimensao, chave, pedidos, itens + outra.itens, receita.add(outra.receita), frete, entregues);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.lemnos.server.services;
+
+import com.lemnos.server.models.carrinho.CarrinhoMemoria;
+import com.lemnos.server.models.enums.TipoVersao;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Versões dos agregados lidos pelos clientes, usadas como ETag nas leituras.
+ * <p>
+ * As leituras chamam {@link #responder}, que compara o {@code If-None-Match} com a versão atual e responde 304 sem carregar
+ * nada quando ela não mudou. A versão é lida antes da carga, então uma escrita no meio da leitura faz o próximo pedido baixar
+ * de novo em vez de ficar desatualizado.
+ * <p>
+ * As versões vêm do banco, então valem para todas as instâncias e nenhuma escrita precisa avisar este service:
+ * <ul>
+ *     <li>O catálogo usa o feed de Alteracao_Produto: a última versão numerada e os Ids das alterações ainda sem versão,
+ *     que a numeração só tira dessa lista depois de avançar a sequência. Um produto usa os Ids das linhas dele no feed.</li>
+ *     <li>Os pedidos e os favoritos usam um hash das linhas do cliente: Id, status e data de cada pedido, e os produtos favoritados.</li>
+ *     <li>O carrinho usa o carrinho em memória, que o {@link CarrinhoStore} confere com Carrinho_Versao a cada acesso,
+ *     e os rankings usam a versão deles nesta instância; os dois também levam a versão do catálogo.</li>
+ * </ul>
+ * Quando a versão do catálogo muda, o {@link ProdutoJsonCache} é limpo antes de responder, já que as escritas feitas
+ * em outras instâncias não passam por ele.
+ **/
+@Service
+public class VersaoService {
+    private static final String CATALOGO = """
+            SELECT (SELECT last_value FROM alteracao_produto_versao_seq) || COALESCE('.' || md5(string_agg(Id::text, ',' ORDER BY Id)), '')
+            FROM Alteracao_Produto WHERE Versao IS NULL
+            """;
+    private static final String PRODUTO = """
+            SELECT COALESCE(md5(string_agg(Id::text, ',' ORDER BY Id)), '0') FROM Alteracao_Produto WHERE Id_Produto = :id
+            """;
+    private static final String PEDIDOS = """
+            SELECT COUNT(*) || COALESCE('.' || md5(string_agg(Id || '.' || Status || '.' || Data_Pedido, ',' ORDER BY Id)), '')
+            FROM Pedido WHERE Id_Cadastro = :id
+            """;
+    private static final String FAVORITOS = """
+            SELECT COUNT(*) || COALESCE('.' || md5(string_agg(Id_Produto::text, ',' ORDER BY Id_Produto)), '')
+            FROM Produtos_Favoritos WHERE Id_Cliente = :id
+            """;
+
+    private final String instancia = UUID.randomUUID().toString().substring(0, 8);
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final CarrinhoStore carrinhoStore;
+    private final RankingService rankingService;
+    private final ProdutoJsonCache produtoJsonCache;
+    private volatile String ultimoCatalogo;
+
+    public VersaoService(NamedParameterJdbcTemplate jdbcTemplate, CarrinhoStore carrinhoStore, RankingService rankingService, ProdutoJsonCache produtoJsonCache) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.carrinhoStore = carrinhoStore;
+        this.rankingService = rankingService;
+        this.produtoJsonCache = produtoJsonCache;
+    }
+
+    /**
+     * Responde 304 quando o {@code If-None-Match} tem a versão atual do agregado. Senão carrega a resposta
+     * e acrescenta o ETag, se ela for 200.
+     *
+     * @param chave O que identifica o agregado, descrito em cada {@link TipoVersao}
+     **/
+    public <T> ResponseEntity<T> responder(TipoVersao tipo, Object chave, String ifNoneMatch, Supplier<ResponseEntity<T>> carregar) {
+        String etag = "W/\"" + getVersao(tipo, chave) + "\"";
+        if (isIgual(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+
+        ResponseEntity<T> resposta = carregar.get();
+        if (resposta.getStatusCode() != HttpStatus.OK) return resposta;
+        return ResponseEntity.ok()
+                .headers(resposta.getHeaders())
+                .eTag(etag)
+                .body(resposta.getBody());
+    }
+
+    private String getVersao(TipoVersao tipo, Object chave) {
+        return switch (tipo) {
+            case CATALOGO -> "c" + getVersaoCatalogo();
+            case PRODUTO -> "p" + consultar(PRODUTO, chave);
+            case RANKING -> "r" + getVersaoCatalogo() + "." + instancia + "." + rankingService.getVersao();
+            // O total do carrinho usa os preços atuais dos produtos
+            case CARRINHO -> "k" + carrinhoStore.ler((String) chave, this::getVersaoCarrinho) + "." + getVersaoCatalogo();
+            case FAVORITOS -> "f" + consultar(FAVORITOS, chave);
+            case PEDIDOS -> "e" + consultar(PEDIDOS, chave);
+        };
+    }
+
+    /**
+     * Limpa o cache de JSON antes de entregar uma versão nova do catálogo, para que nenhuma resposta com ela use um JSON anterior.
+     **/
+    private String getVersaoCatalogo() {
+        String versao = consultar(CATALOGO, null);
+        if (!versao.equals(ultimoCatalogo)) {
+            produtoJsonCache.invalidarTudo();
+            ultimoCatalogo = versao;
+        }
+        return versao;
+    }
+
+    /**
+     * O carrinho em memória muda de versão a cada alteração e é trocado por outro quando relido do banco.
+     **/
+    private String getVersaoCarrinho(CarrinhoMemoria carrinho) {
+        return instancia + "." + carrinho.getCarga() + "." + carrinho.getVersao();
+    }
+
+    private String consultar(String sql, Object chave) {
+        return jdbcTemplate.queryForObject(sql, (chave == null) ? Map.of() : Map.of("id", chave), String.class);
+    }
+
+    /**
+     * Comparação fraca: ignora o prefixo {@code W/}, porque as respostas comprimidas e as sem compressão têm o mesmo ETag.
+     **/
+    private boolean isIgual(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) return false;
+        String valor = etag.substring(2);
+        for (String candidato : ifNoneMatch.split(",")) {
+            candidato = candidato.trim();
+            if (candidato.startsWith("W/")) candidato = candidato.substring(2);
+            if (candidato.equals(valor)) return true;
+        }
+        return false;
+    }
+}
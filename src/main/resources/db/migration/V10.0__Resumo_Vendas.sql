@@ -0,0 +1,18 @@
+-- Agregados de vendas por hora (Periodo 'H') e por dia (Periodo 'D'), mantidos pelos eventos da Outbox.
+-- Dimensao: TOTAL (Chave vazia), PRODUTO (Id do produto), CATEGORIA (nome da categoria) ou PAGAMENTO (método de pagamento).
+CREATE TABLE Resumo_Vendas (
+    Periodo char(1) NOT NULL,
+    Dimensao varchar(10) NOT NULL,
+    Inicio timestamp NOT NULL,
+    Chave varchar(50) NOT NULL,
+    Pedidos bigint NOT NULL DEFAULT 0,
+    Itens bigint NOT NULL DEFAULT 0,
+    Receita numeric(14, 2) NOT NULL DEFAULT 0,
+    Frete numeric(14, 2) NOT NULL DEFAULT 0,
+    Entregues bigint NOT NULL DEFAULT 0,
+    PRIMARY KEY (Periodo, Dimensao, Inicio, Chave),
+    CONSTRAINT resumo_vendas_periodo_check CHECK(Periodo IN ('H', 'D'))
+);
+
+-- A reconstrução ignora pedidos cujos eventos ainda estão na fila
+CREATE INDEX idx_outbox_agregado ON Outbox(Agregado) WHERE Estado = 'PENDENTE';
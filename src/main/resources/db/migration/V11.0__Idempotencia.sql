@@ -0,0 +1,12 @@
+-- Primeira resposta de cada Idempotency-Key por usuário. Status_Http nulo indica uma requisição ainda em andamento.
+CREATE TABLE Idempotencia (
+    Usuario varchar(100) NOT NULL,
+    Chave varchar(100) NOT NULL,
+    Impressao char(64) NOT NULL,
+    Status_Http smallint,
+    Content_Type varchar(100),
+    Corpo bytea,
+    Expira_Em timestamp NOT NULL,
+    PRIMARY KEY (Usuario, Chave)
+);
+CREATE INDEX idx_idempotencia_expira ON Idempotencia(Expira_Em);
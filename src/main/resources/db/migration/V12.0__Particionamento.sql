@@ -0,0 +1,69 @@
+-- Pedido, Entrega e Avaliacao passam a ser particionadas por mês da sua data.
+-- A chave de partição precisa fazer parte da chave primária, então Pedido(Id) deixa de ser único sozinho
+-- e as FKs que apontavam para ele são removidas; os Ids continuam vindo das mesmas sequências.
+-- Partições antigas são movidas para o schema arquivo pelo ParticaoService.
+CREATE SCHEMA IF NOT EXISTS arquivo;
+
+-- Cria as partições mensais que faltam entre os meses de inicio e fim, inclusive. Retorna quantas foram criadas.
+CREATE OR REPLACE FUNCTION criar_particoes_mensais(tabela text, inicio date, fim date) RETURNS int AS $$
+DECLARE
+    mes date := date_trunc('month', inicio)::date;
+    nome text;
+    criadas int := 0;
+BEGIN
+    WHILE mes <= fim LOOP
+        nome := lower(tabela) || '_' || to_char(mes, 'YYYY_MM');
+        IF to_regclass('public.' || nome) IS NULL AND to_regclass('arquivo.' || nome) IS NULL THEN
+            EXECUTE format('CREATE TABLE public.%I PARTITION OF public.%I FOR VALUES FROM (%L) TO (%L)',
+                nome, lower(tabela), mes, (mes + interval '1 month')::date);
+            criadas := criadas + 1;
+        END IF;
+        mes := (mes + interval '1 month')::date;
+    END LOOP;
+    RETURN criadas;
+END
+$$ LANGUAGE plpgsql;
+
+ALTER TABLE Itens_Pedido DROP CONSTRAINT fk_itens_pedido_pedido;
+ALTER TABLE Entrega DROP CONSTRAINT fk_entrega_pedido;
+
+-- Pedido
+ALTER TABLE Pedido RENAME TO Pedido_Antigo;
+ALTER SEQUENCE pedido_id_seq OWNED BY NONE;
+CREATE TABLE Pedido (LIKE Pedido_Antigo INCLUDING DEFAULTS INCLUDING CONSTRAINTS) PARTITION BY RANGE (Data_Pedido);
+CREATE TABLE Pedido_Padrao PARTITION OF Pedido DEFAULT;
+SELECT criar_particoes_mensais('Pedido', COALESCE((SELECT MIN(Data_Pedido) FROM Pedido_Antigo), current_date), (current_date + interval '3 months')::date);
+INSERT INTO Pedido SELECT * FROM Pedido_Antigo;
+DROP TABLE Pedido_Antigo;
+ALTER SEQUENCE pedido_id_seq OWNED BY Pedido.Id;
+ALTER TABLE Pedido ADD PRIMARY KEY (Id, Data_Pedido);
+ALTER TABLE Pedido ADD CONSTRAINT fk_pedido_cadastro FOREIGN KEY(Id_Cadastro) REFERENCES Cadastro(Id);
+CREATE INDEX idx_pedido_cadastro_data ON Pedido(Id_Cadastro, Data_Pedido DESC, Id DESC);
+CREATE INDEX idx_pedido_status_data ON Pedido(Status, Data_Pedido, Id);
+
+-- Entrega
+ALTER TABLE Entrega RENAME TO Entrega_Antiga;
+ALTER SEQUENCE entrega_id_seq OWNED BY NONE;
+CREATE TABLE Entrega (LIKE Entrega_Antiga INCLUDING DEFAULTS INCLUDING CONSTRAINTS) PARTITION BY RANGE (Data_Entrega);
+CREATE TABLE Entrega_Padrao PARTITION OF Entrega DEFAULT;
+SELECT criar_particoes_mensais('Entrega', COALESCE((SELECT MIN(Data_Entrega) FROM Entrega_Antiga), current_date), (current_date + interval '3 months')::date);
+INSERT INTO Entrega SELECT * FROM Entrega_Antiga;
+DROP TABLE Entrega_Antiga;
+ALTER SEQUENCE entrega_id_seq OWNED BY Entrega.Id;
+ALTER TABLE Entrega ADD PRIMARY KEY (Id, Data_Entrega);
+CREATE INDEX idx_entrega_pedido ON Entrega(Id_Pedido);
+
+-- Avaliacao
+UPDATE Avaliacao SET Data_Avaliacao = current_date WHERE Data_Avaliacao IS NULL;
+ALTER TABLE Avaliacao RENAME TO Avaliacao_Antiga;
+ALTER SEQUENCE avaliacao_id_seq OWNED BY NONE;
+CREATE TABLE Avaliacao (LIKE Avaliacao_Antiga INCLUDING DEFAULTS INCLUDING CONSTRAINTS) PARTITION BY RANGE (Data_Avaliacao);
+CREATE TABLE Avaliacao_Padrao PARTITION OF Avaliacao DEFAULT;
+SELECT criar_particoes_mensais('Avaliacao', COALESCE((SELECT MIN(Data_Avaliacao) FROM Avaliacao_Antiga), current_date), (current_date + interval '3 months')::date);
+INSERT INTO Avaliacao SELECT * FROM Avaliacao_Antiga;
+DROP TABLE Avaliacao_Antiga;
+ALTER SEQUENCE avaliacao_id_seq OWNED BY Avaliacao.Id;
+ALTER TABLE Avaliacao ALTER COLUMN Data_Avaliacao SET NOT NULL;
+ALTER TABLE Avaliacao ADD PRIMARY KEY (Id, Data_Avaliacao);
+ALTER TABLE Avaliacao ADD CONSTRAINT fk_avaliacao_produto FOREIGN KEY(Id_Produto) REFERENCES Produto(Id);
+CREATE INDEX idx_avaliacao_produto ON Avaliacao(Id_Produto);
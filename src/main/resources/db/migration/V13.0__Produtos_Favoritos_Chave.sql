@@ -0,0 +1,9 @@
+-- Produtos_Favoritos passa a ser um conjunto: cada produto aparece uma vez por cliente
+DELETE FROM Produtos_Favoritos WHERE Id_Cliente IS NULL OR Id_Produto IS NULL;
+
+DELETE FROM Produtos_Favoritos f
+USING Produtos_Favoritos outro
+WHERE f.Id_Cliente = outro.Id_Cliente AND f.Id_Produto = outro.Id_Produto AND f.ctid > outro.ctid;
+
+ALTER TABLE Produtos_Favoritos ADD PRIMARY KEY (Id_Cliente, Id_Produto);
+CREATE INDEX idx_produtos_favoritos_produto ON Produtos_Favoritos(Id_Produto, Id_Cliente);
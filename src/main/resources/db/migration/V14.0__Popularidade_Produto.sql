@@ -0,0 +1,13 @@
+-- Sinais de popularidade por produto, gravados em lote pelo PopularidadeService.
+-- Pontuacao é o logaritmo da soma dos pesos dos eventos, cada um multiplicado por exp(lambda * horas desde 2024-01-01):
+-- a ordem entre produtos é a mesma da pontuação com decaimento exponencial, sem precisar reescrever as linhas paradas.
+CREATE TABLE Popularidade_Produto (
+    Id_Produto UUID PRIMARY KEY,
+    Visualizacoes bigint NOT NULL DEFAULT 0,
+    Favoritos bigint NOT NULL DEFAULT 0,
+    Adicoes_Carrinho bigint NOT NULL DEFAULT 0,
+    Pontuacao double precision NOT NULL,
+    Atualizado_Em timestamp NOT NULL DEFAULT now(),
+    CONSTRAINT fk_popularidade_produto_produto FOREIGN KEY(Id_Produto) REFERENCES Produto(Id) ON DELETE CASCADE
+);
+CREATE INDEX idx_popularidade_pontuacao ON Popularidade_Produto(Pontuacao DESC);
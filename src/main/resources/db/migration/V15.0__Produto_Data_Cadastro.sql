@@ -0,0 +1,12 @@
+-- Data de cadastro do produto, usada no ranking de novidades
+ALTER TABLE Produto ADD COLUMN Data_Cadastro timestamp;
+
+-- Os produtos que já existem não têm a data real: usa o primeiro fornecimento registrado, que é gravado junto com o cadastro.
+-- Produtos sem fornecimento recebem uma data antiga para ficarem no fim das novidades em vez de empatarem com a data da migração.
+UPDATE Produto p SET Data_Cadastro = COALESCE(
+    (SELECT MIN(df.Data_Fornecimento) FROM Data_Fornece df WHERE df.Id_Produto = p.Id)::timestamp,
+    timestamp '1970-01-01'
+);
+
+ALTER TABLE Produto ALTER COLUMN Data_Cadastro SET DEFAULT now();
+ALTER TABLE Produto ALTER COLUMN Data_Cadastro SET NOT NULL;
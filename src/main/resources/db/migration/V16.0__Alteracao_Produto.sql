@@ -0,0 +1,28 @@
+-- Feed de alterações do catálogo, lido por /produto/changes para a sincronização incremental de clientes e parceiros.
+-- Cada escrita em um produto gera uma linha. O AlteracaoProdutoService compacta o feed mantendo só a última linha de cada produto
+-- e apagando as remoções antigas; Alteracao_Produto_Horizonte guarda até qual versão o feed deixou de ter todas as remoções.
+--
+-- As linhas entram sem versão, com o Xid da transação que as gravou. A versão só é dada quando essa transação já terminou
+-- (Xid abaixo do xmin do snapshot), então uma alteração nunca recebe uma versão menor que outra já entregue.
+CREATE TABLE Alteracao_Produto (
+    Id bigserial PRIMARY KEY,
+    Versao bigint UNIQUE,
+    Id_Produto UUID NOT NULL,
+    Operacao varchar(6) NOT NULL,
+    Data_Alteracao timestamp NOT NULL DEFAULT clock_timestamp(),
+    Xid xid8 NOT NULL DEFAULT pg_current_xact_id()
+);
+CREATE SEQUENCE Alteracao_Produto_Versao_Seq;
+CREATE INDEX idx_alteracao_produto_produto ON Alteracao_Produto(Id_Produto, Versao);
+CREATE INDEX idx_alteracao_produto_pendente ON Alteracao_Produto(Xid, Id) WHERE Versao IS NULL;
+
+CREATE TABLE Alteracao_Produto_Horizonte (
+    Id boolean PRIMARY KEY DEFAULT true CHECK (Id),
+    Versao bigint NOT NULL
+);
+INSERT INTO Alteracao_Produto_Horizonte (Versao) VALUES (0);
+
+-- Os produtos que já existem entram no feed já com versão, para que since=0 traga o catálogo inteiro
+INSERT INTO Alteracao_Produto (Versao, Id_Produto, Operacao)
+SELECT nextval('alteracao_produto_versao_seq'), p.Id, 'UPSERT'
+FROM (SELECT Id FROM Produto ORDER BY Data_Cadastro, Id) p;
@@ -0,0 +1,32 @@
+-- Promoções com período de validade; Iniciada e Encerrada marcam as transições já aplicadas aos produtos
+CREATE TABLE Promocao (
+    Id SERIAL PRIMARY KEY,
+    Nome varchar(100) NOT NULL,
+    Porcentagem int NOT NULL,
+    Inicio timestamp NOT NULL,
+    Fim timestamp NOT NULL,
+    Prioridade int NOT NULL DEFAULT 0,
+    Acumulavel boolean NOT NULL DEFAULT false,
+    Cancelada boolean NOT NULL DEFAULT false,
+    Iniciada boolean NOT NULL DEFAULT false,
+    Encerrada boolean NOT NULL DEFAULT false,
+    Data_Cadastro timestamp NOT NULL DEFAULT now(),
+    CONSTRAINT promocao_porcentagem_check CHECK(Porcentagem BETWEEN 1 AND 99),
+    CONSTRAINT promocao_periodo_check CHECK(Fim > Inicio)
+);
+CREATE INDEX idx_promocao_pendente ON Promocao(Inicio, Fim) WHERE NOT Encerrada;
+CREATE TABLE Promocao_Produto (
+    Id_Promocao int NOT NULL,
+    Id_Produto UUID NOT NULL,
+    PRIMARY KEY (Id_Promocao, Id_Produto),
+    CONSTRAINT fk_promocao_produto_promocao FOREIGN KEY(Id_Promocao) REFERENCES Promocao(Id) ON DELETE CASCADE,
+    CONSTRAINT fk_promocao_produto_produto FOREIGN KEY(Id_Produto) REFERENCES Produto(Id) ON DELETE CASCADE
+);
+CREATE INDEX idx_promocao_produto_produto ON Promocao_Produto(Id_Produto);
+-- Desconto do próprio produto enquanto alguma promoção vale para ele, devolvido quando a última termina
+CREATE TABLE Promocao_Desconto_Base (
+    Id_Produto UUID PRIMARY KEY,
+    Id_Desconto int NOT NULL,
+    CONSTRAINT fk_promocao_desconto_base_produto FOREIGN KEY(Id_Produto) REFERENCES Produto(Id) ON DELETE CASCADE,
+    CONSTRAINT fk_promocao_desconto_base_desconto FOREIGN KEY(Id_Desconto) REFERENCES Desconto(Id)
+);
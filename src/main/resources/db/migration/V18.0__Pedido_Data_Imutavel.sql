@@ -0,0 +1,14 @@
+-- Data_Pedido é a chave de partição de Pedido: um UPDATE nela moveria o pedido de partição e mudaria a chave primária.
+-- Qualquer UPDATE que tente alterá-la é recusado.
+CREATE OR REPLACE FUNCTION impedir_alteracao_data_pedido() RETURNS trigger AS $$
+BEGIN
+    IF NEW.Data_Pedido IS DISTINCT FROM OLD.Data_Pedido THEN
+        RAISE EXCEPTION 'Data_Pedido do pedido % não pode ser alterada', OLD.Id USING ERRCODE = 'check_violation';
+    END IF;
+    RETURN NEW;
+END
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_pedido_data_imutavel
+    BEFORE UPDATE OF Data_Pedido ON Pedido
+    FOR EACH ROW EXECUTE FUNCTION impedir_alteracao_data_pedido();
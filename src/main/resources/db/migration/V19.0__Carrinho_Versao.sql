@@ -0,0 +1,6 @@
+-- Versão do carrinho gravado de cada cadastro, incrementada a cada gravação do journal. Fica fora de Carrinho porque
+-- a linha do carrinho é apagada quando ele esvazia, e as instâncias comparam esta versão com a do carrinho em memória.
+CREATE TABLE Carrinho_Versao (
+    Id_Cadastro integer PRIMARY KEY REFERENCES Cadastro (Id) ON DELETE CASCADE,
+    Versao bigint NOT NULL
+);
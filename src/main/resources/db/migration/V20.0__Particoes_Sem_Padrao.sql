@@ -0,0 +1,13 @@
+-- O ParticaoService arquiva as partições de Pedido e Entrega com DETACH PARTITION ... CONCURRENTLY, que não pode ser usado
+-- em tabelas com partição padrão. As linhas que estiverem na partição padrão vão para as partições mensais do seu mês,
+-- criadas aqui se faltarem. Sem ela, uma data fora das partições é recusada; as partições são criadas com três meses de antecedência.
+-- Avaliacao não é arquivada e mantém a sua.
+ALTER TABLE Pedido DETACH PARTITION Pedido_Padrao;
+SELECT criar_particoes_mensais('Pedido', MIN(Data_Pedido), MAX(Data_Pedido)) FROM Pedido_Padrao HAVING COUNT(*) > 0;
+INSERT INTO Pedido SELECT * FROM Pedido_Padrao;
+DROP TABLE Pedido_Padrao;
+
+ALTER TABLE Entrega DETACH PARTITION Entrega_Padrao;
+SELECT criar_particoes_mensais('Entrega', MIN(Data_Entrega), MAX(Data_Entrega)) FROM Entrega_Padrao HAVING COUNT(*) > 0;
+INSERT INTO Entrega SELECT * FROM Entrega_Padrao;
+DROP TABLE Entrega_Padrao;
@@ -0,0 +1,2 @@
+ALTER TABLE Carrinho DROP CONSTRAINT IF EXISTS carrinho_check;
+ALTER TABLE Carrinho ADD CONSTRAINT carrinho_check CHECK(Valor >= 0 AND Quantidade_Produtos > -1);
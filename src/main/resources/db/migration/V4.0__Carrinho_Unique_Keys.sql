@@ -0,0 +1,38 @@
+-- Junta carrinhos duplicados de um mesmo cadastro no carrinho mais antigo
+UPDATE Itens_Carrinho i SET Id_Carrinho = d.Id_Manter
+FROM (
+    SELECT Id, MIN(Id) OVER (PARTITION BY Id_Cadastro) AS Id_Manter
+    FROM Carrinho
+) d
+WHERE i.Id_Carrinho = d.Id AND d.Id <> d.Id_Manter;
+
+UPDATE Carrinho c SET Valor = t.Valor, Quantidade_Produtos = t.Quantidade
+FROM (
+    SELECT Id_Cadastro, SUM(Valor) AS Valor, SUM(Quantidade_Produtos) AS Quantidade, MIN(Id) AS Id_Manter
+    FROM Carrinho
+    GROUP BY Id_Cadastro
+    HAVING COUNT(*) > 1
+) t
+WHERE c.Id = t.Id_Manter;
+
+DELETE FROM Carrinho c
+USING Carrinho outro
+WHERE c.Id_Cadastro = outro.Id_Cadastro AND c.Id > outro.Id;
+
+-- Junta itens repetidos de um mesmo produto no mesmo carrinho
+UPDATE Itens_Carrinho i SET Quantidade = t.Quantidade
+FROM (
+    SELECT Id_Carrinho, Id_Produto, SUM(Quantidade) AS Quantidade, MIN(Id) AS Id_Manter
+    FROM Itens_Carrinho
+    GROUP BY Id_Carrinho, Id_Produto
+    HAVING COUNT(*) > 1
+) t
+WHERE i.Id = t.Id_Manter;
+
+DELETE FROM Itens_Carrinho i
+USING Itens_Carrinho outro
+WHERE i.Id_Carrinho = outro.Id_Carrinho AND i.Id_Produto = outro.Id_Produto AND i.Id > outro.Id;
+
+-- As chaves únicas também servem de índice para as buscas do flush por Id_Cadastro e por Id_Carrinho
+ALTER TABLE Carrinho ADD CONSTRAINT uk_carrinho_cadastro UNIQUE (Id_Cadastro);
+ALTER TABLE Itens_Carrinho ADD CONSTRAINT uk_itens_carrinho_produto UNIQUE (Id_Carrinho, Id_Produto);
@@ -0,0 +1,20 @@
+-- Produtos sem linha em Estoque não têm o estoque controlado e podem ser vendidos sem limite
+CREATE TABLE Estoque (
+    Id_Produto UUID PRIMARY KEY,
+    Quantidade int NOT NULL,
+    Quente boolean NOT NULL DEFAULT false,
+    Data_Atualizacao timestamp NOT NULL DEFAULT now(),
+    CONSTRAINT fk_estoque_produto FOREIGN KEY(Id_Produto) REFERENCES Produto(Id) ON DELETE CASCADE,
+    CONSTRAINT estoque_check CHECK(Quantidade >= 0)
+);
+CREATE TABLE Reserva_Estoque (
+    Id_Cadastro int NOT NULL,
+    Id_Produto UUID NOT NULL,
+    Quantidade int NOT NULL,
+    Expira_Em timestamp NOT NULL,
+    PRIMARY KEY (Id_Cadastro, Id_Produto),
+    CONSTRAINT fk_reserva_estoque_cadastro FOREIGN KEY(Id_Cadastro) REFERENCES Cadastro(Id),
+    CONSTRAINT fk_reserva_estoque_produto FOREIGN KEY(Id_Produto) REFERENCES Estoque(Id_Produto) ON DELETE CASCADE,
+    CONSTRAINT reserva_estoque_check CHECK(Quantidade > 0)
+);
+CREATE INDEX idx_reserva_estoque_expira ON Reserva_Estoque(Expira_Em);
@@ -0,0 +1,15 @@
+-- Sem FK para Produto: itens vendidos continuam no histórico mesmo depois que o produto é apagado.
+-- Os preços dos pedidos anteriores a esta tabela não foram registrados e ficam nulos no backfill.
+CREATE TABLE Itens_Pedido (
+    Id_Pedido int NOT NULL,
+    Id_Produto UUID NOT NULL,
+    Quantidade int NOT NULL,
+    Valor_Unitario numeric(10, 2),
+    Valor_Efetivo numeric(10, 2),
+    PRIMARY KEY (Id_Pedido, Id_Produto),
+    CONSTRAINT fk_itens_pedido_pedido FOREIGN KEY(Id_Pedido) REFERENCES Pedido(Id),
+    CONSTRAINT itens_pedido_check CHECK(Quantidade > 0)
+);
+CREATE INDEX idx_itens_pedido_produto ON Itens_Pedido(Id_Produto) INCLUDE (Quantidade, Valor_Efetivo);
+
+ALTER TABLE Pedido ALTER COLUMN Descricao DROP NOT NULL;
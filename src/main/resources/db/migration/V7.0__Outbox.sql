@@ -0,0 +1,15 @@
+-- Eventos gravados na mesma transação da alteração que os gerou e consumidos pelo OutboxWorker.
+-- Eventos processados são apagados; os que esgotam as tentativas ficam com o estado MORTO.
+CREATE TABLE Outbox (
+    Id BIGSERIAL PRIMARY KEY,
+    Tipo varchar(50) NOT NULL,
+    Agregado varchar(50) NOT NULL,
+    Payload text NOT NULL,
+    Estado varchar(20) NOT NULL DEFAULT 'PENDENTE',
+    Tentativas int NOT NULL DEFAULT 0,
+    Proxima_Tentativa timestamp NOT NULL DEFAULT now(),
+    Ultimo_Erro varchar(1024),
+    Data_Criacao timestamp NOT NULL DEFAULT now()
+);
+CREATE INDEX idx_outbox_pendentes ON Outbox(Proxima_Tentativa, Id) WHERE Estado = 'PENDENTE';
+CREATE INDEX idx_outbox_mortos ON Outbox(Id) WHERE Estado = 'MORTO';
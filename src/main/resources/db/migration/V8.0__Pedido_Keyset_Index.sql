@@ -0,0 +1 @@
+CREATE INDEX idx_pedido_cadastro_data ON Pedido(Id_Cadastro, Data_Pedido DESC, Id DESC);
@@ -0,0 +1,23 @@
+-- Status passa a ser o código do enum Status; o texto de exibição fica só na API
+ALTER TABLE Pedido ADD COLUMN Status_Codigo smallint;
+UPDATE Pedido SET Status_Codigo = CASE Status
+    WHEN 'Em processamento' THEN 1
+    WHEN 'Enviado para a transportadora' THEN 2
+    WHEN 'Recebido pela transportadora' THEN 3
+    WHEN 'Mercadoria em trânsito' THEN 4
+    WHEN 'Mercadoria em rota de entrega' THEN 5
+    WHEN 'Entregue' THEN 6
+    WHEN 'Pedido entregue' THEN 6
+    ELSE 1
+END;
+ALTER TABLE Pedido DROP COLUMN Status;
+ALTER TABLE Pedido RENAME COLUMN Status_Codigo TO Status;
+ALTER TABLE Pedido ALTER COLUMN Status SET NOT NULL;
+ALTER TABLE Pedido ALTER COLUMN Status SET DEFAULT 1;
+ALTER TABLE Pedido ADD CONSTRAINT pedido_status_check CHECK(Status BETWEEN 1 AND 6);
+
+-- Reserva de pedidos pela fila de trabalho
+ALTER TABLE Pedido ADD COLUMN Reservado_Por varchar(100);
+ALTER TABLE Pedido ADD COLUMN Reservado_Ate timestamp;
+
+CREATE INDEX idx_pedido_status_data ON Pedido(Status, Data_Pedido, Id);
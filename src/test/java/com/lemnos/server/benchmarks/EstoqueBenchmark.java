@@ -0,0 +1,73 @@
+package com.lemnos.server.benchmarks;
+
+import com.lemnos.server.models.estoque.ContadorEstoque;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Reservas por segundo de um mesmo produto disputado por várias threads, como em uma campanha de desconto.
+ * <p>
+ * Compara o {@link ContadorEstoque} listrado dos produtos quentes com um contador atômico único e com um contador
+ * protegido por lock, que se comporta como a linha de Estoque travada pelo decremento condicional. Quando o contador
+ * esvazia, um novo lote é depositado, como o {@code EstoqueService} faz ao retirar lotes do banco.
+ * <p>
+ * Para rodar: {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.lemnos.server.benchmarks.EstoqueBenchmark}
+ **/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class EstoqueBenchmark {
+    private static final int TAMANHO_LOTE = 20;
+
+    private final ContadorEstoque listrado = new ContadorEstoque();
+    private final AtomicInteger unico = new AtomicInteger();
+    private final ReentrantLock lock = new ReentrantLock();
+    private int travado;
+
+    @Benchmark
+    public boolean reservarListrado() {
+        if (listrado.retirar(1)) return true;
+        listrado.depositar(TAMANHO_LOTE - 1);
+        return false;
+    }
+
+    @Benchmark
+    public boolean reservarContadorUnico() {
+        int atual;
+        while ((atual = unico.get()) >= 1) {
+            if (unico.compareAndSet(atual, atual - 1)) return true;
+        }
+        unico.addAndGet(TAMANHO_LOTE - 1);
+        return false;
+    }
+
+    @Benchmark
+    public boolean reservarComLock() {
+        lock.lock();
+        try {
+            if (travado >= 1) {
+                travado--;
+                return true;
+            }
+            travado += TAMANHO_LOTE - 1;
+            return false;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(EstoqueBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,70 @@
+package com.lemnos.server.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lemnos.server.models.dtos.responses.OpcaoFreteResponse;
+import com.lemnos.server.models.frete.CotacaoFrete;
+import com.lemnos.server.services.FreteService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caminho da cotação de frete: o cálculo das opções de todas as transportadoras para CEPs e pesos variados,
+ * e a mesma cotação repetida, que vem das cotações em memória.
+ * <p>
+ * Para rodar: {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.lemnos.server.benchmarks.FreteBenchmark}
+ **/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FreteBenchmark {
+    private static final int QUANTIDADE_CARRINHOS = 1024;
+    private static final String[] PREFIXOS_ATENDIDOS = { "01310", "04538", "20040", "30130", "40020", "70040", "80010", "90010" };
+
+    private FreteService freteService;
+    private String[] ceps;
+    private double[] pesos;
+    private double[] volumes;
+    private int indice;
+
+    @Setup
+    public void preparar() throws IOException {
+        freteService = new FreteService(null, new ObjectMapper());
+        freteService.carregarTabelas();
+
+        Random random = new Random(42);
+        ceps = new String[QUANTIDADE_CARRINHOS];
+        pesos = new double[QUANTIDADE_CARRINHOS];
+        volumes = new double[QUANTIDADE_CARRINHOS];
+        for (int i = 0; i < QUANTIDADE_CARRINHOS; i++) {
+            ceps[i] = PREFIXOS_ATENDIDOS[random.nextInt(PREFIXOS_ATENDIDOS.length)] + String.format("%03d", random.nextInt(1000));
+            pesos[i] = 0.1 + random.nextDouble() * 30;
+            volumes[i] = 500 + random.nextDouble() * 100_000;
+        }
+        freteService.cotar(1, ceps[0], pesos[0], volumes[0]);
+    }
+
+    @Benchmark
+    public List<OpcaoFreteResponse> calcularOpcoes() {
+        int i = indice++ & (QUANTIDADE_CARRINHOS - 1);
+        return freteService.calcularOpcoes(ceps[i], pesos[i], volumes[i]);
+    }
+
+    @Benchmark
+    public CotacaoFrete cotarEmMemoria() {
+        return freteService.cotar(1, ceps[0], pesos[0], volumes[0]);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(FreteBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,154 @@
+package com.lemnos.server.benchmarks;
+
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Consultas de Pedido sobre as partições mensais com 50 milhões de pedidos espalhados pelos últimos {@value #MESES} meses.
+ * <p>
+ * Compara as consultas com a data do pedido, que o PostgreSQL limita a uma partição, com a busca só pelo Id, que precisa
+ * olhar o índice de todas as partições, além da página do histórico de um cliente e do total de vendas de um dia.
+ * <p>
+ * Precisa de um PostgreSQL vazio ou já populado por uma execução anterior: as migrations são aplicadas e os pedidos que faltam
+ * são inseridos no {@code @Setup}, o que leva alguns minutos na primeira vez. Para rodar:
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.lemnos.server.benchmarks.PedidoParticaoBenchmark
+ * -Dbenchmark.db.url=jdbc:postgresql://localhost:5432/lemnos_benchmark -Dbenchmark.db.usuario=postgres -Dbenchmark.db.senha=postgres}
+ **/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PedidoParticaoBenchmark {
+    private static final int MESES = 36;
+    private static final int CLIENTES = 1_000_000;
+    private static final int TAMANHO_BLOCO = 1_000_000;
+    private static final int AMOSTRAS = 1024;
+
+    @Param("50000000")
+    public long pedidos;
+
+    private NamedParameterJdbcTemplate jdbcTemplate;
+    private final List<Integer> ids = new ArrayList<>(AMOSTRAS);
+    private final List<LocalDate> datas = new ArrayList<>(AMOSTRAS);
+    private final List<Integer> cadastros = new ArrayList<>(AMOSTRAS);
+    private int indice;
+
+    @Setup
+    public void preparar() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                System.getProperty("benchmark.db.url", "jdbc:postgresql://localhost:5432/lemnos_benchmark"),
+                System.getProperty("benchmark.db.usuario", "postgres"),
+                System.getProperty("benchmark.db.senha", "postgres")
+        );
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration").load().migrate();
+        jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+
+        Long existentes = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM Pedido", Map.of(), Long.class);
+        if (existentes == null || existentes < pedidos) popular(existentes == null ? 0 : existentes);
+
+        jdbcTemplate.query(
+                "SELECT Id, Data_Pedido, Id_Cadastro FROM Pedido TABLESAMPLE SYSTEM (0.1) LIMIT :amostras",
+                Map.of("amostras", AMOSTRAS),
+                rs -> {
+                    ids.add(rs.getInt("Id"));
+                    datas.add(rs.getObject("Data_Pedido", LocalDate.class));
+                    cadastros.add(rs.getInt("Id_Cadastro"));
+                }
+        );
+        if (ids.isEmpty()) throw new IllegalStateException("Nenhum pedido encontrado para as amostras");
+    }
+
+    @Benchmark
+    public Map<String, Object> pedidoPorIdEData() {
+        int i = proximo();
+        return jdbcTemplate.queryForMap(
+                "SELECT * FROM Pedido WHERE Id = :id AND Data_Pedido = :data",
+                new MapSqlParameterSource().addValue("id", ids.get(i)).addValue("data", datas.get(i))
+        );
+    }
+
+    @Benchmark
+    public Map<String, Object> pedidoPorIdSemData() {
+        return jdbcTemplate.queryForMap("SELECT * FROM Pedido WHERE Id = :id", Map.of("id", ids.get(proximo())));
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> paginaDoCliente() {
+        return jdbcTemplate.queryForList("""
+                SELECT p.Id, p.Valor_Pedido, p.Valor_Frete, p.Metodo_Pagamento, p.Data_Pedido, p.Quantidade_Produtos, p.Status
+                FROM Pedido p
+                WHERE p.Id_Cadastro = :idCadastro
+                ORDER BY p.Data_Pedido DESC, p.Id DESC LIMIT 21
+                """, Map.of("idCadastro", cadastros.get(proximo())));
+    }
+
+    @Benchmark
+    public Map<String, Object> vendasDoDia() {
+        return jdbcTemplate.queryForMap(
+                "SELECT COUNT(*) AS Pedidos, SUM(Valor_Pedido) AS Receita FROM Pedido WHERE Data_Pedido = :dia",
+                Map.of("dia", datas.get(proximo()))
+        );
+    }
+
+    private int proximo() {
+        return Math.floorMod(indice++, ids.size());
+    }
+
+    /**
+     * Insere os pedidos que faltam em blocos, um por transação, com datas aleatórias nos últimos {@value MESES} meses.
+     **/
+    private void popular(long existentes) {
+        LocalDate hoje = LocalDate.now();
+        jdbcTemplate.queryForObject(
+                "SELECT criar_particoes_mensais('pedido', :inicio, :fim)",
+                new MapSqlParameterSource().addValue("inicio", hoje.minusMonths(MESES)).addValue("fim", hoje),
+                Integer.class
+        );
+        jdbcTemplate.update("""
+                INSERT INTO Cadastro (Email, Senha)
+                SELECT 'benchmark' || g || '@lemnos.com', 'benchmark' FROM generate_series(1, :clientes) g
+                ON CONFLICT (Email) DO NOTHING
+                """, Map.of("clientes", CLIENTES));
+        Integer primeiroCadastro = jdbcTemplate.queryForObject(
+                "SELECT Id FROM Cadastro WHERE Email = 'benchmark1@lemnos.com'", Map.of(), Integer.class
+        );
+
+        int dias = (int) (hoje.toEpochDay() - hoje.minusMonths(MESES).toEpochDay());
+        for (long inicio = existentes; inicio < pedidos; inicio += TAMANHO_BLOCO) {
+            long fim = Math.min(inicio + TAMANHO_BLOCO, pedidos);
+            jdbcTemplate.update("""
+                    INSERT INTO Pedido (Valor_Pedido, Metodo_Pagamento, Valor_Frete, Data_Pedido, Valor_Pagamento, Quantidade_Produtos,
+                                        Data_Pagamento, Descricao, Status, Id_Cadastro)
+                    SELECT t.Valor, 'PIX', 20, t.Data, t.Valor + 20, 1 + g % 5, t.Data, '', 1 + g % 6, :primeiroCadastro + g % :clientes
+                    FROM (
+                        SELECT g, current_date - (random() * :dias)::int AS Data, round((10 + random() * 990)::numeric, 2) AS Valor
+                        FROM generate_series(:inicio, :fim - 1) g
+                    ) t
+                    """, new MapSqlParameterSource()
+                    .addValue("primeiroCadastro", primeiroCadastro)
+                    .addValue("clientes", CLIENTES)
+                    .addValue("dias", dias)
+                    .addValue("inicio", inicio)
+                    .addValue("fim", fim));
+        }
+        jdbcTemplate.getJdbcTemplate().execute("ANALYZE Pedido");
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(PedidoParticaoBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,124 @@
+package com.lemnos.server.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lemnos.server.models.dtos.responses.ProdutoResponse;
+import com.lemnos.server.services.ProdutoJsonCache;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Listas de produtos servidas pelo {@link ProdutoJsonCache} contra a serialização pelo Jackson a cada requisição.
+ * <p>
+ * {@code listaEmCache} é o caso comum, com a lista pronta; {@code listaDeFragmentos} é a primeira requisição de uma busca nova,
+ * montada com os fragmentos dos produtos já serializados. As versões gzip comparam a cópia comprimida guardada na lista
+ * com comprimir a resposta a cada requisição.
+ * <p>
+ * Para rodar: {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.lemnos.server.benchmarks.ProdutoJsonCacheBenchmark}
+ **/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProdutoJsonCacheBenchmark {
+    private static final String CHAVE = "benchmark";
+
+    @Param({"20", "100"})
+    public int tamanho;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ProdutoJsonCache produtoJsonCache;
+    private List<UUID> ids;
+    private Map<UUID, ProdutoResponse> produtos;
+    private List<ProdutoResponse> lista;
+    private long busca;
+
+    @Setup
+    public void preparar() {
+        produtoJsonCache = new ProdutoJsonCache(objectMapper);
+        Random random = new Random(42);
+        ids = new ArrayList<>(tamanho);
+        produtos = new HashMap<>();
+        for (int i = 0; i < tamanho; i++) {
+            UUID id = new UUID(random.nextLong(), random.nextLong());
+            ids.add(id);
+            produtos.put(id, criarProduto(id, i, random));
+        }
+        lista = ids.stream().map(produtos::get).toList();
+        produtoJsonCache.getLista(CHAVE, () -> ids, this::carregar);
+    }
+
+    @Benchmark
+    public byte[] jacksonPorRequisicao() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(lista);
+    }
+
+    @Benchmark
+    public byte[] listaEmCache() {
+        return produtoJsonCache.getLista(CHAVE, () -> ids, this::carregar).getJson();
+    }
+
+    @Benchmark
+    public byte[] listaDeFragmentos() {
+        // Uma chave nova a cada chamada: a lista não está no cache, mas os fragmentos dos produtos estão
+        return produtoJsonCache.getLista(busca++, () -> ids, this::carregar).getJson();
+    }
+
+    @Benchmark
+    public byte[] jacksonComGzipPorRequisicao() throws IOException {
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(saida)) {
+            gzip.write(objectMapper.writeValueAsBytes(lista));
+        }
+        return saida.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] listaEmCacheComGzip() {
+        return produtoJsonCache.getLista(CHAVE, () -> ids, this::carregar).getGzip();
+    }
+
+    private List<ProdutoResponse> carregar(Collection<UUID> faltando) {
+        return faltando.stream().map(produtos::get).toList();
+    }
+
+    private static ProdutoResponse criarProduto(UUID id, int i, Random random) {
+        double valor = Math.round((10 + random.nextDouble() * 990) * 100) / 100.0;
+        return new ProdutoResponse(
+                id.toString(),
+                "Produto " + i,
+                "Descrição do produto " + i + " com as especificações técnicas, garantia e conteúdo da embalagem.",
+                "Preto",
+                valor,
+                Math.round(valor * 90) / 100.0,
+                "Modelo " + (i % 50),
+                1.5,
+                10.0,
+                30.0,
+                20.0,
+                "Fabricante " + (i % 20),
+                "Fornecedor " + (i % 10),
+                "Hardware",
+                "Placa de vídeo",
+                "https://lemnos.com/imagens/" + id + "/principal.png",
+                List.of("https://lemnos.com/imagens/" + id + "/1.png", "https://lemnos.com/imagens/" + id + "/2.png"),
+                "10",
+                4.5,
+                120
+        );
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ProdutoJsonCacheBenchmark.class.getSimpleName()).build()).run();
+    }
+}
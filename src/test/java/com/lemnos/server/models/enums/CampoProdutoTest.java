@@ -0,0 +1,55 @@
+package com.lemnos.server.models.enums;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CampoProdutoTest {
+
+    @Test
+    void semFieldsNemViewDevolveNulo() {
+        assertNull(CampoProduto.fromParametros(null, null));
+        assertNull(CampoProduto.fromParametros(" ", ""));
+    }
+
+    @Test
+    void fieldsIgnoramMaiusculasEspacosEVazios() {
+        Set<CampoProduto> campos = CampoProduto.fromParametros(" Nome ,VALORTOTAL,, desconto ,", null);
+        assertEquals(EnumSet.of(CampoProduto.ID, CampoProduto.NOME, CampoProduto.VALOR_TOTAL, CampoProduto.DESCONTO), campos);
+    }
+
+    @Test
+    void idSempreEIncluido() {
+        assertTrue(CampoProduto.fromParametros("nome", null).contains(CampoProduto.ID));
+    }
+
+    @Test
+    void viewDevolveOsCamposDela() {
+        assertEquals(VisaoProduto.CARD.getCampos(), CampoProduto.fromParametros(null, " card "));
+        assertEquals(EnumSet.allOf(CampoProduto.class), CampoProduto.fromParametros(null, "DETAIL"));
+    }
+
+    @Test
+    void viewEFieldsSaoSomados() {
+        Set<CampoProduto> campos = CampoProduto.fromParametros("descricao,fabricante", "card");
+        assertTrue(campos.containsAll(VisaoProduto.CARD.getCampos()));
+        assertTrue(campos.contains(CampoProduto.DESCRICAO));
+        assertTrue(campos.contains(CampoProduto.FABRICANTE));
+        assertEquals(VisaoProduto.CARD.getCampos().size() + 2, campos.size());
+    }
+
+    @Test
+    void campoInexistenteEInvalido() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> CampoProduto.fromParametros("nome, preco", null));
+        assertEquals("Campo inválido: preco", e.getMessage());
+    }
+
+    @Test
+    void viewInexistenteEInvalida() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> CampoProduto.fromParametros("nome", "lista"));
+        assertTrue(e.getMessage().startsWith("View inválida"));
+    }
+}
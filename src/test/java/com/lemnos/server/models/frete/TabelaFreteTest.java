@@ -0,0 +1,58 @@
+package com.lemnos.server.models.frete;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TabelaFreteTest {
+    private static final FaixaFrete SUL = new FaixaFrete(80000, 99999, 30.0, 5.0, 7);
+    private static final FaixaFrete SP = new FaixaFrete(1000, 19999, 15.0, 2.0, 3);
+    private static final FaixaFrete RJ = new FaixaFrete(20000, 28999, 20.0, 3.0, 4);
+
+    // Fora de ordem para conferir que o construtor ordena, com buracos entre 29000 e 79999
+    private final TabelaFrete tabela = new TabelaFrete("Transportadora", 6000, List.of(SUL, SP, RJ));
+
+    @Test
+    void encontraAFaixaNasBordas() {
+        assertSame(SP, tabela.buscar(1000));
+        assertSame(SP, tabela.buscar(19999));
+        assertSame(RJ, tabela.buscar(20000));
+        assertSame(RJ, tabela.buscar(28999));
+        assertSame(SUL, tabela.buscar(80000));
+        assertSame(SUL, tabela.buscar(99999));
+    }
+
+    @Test
+    void encontraAFaixaNoMeio() {
+        assertSame(SP, tabela.buscar(5432));
+        assertSame(RJ, tabela.buscar(22222));
+        assertSame(SUL, tabela.buscar(90210));
+    }
+
+    @Test
+    void prefixoForaDasFaixasNaoEAtendido() {
+        assertNull(tabela.buscar(0));
+        assertNull(tabela.buscar(999));
+        assertNull(tabela.buscar(29000));
+        assertNull(tabela.buscar(79999));
+    }
+
+    @Test
+    void tabelaVaziaNaoAtendeNada() {
+        assertNull(new TabelaFrete("Vazia", 6000, List.of()).buscar(1000));
+    }
+
+    @Test
+    void faixasSobrepostasSaoRecusadas() {
+        FaixaFrete sobreposta = new FaixaFrete(19000, 21000, 10.0, 1.0, 2);
+        assertThrows(IllegalStateException.class, () -> new TabelaFrete("Transportadora", 6000, List.of(SP, sobreposta)));
+    }
+
+    @Test
+    void faixaInvertidaERecusada() {
+        FaixaFrete invertida = new FaixaFrete(30000, 29000, 10.0, 1.0, 2);
+        assertThrows(IllegalStateException.class, () -> new TabelaFrete("Transportadora", 6000, List.of(invertida)));
+    }
+}
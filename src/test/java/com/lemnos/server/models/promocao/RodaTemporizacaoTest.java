@@ -0,0 +1,77 @@
+package com.lemnos.server.models.promocao;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RodaTemporizacaoTest {
+    private static final long TICK = 1000;
+    private static final int POSICOES = 60;
+    private static final long INICIO = 1_000_000;
+
+    @Test
+    void itemNaoDisparaAntesDoInstante() {
+        RodaTemporizacao<Integer> roda = new RodaTemporizacao<>(TICK, POSICOES, INICIO);
+        roda.agendar(1, INICIO + 2_500);
+
+        assertTrue(roda.avancar(INICIO + 2_000).isEmpty());
+        assertTrue(roda.avancar(INICIO + 2_999).isEmpty());
+        assertEquals(List.of(1), roda.avancar(INICIO + 3_000));
+        assertEquals(0, roda.getQuantidade());
+    }
+
+    @Test
+    void itemNoInicioDoTickDisparaNoProprioTick() {
+        RodaTemporizacao<Integer> roda = new RodaTemporizacao<>(TICK, POSICOES, INICIO);
+        roda.agendar(1, INICIO + 2_000);
+
+        assertTrue(roda.avancar(INICIO + 1_999).isEmpty());
+        assertEquals(List.of(1), roda.avancar(INICIO + 2_000));
+    }
+
+    @Test
+    void itemVencidoDisparaNoProximoAvanco() {
+        RodaTemporizacao<Integer> roda = new RodaTemporizacao<>(TICK, POSICOES, INICIO);
+        roda.agendar(1, INICIO - 10_000);
+
+        assertTrue(roda.avancar(INICIO).isEmpty());
+        assertEquals(List.of(1), roda.avancar(INICIO + TICK));
+    }
+
+    @Test
+    void itemAlemDeUmaVoltaEsperaOTickDele() {
+        RodaTemporizacao<Integer> roda = new RodaTemporizacao<>(TICK, POSICOES, INICIO);
+        long instante = INICIO + (POSICOES + 5) * TICK;
+        roda.agendar(1, instante);
+
+        // A primeira volta passa pela posição do item, mas o tick dele ainda não chegou
+        assertTrue(roda.avancar(INICIO + POSICOES * TICK).isEmpty());
+        assertTrue(roda.avancar(instante - 1).isEmpty());
+        assertEquals(List.of(1), roda.avancar(instante));
+    }
+
+    @Test
+    void pausaLongaDisparaTodosOsVencidos() {
+        RodaTemporizacao<Integer> roda = new RodaTemporizacao<>(TICK, POSICOES, INICIO);
+        for (int i = 1; i <= 10; i++) roda.agendar(i, INICIO + i * 7 * TICK);
+
+        List<Integer> vencidos = roda.avancar(INICIO + 10 * POSICOES * TICK);
+        assertEquals(10, vencidos.size());
+        assertEquals(0, roda.getQuantidade());
+    }
+
+    @Test
+    void mesmoItemNoMesmoInstanteEAgendadoUmaVez() {
+        RodaTemporizacao<Integer> roda = new RodaTemporizacao<>(TICK, POSICOES, INICIO);
+        roda.agendar(1, INICIO + 5_000);
+        roda.agendar(1, INICIO + 5_000);
+        roda.agendar(1, INICIO + 9_000);
+
+        assertEquals(2, roda.getQuantidade());
+        assertEquals(List.of(1), roda.avancar(INICIO + 5_000));
+        assertEquals(List.of(1), roda.avancar(INICIO + 9_000));
+    }
+}
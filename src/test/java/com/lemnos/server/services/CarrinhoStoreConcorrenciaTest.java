@@ -0,0 +1,153 @@
+package com.lemnos.server.services;
+
+import com.lemnos.server.models.cadastro.Cadastro;
+import com.lemnos.server.models.carrinho.CarrinhoMemoria;
+import com.lemnos.server.repositories.CarrinhoRepository;
+import com.lemnos.server.repositories.cadastro.CadastroRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Estressa os locks listrados e o journal do {@link CarrinhoStore} sem banco: várias threads alteram os mesmos carrinhos
+ * enquanto outra grava o journal, e no fim a memória e a soma dos deltas gravados têm que bater com o esperado.
+ **/
+class CarrinhoStoreConcorrenciaTest {
+    private static final int THREADS = 16;
+    private static final int OPERACOES = 2_000;
+    private static final int CLIENTES = 8;
+    private static final int PRODUTOS = 5;
+
+    private final UUID[] produtos = new UUID[PRODUTOS];
+    private final Map<Integer, Map<UUID, Integer>> gravados = new ConcurrentHashMap<>();
+    private final Map<Integer, Integer> totaisGravados = new ConcurrentHashMap<>();
+    private CarrinhoStore carrinhoStore;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void preparar() {
+        for (int i = 0; i < PRODUTOS; i++) produtos[i] = UUID.randomUUID();
+
+        CadastroRepository cadastroRepository = mock(CadastroRepository.class);
+        when(cadastroRepository.findByEmail(anyString())).thenAnswer(invocacao -> {
+            String email = invocacao.getArgument(0);
+            return Optional.of(new Cadastro(getIdCadastro(email), email, "senha"));
+        });
+        CarrinhoRepository carrinhoRepository = mock(CarrinhoRepository.class);
+        when(carrinhoRepository.findByCadastro(any())).thenReturn(Optional.empty());
+
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(invocacao -> invocacao.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        doAnswer(invocacao -> {
+            invocacao.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        NamedParameterJdbcTemplate jdbcTemplate = mock(NamedParameterJdbcTemplate.class);
+        when(jdbcTemplate.batchUpdate(anyString(), any(SqlParameterSource[].class))).thenAnswer(invocacao -> {
+            String sql = invocacao.getArgument(0);
+            SqlParameterSource[] parametros = invocacao.getArgument(1);
+            for (SqlParameterSource parametro : parametros) {
+                Integer idCadastro = (Integer) parametro.getValue("idCadastro");
+                if (sql.contains("INSERT INTO Itens_Carrinho")) {
+                    gravados.computeIfAbsent(idCadastro, id -> new ConcurrentHashMap<>())
+                            .merge((UUID) parametro.getValue("idProduto"), (Integer) parametro.getValue("delta"), Integer::sum);
+                }
+                else {
+                    totaisGravados.merge(idCadastro, (Integer) parametro.getValue("quantidade"), Integer::sum);
+                }
+            }
+            return new int[parametros.length];
+        });
+
+        carrinhoStore = new CarrinhoStore(cadastroRepository, carrinhoRepository, jdbcTemplate, transactionTemplate);
+    }
+
+    @Test
+    void alteracoesConcorrentesNaoPerdemIncrementos() throws Exception {
+        int[][] esperado = new int[CLIENTES][PRODUTOS];
+        for (int t = 0; t < THREADS; t++) {
+            for (int i = 0; i < OPERACOES; i++) esperado[getCliente(t, i)][getProduto(t, i)]++;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS + 1);
+        CountDownLatch largada = new CountDownLatch(1);
+        AtomicBoolean terminou = new AtomicBoolean();
+        try {
+            Future<?> gravacao = executor.submit(() -> {
+                largada.await();
+                while (!terminou.get()) carrinhoStore.flush();
+                return null;
+            });
+
+            List<Future<?>> tarefas = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                tarefas.add(executor.submit(() -> {
+                    largada.await();
+                    for (int i = 0; i < OPERACOES; i++) {
+                        String email = getEmail(getCliente(thread, i));
+                        UUID idProduto = produtos[getProduto(thread, i)];
+                        // Saldo de +1 por operação, em duas alterações para intercalar com as outras threads
+                        carrinhoStore.alterar(email, carrinho -> carrinho.adicionar(idProduto, 2));
+                        carrinhoStore.alterar(email, carrinho -> assertEquals(1, carrinho.remover(idProduto, 1)));
+                    }
+                    return null;
+                }));
+            }
+
+            largada.countDown();
+            for (Future<?> tarefa : tarefas) tarefa.get(60, TimeUnit.SECONDS);
+            terminou.set(true);
+            gravacao.get(60, TimeUnit.SECONDS);
+        }
+        finally {
+            executor.shutdownNow();
+        }
+        carrinhoStore.flush();
+
+        for (int c = 0; c < CLIENTES; c++) {
+            int idCadastro = c + 1;
+            Map<UUID, Integer> memoria = carrinhoStore.ler(getEmail(c), CarrinhoMemoria::getQuantidades);
+            Map<UUID, Integer> gravado = gravados.getOrDefault(idCadastro, Map.of());
+            int total = 0;
+            for (int p = 0; p < PRODUTOS; p++) {
+                assertEquals(esperado[c][p], memoria.getOrDefault(produtos[p], 0), "memória do cliente " + c + ", produto " + p);
+                assertEquals(esperado[c][p], gravado.getOrDefault(produtos[p], 0), "gravado do cliente " + c + ", produto " + p);
+                total += esperado[c][p];
+            }
+            assertEquals(total, totaisGravados.getOrDefault(idCadastro, 0), "quantidade total do cliente " + c);
+            assertTrue(carrinhoStore.ler(getEmail(c), CarrinhoMemoria::isPersistido));
+        }
+    }
+
+    private static int getCliente(int thread, int operacao) {
+        return (thread + operacao) % CLIENTES;
+    }
+
+    private static int getProduto(int thread, int operacao) {
+        return (thread * 7 + operacao * 3) % PRODUTOS;
+    }
+
+    private static String getEmail(int cliente) {
+        return "cliente" + cliente + "@lemnos.com";
+    }
+
+    private static int getIdCadastro(String email) {
+        return Integer.parseInt(email.substring("cliente".length(), email.indexOf('@'))) + 1;
+    }
+}
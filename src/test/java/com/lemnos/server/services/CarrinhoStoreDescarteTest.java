@@ -0,0 +1,58 @@
+package com.lemnos.server.services;
+
+import com.lemnos.server.models.cadastro.Cadastro;
+import com.lemnos.server.models.carrinho.CarrinhoMemoria;
+import com.lemnos.server.repositories.CarrinhoRepository;
+import com.lemnos.server.repositories.cadastro.CadastroRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Uma mutação descartada por um erro permanente não pode continuar no carrinho em memória: a próxima leitura relê do banco.
+ **/
+class CarrinhoStoreDescarteTest {
+    private static final String EMAIL = "cliente@lemnos.com";
+
+    @Test
+    void mutacaoDescartadaFazOCarrinhoSerRelido() {
+        Cadastro cadastro = new Cadastro(1, EMAIL, "senha");
+        CadastroRepository cadastroRepository = mock(CadastroRepository.class);
+        when(cadastroRepository.findByEmail(EMAIL)).thenReturn(Optional.of(cadastro));
+        CarrinhoRepository carrinhoRepository = mock(CarrinhoRepository.class);
+        when(carrinhoRepository.findByCadastro(any())).thenReturn(Optional.empty());
+
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(invocacao -> invocacao.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+
+        // O produto foi apagado: toda gravação do item falha com a chave estrangeira
+        NamedParameterJdbcTemplate jdbcTemplate = mock(NamedParameterJdbcTemplate.class);
+        when(jdbcTemplate.batchUpdate(anyString(), any(SqlParameterSource[].class)))
+                .thenThrow(new DataIntegrityViolationException("fk_itens_carrinho_produto"));
+
+        CarrinhoStore carrinhoStore = new CarrinhoStore(cadastroRepository, carrinhoRepository, jdbcTemplate, transactionTemplate);
+        carrinhoStore.alterar(EMAIL, carrinho -> carrinho.adicionar(UUID.randomUUID(), 1));
+
+        // Duas tentativas do lote e, na terceira, a gravação uma a uma que descarta a mutação
+        for (int i = 0; i < 3; i++) carrinhoStore.flush();
+
+        Map<UUID, Integer> quantidades = carrinhoStore.ler(EMAIL, CarrinhoMemoria::getQuantidades);
+        assertTrue(quantidades.isEmpty());
+        assertTrue(carrinhoStore.ler(EMAIL, CarrinhoMemoria::isPersistido));
+        verify(carrinhoRepository, times(2)).findByCadastro(cadastro);
+        long versaoBanco = carrinhoStore.ler(EMAIL, CarrinhoMemoria::getVersaoBanco);
+        assertEquals(0, versaoBanco);
+    }
+}
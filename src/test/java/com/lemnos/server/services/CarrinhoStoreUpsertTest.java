@@ -0,0 +1,127 @@
+package com.lemnos.server.services;
+
+import com.lemnos.server.models.cadastro.Cadastro;
+import com.lemnos.server.repositories.CarrinhoRepository;
+import com.lemnos.server.repositories.cadastro.CadastroRepository;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Duas instâncias do {@link CarrinhoStore} gravando o mesmo carrinho ao mesmo tempo em um PostgreSQL de verdade, com as migrations
+ * aplicadas: os upserts sobre as chaves únicas não podem duplicar o carrinho nem perder incrementos.
+ **/
+@Testcontainers(disabledWithoutDocker = true)
+class CarrinhoStoreUpsertTest {
+    private static final int INSTANCIAS = 2;
+    private static final int THREADS_POR_INSTANCIA = 4;
+    private static final int OPERACOES = 250;
+    private static final int PRODUTOS = 3;
+    private static final String EMAIL = "cliente@lemnos.com";
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static NamedParameterJdbcTemplate jdbcTemplate;
+    private static TransactionTemplate transactionTemplate;
+
+    @BeforeAll
+    static void migrar() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration").load().migrate();
+        jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    @Test
+    void gravacoesConcorrentesDeInstanciasDiferentesSomamNoMesmoCarrinho() throws Exception {
+        Integer idCadastro = jdbcTemplate.queryForObject(
+                "INSERT INTO Cadastro (Email, Senha) VALUES (:email, 'senha') RETURNING Id", Map.of("email", EMAIL), Integer.class
+        );
+        UUID[] produtos = new UUID[PRODUTOS];
+        for (int p = 0; p < PRODUTOS; p++) {
+            produtos[p] = UUID.randomUUID();
+            jdbcTemplate.update("""
+                    INSERT INTO Produto (Id, Nome, Descricao, Valor, Modelo, Peso, Altura, Comprimento, Largura, Media_Avaliacao)
+                    VALUES (:id, 'Produto', 'Produto de teste', :valor, 'Modelo', 1, 1, 1, 1, 0)
+                    """, Map.of("id", produtos[p], "valor", p + 1));
+        }
+
+        List<CarrinhoStore> stores = new ArrayList<>();
+        for (int i = 0; i < INSTANCIAS; i++) stores.add(criarStore(idCadastro));
+
+        ExecutorService executor = Executors.newFixedThreadPool(INSTANCIAS * (THREADS_POR_INSTANCIA + 1));
+        CountDownLatch largada = new CountDownLatch(1);
+        try {
+            List<Future<?>> tarefas = new ArrayList<>();
+            for (CarrinhoStore store : stores) {
+                for (int t = 0; t < THREADS_POR_INSTANCIA; t++) {
+                    tarefas.add(executor.submit(() -> {
+                        largada.await();
+                        for (int i = 0; i < OPERACOES; i++) {
+                            UUID idProduto = produtos[i % PRODUTOS];
+                            store.alterar(EMAIL, carrinho -> carrinho.adicionar(idProduto, 1));
+                            if (i % 10 == 0) store.flush();
+                        }
+                        return null;
+                    }));
+                }
+            }
+            largada.countDown();
+            for (Future<?> tarefa : tarefas) tarefa.get(120, TimeUnit.SECONDS);
+        }
+        finally {
+            executor.shutdownNow();
+        }
+        stores.forEach(CarrinhoStore::flush);
+
+        int porProduto = INSTANCIAS * THREADS_POR_INSTANCIA * OPERACOES / PRODUTOS;
+        Map<String, Object> parametros = Map.of("idCadastro", idCadastro);
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM Carrinho WHERE Id_Cadastro = :idCadastro", parametros, Integer.class));
+
+        Map<UUID, Integer> itens = new HashMap<>();
+        jdbcTemplate.query("""
+                SELECT i.Id_Produto, i.Quantidade FROM Itens_Carrinho i
+                JOIN Carrinho c ON c.Id = i.Id_Carrinho
+                WHERE c.Id_Cadastro = :idCadastro
+                """, parametros, rs -> {
+            itens.put(rs.getObject("Id_Produto", UUID.class), rs.getInt("Quantidade"));
+        });
+        assertEquals(PRODUTOS, itens.size());
+        BigDecimal valor = BigDecimal.ZERO;
+        for (int p = 0; p < PRODUTOS; p++) {
+            assertEquals(porProduto, itens.get(produtos[p]), "produto " + p);
+            valor = valor.add(BigDecimal.valueOf((long) porProduto * (p + 1)));
+        }
+
+        Map<String, Object> carrinho = jdbcTemplate.queryForMap(
+                "SELECT Quantidade_Produtos, Valor FROM Carrinho WHERE Id_Cadastro = :idCadastro", parametros
+        );
+        assertEquals(porProduto * PRODUTOS, ((Number) carrinho.get("quantidade_produtos")).intValue());
+        assertEquals(0, valor.compareTo((BigDecimal) carrinho.get("valor")));
+    }
+
+    private static CarrinhoStore criarStore(Integer idCadastro) {
+        CadastroRepository cadastroRepository = mock(CadastroRepository.class);
+        when(cadastroRepository.findByEmail(EMAIL)).thenReturn(Optional.of(new Cadastro(idCadastro, EMAIL, "senha")));
+        CarrinhoRepository carrinhoRepository = mock(CarrinhoRepository.class);
+        when(carrinhoRepository.findByCadastro(any())).thenReturn(Optional.empty());
+        return new CarrinhoStore(cadastroRepository, carrinhoRepository, jdbcTemplate, transactionTemplate);
+    }
+}
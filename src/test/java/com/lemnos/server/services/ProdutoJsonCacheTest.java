@@ -0,0 +1,87 @@
+package com.lemnos.server.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lemnos.server.models.dtos.responses.ProdutoResponse;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A guarda de geração do {@link ProdutoJsonCache}: uma carga que começou antes de uma escrita não pode ficar no cache.
+ **/
+class ProdutoJsonCacheTest {
+    private static final String CHAVE = "lista";
+
+    private final ProdutoJsonCache produtoJsonCache = new ProdutoJsonCache(new ObjectMapper());
+    private final UUID idProduto = UUID.randomUUID();
+    private final List<UUID> ids = List.of(idProduto);
+    private final AtomicInteger cargas = new AtomicInteger();
+
+    @Test
+    void listaEFragmentoSaoReaproveitados() {
+        Function<Collection<UUID>, List<ProdutoResponse>> carregar = faltando -> carregar(faltando, "Antigo");
+        produtoJsonCache.getLista(CHAVE, () -> ids, carregar);
+        produtoJsonCache.getLista(CHAVE, () -> ids, carregar);
+        produtoJsonCache.getLista("outra", () -> ids, carregar);
+
+        assertEquals(1, cargas.get());
+    }
+
+    @Test
+    void cargaAnteriorAUmaEscritaNaoEGuardada() {
+        // A escrita acontece enquanto a carga lê o estado antigo do banco
+        ProdutoJsonCache.Lista durante = produtoJsonCache.getLista(CHAVE, () -> ids, faltando -> {
+            List<ProdutoResponse> antigos = carregar(faltando, "Antigo");
+            produtoJsonCache.invalidar(idProduto);
+            return antigos;
+        });
+        assertTrue(getJson(durante).contains("Antigo"));
+
+        ProdutoJsonCache.Lista depois = produtoJsonCache.getLista(CHAVE, () -> ids, faltando -> carregar(faltando, "Novo"));
+        assertEquals(2, cargas.get());
+        assertTrue(getJson(depois).contains("Novo"));
+    }
+
+    @Test
+    void invalidarDescartaAListaEOFragmento() {
+        produtoJsonCache.getLista(CHAVE, () -> ids, faltando -> carregar(faltando, "Antigo"));
+        produtoJsonCache.invalidar(idProduto);
+
+        ProdutoJsonCache.Lista depois = produtoJsonCache.getLista(CHAVE, () -> ids, faltando -> carregar(faltando, "Novo"));
+        assertEquals(2, cargas.get());
+        assertTrue(getJson(depois).contains("Novo"));
+    }
+
+    @Test
+    void invalidarOutroProdutoDescartaSoAsListas() {
+        produtoJsonCache.getLista(CHAVE, () -> ids, faltando -> carregar(faltando, "Antigo"));
+        produtoJsonCache.invalidar(UUID.randomUUID());
+
+        // A lista é montada de novo com o fragmento guardado, sem carregar o produto
+        ProdutoJsonCache.Lista depois = produtoJsonCache.getLista(CHAVE, () -> ids, faltando -> carregar(faltando, "Novo"));
+        assertEquals(1, cargas.get());
+        assertTrue(getJson(depois).contains("Antigo"));
+    }
+
+    private List<ProdutoResponse> carregar(Collection<UUID> faltando, String nome) {
+        cargas.incrementAndGet();
+        return faltando.stream().map(id -> criarProduto(id, nome)).toList();
+    }
+
+    private static String getJson(ProdutoJsonCache.Lista lista) {
+        return new String(lista.getJson(), StandardCharsets.UTF_8);
+    }
+
+    private static ProdutoResponse criarProduto(UUID id, String nome) {
+        return new ProdutoResponse(
+                id.toString(), nome, "Descrição", "Preto", 100.0, 90.0, "Modelo", 1.5, 10.0, 30.0, 20.0,
+                "Fabricante", "Fornecedor", "Hardware", "Placa de vídeo", "https://lemnos.com/imagens/principal.png",
+                List.of(), "10", 4.5, 120
+        );
+    }
+}
@@ -0,0 +1,70 @@
+package com.lemnos.server.services;
+
+import com.lemnos.server.services.PromocaoService.PromocaoAtiva;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * A regra de acúmulo das promoções ativas de um produto.
+ **/
+class PromocaoServiceTest {
+
+    @Test
+    void umaPromocaoValeSozinha() {
+        assertEquals(15, PromocaoService.getPorcentagem(List.of(new PromocaoAtiva(15, 0, false))));
+        assertEquals(15, PromocaoService.getPorcentagem(List.of(new PromocaoAtiva(15, 0, true))));
+    }
+
+    @Test
+    void maiorPrioridadeValeMesmoComPorcentagemMenor() {
+        assertEquals(10, PromocaoService.getPorcentagem(List.of(
+                new PromocaoAtiva(40, 0, false),
+                new PromocaoAtiva(10, 5, false)
+        )));
+    }
+
+    @Test
+    void noEmpateDePrioridadeValeAMaiorPorcentagem() {
+        assertEquals(40, PromocaoService.getPorcentagem(List.of(
+                new PromocaoAtiva(10, 1, false),
+                new PromocaoAtiva(40, 1, false)
+        )));
+    }
+
+    @Test
+    void acumulaveisSaoAplicadasUmaSobreAOutra() {
+        assertEquals(28, PromocaoService.getPorcentagem(List.of(
+                new PromocaoAtiva(10, 1, true),
+                new PromocaoAtiva(20, 0, true)
+        )));
+    }
+
+    @Test
+    void principalNaoAcumulavelIgnoraAsAcumulaveis() {
+        assertEquals(10, PromocaoService.getPorcentagem(List.of(
+                new PromocaoAtiva(10, 2, false),
+                new PromocaoAtiva(20, 1, true),
+                new PromocaoAtiva(30, 0, true)
+        )));
+    }
+
+    @Test
+    void principalAcumulavelIgnoraAsNaoAcumulaveis() {
+        // 1 - 0,8 * 0,7 = 44%; a de 50% não acumula e não é a principal
+        assertEquals(44, PromocaoService.getPorcentagem(List.of(
+                new PromocaoAtiva(20, 2, true),
+                new PromocaoAtiva(50, 1, false),
+                new PromocaoAtiva(30, 0, true)
+        )));
+    }
+
+    @Test
+    void acumuloEArredondadoParaBaixoEFicaAbaixoDeCem() {
+        // 1 - 0,67 * 0,67 = 55,11%
+        assertEquals(55, PromocaoService.getPorcentagem(List.of(new PromocaoAtiva(33, 0, true), new PromocaoAtiva(33, 0, true))));
+        assertEquals(99, PromocaoService.getPorcentagem(List.of(new PromocaoAtiva(99, 0, true), new PromocaoAtiva(99, 0, true))));
+    }
+}